@@ -34,6 +34,7 @@ import com.ibm.fhir.cli.invoker.CreateInvoker;
 import com.ibm.fhir.cli.invoker.DeleteInvoker;
 import com.ibm.fhir.cli.invoker.HistoryInvoker;
 import com.ibm.fhir.cli.invoker.InvocationContext;
+import com.ibm.fhir.cli.invoker.LoadInvoker;
 import com.ibm.fhir.cli.invoker.MetadataInvoker;
 import com.ibm.fhir.cli.invoker.OperationInvoker;
 import com.ibm.fhir.cli.invoker.ReadInvoker;
@@ -92,6 +93,10 @@ public class FHIRCLI {
     public static void setConsoleStream(PrintStream stream) {
         console = stream;
     }
+
+    public static PrintStream getConsoleStream() {
+        return console;
+    }
     
     private static void println(String s) {
         console.println(s);
@@ -118,6 +123,7 @@ public class FHIRCLI {
         invokers.put(Operations.DELETE, new DeleteInvoker());
         invokers.put(Operations.COND_DELETE, new ConditionalDeleteInvoker());
         invokers.put(Operations.HISTORY, new HistoryInvoker());
+        invokers.put(Operations.LOAD, new LoadInvoker());
         invokers.put(Operations.METADATA, new MetadataInvoker());
         invokers.put(Operations.READ, new ReadInvoker());
         invokers.put(Operations.SEARCH, new SearchInvoker());
@@ -218,6 +224,16 @@ public class FHIRCLI {
             ic.setOutputFile(cmdline.getOptionValue(OptionNames.OUTPUT.getShortName()));
         }
         
+        // Set the batch size in the IC.
+        if (cmdline.hasOption(OptionNames.BATCHSIZE.getShortName())) {
+            String batchSize = cmdline.getOptionValue(OptionNames.BATCHSIZE.getShortName());
+            try {
+                ic.setBatchSize(Integer.parseUnsignedInt(batchSize));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+            }
+        }
+        
         // Set the verbose flag in the IC.
         if (cmdline.hasOption(OptionNames.VERBOSE.getShortName())) {
             ic.setVerbose(true);
@@ -366,6 +382,7 @@ public class FHIRCLI {
             .addOption(Option.builder(OptionNames.RESOURCETYPE.getShortName()).longOpt(OptionNames.RESOURCETYPE.getLongName()).desc(OptionNames.RESOURCETYPE.getDesc()).hasArg().argName(OptionNames.RESOURCETYPE.getArgName()).build())
             .addOption(Option.builder(OptionNames.ID.getShortName()).longOpt(OptionNames.ID.getLongName()).desc(OptionNames.ID.getDesc()).hasArg().argName(OptionNames.ID.getArgName()).build())
             .addOption(Option.builder(OptionNames.VERSIONID.getShortName()).longOpt(OptionNames.VERSIONID.getLongName()).desc(OptionNames.VERSIONID.getDesc()).hasArg().argName(OptionNames.VERSIONID.getArgName()).build())
+            .addOption(Option.builder(OptionNames.BATCHSIZE.getShortName()).longOpt(OptionNames.BATCHSIZE.getLongName()).desc(OptionNames.BATCHSIZE.getDesc()).hasArg().argName(OptionNames.BATCHSIZE.getArgName()).build())
             .addOption(Option.builder(OptionNames.OUTPUT.getShortName()).longOpt(OptionNames.OUTPUT.getLongName()).desc(OptionNames.OUTPUT.getDesc()).hasArg().argName(OptionNames.OUTPUT.getArgName()).build())
             .addOption(Option.builder(OptionNames.QUERYPARAMETER.getShortName()).longOpt(OptionNames.QUERYPARAMETER.getLongName()).desc(OptionNames.QUERYPARAMETER.getDesc()).numberOfArgs(2).argName(OptionNames.QUERYPARAMETER.getArgName()).valueSeparator().build())
             .addOption(Option.builder(OptionNames.HEADER.getShortName()).longOpt(OptionNames.HEADER.getLongName()).desc(OptionNames.HEADER.getDesc()).numberOfArgs(2).argName(OptionNames.HEADER.getArgName()).valueSeparator().build());
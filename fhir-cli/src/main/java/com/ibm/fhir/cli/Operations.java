@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -18,6 +18,7 @@ public enum Operations {
     DELETE("delete", OptionNames.RESOURCETYPE, OptionNames.ID),
     COND_DELETE("conditional-delete", OptionNames.RESOURCETYPE),
     HISTORY("history", OptionNames.RESOURCETYPE, OptionNames.ID),
+    LOAD("load", OptionNames.RESOURCE),
     METADATA("metadata"),
     READ("read", OptionNames.RESOURCETYPE, OptionNames.ID),
     SEARCH("search", OptionNames.RESOURCETYPE),
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -22,6 +22,7 @@ public enum OptionNames {
     PROPERTIES("properties", "p", "Use FHIR Client properties contained in <FILE> (e.g. fhir-cli.properties)", "FILE"),
     QUERYPARAMETER("queryParameter", "qp", "Include query parameter NAME=VALUE with the operation invocation (e.g. _count=100).", "NAME=VALUE"),
     HEADER("header", "H", "Include the specified request header NAME=VALUE with the operation invocation (e.g. If-Match=W/\"3\").", "NAME=VALUE"),
+    BATCHSIZE("batchSize", "bs", "Use <SIZE> resources per batch bundle for the load operation (default 100)", "SIZE"),
     OUTPUT("output", "o", "Write output resource to <FILE> (e.g. searchresults.json)", "FILE"),
     HELP("help", "h", "Display this help text"),
     VERBOSE("verbose", "v", "Display detailed output");
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -22,7 +22,7 @@ public class BatchInvoker extends OperationInvoker {
     public void doInvoke(InvocationContext ic) throws Exception {
         Object resource = ic.getRequestResourceWithExcp();
         if (resource instanceof Bundle) {
-            response = client.batch((Bundle)resource, requestHeaders);
+            response = await(asyncClient.batch((Bundle)resource, requestHeaders));
         } else {
             throw new IllegalArgumentException("Input resource must be a Bundle.");
         }
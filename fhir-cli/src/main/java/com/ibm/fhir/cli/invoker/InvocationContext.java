@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -54,6 +54,7 @@ public class InvocationContext {
     private String propertiesFile;
     private String resourceFile;
     private boolean verbose;
+    private int batchSize;
     private FHIRResponse response;
     private List<NameValuePair> queryParameters = new ArrayList<>();
     private List<NameValuePair> headers = new ArrayList<>();
@@ -133,6 +134,14 @@ public class InvocationContext {
         this.resourceFile = resourceFile;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     public boolean isVerbose() {
         return verbose;
     }
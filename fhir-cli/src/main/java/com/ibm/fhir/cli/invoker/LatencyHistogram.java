@@ -0,0 +1,99 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.cli.invoker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of request latencies with power-of-two millisecond buckets
+ * (bucket i holds latencies in [2^(i-1), 2^i) ms, bucket 0 holds latencies below 1ms).
+ * Percentiles are reported as the upper bound of the bucket in which they fall.
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    /**
+     * Records a single latency.
+     * @param millis the latency in milliseconds
+     */
+    public void record(long millis) {
+        int bucket = millis <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(millis));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMillis.addAndGet(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    public double getMeanMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) totalMillis.get() / n;
+    }
+
+    /**
+     * @param percentile a value between 0 and 100
+     * @return the upper bound, in milliseconds, of the bucket containing the passed percentile, or 0 if empty
+     */
+    public long getPercentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return maxMillis.get();
+    }
+
+    /**
+     * @return a one-line summary of the latency distribution
+     */
+    public String summary() {
+        return String.format("latency(ms) mean=%.1f p50<=%d p90<=%d p99<=%d max=%d",
+            getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99), getMaxMillis());
+    }
+
+    /**
+     * @return a multi-line rendering of the non-empty buckets
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        long n = count.get();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = buckets.get(i);
+            if (c == 0) {
+                continue;
+            }
+            long lower = i == 0 ? 0 : 1L << (i - 1);
+            int bar = (int) (40 * c / Math.max(1, n));
+            sb.append(String.format("%8d - %-8d ms %10d ", lower, 1L << i, c));
+            for (int j = 0; j < bar; j++) {
+                sb.append('#');
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
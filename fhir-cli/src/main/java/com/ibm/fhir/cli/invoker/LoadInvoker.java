@@ -0,0 +1,268 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.cli.invoker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.fhir.cli.FHIRCLI;
+import com.ibm.fhir.client.FHIRResponse;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.HTTPVerb;
+
+/**
+ * This class is the OperationInvoker implementation for the 'load' operation.
+ *
+ * <p>The resources contained in the NDJSON (.ndjson) and JSON (.json) files specified by the 'resource' option
+ * (a file or a directory) are streamed from disk and repackaged into batch bundles of 'batchSize' entries.
+ * Resources with an id are updated (PUT), resources without one are created (POST); the requests of Bundle files
+ * are ignored. The batches are submitted concurrently through the FHIRAsyncClient, so at most
+ * fhirclient.async.maxInFlight batches are in flight at the same time. Batches rejected with a 429 or 503 status
+ * are retried with an exponential backoff (or after the interval of the Retry-After header). The throughput and
+ * a latency histogram are printed while loading and at the end.
+ */
+public class LoadInvoker extends OperationInvoker {
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int MAX_RETRIES = 6;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+
+    private final AtomicLong submittedResources = new AtomicLong();
+    private final AtomicLong loadedResources = new AtomicLong();
+    private final AtomicLong failedResources = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService retryExecutor;
+    private List<CompletableFuture<Void>> batches;
+    private int batchSize;
+    private long startTime;
+
+    /* (non-Javadoc)
+     * @see com.ibm.fhir.cli.OperationInvoker#invoke(com.ibm.fhir.cli.InvocationContext)
+     */
+    @Override
+    public void doInvoke(InvocationContext ic) throws Exception {
+        String resourceFile = ic.getResourceFile();
+        if (resourceFile == null || resourceFile.isEmpty()) {
+            throw new IllegalArgumentException("The 'resource' option must specify a file or a directory.");
+        }
+        File input = new File(resourceFile);
+        if (!input.exists()) {
+            throw new FileNotFoundException("File or directory '" + resourceFile + "' not found.");
+        }
+
+        batchSize = ic.getBatchSize() > 0 ? ic.getBatchSize() : DEFAULT_BATCH_SIZE;
+        batches = new ArrayList<>();
+        PrintStream console = FHIRCLI.getConsoleStream();
+        startTime = System.nanoTime();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fhir-cli-load");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(() -> console.println(progress()),
+            PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // Resubmitting a batch blocks while the maximum number of batches is in flight, so retries are
+        // resubmitted from their own threads rather than from the scheduler thread.
+        AtomicInteger retryThreadCount = new AtomicInteger();
+        retryExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "fhir-cli-load-retry-" + retryThreadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Resource> pending = new ArrayList<>(batchSize);
+            for (File file : listFiles(input)) {
+                loadFile(file, pending);
+            }
+            if (!pending.isEmpty()) {
+                submitBatch(pending);
+            }
+
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[batches.size()])).join();
+        } finally {
+            scheduler.shutdownNow();
+            retryExecutor.shutdownNow();
+        }
+
+        console.println();
+        console.println(progress());
+        console.print(latencies.render());
+        if (failedResources.get() > 0 || failedBatches.get() > 0) {
+            console.println("Failed resources: " + failedResources.get() + ", failed batches: " + failedBatches.get());
+        }
+    }
+
+    private List<File> listFiles(File input) {
+        List<File> files = new ArrayList<>();
+        if (input.isDirectory()) {
+            File[] children = input.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    files.addAll(listFiles(child));
+                }
+            }
+        } else if (input.getName().endsWith(".ndjson") || input.getName().endsWith(".json")) {
+            files.add(input);
+        }
+        return files;
+    }
+
+    /**
+     * Streams the resources of the passed file into the pending list, submitting a batch each time it is full.
+     */
+    private void loadFile(File file, List<Resource> pending) throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            if (file.getName().endsWith(".ndjson")) {
+                BufferedReader lines = new BufferedReader(reader);
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        add(FHIRParser.parser(Format.JSON).parse(new StringReader(line)), pending);
+                    }
+                }
+            } else {
+                Resource resource = FHIRParser.parser(Format.JSON).parse(reader);
+                if (resource instanceof Bundle) {
+                    for (Bundle.Entry entry : ((Bundle) resource).getEntry()) {
+                        if (entry.getResource() != null) {
+                            add(entry.getResource(), pending);
+                        }
+                    }
+                } else {
+                    add(resource, pending);
+                }
+            }
+        }
+    }
+
+    private void add(Resource resource, List<Resource> pending) {
+        pending.add(resource);
+        if (pending.size() >= batchSize) {
+            submitBatch(new ArrayList<>(pending));
+            pending.clear();
+        }
+    }
+
+    private void submitBatch(List<Resource> resources) {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.BATCH);
+        for (Resource resource : resources) {
+            String type = resource.getClass().getSimpleName();
+            Bundle.Entry.Request request = resource.getId() != null
+                    ? Bundle.Entry.Request.builder().method(HTTPVerb.PUT).url(Uri.of(type + "/" + resource.getId())).build()
+                    : Bundle.Entry.Request.builder().method(HTTPVerb.POST).url(Uri.of(type)).build();
+            builder.entry(Bundle.Entry.builder().resource(resource).request(request).build());
+        }
+        Bundle bundle = builder.build();
+
+        submittedResources.addAndGet(resources.size());
+        CompletableFuture<Void> batch = submit(bundle, 0).thenAccept(response -> processResponse(response, resources.size()))
+                .exceptionally(t -> {
+                    failedBatches.incrementAndGet();
+                    failedResources.addAndGet(resources.size());
+                    return null;
+                }).toCompletableFuture();
+        batches.add(batch);
+    }
+
+    /**
+     * Submits the batch bundle, retrying with backoff while the server responds with 429 or 503.
+     * Blocks while the maximum number of batches is in flight.
+     */
+    private CompletionStage<FHIRResponse> submit(Bundle bundle, int attempt) {
+        long start = System.nanoTime();
+        return asyncClient.batch(bundle, requestHeaders).thenCompose(response -> {
+            int status = response.getStatus();
+            if ((status == 429 || status == 503) && attempt < MAX_RETRIES) {
+                retries.incrementAndGet();
+                CompletableFuture<FHIRResponse> retry = new CompletableFuture<>();
+                scheduler.schedule(() -> retryExecutor.execute(() -> {
+                    submit(bundle, attempt + 1).whenComplete((r, t) -> {
+                        if (t != null) {
+                            retry.completeExceptionally(t);
+                        } else {
+                            retry.complete(r);
+                        }
+                    });
+                }), getBackoffMillis(response, attempt), TimeUnit.MILLISECONDS);
+                return retry;
+            }
+            latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    private long getBackoffMillis(FHIRResponse response, int attempt) {
+        try {
+            String retryAfter = response.getResponse().getHeaderString("Retry-After");
+            if (retryAfter != null) {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            }
+        } catch (Exception e) {
+            // not a delay in seconds; use the exponential backoff
+        }
+        return INITIAL_BACKOFF_MILLIS << attempt;
+    }
+
+    private void processResponse(FHIRResponse response, int size) {
+        try {
+            if (response.getStatus() != 200) {
+                failedBatches.incrementAndGet();
+                failedResources.addAndGet(size);
+                return;
+            }
+            Bundle responseBundle = response.getResource(Bundle.class);
+            int failed = 0;
+            for (Bundle.Entry entry : responseBundle.getEntry()) {
+                if (entry.getResponse() == null || !entry.getResponse().getStatus().getValue().startsWith("2")) {
+                    failed++;
+                }
+            }
+            failedResources.addAndGet(failed);
+            loadedResources.addAndGet(size - failed);
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            failedResources.addAndGet(size);
+        }
+    }
+
+    private String progress() {
+        double seconds = Math.max(0.001, (System.nanoTime() - startTime) / 1e9);
+        return String.format("loaded=%d failed=%d submitted=%d retries=%d elapsed=%.1fs throughput=%.1f resources/s %s",
+            loadedResources.get(), failedResources.get(), submittedResources.get(), retries.get(), seconds,
+            loadedResources.get() / seconds, latencies.summary());
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -12,8 +12,11 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 
 import com.ibm.fhir.cli.invoker.InvocationContext.NameValuePair;
+import com.ibm.fhir.client.FHIRAsyncClient;
 import com.ibm.fhir.client.FHIRClient;
 import com.ibm.fhir.client.FHIRClientFactory;
 import com.ibm.fhir.client.FHIRParameters;
@@ -26,6 +29,7 @@ import com.ibm.fhir.client.FHIRResponse;
  * @author padams
  */
 public abstract class OperationInvoker {
+    protected FHIRAsyncClient asyncClient;
     protected FHIRClient client;
     protected FHIRResponse response;
     protected FHIRParameters queryParameters;
@@ -44,7 +48,8 @@ public abstract class OperationInvoker {
         response = null;
         queryParameters = null;
         Properties properties = loadClientProperties(ic.getPropertiesFile());
-        client = getClient(properties);
+        asyncClient = getAsyncClient(properties);
+        client = asyncClient.getClient();
 
         // If query parameters were specified on the command line,
         // then create a FHIRParameters object and store them in it.
@@ -77,6 +82,25 @@ public abstract class OperationInvoker {
      */
     public void postInvoke(InvocationContext ic) throws Exception {
         ic.setResponse(response);
+        asyncClient.close();
+    }
+
+    /**
+     * Waits for the passed response of the FHIRAsyncClient, rethrowing the failure of the request (rather than an
+     * ExecutionException wrapping it) if it failed.
+     */
+    protected FHIRResponse await(CompletionStage<FHIRResponse> stage) throws Exception {
+        try {
+            return stage.toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
     }
 
     /**
@@ -108,9 +132,10 @@ public abstract class OperationInvoker {
     }
 
     /**
-     * Retrieves a new FHIRClient instance using the specified properties.
+     * Retrieves a new FHIRAsyncClient instance using the specified properties.
+     * The synchronous FHIRClient used by the invokers is the one wrapped by this instance.
      */
-    protected FHIRClient getClient(Properties properties) throws Exception {
-        return FHIRClientFactory.getClient(properties);
+    protected FHIRAsyncClient getAsyncClient(Properties properties) throws Exception {
+        return FHIRClientFactory.getAsyncClient(properties);
     }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -20,6 +20,6 @@ public class SearchInvoker extends OperationInvoker {
     public void doInvoke(InvocationContext ic) throws Exception {
         String resourceType = ic.getResourceTypeWithExcp();
         
-        response = client.search(resourceType, queryParameters, requestHeaders);
+        response = await(asyncClient.search(resourceType, queryParameters, requestHeaders));
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.cli.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.cli.invoker.LatencyHistogram;
+
+/**
+ * Tests the percentiles and rendering of the LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(histogram.getCount(), 0);
+        assertEquals(histogram.getPercentileMillis(50), 0);
+        assertEquals(histogram.getMeanMillis(), 0.0);
+        assertEquals(histogram.render(), "");
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 90 fast requests (bucket [4, 8) ms), 9 slower ones (bucket [64, 128) ms) and one outlier
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(100);
+        }
+        histogram.record(3000);
+
+        assertEquals(histogram.getCount(), 100);
+        assertEquals(histogram.getMaxMillis(), 3000);
+        assertEquals(histogram.getMeanMillis(), (90 * 5 + 9 * 100 + 3000) / 100.0);
+        assertEquals(histogram.getPercentileMillis(50), 8);
+        assertEquals(histogram.getPercentileMillis(90), 8);
+        assertEquals(histogram.getPercentileMillis(99), 128);
+        assertEquals(histogram.getPercentileMillis(100), 4096);
+        assertTrue(histogram.summary().contains("p50<=8 p90<=8 p99<=128 max=3000"), histogram.summary());
+        assertEquals(histogram.render().split(System.lineSeparator()).length, 3);
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        assertEquals(histogram.getPercentileMillis(100), 1);
+        histogram.record(1);
+        assertEquals(histogram.getPercentileMillis(100), 2);
+        histogram.record(2);
+        assertEquals(histogram.getPercentileMillis(100), 4);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(histogram.getPercentileMillis(100), 1L << 31);
+    }
+}
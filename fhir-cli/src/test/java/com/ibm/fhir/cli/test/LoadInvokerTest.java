@@ -0,0 +1,284 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.cli.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.Response;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.cli.FHIRCLI;
+import com.ibm.fhir.cli.invoker.InvocationContext;
+import com.ibm.fhir.cli.invoker.LoadInvoker;
+import com.ibm.fhir.client.FHIRAsyncClient;
+import com.ibm.fhir.client.FHIRClient;
+import com.ibm.fhir.client.FHIRParameters;
+import com.ibm.fhir.client.FHIRRequestHeader;
+import com.ibm.fhir.client.FHIRResponse;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.code.BundleType;
+
+/**
+ * Tests the retry and backoff behavior of the LoadInvoker against a stubbed FHIRAsyncClient.
+ */
+public class LoadInvokerTest {
+    private File resourceFile;
+    private File propertiesFile;
+    private PrintStream originalConsole;
+    private ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+    @BeforeClass
+    public void setup() throws Exception {
+        resourceFile = File.createTempFile("load", ".ndjson");
+        Files.write(resourceFile.toPath(), Arrays.asList(
+            "{\"resourceType\":\"Patient\",\"id\":\"1\",\"active\":true}",
+            "{\"resourceType\":\"Patient\",\"active\":true}"), StandardCharsets.UTF_8);
+        propertiesFile = File.createTempFile("fhir-cli", ".properties");
+        originalConsole = FHIRCLI.getConsoleStream();
+        FHIRCLI.setConsoleStream(new PrintStream(console, true));
+    }
+
+    @AfterClass
+    public void teardown() {
+        FHIRCLI.setConsoleStream(originalConsole);
+        resourceFile.delete();
+        propertiesFile.delete();
+    }
+
+    @Test
+    public void testRetryWithBackoff() throws Exception {
+        // 503 with a Retry-After of 1 second, then 429 without one (exponential backoff of 1 second), then success
+        StubClient stub = new StubClient(
+            response(Response.status(503).header("Retry-After", "1").build(), null),
+            response(Response.status(429).build(), null),
+            response(Response.ok().build(), batchResponse("200", "201")));
+
+        InvocationContext ic = new InvocationContext();
+        ic.setResourceFile(resourceFile.getAbsolutePath());
+        ic.setPropertiesFile(propertiesFile.getAbsolutePath());
+        new StubLoadInvoker(stub).invoke(ic);
+
+        assertEquals(stub.threads.size(), 3);
+        assertTrue(stub.delays.get(1) >= 900, "first retry after " + stub.delays.get(1) + "ms");
+        assertTrue(stub.delays.get(2) >= 900, "second retry after " + stub.delays.get(2) + "ms");
+        // retries are resubmitted from the retry threads, not the scheduler thread
+        assertTrue(stub.threads.get(1).startsWith("fhir-cli-load-retry-"), stub.threads.get(1));
+        assertTrue(stub.threads.get(2).startsWith("fhir-cli-load-retry-"), stub.threads.get(2));
+        assertTrue(console.toString().contains("loaded=2 failed=0 submitted=2 retries=2"), console.toString());
+    }
+
+    private static Bundle batchResponse(String... statuses) {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.BATCH_RESPONSE);
+        for (String status : statuses) {
+            builder.entry(Bundle.Entry.builder()
+                .response(Bundle.Entry.Response.builder().status(com.ibm.fhir.model.type.String.of(status)).build())
+                .build());
+        }
+        return builder.build();
+    }
+
+    private static FHIRResponse response(Response response, Bundle bundle) {
+        return new StubResponse(response, bundle);
+    }
+
+    /**
+     * A FHIRResponse with the passed JAX-RS response and resource.
+     */
+    private static class StubResponse implements FHIRResponse {
+        private final Response response;
+        private final Bundle bundle;
+
+        StubResponse(Response response, Bundle bundle) {
+            this.response = response;
+            this.bundle = bundle;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getLocation() {
+            throw new UnsupportedOperationException("getLocation");
+        }
+
+        @Override
+        public URI getLocationURI() {
+            throw new UnsupportedOperationException("getLocationURI");
+        }
+
+        @Override
+        public Instant getLastModified() {
+            throw new UnsupportedOperationException("getLastModified");
+        }
+
+        @Override
+        public String getETag() {
+            throw new UnsupportedOperationException("getETag");
+        }
+
+        @Override
+        public <T> T getResource(Class<T> type) {
+            return type.cast(bundle);
+        }
+
+        @Override
+        public Response getResponse() {
+            return response;
+        }
+
+        @Override
+        public String[] parseLocation(String locationString) {
+            throw new UnsupportedOperationException("parseLocation");
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bundle == null;
+        }
+    }
+
+    /**
+     * Answers the batch requests with the passed responses, recording the thread and the delay of each request.
+     */
+    private static class StubClient implements FHIRAsyncClient {
+        private final List<FHIRResponse> responses;
+        private final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> delays = Collections.synchronizedList(new ArrayList<>());
+        private long last = System.nanoTime();
+
+        StubClient(FHIRResponse... responses) {
+            this.responses = new ArrayList<>(Arrays.asList(responses));
+        }
+
+        @Override
+        public synchronized CompletionStage<FHIRResponse> batch(Bundle bundle, FHIRRequestHeader... headers) {
+            long now = System.nanoTime();
+            delays.add(TimeUnit.NANOSECONDS.toMillis(now - last));
+            last = now;
+            threads.add(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(responses.remove(0));
+        }
+
+        @Override
+        public FHIRClient getClient() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public int getMaxInFlight() {
+            throw new UnsupportedOperationException("getMaxInFlight");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> metadata(FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("metadata");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> create(Resource resource, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("create");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> conditionalCreate(Resource resource, FHIRParameters parameters, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("conditionalCreate");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> update(Resource resource, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("update");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> conditionalUpdate(Resource resource, FHIRParameters parameters, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("conditionalUpdate");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> delete(String resourceType, String resourceId, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("delete");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> read(String resourceType, String resourceId, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("read");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> vread(String resourceType, String resourceId, String versionId, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("vread");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> history(String resourceType, String resourceId, FHIRParameters parameters,
+                FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("history");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> search(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("search");
+        }
+
+        @Override
+        public CompletionStage<FHIRResponse> transaction(Bundle bundle, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("transaction");
+        }
+
+        @Override
+        public Iterator<Resource> searchIterator(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("searchIterator");
+        }
+
+        @Override
+        public Stream<Resource> searchStream(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) {
+            throw new UnsupportedOperationException("searchStream");
+        }
+    }
+
+    private static class StubLoadInvoker extends LoadInvoker {
+        private final StubClient stub;
+
+        StubLoadInvoker(StubClient stub) {
+            this.stub = stub;
+        }
+
+        @Override
+        protected FHIRAsyncClient getAsyncClient(Properties properties) {
+            return stub;
+        }
+    }
+}
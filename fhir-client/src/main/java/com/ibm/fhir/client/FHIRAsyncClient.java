@@ -0,0 +1,167 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.client;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Resource;
+
+/**
+ * This interface provides an asynchronous client API for invoking the FHIR Server's REST API.
+ *
+ * <p>Each operation is submitted to a shared pool of worker threads and returns immediately with a CompletionStage
+ * that is completed with the FHIRResponse (or exceptionally with the failure). At most
+ * {@link FHIRClient#PROPNAME_ASYNC_MAX_IN_FLIGHT} requests are in flight at the same time; callers that submit more
+ * are blocked until an earlier request completes. All requests share the connection pool of the underlying
+ * FHIRClient.
+ *
+ * <p>Instances should be closed when no longer needed.
+ */
+public interface FHIRAsyncClient extends AutoCloseable {
+
+    /**
+     * Returns the synchronous FHIRClient used to perform the requests.
+     */
+    FHIRClient getClient();
+
+    /**
+     * Returns the maximum number of requests that this client will have in flight at the same time.
+     */
+    int getMaxInFlight();
+
+    /**
+     * Invokes the 'metadata' FHIR REST API operation.
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'metadata' operation
+     */
+    CompletionStage<FHIRResponse> metadata(FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'create' FHIR REST API operation.
+     * @param resource the FHIR resource to be created
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'create' operation
+     */
+    CompletionStage<FHIRResponse> create(Resource resource, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'conditional create' FHIR REST API operation.
+     * @param resource the FHIR resource to be created
+     * @param parameters search-related query parameters to be included in the request
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'conditional create' operation
+     */
+    CompletionStage<FHIRResponse> conditionalCreate(Resource resource, FHIRParameters parameters, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'update' FHIR REST API operation.
+     * @param resource the resource to be updated
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'update' operation
+     */
+    CompletionStage<FHIRResponse> update(Resource resource, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'conditional update' FHIR REST API operation.
+     * @param resource the resource to be updated
+     * @param parameters search-related query parameters to be included in the request
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'conditional update' operation
+     */
+    CompletionStage<FHIRResponse> conditionalUpdate(Resource resource, FHIRParameters parameters, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'delete' FHIR REST API operation.
+     * @param resourceType a string representing the name of the resource type to be deleted (e.g. "Patient")
+     * @param resourceId the id of the resource to be deleted
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'delete' operation
+     */
+    CompletionStage<FHIRResponse> delete(String resourceType, String resourceId, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'read' FHIR REST API operation.
+     * @param resourceType a string representing the name of the resource type to be retrieved (e.g. "Patient")
+     * @param resourceId the id of the resource to be retrieved
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'read' operation
+     */
+    CompletionStage<FHIRResponse> read(String resourceType, String resourceId, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'vread' FHIR REST API operation.
+     * @param resourceType a string representing the name of the resource type to be retrieved (e.g. "Patient")
+     * @param resourceId the id of the resource to be retrieved
+     * @param versionId the version of the resource to be retrieved
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'vread' operation
+     */
+    CompletionStage<FHIRResponse> vread(String resourceType, String resourceId, String versionId, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'history' FHIR REST API operation.
+     * @param resourceType a string representing the name of the resource type to be retrieved (e.g. "Patient")
+     * @param resourceId the id of the resource to be retrieved
+     * @param parameters an optional collection of request parameters for the 'history' operation
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'history' operation
+     */
+    CompletionStage<FHIRResponse> history(String resourceType, String resourceId, FHIRParameters parameters, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'search' FHIR REST API operation.
+     * @param resourceType a string representing the name of the resource type to search for (e.g. "Patient")
+     * @param parameters an optional collection of request parameters for the 'search' operation
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'search' operation
+     */
+    CompletionStage<FHIRResponse> search(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'batch/transaction' FHIR REST API operation for a request bundle of type 'batch'.
+     * @param bundle the Bundle containing the individual requests
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'batch' operation
+     */
+    CompletionStage<FHIRResponse> batch(Bundle bundle, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'batch/transaction' FHIR REST API operation for a request bundle of type 'transaction'.
+     * @param bundle the Bundle containing the individual requests
+     * @param headers an optional list of request headers to be added to the request
+     * @return a CompletionStage for the response of the 'transaction' operation
+     */
+    CompletionStage<FHIRResponse> transaction(Bundle bundle, FHIRRequestHeader... headers);
+
+    /**
+     * Invokes the 'search' FHIR REST API operation and returns an Iterator over the resources of all search result
+     * pages. The first page is retrieved before this method returns; each subsequent page (the "next" link of the
+     * previous one) is requested in the background while the entries of the current page are consumed.
+     * @param resourceType a string representing the name of the resource type to search for (e.g. "Patient")
+     * @param parameters an optional collection of request parameters for the 'search' operation
+     * @param headers an optional list of request headers to be added to each request
+     * @return an Iterator over the resources of the search result entries
+     * @throws Exception if the first page could not be retrieved
+     */
+    Iterator<Resource> searchIterator(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) throws Exception;
+
+    /**
+     * Invokes the 'search' FHIR REST API operation and returns a sequential Stream over the resources of all search
+     * result pages.
+     * @see #searchIterator(String, FHIRParameters, FHIRRequestHeader...)
+     */
+    Stream<Resource> searchStream(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) throws Exception;
+
+    /**
+     * Stops accepting new requests; the requests in flight are completed.
+     */
+    @Override
+    void close();
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -123,6 +123,13 @@ public interface FHIRClient {
      * The tenant identifier to use for requests (using the header X-FHIR-TENANT-ID)
      */
     public static final String PROPNAME_TENANT_ID = "fhirclient.tenant.id";
+
+    /**
+     * The maximum number of requests that a FHIRAsyncClient instance will have in flight at the same time.
+     * Callers that submit requests beyond this limit are blocked until an earlier request completes.
+     * Defaults to 16.
+     */
+    public static final String PROPNAME_ASYNC_MAX_IN_FLIGHT = "fhirclient.async.maxInFlight";
     
     /**
      * Returns a JAX-RS 2.0 WebTarget object associated with the REST API endpoint.
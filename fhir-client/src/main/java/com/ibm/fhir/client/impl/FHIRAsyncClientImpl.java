@@ -0,0 +1,229 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.client.impl;
+
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.ibm.fhir.client.FHIRAsyncClient;
+import com.ibm.fhir.client.FHIRClient;
+import com.ibm.fhir.client.FHIRParameters;
+import com.ibm.fhir.client.FHIRRequestHeader;
+import com.ibm.fhir.client.FHIRResponse;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Resource;
+
+/**
+ * Provides an implementation of the FHIRAsyncClient interface on top of a FHIRClientImpl.
+ *
+ * <p>Requests are executed by a pool of daemon worker threads that is shared by all instances; idle workers are
+ * discarded after a minute. Each instance limits its requests in flight with a semaphore of maxInFlight permits,
+ * which is acquired by the submitting thread, so that callers are throttled instead of queueing an unbounded number
+ * of requests. Response entities are buffered on the worker thread so that the connection is returned to the pool
+ * before the CompletionStage is completed.
+ */
+public class FHIRAsyncClientImpl implements FHIRAsyncClient {
+    private static final String DEFAULT_MAX_IN_FLIGHT = "16";
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "fhir-async-client-" + THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final FHIRClientImpl client;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private volatile boolean closed = false;
+
+    /**
+     * A request to be executed by one of the worker threads.
+     */
+    @FunctionalInterface
+    private interface Request<T> {
+        T call() throws Exception;
+    }
+
+    public FHIRAsyncClientImpl(Properties props) throws Exception {
+        this(new FHIRClientImpl(props), Integer.parseUnsignedInt(props.getProperty(FHIRClient.PROPNAME_ASYNC_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT)));
+    }
+
+    public FHIRAsyncClientImpl(FHIRClientImpl client, int maxInFlight) {
+        if (client == null) {
+            throw new IllegalArgumentException("The 'client' argument is required but was null.");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("The 'maxInFlight' argument must be greater than 0.");
+        }
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public FHIRClient getClient() {
+        return client;
+    }
+
+    @Override
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> metadata(FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.metadata(headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> create(Resource resource, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.create(resource, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> conditionalCreate(Resource resource, FHIRParameters parameters, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.conditionalCreate(resource, parameters, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> update(Resource resource, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.update(resource, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> conditionalUpdate(Resource resource, FHIRParameters parameters, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.conditionalUpdate(resource, parameters, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> delete(String resourceType, String resourceId, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.delete(resourceType, resourceId, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> read(String resourceType, String resourceId, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.read(resourceType, resourceId, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> vread(String resourceType, String resourceId, String versionId, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.vread(resourceType, resourceId, versionId, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> history(String resourceType, String resourceId, FHIRParameters parameters, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.history(resourceType, resourceId, parameters, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> search(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.search(resourceType, parameters, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> batch(Bundle bundle, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.batch(bundle, headers));
+    }
+
+    @Override
+    public CompletionStage<FHIRResponse> transaction(Bundle bundle, FHIRRequestHeader... headers) {
+        return submitRequest(() -> client.transaction(bundle, headers));
+    }
+
+    @Override
+    public Iterator<Resource> searchIterator(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) throws Exception {
+        Bundle firstPage = toSearchResult(client.search(resourceType, parameters, headers));
+        return new SearchResultIterator(firstPage, url -> submit(() -> toSearchResult(client.get(url, headers))));
+    }
+
+    @Override
+    public Stream<Resource> searchStream(String resourceType, FHIRParameters parameters, FHIRRequestHeader... headers) throws Exception {
+        Iterator<Resource> iterator = searchIterator(resourceType, parameters, headers);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Converts the response of a search request into the search result bundle.
+     */
+    private Bundle toSearchResult(FHIRResponse response) throws Exception {
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Search request failed with status code " + response.getStatus());
+        }
+        return response.getResource(Bundle.class);
+    }
+
+    /**
+     * Submits a request which returns a FHIRResponse, buffering the response entity on the worker thread.
+     */
+    private CompletionStage<FHIRResponse> submitRequest(Request<FHIRResponse> request) {
+        return submit(() -> {
+            FHIRResponse response = request.call();
+            if (!response.isEmpty()) {
+                response.getResponse().bufferEntity();
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Submits a request to the worker threads, blocking the calling thread while maxInFlight requests are in flight.
+     */
+    private <T> CompletionStage<T> submit(Request<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new RejectedExecutionException("The client has been closed."));
+            return result;
+        }
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        try {
+            EXECUTOR.execute(() -> {
+                T value = null;
+                Throwable failure = null;
+                try {
+                    value = request.call();
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    // Release the permit before completing; dependent stages may submit new requests on this thread.
+                    inFlight.release();
+                }
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(value);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
@@ -656,6 +656,20 @@ public class FHIRClientImpl implements FHIRClient {
         return new FHIRResponseImpl(response);
     }
 
+    /**
+     * Performs a GET against the specified absolute URL (e.g. a search result "next" link), using the same
+     * client configuration and request headers as the other operations.
+     */
+    FHIRResponse get(String url, FHIRRequestHeader... headers) throws Exception {
+        if (url == null) {
+            throw new IllegalArgumentException("The 'url' argument is required but was null.");
+        }
+        Invocation.Builder builder = getClient().target(url).request(getDefaultMimeType());
+        builder = addRequestHeaders(builder, headers);
+        Response response = builder.get();
+        return new FHIRResponseImpl(response);
+    }
+
     private FHIRResponse _bundle(Bundle bundle, BundleType bundleType, FHIRRequestHeader... headers) throws Exception {
         Bundle bundleNew = bundle.toBuilder().type(bundleType).build();
 
@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.client.impl;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.code.SearchEntryMode;
+
+/**
+ * An Iterator over the resources of a paged search result which follows the "next" links of the search result
+ * bundles. As soon as a page has been received, the request for the following page is started so that it overlaps
+ * with the consumption of the entries of the current page. Entries that don't contain a resource and
+ * OperationOutcome entries with a search mode of 'outcome' are skipped.
+ */
+public class SearchResultIterator implements Iterator<Resource> {
+    private final Function<String, CompletionStage<Bundle>> pageLoader;
+    private Iterator<Bundle.Entry> entries;
+    private CompletableFuture<Bundle> nextPage;
+    private Resource next;
+
+    /**
+     * @param firstPage the first page of the search result
+     * @param pageLoader a function that requests the page for the passed "next" link url
+     */
+    public SearchResultIterator(Bundle firstPage, Function<String, CompletionStage<Bundle>> pageLoader) {
+        this.pageLoader = pageLoader;
+        setPage(firstPage);
+    }
+
+    private void setPage(Bundle page) {
+        entries = page.getEntry().iterator();
+        nextPage = null;
+        for (Bundle.Link link : page.getLink()) {
+            if ("next".equals(link.getRelation().getValue()) && link.getUrl().getValue() != null) {
+                nextPage = pageLoader.apply(link.getUrl().getValue()).toCompletableFuture();
+                break;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (entries.hasNext()) {
+                Bundle.Entry entry = entries.next();
+                if (entry.getResource() != null && !isOutcome(entry)) {
+                    next = entry.getResource();
+                }
+            } else if (nextPage != null) {
+                try {
+                    setPage(nextPage.join());
+                } catch (CompletionException e) {
+                    nextPage = null;
+                    throw new IllegalStateException("Unable to retrieve the next page of the search result", e.getCause());
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Resource next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Resource resource = next;
+        next = null;
+        return resource;
+    }
+
+    private boolean isOutcome(Bundle.Entry entry) {
+        return entry.getSearch() != null && SearchEntryMode.OUTCOME.equals(entry.getSearch().getMode());
+    }
+}
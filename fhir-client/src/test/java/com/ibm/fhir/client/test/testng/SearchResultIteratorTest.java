@@ -0,0 +1,96 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.client.test.testng;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.client.impl.SearchResultIterator;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.OperationOutcome;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.IssueSeverity;
+import com.ibm.fhir.model.type.code.IssueType;
+import com.ibm.fhir.model.type.code.SearchEntryMode;
+
+/**
+ * Tests the paging behavior of the SearchResultIterator.
+ */
+public class SearchResultIteratorTest {
+
+    @Test
+    public void testPaging() {
+        List<String> requestedUrls = new ArrayList<>();
+        Bundle page1 = page("next-1", patient("1"), patient("2"));
+        Bundle page2 = page("next-2");
+        Bundle page3 = page(null, patient("3"), outcome());
+
+        Iterator<Resource> iterator = new SearchResultIterator(page1, url -> {
+            requestedUrls.add(url);
+            return CompletableFuture.completedFuture("next-1".equals(url) ? page2 : page3);
+        });
+
+        // the second page is requested as soon as the first one is available
+        assertEquals(requestedUrls.size(), 1);
+
+        List<String> ids = new ArrayList<>();
+        iterator.forEachRemaining(r -> ids.add(r.getId()));
+        assertEquals(ids.toString(), "[1, 2, 3]");
+        assertEquals(requestedUrls.toString(), "[next-1, next-2]");
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPagingFailure() {
+        CompletableFuture<Bundle> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new Exception("page not available"));
+        Iterator<Resource> iterator = new SearchResultIterator(page("next-1"), url -> failure);
+        iterator.hasNext();
+    }
+
+    private Bundle page(String next, Resource... resources) {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.SEARCHSET);
+        if (next != null) {
+            builder.link(Bundle.Link.builder()
+                .relation(com.ibm.fhir.model.type.String.of("next"))
+                .url(Uri.of(next))
+                .build());
+        }
+        for (Resource resource : resources) {
+            builder.entry(Bundle.Entry.builder()
+                .resource(resource)
+                .search(Bundle.Entry.Search.builder()
+                    .mode(resource instanceof OperationOutcome ? SearchEntryMode.OUTCOME : SearchEntryMode.MATCH)
+                    .build())
+                .build());
+        }
+        return builder.build();
+    }
+
+    private Patient patient(String id) {
+        return Patient.builder().id(id).build();
+    }
+
+    private OperationOutcome outcome() {
+        return OperationOutcome.builder()
+            .issue(OperationOutcome.Issue.builder()
+                .severity(IssueSeverity.WARNING)
+                .code(IssueType.INFORMATIONAL)
+                .build())
+            .build();
+    }
+}
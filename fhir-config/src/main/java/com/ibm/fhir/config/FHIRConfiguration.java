@@ -34,6 +34,16 @@ public class FHIRConfiguration {
     public static final String PROPERTY_CHECK_REFERENCE_TYPES = "fhirServer/core/checkReferenceTypes";
     public static final String PROPERTY_CONDITIONAL_DELETE_MAX_NUMBER = "fhirServer/core/conditionalDeleteMaxNumber";
     public static final String PROPERTY_SERVER_REGISTRY_RESOURCE_PROVIDER_ENABLED = "fhirServer/core/serverRegistryResourceProviderEnabled";
+    public static final String PROPERTY_PAYLOAD_PASS_THROUGH = "fhirServer/core/payloadPassThrough";
+    public static final String PROPERTY_REQUEST_EXECUTION_MODE = "fhirServer/core/requestExecution/mode";
+    public static final String PROPERTY_REQUEST_EXECUTION_THREADS = "fhirServer/core/requestExecution/threads";
+    public static final String PROPERTY_REQUEST_EXECUTION_TENANT_MAX_CONCURRENCY = "fhirServer/core/requestExecution/tenantMaxConcurrency";
+    public static final String PROPERTY_REQUEST_EXECUTION_TENANT_MAX_WAITING = "fhirServer/core/requestExecution/tenantMaxWaiting";
+    public static final String PROPERTY_REQUEST_EXECUTION_TIMEOUT_SECONDS = "fhirServer/core/requestExecution/timeoutSeconds";
+    public static final String PROPERTY_ADMISSION_MAX_CONCURRENT_REQUESTS = "fhirServer/core/admission/maxConcurrentRequests";
+    public static final String PROPERTY_ADMISSION_INTERACTION_MAX_CONCURRENT_REQUESTS = "fhirServer/core/admission/interactionMaxConcurrentRequests";
+    public static final String PROPERTY_ADMISSION_REQUESTS_PER_SECOND = "fhirServer/core/admission/requestsPerSecond";
+    public static final String PROPERTY_ADMISSION_BURST_SIZE = "fhirServer/core/admission/burstSize";
 
     public static final String PROPERTY_SEARCH_PARAMETER_FILTER = "fhirServer/searchParameterFilter";
 
@@ -77,6 +87,8 @@ public class FHIRConfiguration {
     public static final String PROPERTY_JDBC_ENABLE_CODE_SYSTEMS_CACHE = "fhirServer/persistence/jdbc/enableCodeSystemsCache";
     public static final String PROPERTY_JDBC_ENABLE_PARAMETER_NAMES_CACHE = "fhirServer/persistence/jdbc/enableParameterNamesCache";
     public static final String PROPERTY_JDBC_ENABLE_RESOURCE_TYPES_CACHE = "fhirServer/persistence/jdbc/enableResourceTypesCache";
+    public static final String PROPERTY_JDBC_CODE_SYSTEMS_CACHE_SIZE = "fhirServer/persistence/jdbc/codeSystemsCacheSize";
+    public static final String PROPERTY_JDBC_CHANGE_LOG_SETTLE_SECONDS = "fhirServer/persistence/jdbc/changeLogSettleSeconds";
 
     // Used to indicate the default behavior of a datastore as multitenant.
     public static final List<String> DATASTORE_MULTITENANT_DEFAULT = Arrays.asList("db2");
@@ -84,6 +96,12 @@ public class FHIRConfiguration {
     // fhir-search - Bounding area
     public static final String PROPERTY_SEARCH_BOUNDING_AREA_RADIUS_TYPE = "fhirServer/search/useBoundingRadius";
 
+    // fhir-search - Compartment searches use the compartment membership stored with each resource
+    public static final String PROPERTY_SEARCH_USE_STORED_COMPARTMENT_PARAM = "fhirServer/search/useStoredCompartmentParam";
+
+    // fhir-search - Search parameters whose sort values are materialized in the <TYPE>_SORT_VALUES tables
+    public static final String PROPERTY_SEARCH_SORT_VALUE_PARAMETERS = "fhirServer/search/sortValueParameters";
+
     // bulkdata
     // JavaBatch Job id encryption key
     public static final String PROPERTY_BULKDATA_BATCHJOBID_ENCRYPTION_KEY = "fhirServer/bulkdata/bulkDataBatchJobIdEncryptionKey";
@@ -6,8 +6,11 @@
 
 package com.ibm.fhir.database.utils.api;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import com.ibm.fhir.database.utils.model.ColumnBase;
@@ -70,12 +73,13 @@ public interface IDatabaseAdapter {
      * @param schemaName
      * @param name
      * @param tenantColumnName optional column name to enable multi-tenancy
+     * @param timePartitionColumnName optional timestamp column name to range-partition each tenant by time
      * @param columns
      * @param primaryKey
      * @param identity
      * @param tablespaceName
      */
-    public void createTable(String schemaName, String name, String tenantColumnName, List<ColumnBase> columns,
+    public void createTable(String schemaName, String name, String tenantColumnName, String timePartitionColumnName, List<ColumnBase> columns,
             PrimaryKeyDef primaryKey, IdentityDef identity, String tablespaceName);
 
     /**
@@ -285,6 +289,61 @@ public interface IDatabaseAdapter {
      */
     public void createTenantPartitions(Collection<Table> tables, String schemaName, int newTenantId, int extentSizeKB);
 
+    /**
+     * Add the partition for the given tenant to the table, storing it in the given tablespace
+     *
+     * @param table
+     * @param newTenantId
+     * @param tablespaceName
+     */
+    public void createTenantPartition(Table table, int newTenantId, String tablespaceName);
+
+    /**
+     * Get the ids of the tenants which have a partition in each of the tenant-partitioned
+     * tables of the given schema
+     *
+     * @param schemaName
+     * @return the tenant ids, by table name
+     */
+    public Map<String, Set<Integer>> getTenantPartitionIds(String schemaName);
+
+    /**
+     * Detach the future partitions (which take the rows after the last monthly partition) of the
+     * tenants of the time-partitioned table which need monthly partitions up to the given date, so
+     * that their ranges can be reused by {@link #rollTimePartitions(Table, LocalDate, Collection)}
+     * in a later transaction. A future partition which isn't empty is left in place.
+     *
+     * @param table
+     * @param until
+     * @return the names of the detached partitions
+     */
+    public List<String> detachFutureTimePartitions(Table table, LocalDate until);
+
+    /**
+     * Add monthly partitions to each tenant of the time-partitioned table, so that every
+     * tenant has partitions for all timestamps before the given date, followed by a future
+     * partition for all later timestamps
+     *
+     * @param table
+     * @param until
+     * @param detachedPartitions the future partitions detached by {@link #detachFutureTimePartitions(Table, LocalDate)}
+     */
+    public void rollTimePartitions(Table table, LocalDate until, Collection<String> detachedPartitions);
+
+    /**
+     * Archive the monthly partitions of the time-partitioned table which only hold timestamps
+     * before the given date. A partition without rows to retain is detached; otherwise only its
+     * rows which don't match the retain predicate are moved. Either way, the archived rows end up
+     * in a standalone table in the same schema, which can then be exported and dropped.
+     *
+     * @param table
+     * @param before
+     * @param retainPredicate the predicate matching the rows which must stay in the table, which
+     *     refers to the rows by the correlation name T, or null
+     * @return the names of the tables holding the archived rows
+     */
+    public List<String> archiveTimePartitions(Table table, LocalDate before, String retainPredicate);
+
     /**
      * Detach the partitions from each of the given tables. The tenantStaingTable is
      * the name of the table used to record the "into" table name that the detached
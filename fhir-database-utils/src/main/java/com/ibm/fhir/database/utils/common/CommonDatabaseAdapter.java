@@ -430,8 +430,9 @@ public abstract class CommonDatabaseAdapter implements IDatabaseAdapter, IDataba
          * NO CYCLE;</CODE>
          */
         // The move to start with 1000 gives room for manual creation and update of sequences.
+        // A cache of less than 2 values means no cache, which keeps the values in order.
         final String sname = DataDefinitionUtil.getQualifiedName(schemaName, sequenceName);
-        final String ddl = "CREATE SEQUENCE " + sname + " AS BIGINT START WITH 20000 CACHE " + cache + " NO CYCLE";
+        final String ddl = "CREATE SEQUENCE " + sname + " AS BIGINT START WITH 20000 " + (cache > 1 ? "CACHE " + cache : "NO CACHE") + " NO CYCLE";
         runStatement(ddl);
 
     }
@@ -6,11 +6,16 @@
 
 package com.ibm.fhir.database.utils.db2;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -33,7 +38,9 @@ import com.ibm.fhir.database.utils.model.ColumnBase;
 import com.ibm.fhir.database.utils.model.IdentityDef;
 import com.ibm.fhir.database.utils.model.IntColumn;
 import com.ibm.fhir.database.utils.model.PrimaryKeyDef;
+import com.ibm.fhir.database.utils.model.SessionVariableDef;
 import com.ibm.fhir.database.utils.model.Table;
+import com.ibm.fhir.database.utils.model.TenantTablespace;
 import com.ibm.fhir.database.utils.transaction.TransactionFactory;
 
 /**
@@ -43,6 +50,13 @@ import com.ibm.fhir.database.utils.transaction.TransactionFactory;
 public class Db2Adapter extends CommonDatabaseAdapter {
     private static final Logger logger = Logger.getLogger(Db2Adapter.class.getName());
 
+    // The number of months after the current month a new tenant gets time partitions for
+    private static final int TIME_PARTITION_MONTHS_AHEAD = 3;
+
+    // How long to wait for the asynchronous detach of a partition to complete
+    private static final long DETACH_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long DETACH_POLL_MILLIS = 1000;
+
     /**
      * Public constructor
      * @param tgt the target database we want to manage
@@ -60,8 +74,8 @@ public class Db2Adapter extends CommonDatabaseAdapter {
     }
 
     @Override
-    public void createTable(String schemaName, String name, String tenantColumnName, List<ColumnBase> columns, PrimaryKeyDef primaryKey,
-            IdentityDef identity, String tablespaceName) {
+    public void createTable(String schemaName, String name, String tenantColumnName, String timePartitionColumnName, List<ColumnBase> columns,
+            PrimaryKeyDef primaryKey, IdentityDef identity, String tablespaceName) {
 
         // With DB2 we can implement support for multi-tenancy, which we do by injecting a MT_ID column
         // to the definition and partitioning on that column
@@ -90,7 +104,13 @@ public class Db2Adapter extends CommonDatabaseAdapter {
         // Our multi-tenant tables are range-partitioned as part of our data isolation strategy
         // We reserve partition 0. Real tenant partitions start at 1...
         // PARTITION BY RANGE (mt_id) (STARTING 0 INCLUSIVE ENDING 0 INCLUSIVE)
-        if (tenantColumnName != null) {
+        // When the table is also partitioned by time, the timestamp column is the second
+        // partitioning column, and each tenant gets a partition per month (see createTenantPartition)
+        if (tenantColumnName != null && timePartitionColumnName != null) {
+            ddl = ddl + " PARTITION BY RANGE (" + tenantColumnName + ", " + timePartitionColumnName + ") "
+                    + "(STARTING (0, MINVALUE) "
+                    + "   ENDING (0, MAXVALUE) )";
+        } else if (tenantColumnName != null) {
             ddl = ddl + " PARTITION BY RANGE (" + tenantColumnName + ") "
                     + "(STARTING 0 INCLUSIVE "
                     + "   ENDING 0 INCLUSIVE )";
@@ -226,10 +246,7 @@ public class Db2Adapter extends CommonDatabaseAdapter {
                     throw new IllegalArgumentException("Missing upper partition information");
                 }
 
-                logger.info("Adding tenant partition: TENANT" + newTenantId + " to " + t.getName());
-                Db2AddTablePartition cmd = new Db2AddTablePartition(t.getSchemaName(), t.getObjectName(), newTenantId, tablespaceName);
-                runStatement(cmd);
-                logger.info("Added tenant partition: TENANT" + newTenantId + " to " + t.getName());
+                createTenantPartition(t, newTenantId, tablespaceName);
             }
             catch (RuntimeException x) {
                 logger.severe("Rolling back transaction after tenant creation failed for table " + t.getName());
@@ -239,6 +256,224 @@ public class Db2Adapter extends CommonDatabaseAdapter {
         }
     }
 
+    @Override
+    public void createTenantPartition(Table t, int newTenantId, String tablespaceName) {
+        logger.info("Adding tenant partition: TENANT" + newTenantId + " to " + t.getName());
+        if (t.getTimePartitionColumnName() == null) {
+            Db2AddTablePartition cmd = new Db2AddTablePartition(t.getSchemaName(), t.getObjectName(), newTenantId, tablespaceName);
+            runStatement(cmd);
+        } else {
+            // The base partition takes everything before the current month, which is
+            // followed by a partition for each month up to TIME_PARTITION_MONTHS_AHEAD
+            // and the future partition, which takes everything after that
+            LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+            LocalDate futureMonth = currentMonth.plusMonths(TIME_PARTITION_MONTHS_AHEAD + 1);
+            runStatement(new Db2AddTimePartition(t.getSchemaName(), t.getObjectName(), newTenantId, null, currentMonth, tablespaceName));
+            addMonthlyPartitions(t, newTenantId, currentMonth, futureMonth, tablespaceName);
+            runStatement(new Db2AddTimePartition(t.getSchemaName(), t.getObjectName(), newTenantId, futureMonth, null, tablespaceName));
+        }
+        logger.info("Added tenant partition: TENANT" + newTenantId + " to " + t.getName());
+    }
+
+    @Override
+    public Map<String, Set<Integer>> getTenantPartitionIds(String schemaName) {
+        Map<String, Set<Integer>> result = new HashMap<>();
+        Db2GetPartitionInfo statement = new Db2GetPartitionInfo("SYSCAT", schemaName, (PartitionInfo pi) -> {
+            // The partitions of a time-partitioned table are named after their tenant too
+            Integer tenantId = Db2AddTimePartition.getTenantId(pi.getDataPartitionName());
+            if (tenantId != null) {
+                result.computeIfAbsent(pi.getTableName(), k -> new HashSet<>()).add(tenantId);
+            }
+        });
+        runStatement(statement);
+        return result;
+    }
+
+    @Override
+    public List<String> detachFutureTimePartitions(Table t, LocalDate until) {
+        // Db2 can't split a partition, so the future partition has to go before the monthly
+        // partitions can take over its range. Rows in the future partition mean that the
+        // partitions weren't rolled in time, and the tenant is left for a manual fix.
+        List<String> result = new ArrayList<>();
+        for (PartitionInfo pi: getPartitionList(t.getSchemaName(), t.getObjectName())) {
+            final String partitionName = pi.getDataPartitionName();
+            LocalDate lowValue = Db2AddTimePartition.parseBoundary(pi.getLowValue());
+            if (!Db2AddTimePartition.isFuturePartition(partitionName) || lowValue == null || !lowValue.isBefore(until)) {
+                continue;
+            }
+            final int tenantId = Db2AddTimePartition.getTenantId(partitionName);
+            setTenantVariable(t, tenantId);
+            if (runStatement(new Db2HasTimeRangeRows(t.getSchemaName(), t.getObjectName(), t.getTenantColumnName(),
+                    t.getTimePartitionColumnName(), tenantId, lowValue, null, null))) {
+                logger.warning("Partition " + partitionName + " of " + t.getName() + " holds rows last updated after " + lowValue
+                        + "; its monthly partitions can't be added");
+                continue;
+            }
+            logger.info("Detaching empty partition: " + partitionName + " of " + t.getName());
+            detachPartition(t.getSchemaName(), t.getObjectName(), partitionName, getFutureStagingTableName(t, partitionName));
+            result.add(partitionName);
+        }
+        return result;
+    }
+
+    @Override
+    public void rollTimePartitions(Table t, LocalDate until, Collection<String> detachedPartitions) {
+        // The ranges of the detached future partitions are only free once the
+        // asynchronous partition detach has completed
+        if (!detachedPartitions.isEmpty()) {
+            waitForDetach(t, detachedPartitions);
+            for (String partitionName: detachedPartitions) {
+                dropTable(t.getSchemaName(), getFutureStagingTableName(t, partitionName));
+            }
+        }
+
+        // The end of the last monthly partition of each tenant, and the tenants which
+        // (still) have a future partition
+        Map<Integer, LocalDate> tenantHighValues = new TreeMap<>();
+        Set<Integer> futureTenants = new HashSet<>();
+        for (PartitionInfo pi: getPartitionList(t.getSchemaName(), t.getObjectName())) {
+            Integer tenantId = Db2AddTimePartition.getTenantId(pi.getDataPartitionName());
+            LocalDate highValue = Db2AddTimePartition.parseBoundary(pi.getHighValue());
+            if (tenantId != null && Db2AddTimePartition.isFuturePartition(pi.getDataPartitionName())) {
+                futureTenants.add(tenantId);
+            } else if (tenantId != null && highValue != null) {
+                tenantHighValues.merge(tenantId, highValue, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+
+        for (Map.Entry<Integer, LocalDate> entry: tenantHighValues.entrySet()) {
+            final int tenantId = entry.getKey();
+            if (futureTenants.contains(tenantId)) {
+                // Either the partitions already reach far enough, or the future partition couldn't be detached
+                continue;
+            }
+            final String tablespaceName = TenantTablespace.getTablespaceName(tenantId);
+            addMonthlyPartitions(t, tenantId, entry.getValue(), until, tablespaceName);
+            final LocalDate futureMonth = entry.getValue().isAfter(until) ? entry.getValue() : until;
+            runStatement(new Db2AddTimePartition(t.getSchemaName(), t.getObjectName(), tenantId, futureMonth, null, tablespaceName));
+        }
+    }
+
+    @Override
+    public List<String> archiveTimePartitions(Table t, LocalDate before, String retainPredicate) {
+        List<String> result = new ArrayList<>();
+        for (PartitionInfo pi: getPartitionList(t.getSchemaName(), t.getObjectName())) {
+            LocalDate highValue = Db2AddTimePartition.parseBoundary(pi.getHighValue());
+            if (Db2AddTimePartition.isMonthlyPartition(pi.getDataPartitionName()) && highValue != null && !highValue.isAfter(before)) {
+                final int tenantId = Db2AddTimePartition.getTenantId(pi.getDataPartitionName());
+                final LocalDate lowValue = highValue.minusMonths(1);
+                final String intoTableName = t.getObjectName() + "_" + pi.getDataPartitionName();
+                setTenantVariable(t, tenantId);
+                if (retainPredicate != null && runStatement(new Db2HasTimeRangeRows(t.getSchemaName(), t.getObjectName(),
+                        t.getTenantColumnName(), t.getTimePartitionColumnName(), tenantId, lowValue, highValue, retainPredicate))) {
+                    // The partition has to stay, so only its other rows are moved
+                    if (!doesTableExist(t.getSchemaName(), intoTableName)) {
+                        runStatement("CREATE TABLE " + DataDefinitionUtil.getQualifiedName(t.getSchemaName(), intoTableName)
+                                + " LIKE " + t.getQualifiedName() + " IN " + TenantTablespace.getTablespaceName(tenantId));
+                    }
+                    int moved = runStatement(new Db2MoveTimeRangeRows(t.getSchemaName(), t.getObjectName(), intoTableName,
+                            t.getTenantColumnName(), t.getTimePartitionColumnName(), tenantId, lowValue, highValue, retainPredicate));
+                    logger.info("Moved " + moved + " rows of partition: " + pi.getDataPartitionName() + " of " + t.getName() + " into " + intoTableName);
+                } else {
+                    logger.info("Detaching partition: " + pi.getDataPartitionName() + " of " + t.getName() + " into " + intoTableName);
+                    detachPartition(t.getSchemaName(), t.getObjectName(), pi.getDataPartitionName(), intoTableName);
+                }
+                result.add(DataDefinitionUtil.getQualifiedName(t.getSchemaName(), intoTableName));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The name of the table a future partition is detached into before it is dropped
+     *
+     * @param t
+     * @param partitionName
+     * @return
+     */
+    private static String getFutureStagingTableName(Table t, String partitionName) {
+        return t.getObjectName() + "_" + partitionName;
+    }
+
+    /**
+     * Set the session variable controlling access to the rows of the table (if any) to the
+     * given tenant, so that the statements on the table see the rows of that tenant
+     *
+     * @param t
+     * @param tenantId
+     */
+    protected void setTenantVariable(Table t, int tenantId) {
+        SessionVariableDef var = t.getAccessControlVar();
+        if (var != null) {
+            setIntVariable(var.getSchemaName(), var.getObjectName(), tenantId);
+        }
+    }
+
+    /**
+     * Wait until the given partitions of the table are no longer listed in the catalog,
+     * which is when their asynchronous partition detach has completed
+     *
+     * @param t
+     * @param partitionNames
+     */
+    protected void waitForDetach(Table t, Collection<String> partitionNames) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DETACH_WAIT_MILLIS);
+        while (true) {
+            boolean pending = false;
+            for (PartitionInfo pi: getPartitionList(t.getSchemaName(), t.getObjectName())) {
+                pending = pending || partitionNames.contains(pi.getDataPartitionName());
+            }
+            if (!pending) {
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new DataAccessException("Detach of partitions " + partitionNames + " of " + t.getName() + " did not complete");
+            }
+            logger.info("Waiting for the detach of partitions " + partitionNames + " of " + t.getName());
+            try {
+                Thread.sleep(DETACH_POLL_MILLIS);
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("Interrupted while waiting for the detach of partitions " + partitionNames);
+            }
+        }
+    }
+
+    /**
+     * Add a partition for each month of the given tenant from the month starting at
+     * {@code from} until the partitions cover everything before {@code until}
+     *
+     * @param t
+     * @param tenantId
+     * @param from
+     * @param until
+     * @param tablespaceName
+     */
+    protected void addMonthlyPartitions(Table t, int tenantId, LocalDate from, LocalDate until, String tablespaceName) {
+        for (LocalDate low = from; low.isBefore(until); low = low.plusMonths(1)) {
+            logger.info("Adding time partition: " + Db2AddTimePartition.getPartitionName(tenantId, low) + " to " + t.getName());
+            runStatement(new Db2AddTimePartition(t.getSchemaName(), t.getObjectName(), tenantId, low, low.plusMonths(1), tablespaceName));
+        }
+    }
+
+    /**
+     * Read the partitions of the given table from the database catalog
+     *
+     * @param tableSchema
+     * @param tableName
+     * @return the partitions in sequence order
+     */
+    protected List<PartitionInfo> getPartitionList(String tableSchema, String tableName) {
+        List<PartitionInfo> result = new ArrayList<>();
+        Db2GetPartitionInfo statement = new Db2GetPartitionInfo("SYSCAT", tableSchema, (PartitionInfo c) -> {
+            if (tableName.equalsIgnoreCase(c.getTableName())) {
+                result.add(c);
+            }
+        });
+        runStatement(statement);
+        return result;
+    }
+
     /**
      * Read partition info from the database catalog.
      *
@@ -387,6 +622,16 @@ public class Db2Adapter extends CommonDatabaseAdapter {
                 final String partitionName = "TENANT" + tenantId;
                 final String targetTableName = DataDefinitionUtil.getQualifiedName(schemaName, t.getName() + "_" + partitionName);
                 removeTenantPartition(schemaName, t.getName(), partitionName, targetTableName, tenantStagingTable);
+
+                // Time-partitioned tables also have a partition per month for the tenant
+                if (t.getTimePartitionColumnName() != null) {
+                    for (PartitionInfo monthly: getPartitionList(schemaName, t.getName())) {
+                        if (monthly.getDataPartitionName().startsWith(partitionName + "_")) {
+                            final String monthlyTableName = DataDefinitionUtil.getQualifiedName(schemaName, t.getName() + "_" + monthly.getDataPartitionName());
+                            removeTenantPartition(schemaName, t.getName(), monthly.getDataPartitionName(), monthlyTableName, tenantStagingTable);
+                        }
+                    }
+                }
             }
         }
     }
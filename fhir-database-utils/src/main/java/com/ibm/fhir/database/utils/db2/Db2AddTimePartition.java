@@ -0,0 +1,179 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.db2;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import com.ibm.fhir.database.utils.api.IDatabaseStatement;
+import com.ibm.fhir.database.utils.api.IDatabaseTranslator;
+import com.ibm.fhir.database.utils.common.DataDefinitionUtil;
+
+/**
+ * DB2 Add Time Partition. Adds a partition for a range of timestamps of a single tenant
+ * to a table which is range-partitioned by (tenant column, timestamp column). The
+ * partitions of each tenant are:
+ * <pre>
+ * TENANT5            STARTING FROM (5, MINVALUE)                ENDING AT (5, '2020-10-01...') EXCLUSIVE
+ * TENANT5_M20201001  STARTING FROM (5, '2020-10-01...') INCLUSIVE ENDING AT (5, '2020-11-01...') EXCLUSIVE
+ * TENANT5_M20201101  ...
+ * TENANT5_FUTURE     STARTING FROM (5, '2021-01-01...') INCLUSIVE ENDING AT (5, MAXVALUE)
+ * </pre>
+ * so the name of a monthly partition tells which tenant and month it holds. The future partition
+ * takes any row after the last monthly partition, so inserts never fail for lack of a partition.
+ */
+public class Db2AddTimePartition implements IDatabaseStatement {
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String TENANT_PREFIX = "TENANT";
+    private static final String MONTH_SEPARATOR = "_M";
+    private static final String FUTURE_SUFFIX = "_FUTURE";
+
+    private final String schemaName;
+    private final String tableName;
+    private final int tenantId;
+    private final LocalDate lowValue;
+    private final LocalDate highValue;
+    private final String tablespaceName;
+
+    /**
+     * Public constructor
+     *
+     * @param schemaName
+     * @param tableName
+     * @param tenantId
+     * @param lowValue the first day of the partition, or null for the tenant base partition
+     * @param highValue the (exclusive) end of the partition, or null for the tenant future partition
+     * @param tablespaceName
+     */
+    public Db2AddTimePartition(String schemaName, String tableName, int tenantId, LocalDate lowValue, LocalDate highValue,
+            String tablespaceName) {
+        DataDefinitionUtil.assertValidName(schemaName);
+        DataDefinitionUtil.assertValidName(tableName);
+        DataDefinitionUtil.assertValidName(tablespaceName);
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.tenantId = tenantId;
+        this.lowValue = lowValue;
+        this.highValue = highValue;
+        this.tablespaceName = tablespaceName;
+    }
+
+    @Override
+    public void run(IDatabaseTranslator translator, Connection c) {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate(buildSqlString());
+        } catch (SQLException x) {
+            throw translator.translate(x);
+        }
+    }
+
+    /**
+     * Generate the SQL string (DDL) we want to execute
+     *
+     * @return
+     */
+    protected String buildSqlString() {
+        final String low = lowValue == null ? "MINVALUE" : timestamp(lowValue);
+        final String partitionName = highValue == null ? getFuturePartitionName(tenantId) : getPartitionName(tenantId, lowValue);
+        return "ALTER TABLE " + schemaName + "." + tableName + " ADD PARTITION " + partitionName
+                + " STARTING FROM (" + tenantId + ", " + low + ")" + (lowValue == null ? "" : " INCLUSIVE")
+                + (highValue == null ? " ENDING AT (" + tenantId + ", MAXVALUE)"
+                        : " ENDING AT (" + tenantId + ", " + timestamp(highValue) + ") EXCLUSIVE")
+                + " IN " + this.tablespaceName;
+    }
+
+    /**
+     * The name of the partition holding the tenant's rows starting at the given date
+     *
+     * @param tenantId
+     * @param lowValue the first day of the partition, or null for the tenant base partition
+     * @return
+     */
+    public static String getPartitionName(int tenantId, LocalDate lowValue) {
+        final String base = TENANT_PREFIX + tenantId;
+        return lowValue == null ? base : base + MONTH_SEPARATOR + NAME_FORMAT.format(lowValue);
+    }
+
+    /**
+     * The name of the partition holding the tenant's rows after its last monthly partition
+     *
+     * @param tenantId
+     * @return
+     */
+    public static String getFuturePartitionName(int tenantId) {
+        return TENANT_PREFIX + tenantId + FUTURE_SUFFIX;
+    }
+
+    /**
+     * Get the tenant id from the name of a base, monthly or future tenant partition
+     *
+     * @param partitionName
+     * @return the tenant id, or null if this isn't a tenant partition
+     */
+    public static Integer getTenantId(String partitionName) {
+        if (partitionName == null || !partitionName.startsWith(TENANT_PREFIX)) {
+            return null;
+        }
+        int end = partitionName.indexOf('_');
+        try {
+            return Integer.valueOf(partitionName.substring(TENANT_PREFIX.length(), end < 0 ? partitionName.length() : end));
+        } catch (NumberFormatException x) {
+            return null;
+        }
+    }
+
+    /**
+     * Is the given partition one of the monthly partitions (as opposed to the tenant base partition)
+     *
+     * @param partitionName
+     * @return
+     */
+    public static boolean isMonthlyPartition(String partitionName) {
+        return getTenantId(partitionName) != null && partitionName.contains(MONTH_SEPARATOR);
+    }
+
+    /**
+     * Is the given partition the future partition of a tenant
+     *
+     * @param partitionName
+     * @return
+     */
+    public static boolean isFuturePartition(String partitionName) {
+        return getTenantId(partitionName) != null && partitionName.endsWith(FUTURE_SUFFIX);
+    }
+
+    /**
+     * Get the date of the timestamp column from a multi-column boundary value as found
+     * in SYSCAT.DATAPARTITIONS, which looks like this: 5,'2020-10-01-00.00.00.000000'
+     *
+     * @param value
+     * @return the date, or null if the boundary is MINVALUE or MAXVALUE
+     */
+    public static LocalDate parseBoundary(String value) {
+        if (value == null) {
+            return null;
+        }
+        int quote = value.indexOf('\'');
+        if (quote < 0 || value.length() < quote + 11) {
+            return null;
+        }
+        return LocalDate.parse(value.substring(quote + 1, quote + 11));
+    }
+
+    /**
+     * The timestamp literal of the start of the given day
+     *
+     * @param date
+     * @return
+     */
+    static String timestamp(LocalDate date) {
+        return "'" + date.toString() + "-00.00.00.000000'";
+    }
+}
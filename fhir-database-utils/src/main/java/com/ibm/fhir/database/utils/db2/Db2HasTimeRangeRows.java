@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.db2;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import com.ibm.fhir.database.utils.api.IDatabaseSupplier;
+import com.ibm.fhir.database.utils.api.IDatabaseTranslator;
+import com.ibm.fhir.database.utils.common.DataDefinitionUtil;
+
+/**
+ * DB2 check whether a table which is range-partitioned by (tenant column, timestamp column)
+ * holds any rows of a tenant in a range of timestamps, optionally limited to the rows matching
+ * a predicate. The predicate refers to the rows of the table by the correlation name T.
+ */
+public class Db2HasTimeRangeRows implements IDatabaseSupplier<Boolean> {
+    private final String schemaName;
+    private final String tableName;
+    private final String tenantColumnName;
+    private final String timeColumnName;
+    private final int tenantId;
+    private final LocalDate lowValue;
+    private final LocalDate highValue;
+    private final String predicate;
+
+    /**
+     * Public constructor
+     *
+     * @param schemaName
+     * @param tableName
+     * @param tenantColumnName
+     * @param timeColumnName
+     * @param tenantId
+     * @param lowValue the first day of the range
+     * @param highValue the (exclusive) end of the range, or null for no end
+     * @param predicate the predicate the rows must match, or null
+     */
+    public Db2HasTimeRangeRows(String schemaName, String tableName, String tenantColumnName, String timeColumnName, int tenantId,
+            LocalDate lowValue, LocalDate highValue, String predicate) {
+        DataDefinitionUtil.assertValidName(schemaName);
+        DataDefinitionUtil.assertValidName(tableName);
+        DataDefinitionUtil.assertValidName(tenantColumnName);
+        DataDefinitionUtil.assertValidName(timeColumnName);
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.tenantColumnName = tenantColumnName;
+        this.timeColumnName = timeColumnName;
+        this.tenantId = tenantId;
+        this.lowValue = lowValue;
+        this.highValue = highValue;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public Boolean run(IDatabaseTranslator translator, Connection c) {
+        try (Statement s = c.createStatement()) {
+            ResultSet rs = s.executeQuery(buildSqlString());
+            return rs.next();
+        } catch (SQLException x) {
+            throw translator.translate(x);
+        }
+    }
+
+    /**
+     * Generate the SQL string we want to execute
+     *
+     * @return
+     */
+    protected String buildSqlString() {
+        return "SELECT 1 FROM " + schemaName + "." + tableName + " T"
+                + " WHERE " + buildRangePredicate(tenantColumnName, timeColumnName, tenantId, lowValue, highValue)
+                + (predicate == null ? "" : " AND (" + predicate + ")")
+                + " FETCH FIRST 1 ROWS ONLY";
+    }
+
+    /**
+     * Build the predicate selecting the rows of a tenant in a range of timestamps, so that
+     * the query only touches the matching partitions
+     *
+     * @param tenantColumnName
+     * @param timeColumnName
+     * @param tenantId
+     * @param lowValue
+     * @param highValue the (exclusive) end of the range, or null for no end
+     * @return
+     */
+    static String buildRangePredicate(String tenantColumnName, String timeColumnName, int tenantId, LocalDate lowValue, LocalDate highValue) {
+        return "T." + tenantColumnName + " = " + tenantId
+                + " AND T." + timeColumnName + " >= " + Db2AddTimePartition.timestamp(lowValue)
+                + (highValue == null ? "" : " AND T." + timeColumnName + " < " + Db2AddTimePartition.timestamp(highValue));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.db2;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import com.ibm.fhir.database.utils.api.IDatabaseSupplier;
+import com.ibm.fhir.database.utils.api.IDatabaseTranslator;
+import com.ibm.fhir.database.utils.common.DataDefinitionUtil;
+
+/**
+ * DB2 move of the rows of a tenant in a range of timestamps from a table which is range-partitioned
+ * by (tenant column, timestamp column) into a table with the same columns, except for the rows
+ * matching the retain predicate. This is used instead of detaching a partition when some of its
+ * rows have to stay. The predicate refers to the rows of the table by the correlation name T.
+ */
+public class Db2MoveTimeRangeRows implements IDatabaseSupplier<Integer> {
+    private final String schemaName;
+    private final String tableName;
+    private final String intoTableName;
+    private final String tenantColumnName;
+    private final String timeColumnName;
+    private final int tenantId;
+    private final LocalDate lowValue;
+    private final LocalDate highValue;
+    private final String retainPredicate;
+
+    /**
+     * Public constructor
+     *
+     * @param schemaName
+     * @param tableName
+     * @param intoTableName the table in the same schema receiving the rows
+     * @param tenantColumnName
+     * @param timeColumnName
+     * @param tenantId
+     * @param lowValue the first day of the range
+     * @param highValue the (exclusive) end of the range
+     * @param retainPredicate the predicate matching the rows which stay in the table
+     */
+    public Db2MoveTimeRangeRows(String schemaName, String tableName, String intoTableName, String tenantColumnName,
+            String timeColumnName, int tenantId, LocalDate lowValue, LocalDate highValue, String retainPredicate) {
+        DataDefinitionUtil.assertValidName(schemaName);
+        DataDefinitionUtil.assertValidName(tableName);
+        DataDefinitionUtil.assertValidName(intoTableName);
+        DataDefinitionUtil.assertValidName(tenantColumnName);
+        DataDefinitionUtil.assertValidName(timeColumnName);
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.intoTableName = intoTableName;
+        this.tenantColumnName = tenantColumnName;
+        this.timeColumnName = timeColumnName;
+        this.tenantId = tenantId;
+        this.lowValue = lowValue;
+        this.highValue = highValue;
+        this.retainPredicate = retainPredicate;
+    }
+
+    /**
+     * @return the number of rows moved
+     */
+    @Override
+    public Integer run(IDatabaseTranslator translator, Connection c) {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate(buildInsertString());
+            return s.executeUpdate(buildDeleteString());
+        } catch (SQLException x) {
+            throw translator.translate(x);
+        }
+    }
+
+    /**
+     * Generate the SQL string copying the rows into the target table
+     *
+     * @return
+     */
+    protected String buildInsertString() {
+        return "INSERT INTO " + schemaName + "." + intoTableName
+                + " SELECT * FROM " + schemaName + "." + tableName + " T WHERE " + buildMovePredicate();
+    }
+
+    /**
+     * Generate the SQL string deleting the copied rows
+     *
+     * @return
+     */
+    protected String buildDeleteString() {
+        return "DELETE FROM " + schemaName + "." + tableName + " T WHERE " + buildMovePredicate();
+    }
+
+    private String buildMovePredicate() {
+        return Db2HasTimeRangeRows.buildRangePredicate(tenantColumnName, timeColumnName, tenantId, lowValue, highValue)
+                + " AND NOT (" + retainPredicate + ")";
+    }
+}
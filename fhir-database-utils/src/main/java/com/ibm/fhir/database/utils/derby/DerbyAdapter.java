@@ -6,8 +6,11 @@
 
 package com.ibm.fhir.database.utils.derby;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
@@ -70,10 +73,10 @@ public class DerbyAdapter extends CommonDatabaseAdapter {
     }
 
     @Override
-    public void createTable(String schemaName, String name, String tenantColumnName, List<ColumnBase> columns, PrimaryKeyDef primaryKey,
-            IdentityDef identity, String tablespaceName) {
+    public void createTable(String schemaName, String name, String tenantColumnName, String timePartitionColumnName, List<ColumnBase> columns,
+            PrimaryKeyDef primaryKey, IdentityDef identity, String tablespaceName) {
 
-        // Derby doesn't support partitioning, so we ignore tenantColumnName
+        // Derby doesn't support partitioning, so we ignore tenantColumnName and timePartitionColumnName
         if (tenantColumnName != null) {
             warnOnce(MessageKey.MULTITENANCY, "Derby does support not multi-tenancy: " + name);
         }
@@ -126,6 +129,34 @@ public class DerbyAdapter extends CommonDatabaseAdapter {
         warnOnce(MessageKey.PARTITIONING, "Derby does not support tenant partitioning");
     }
 
+    @Override
+    public void createTenantPartition(Table table, int newTenantId, String tablespaceName) {
+        warnOnce(MessageKey.PARTITIONING, "Derby does not support tenant partitioning");
+    }
+
+    @Override
+    public Map<String, Set<Integer>> getTenantPartitionIds(String schemaName) {
+        warnOnce(MessageKey.PARTITIONING, "Derby does not support tenant partitioning");
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public List<String> detachFutureTimePartitions(Table table, LocalDate until) {
+        warnOnce(MessageKey.PARTITIONING, "Derby does not support time partitioning");
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void rollTimePartitions(Table table, LocalDate until, Collection<String> detachedPartitions) {
+        warnOnce(MessageKey.PARTITIONING, "Derby does not support time partitioning");
+    }
+
+    @Override
+    public List<String> archiveTimePartitions(Table table, LocalDate before, String retainPredicate) {
+        warnOnce(MessageKey.PARTITIONING, "Derby does not support time partitioning");
+        return Collections.emptyList();
+    }
+
     @Override
     public void createRowType(String schemaName, String typeName, List<ColumnBase> columns) {
         warnOnce(MessageKey.ROW_TYPE, "Create row type not supported in Derby");
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -19,5 +19,7 @@ public enum DatabaseObjectType {
     VARIABLE,
     NOP,
     GROUP,
-    TABLESPACE
+    TABLESPACE,
+    PARTITION,
+    DATA
 }
@@ -6,6 +6,7 @@
 
 package com.ibm.fhir.database.utils.model;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -15,15 +16,19 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import com.ibm.fhir.database.utils.api.IDatabaseAdapter;
+import com.ibm.fhir.database.utils.api.ITransaction;
 import com.ibm.fhir.database.utils.api.ITransactionProvider;
 import com.ibm.fhir.database.utils.api.IVersionHistoryService;
 import com.ibm.fhir.database.utils.common.DataDefinitionUtil;
 import com.ibm.fhir.task.api.ITaskCollector;
+import com.ibm.fhir.task.api.ITaskGroup;
 
 /**
  * Represents the set of tables and other schema objects that make up the
@@ -146,6 +151,20 @@ public class PhysicalDataModel implements IDataModel {
         }
     }
 
+    /**
+     * Collect the tasks to (re)apply all the procedures in parallel. Each procedure
+     * is applied in its own transaction, regardless of its version
+     * @param tc
+     * @param target
+     * @param tp
+     */
+    public void collectProcedures(ITaskCollector tc, IDatabaseAdapter target, ITransactionProvider tp) {
+        for (ProcedureDef proc: procedures) {
+            final String taskId = proc.getTypeAndName();
+            tc.makeTaskGroup(taskId, () -> runInTx(tp, taskId, () -> proc.apply(target)), null);
+        }
+    }
+
     /**
      * Drop the model from the target database. This is done
      * in reverse order
@@ -217,6 +236,67 @@ public class PhysicalDataModel implements IDataModel {
         adapter.createTenantPartitions(getTenantPartitionedTables(tenantIdColumn), schemaName, tenantId, extentSizeKB);
     }
 
+    /**
+     * Collect the tasks to create the tablespace for the given tenantId and then
+     * the partition of every tenant-partitioned table in parallel. Each partition
+     * is recorded in the version history when it is created, so running this again
+     * after a failure only creates the partitions which are still missing.
+     *
+     * @param tc
+     * @param target
+     * @param tp
+     * @param vhs
+     * @param schemaName
+     * @param tenantId
+     * @param extentSizeKB
+     */
+    public void collectTenantPartitions(ITaskCollector tc, IDatabaseAdapter target, ITransactionProvider tp,
+            IVersionHistoryService vhs, String schemaName, int tenantId, int extentSizeKB) {
+        final String tenantIdColumn = "MT_ID";
+
+        TenantTablespace tablespace = new TenantTablespace(schemaName, tenantId, extentSizeKB);
+        for (Table t: getTenantPartitionedTables(tenantIdColumn)) {
+            TenantPartition partition = new TenantPartition(t, tenantId, tablespace.getObjectName());
+            partition.addDependency(tablespace);
+            partition.collect(tc, target, tp, vhs);
+        }
+    }
+
+    /**
+     * Collect the tasks to create the partitions which are missing for the tenants
+     * already allocated in the schema, which is the case for the tenant-partitioned
+     * tables added by a schema update. The tenants are found from the partitions of
+     * the existing tables, and each reuses the tablespace created when it was allocated.
+     *
+     * @param tc
+     * @param target
+     * @param tp
+     * @param vhs
+     * @param schemaName
+     */
+    public void collectMissingTenantPartitions(ITaskCollector tc, IDatabaseAdapter target, ITransactionProvider tp,
+            IVersionHistoryService vhs, String schemaName) {
+        final String tenantIdColumn = "MT_ID";
+
+        final Map<String, Set<Integer>> tenantPartitionIds = new HashMap<>();
+        runInTx(tp, "TENANT_PARTITIONS:" + schemaName, () -> tenantPartitionIds.putAll(target.getTenantPartitionIds(schemaName)));
+
+        Set<Integer> tenantIds = new HashSet<>();
+        for (Set<Integer> ids: tenantPartitionIds.values()) {
+            tenantIds.addAll(ids);
+        }
+
+        for (Table t: getTenantPartitionedTables(tenantIdColumn)) {
+            Set<Integer> existing = tenantPartitionIds.getOrDefault(t.getObjectName(), Collections.emptySet());
+            for (int tenantId: tenantIds) {
+                if (!existing.contains(tenantId)) {
+                    logger.info("Adding missing partition for tenant " + tenantId + " to " + t.getName());
+                    new TenantPartition(t, tenantId, TenantTablespace.getTablespaceName(tenantId)).collect(tc, target, tp, vhs);
+                }
+            }
+        }
+    }
+
     /**
      * remove the partition from each of the tenant-based tables
      *
@@ -233,6 +313,67 @@ public class PhysicalDataModel implements IDataModel {
         adapter.removeTenantPartitions(getTenantPartitionedTables(tenantIdColumn), schemaName, tenantId, partitionStagingTable);
     }
 
+    /**
+     * Return all the tables which are range-partitioned by time
+     * @return
+     */
+    public Collection<Table> getTimePartitionedTables() {
+        List<Table> result = new ArrayList<>();
+
+        for (Table t: this.tables.values()) {
+            if (t.getTimePartitionColumnName() != null) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collect the tasks to add the monthly partitions each tenant needs to cover
+     * all timestamps before the given date. Each table is handled by two tasks, each
+     * in its own transaction: the first detaches the future partitions whose ranges
+     * are needed, and the second adds the partitions once the detach has completed.
+     *
+     * @param tc
+     * @param target
+     * @param tp
+     * @param until
+     */
+    public void collectTimePartitionRolls(ITaskCollector tc, IDatabaseAdapter target, ITransactionProvider tp, LocalDate until) {
+        for (Table t: getTimePartitionedTables()) {
+            final List<String> detached = new CopyOnWriteArrayList<>();
+            final String detachTaskId = "DETACH:" + t.getTypeAndName();
+            ITaskGroup detachTask = tc.makeTaskGroup(detachTaskId, () -> runInTx(tp, detachTaskId,
+                () -> detached.addAll(target.detachFutureTimePartitions(t, until))), null);
+            final String taskId = "ROLL:" + t.getTypeAndName();
+            tc.makeTaskGroup(taskId, () -> runInTx(tp, taskId, () -> target.rollTimePartitions(t, until, detached)),
+                Collections.singletonList(detachTask));
+        }
+    }
+
+    /**
+     * Collect the tasks to archive the monthly partitions holding only timestamps before
+     * the given date. The archived rows end up in standalone tables which can be
+     * exported and then dropped. Each table is handled by its own task in its own transaction.
+     *
+     * @param tc
+     * @param target
+     * @param tp
+     * @param before
+     * @param retainPredicates provides the predicate matching the rows of each table which must
+     *     stay in the table, or null
+     */
+    public void collectTimePartitionArchives(ITaskCollector tc, IDatabaseAdapter target, ITransactionProvider tp, LocalDate before,
+            Function<Table, String> retainPredicates) {
+        for (Table t: getTimePartitionedTables()) {
+            final String taskId = "ARCHIVE:" + t.getTypeAndName();
+            tc.makeTaskGroup(taskId, () -> runInTx(tp, taskId, () -> {
+                List<String> archived = target.archiveTimePartitions(t, before, retainPredicates.apply(t));
+                logger.info("Archived " + archived.size() + " partitions of " + t.getName() + ": " + archived);
+            }), null);
+        }
+    }
+
     /**
      * Add a stored procedure definition. The given {@link Supplier} will be called upon
      * to provide the DDL body for the procedure at the point in time it is being applied
@@ -382,4 +523,40 @@ public class PhysicalDataModel implements IDataModel {
         }
     }
 
+    /**
+     * Collect the tasks to apply the grants for the given group to the user in
+     * parallel, each object in its own transaction. Grants are idempotent, so
+     * the tasks which failed can simply be run again.
+     * @param tc
+     * @param target
+     * @param tp
+     * @param groupName
+     * @param username
+     */
+    public void collectGrants(ITaskCollector tc, IDatabaseAdapter target, ITransactionProvider tp, String groupName, String username) {
+        for (IDatabaseObject obj: allObjects) {
+            final String taskId = "GRANT:" + obj.getTypeAndName();
+            tc.makeTaskGroup(taskId, () -> runInTx(tp, taskId, () -> obj.grant(target, groupName, username)), null);
+        }
+    }
+
+    /**
+     * Run the given action in a new transaction obtained from the transaction provider
+     * @param tp
+     * @param taskId
+     * @param action
+     */
+    private static void runInTx(ITransactionProvider tp, String taskId, Runnable action) {
+        try (ITransaction tx = tp.getTransaction()) {
+            try {
+                action.run();
+            }
+            catch (RuntimeException x) {
+                logger.severe("[FAILED] " + taskId);
+                tx.setRollbackOnly();
+                throw x;
+            }
+        }
+    }
+
 }
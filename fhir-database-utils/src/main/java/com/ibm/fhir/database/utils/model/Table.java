@@ -47,6 +47,9 @@ public class Table extends BaseObject {
     // The column to use when making this table multi-tenant (if supported by the the target)
     private final String tenantColumnName;
 
+    // The timestamp column used to range-partition this table by time (if supported by the target)
+    private final String timePartitionColumnName;
+
     /**
      * Public constructor
      *
@@ -54,6 +57,7 @@ public class Table extends BaseObject {
      * @param name
      * @param version
      * @param tenantColumnName
+     * @param timePartitionColumnName
      * @param columns
      * @param pk
      * @param identity
@@ -65,12 +69,13 @@ public class Table extends BaseObject {
      * @param tags
      * @param privileges
      */
-    public Table(String schemaName, String name, int version, String tenantColumnName, Collection<ColumnBase> columns, PrimaryKeyDef pk,
+    public Table(String schemaName, String name, int version, String tenantColumnName, String timePartitionColumnName, Collection<ColumnBase> columns, PrimaryKeyDef pk,
             IdentityDef identity, Collection<IndexDef> indexes, Collection<ForeignKeyConstraint> fkConstraints,
             SessionVariableDef accessControlVar, Tablespace tablespace, List<IDatabaseObject> dependencies, Map<String,String> tags,
             Collection<GroupPrivilege> privileges, List<Migration> migrations) {
         super(schemaName, name, DatabaseObjectType.TABLE, version, migrations);
         this.tenantColumnName = tenantColumnName;
+        this.timePartitionColumnName = timePartitionColumnName;
         this.columns.addAll(columns);
         this.primaryKey = pk;
         this.identity = identity;
@@ -109,10 +114,26 @@ public class Table extends BaseObject {
         return this.tenantColumnName;
     }
 
+    /**
+     * Getter for the optional column used to range-partition the table by time
+     * @return
+     */
+    public String getTimePartitionColumnName() {
+        return this.timePartitionColumnName;
+    }
+
+    /**
+     * Getter for the optional session variable used to control access to the rows of each tenant
+     * @return
+     */
+    public SessionVariableDef getAccessControlVar() {
+        return this.accessControlVar;
+    }
+
     @Override
     public void apply(IDatabaseAdapter target) {
         final String tsName = this.tablespace == null ? null : this.tablespace.getName();
-        target.createTable(getSchemaName(), getObjectName(), this.tenantColumnName, this.columns, this.primaryKey, this.identity, tsName);
+        target.createTable(getSchemaName(), getObjectName(), this.tenantColumnName, this.timePartitionColumnName, this.columns, this.primaryKey, this.identity, tsName);
 
         // Now add any indexes associated with this table
         for (IndexDef idx: this.indexes) {
@@ -207,6 +228,9 @@ public class Table extends BaseObject {
         // Is this table multi-tenant when supported?
         private String tenantColumnName;
 
+        // Is this table also range-partitioned by time when supported?
+        private String timePartitionColumnName;
+
         // A map of tags
         private Map<String,String> tags = new HashMap<>();
 
@@ -551,7 +575,7 @@ public class Table extends BaseObject {
 
             // Our schema objects are immutable by design, so all initialization takes place
             // through the constructor
-            return new Table(getSchemaName(), getObjectName(), this.version, this.tenantColumnName, buildColumns(), this.primaryKey, this.identity, this.indexes.values(),
+            return new Table(getSchemaName(), getObjectName(), this.version, this.tenantColumnName, this.timePartitionColumnName, buildColumns(), this.primaryKey, this.identity, this.indexes.values(),
                     this.fkConstraints.values(), this.accessControlVar, this.tablespace, allDependencies, tags, privileges, migrations);
 
         }
@@ -662,6 +686,20 @@ public class Table extends BaseObject {
             return this;
         }
 
+        /**
+         * Setter to configure this multi-tenant table to be range-partitioned by time, using
+         * the given timestamp column as the second partitioning column after the tenant column.
+         * Each tenant partition is then split into one partition per month, so old months can be
+         * detached without touching the rest of the table. Like multitenancy, this is only
+         * supported by DB2 and ignored for other targets.
+         * @param name
+         * @return
+         */
+        public Builder setTimePartitionColumnName(String name) {
+            this.timePartitionColumnName = name;
+            return this;
+        }
+
         @Override
         public Builder addMigration(Migration... migration) {
             super.addMigration(migration);
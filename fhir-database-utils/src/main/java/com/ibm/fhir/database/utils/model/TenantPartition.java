@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.model;
+
+import com.ibm.fhir.database.utils.api.IDatabaseAdapter;
+
+/**
+ * The partition of a tenant-partitioned table for a single tenant. Each partition is
+ * created in its own transaction and recorded in the version history, which allows
+ * a failed tenant allocation to be resumed without repeating the partitions which
+ * have already been added.
+ */
+public class TenantPartition extends BaseObject {
+
+    // The table to add the partition to
+    private final Table table;
+
+    private final int tenantId;
+
+    // The tablespace the partition is stored in
+    private final String tablespaceName;
+
+    /**
+     * Public constructor
+     * @param table
+     * @param tenantId
+     * @param tablespaceName
+     */
+    public TenantPartition(Table table, int tenantId, String tablespaceName) {
+        super(table.getSchemaName(), table.getObjectName() + "_TENANT" + tenantId, DatabaseObjectType.PARTITION, 1);
+        this.table = table;
+        this.tenantId = tenantId;
+        this.tablespaceName = tablespaceName;
+    }
+
+    @Override
+    public void apply(IDatabaseAdapter target) {
+        target.createTenantPartition(this.table, this.tenantId, this.tablespaceName);
+    }
+
+    @Override
+    public void apply(Integer priorVersion, IDatabaseAdapter target) {
+        if (priorVersion != null && priorVersion > 0) {
+            throw new UnsupportedOperationException("Modifying tenant partitions is not supported");
+        }
+        apply(target);
+    }
+
+    @Override
+    public void drop(IDatabaseAdapter target) {
+        // Partitions are detached for all tables of the tenant together,
+        // see IDatabaseAdapter#removeTenantPartitions
+        throw new UnsupportedOperationException("Dropping a single tenant partition is not supported");
+    }
+}
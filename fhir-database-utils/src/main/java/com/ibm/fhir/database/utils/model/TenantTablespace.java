@@ -0,0 +1,58 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.model;
+
+import com.ibm.fhir.database.utils.api.IDatabaseAdapter;
+
+/**
+ * The tablespace holding the partitions of a single tenant. Unlike {@link Tablespace},
+ * the version history of this object is recorded against the data schema, so that it
+ * is visible to the version history service used to allocate the tenant.
+ */
+public class TenantTablespace extends BaseObject {
+
+    // The extent size to use for this tablespace
+    private final int extentSizeKB;
+
+    /**
+     * Public constructor
+     * @param schemaName the data schema the tenant is allocated in
+     * @param tenantId
+     * @param extentSizeKB
+     */
+    public TenantTablespace(String schemaName, int tenantId, int extentSizeKB) {
+        super(schemaName, getTablespaceName(tenantId), DatabaseObjectType.TABLESPACE, 1);
+        this.extentSizeKB = extentSizeKB;
+    }
+
+    /**
+     * Get the name of the tablespace used for the given tenant
+     * @param tenantId
+     * @return
+     */
+    public static String getTablespaceName(int tenantId) {
+        return "TS_TENANT" + tenantId;
+    }
+
+    @Override
+    public void apply(IDatabaseAdapter target) {
+        target.createTablespace(getObjectName(), this.extentSizeKB);
+    }
+
+    @Override
+    public void apply(Integer priorVersion, IDatabaseAdapter target) {
+        if (priorVersion != null && priorVersion > 0) {
+            throw new UnsupportedOperationException("Modifying tablespaces is not supported");
+        }
+        apply(target);
+    }
+
+    @Override
+    public void drop(IDatabaseAdapter target) {
+        target.dropTablespace(getObjectName());
+    }
+}
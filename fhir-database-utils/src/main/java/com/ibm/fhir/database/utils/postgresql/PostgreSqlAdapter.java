@@ -6,8 +6,11 @@
 
 package com.ibm.fhir.database.utils.postgresql;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
@@ -79,10 +82,10 @@ public class PostgreSqlAdapter extends CommonDatabaseAdapter {
     }
 
     @Override
-    public void createTable(String schemaName, String name, String tenantColumnName, List<ColumnBase> columns, PrimaryKeyDef primaryKey,
-            IdentityDef identity, String tablespaceName) {
+    public void createTable(String schemaName, String name, String tenantColumnName, String timePartitionColumnName, List<ColumnBase> columns,
+            PrimaryKeyDef primaryKey, IdentityDef identity, String tablespaceName) {
 
-        // PostgreSql doesn't support partitioning, so we ignore tenantColumnName
+        // PostgreSql doesn't support partitioning, so we ignore tenantColumnName and timePartitionColumnName
         if (tenantColumnName != null) {
             warnOnce(MessageKey.MULTITENANCY, "PostgreSql does support not multi-tenancy: " + name);
         }
@@ -133,6 +136,34 @@ public class PostgreSqlAdapter extends CommonDatabaseAdapter {
         warnOnce(MessageKey.PARTITIONING, "PostgreSql does not support tenant partitioning");
     }
 
+    @Override
+    public void createTenantPartition(Table table, int newTenantId, String tablespaceName) {
+        warnOnce(MessageKey.PARTITIONING, "PostgreSql does not support tenant partitioning");
+    }
+
+    @Override
+    public Map<String, Set<Integer>> getTenantPartitionIds(String schemaName) {
+        warnOnce(MessageKey.PARTITIONING, "PostgreSql does not support tenant partitioning");
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public List<String> detachFutureTimePartitions(Table table, LocalDate until) {
+        warnOnce(MessageKey.PARTITIONING, "PostgreSql does not support time partitioning");
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void rollTimePartitions(Table table, LocalDate until, Collection<String> detachedPartitions) {
+        warnOnce(MessageKey.PARTITIONING, "PostgreSql does not support time partitioning");
+    }
+
+    @Override
+    public List<String> archiveTimePartitions(Table table, LocalDate before, String retainPredicate) {
+        warnOnce(MessageKey.PARTITIONING, "PostgreSql does not support time partitioning");
+        return Collections.emptyList();
+    }
+
     @Override
     public void createRowType(String schemaName, String typeName, List<ColumnBase> columns) {
         warnOnce(MessageKey.ROW_TYPE, "Create row type not supported in PostgreSql");
@@ -198,9 +229,9 @@ public class PostgreSqlAdapter extends CommonDatabaseAdapter {
          *     CACHE 1000
          *     NO CYCLE;
         */
-        // PostgreSql doesn't support CACHE
+        // PostgreSql caches the values per session, so they are only in order with a cache of 1
         final String sname = DataDefinitionUtil.getQualifiedName(schemaName, sequenceName);
-        final String ddl = "CREATE SEQUENCE " + sname + " AS BIGINT START WITH 1000 CACHE 1000 NO CYCLE";
+        final String ddl = "CREATE SEQUENCE " + sname + " AS BIGINT START WITH 1000 CACHE " + Math.max(cache, 1) + " NO CYCLE";
         runStatement(ddl);
     }
 
@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.db2;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.time.LocalDate;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests to add DB2 time partitions to a table partitioned by tenant and time
+ */
+public class Db2AddTimePartitionTest {
+    private static final String schemaName = "schema1";
+    private static final String tableName = "table1";
+    private static final int tenantId = 23;
+    private static final String tablespaceName = "tablespace1";
+
+    @Test
+    public void testBasePartition() {
+        Db2AddTimePartition atp = new Db2AddTimePartition(schemaName, tableName, tenantId, null,
+                LocalDate.of(2020, 10, 1), tablespaceName);
+        assertEquals(atp.buildSqlString(), "ALTER TABLE " + schemaName + "." + tableName
+                + " ADD PARTITION TENANT23"
+                + " STARTING FROM (23, MINVALUE)"
+                + " ENDING AT (23, '2020-10-01-00.00.00.000000') EXCLUSIVE"
+                + " IN " + tablespaceName);
+    }
+
+    @Test
+    public void testMonthlyPartition() {
+        Db2AddTimePartition atp = new Db2AddTimePartition(schemaName, tableName, tenantId, LocalDate.of(2020, 12, 1),
+                LocalDate.of(2021, 1, 1), tablespaceName);
+        assertEquals(atp.buildSqlString(), "ALTER TABLE " + schemaName + "." + tableName
+                + " ADD PARTITION TENANT23_M20201201"
+                + " STARTING FROM (23, '2020-12-01-00.00.00.000000') INCLUSIVE"
+                + " ENDING AT (23, '2021-01-01-00.00.00.000000') EXCLUSIVE"
+                + " IN " + tablespaceName);
+    }
+
+    @Test
+    public void testFuturePartition() {
+        Db2AddTimePartition atp = new Db2AddTimePartition(schemaName, tableName, tenantId, LocalDate.of(2021, 1, 1),
+                null, tablespaceName);
+        assertEquals(atp.buildSqlString(), "ALTER TABLE " + schemaName + "." + tableName
+                + " ADD PARTITION TENANT23_FUTURE"
+                + " STARTING FROM (23, '2021-01-01-00.00.00.000000') INCLUSIVE"
+                + " ENDING AT (23, MAXVALUE)"
+                + " IN " + tablespaceName);
+    }
+
+    @Test
+    public void testPartitionNames() {
+        assertEquals(Db2AddTimePartition.getTenantId("TENANT23"), Integer.valueOf(23));
+        assertEquals(Db2AddTimePartition.getTenantId("TENANT23_M20201201"), Integer.valueOf(23));
+        assertNull(Db2AddTimePartition.getTenantId("PART0"));
+        assertTrue(Db2AddTimePartition.isMonthlyPartition("TENANT23_M20201201"));
+        assertFalse(Db2AddTimePartition.isMonthlyPartition("TENANT23"));
+        assertEquals(Db2AddTimePartition.getTenantId("TENANT23_FUTURE"), Integer.valueOf(23));
+        assertTrue(Db2AddTimePartition.isFuturePartition("TENANT23_FUTURE"));
+        assertFalse(Db2AddTimePartition.isFuturePartition("TENANT23_M20201201"));
+        assertFalse(Db2AddTimePartition.isMonthlyPartition("TENANT23_FUTURE"));
+    }
+
+    @Test
+    public void testParseBoundary() {
+        assertEquals(Db2AddTimePartition.parseBoundary("23,'2020-12-01-00.00.00.000000'"), LocalDate.of(2020, 12, 1));
+        assertNull(Db2AddTimePartition.parseBoundary("23,MINVALUE"));
+        assertNull(Db2AddTimePartition.parseBoundary("23,MAXVALUE"));
+        assertNull(Db2AddTimePartition.parseBoundary(null));
+    }
+}
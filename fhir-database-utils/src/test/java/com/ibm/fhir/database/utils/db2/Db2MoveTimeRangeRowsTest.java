@@ -0,0 +1,57 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.db2;
+
+import static org.testng.Assert.assertEquals;
+
+import java.time.LocalDate;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the DB2 statements on the rows of a tenant in a range of timestamps
+ */
+public class Db2MoveTimeRangeRowsTest {
+    private static final String schemaName = "schema1";
+    private static final String tableName = "table1";
+    private static final String predicate = "EXISTS (SELECT 1 FROM schema1.table2 X WHERE X.ID = T.ID)";
+
+    @Test
+    public void testHasRows() {
+        Db2HasTimeRangeRows hasRows = new Db2HasTimeRangeRows(schemaName, tableName, "MT_ID", "LAST_UPDATED", 23,
+                LocalDate.of(2020, 10, 1), LocalDate.of(2020, 11, 1), predicate);
+        assertEquals(hasRows.buildSqlString(), "SELECT 1 FROM schema1.table1 T"
+                + " WHERE T.MT_ID = 23"
+                + " AND T.LAST_UPDATED >= '2020-10-01-00.00.00.000000'"
+                + " AND T.LAST_UPDATED < '2020-11-01-00.00.00.000000'"
+                + " AND (" + predicate + ")"
+                + " FETCH FIRST 1 ROWS ONLY");
+    }
+
+    @Test
+    public void testHasRowsWithoutEnd() {
+        Db2HasTimeRangeRows hasRows = new Db2HasTimeRangeRows(schemaName, tableName, "MT_ID", "LAST_UPDATED", 23,
+                LocalDate.of(2021, 1, 1), null, null);
+        assertEquals(hasRows.buildSqlString(), "SELECT 1 FROM schema1.table1 T"
+                + " WHERE T.MT_ID = 23"
+                + " AND T.LAST_UPDATED >= '2021-01-01-00.00.00.000000'"
+                + " FETCH FIRST 1 ROWS ONLY");
+    }
+
+    @Test
+    public void testMoveRows() {
+        Db2MoveTimeRangeRows move = new Db2MoveTimeRangeRows(schemaName, tableName, "table1_TENANT23_M20201001", "MT_ID",
+                "LAST_UPDATED", 23, LocalDate.of(2020, 10, 1), LocalDate.of(2020, 11, 1), predicate);
+        final String range = "T.MT_ID = 23"
+                + " AND T.LAST_UPDATED >= '2020-10-01-00.00.00.000000'"
+                + " AND T.LAST_UPDATED < '2020-11-01-00.00.00.000000'"
+                + " AND NOT (" + predicate + ")";
+        assertEquals(move.buildInsertString(), "INSERT INTO schema1.table1_TENANT23_M20201001"
+                + " SELECT * FROM schema1.table1 T WHERE " + range);
+        assertEquals(move.buildDeleteString(), "DELETE FROM schema1.table1 T WHERE " + range);
+    }
+}
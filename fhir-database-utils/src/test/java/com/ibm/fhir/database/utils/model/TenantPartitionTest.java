@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.database.utils.model;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.database.utils.api.ITransaction;
+import com.ibm.fhir.database.utils.api.ITransactionProvider;
+import com.ibm.fhir.database.utils.api.IVersionHistoryService;
+import com.ibm.fhir.database.utils.db2.Db2Adapter;
+import com.ibm.fhir.task.api.ITaskCollector;
+import com.ibm.fhir.task.core.service.TaskService;
+
+/**
+ * Tests the parallel, resumable creation of tenant partitions
+ */
+public class TenantPartitionTest {
+    private static final String SCHEMA_NAME = "SCHEMA1";
+    private static final int TENANT_ID = 7;
+
+    @Test
+    public void testCollectTenantPartitions() {
+        PhysicalDataModel pdm = buildModel();
+        InMemoryVersionHistory vhs = new InMemoryVersionHistory();
+        List<String> calls = apply(pdm, vhs);
+
+        // The tablespace is always created before the partitions
+        assertEquals(calls.size(), 4);
+        assertEquals(calls.get(0), "createTablespace:TS_TENANT7");
+        assertTrue(calls.contains("createTenantPartition:TABLE1:7:TS_TENANT7"));
+        assertTrue(calls.contains("createTenantPartition:TABLE2:7:TS_TENANT7"));
+        assertTrue(calls.contains("createTenantPartition:TABLE3:7:TS_TENANT7"));
+        assertEquals(vhs.versions.size(), 4);
+        assertTrue(vhs.versions.containsKey(SCHEMA_NAME + ":PARTITION:TABLE1_TENANT7"));
+
+        // Running again doesn't repeat anything
+        assertTrue(apply(pdm, vhs).isEmpty());
+    }
+
+    @Test
+    public void testResumeTenantPartitions() {
+        PhysicalDataModel pdm = buildModel();
+        InMemoryVersionHistory vhs = new InMemoryVersionHistory();
+        vhs.addVersion(SCHEMA_NAME, DatabaseObjectType.TABLESPACE.name(), "TS_TENANT7", 1);
+        vhs.addVersion(SCHEMA_NAME, DatabaseObjectType.PARTITION.name(), "TABLE2_TENANT7", 1);
+
+        List<String> calls = apply(pdm, vhs);
+        assertEquals(calls.size(), 2);
+        assertTrue(calls.contains("createTenantPartition:TABLE1:7:TS_TENANT7"));
+        assertTrue(calls.contains("createTenantPartition:TABLE3:7:TS_TENANT7"));
+    }
+
+    private PhysicalDataModel buildModel() {
+        PhysicalDataModel pdm = new PhysicalDataModel();
+        for (String tableName: new String[] { "TABLE1", "TABLE2", "TABLE3" }) {
+            Table t = Table.builder(SCHEMA_NAME, tableName)
+                    .addIntColumn("ID", false)
+                    .setTenantColumnName("MT_ID")
+                    .build(pdm);
+            pdm.addTable(t);
+        }
+        // Not partitioned by tenant
+        pdm.addTable(Table.builder(SCHEMA_NAME, "TABLE4").addIntColumn("ID", false).build(pdm));
+        return pdm;
+    }
+
+    /**
+     * Collect and run the partition tasks against an adapter which records the calls made to it
+     */
+    private List<String> apply(PhysicalDataModel pdm, IVersionHistoryService vhs) {
+        RecordingAdapter adapter = new RecordingAdapter();
+        ITransactionProvider tp = () -> new ITransaction() {
+            @Override
+            public void setRollbackOnly() {
+                // NOP
+            }
+
+            @Override
+            public void close() {
+                // NOP
+            }
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            ITaskCollector collector = new TaskService().makeTaskCollector(pool);
+            pdm.collectTenantPartitions(collector, adapter, tp, vhs, SCHEMA_NAME, TENANT_ID, 16);
+            collector.startAndWait();
+            assertTrue(collector.getFailedTaskGroups().isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+        return adapter.calls;
+    }
+
+    /**
+     * An adapter which records the calls made to it instead of running any DDL
+     */
+    private static class RecordingAdapter extends Db2Adapter {
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void createTablespace(String tablespaceName, int extentSizeKB) {
+            calls.add("createTablespace:" + tablespaceName);
+        }
+
+        @Override
+        public void createTenantPartition(Table t, int newTenantId, String tablespaceName) {
+            calls.add("createTenantPartition:" + t.getObjectName() + ":" + newTenantId + ":" + tablespaceName);
+        }
+    }
+
+    /**
+     * A version history which isn't backed by a database
+     */
+    private static class InMemoryVersionHistory implements IVersionHistoryService {
+        private final Map<String, Integer> versions = Collections.synchronizedMap(new HashMap<>());
+
+        @Override
+        public void addVersion(String objectSchema, String objectType, String objectName, int version) {
+            versions.put(objectSchema + ":" + objectType + ":" + objectName, version);
+        }
+
+        @Override
+        public boolean applies(String objectSchema, String objectType, String objectName, int version) {
+            Integer current = versions.get(objectSchema + ":" + objectType + ":" + objectName);
+            return current == null || current < version;
+        }
+
+        @Override
+        public Integer getVersion(String objectSchema, String objectType, String objectName) {
+            return versions.get(objectSchema + ":" + objectType + ":" + objectName);
+        }
+    }
+}
@@ -6,7 +6,6 @@
 
 package com.ibm.fhir.model.generator;
 
-import static com.ibm.fhir.model.util.JsonSupport.nonClosingOutputStream;
 import static com.ibm.fhir.model.util.JsonSupport.nonClosingWriter;
 import static com.ibm.fhir.model.util.ModelSupport.isPrimitiveType;
 
@@ -67,9 +66,24 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
 
     @Override
     public void generate(Visitable visitable, OutputStream out) throws FHIRGeneratorException {
+        if (!prettyPrinting) {
+            // encode straight into a byte buffer, rather than through the javax.json generator and a Writer
+            GeneratingVisitor visitor = null;
+            Utf8JsonWriter writer = new Utf8JsonWriter(out);
+            try {
+                visitor = new JsonGeneratingVisitor(writer);
+                visitable.accept(visitor);
+                writer.flush();
+            } catch (Exception e) {
+                throw new FHIRGeneratorException(e.getMessage(), (visitor != null) ? visitor.getPath() : null, e);
+            } finally {
+                writer.close();
+            }
+            return;
+        }
         GeneratingVisitor visitor = null;
-        try (JsonGenerator generator = getGeneratorFactory().createGenerator(prettyPrinting ? wrap(out) : nonClosingOutputStream(out), StandardCharsets.UTF_8)) {
-            visitor = new JsonGeneratingVisitor(generator);
+        try (JsonGenerator generator = getGeneratorFactory().createGenerator(wrap(out), StandardCharsets.UTF_8)) {
+            visitor = new JsonGeneratingVisitor(new JsonGeneratorOutput(generator));
             visitable.accept(visitor);
             generator.flush();
         } catch (Exception e) {
@@ -81,7 +95,7 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
     public void generate(Visitable visitable, Writer writer) throws FHIRGeneratorException {
         GeneratingVisitor visitor = null;
         try (JsonGenerator generator = getGeneratorFactory().createGenerator(prettyPrinting ? wrap(writer) : nonClosingWriter(writer))) {
-            visitor = new JsonGeneratingVisitor(generator);
+            visitor = new JsonGeneratingVisitor(new JsonGeneratorOutput(generator));
             visitable.accept(visitor);
             generator.flush();
         } catch (Exception e) {
@@ -141,10 +155,124 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
         };
     }
 
-    private static class JsonGeneratingVisitor extends GeneratingVisitor {
+    /**
+     * The JSON output of the generating visitor; the sibling objects and arrays hold the id and extensions of
+     * primitive elements and are named after the element, prefixed with an underscore.
+     */
+    interface JsonOutput {
+        void writeStartObject();
+        void writeStartObject(java.lang.String name);
+        void writeStartSiblingObject(java.lang.String name);
+        void writeStartArray(java.lang.String name);
+        void writeStartSiblingArray(java.lang.String name);
+        void writeEnd();
+        void write(java.lang.String name, java.lang.String value);
+        void write(java.lang.String name, BigDecimal value);
+        void write(java.lang.String name, boolean value);
+        void write(java.lang.String name, int value);
+        void write(java.lang.String value);
+        void write(BigDecimal value);
+        void write(boolean value);
+        void write(int value);
+        void writeNull();
+        void flush();
+    }
+
+    /**
+     * The JSON output through a javax.json generator, which is used for pretty-printing and for Writers.
+     */
+    private static class JsonGeneratorOutput implements JsonOutput {
         private final JsonGenerator generator;
+
+        private JsonGeneratorOutput(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void writeStartObject() {
+            generator.writeStartObject();
+        }
+
+        @Override
+        public void writeStartObject(java.lang.String name) {
+            generator.writeStartObject(name);
+        }
+
+        @Override
+        public void writeStartSiblingObject(java.lang.String name) {
+            generator.writeStartObject("_" + name);
+        }
+
+        @Override
+        public void writeStartArray(java.lang.String name) {
+            generator.writeStartArray(name);
+        }
+
+        @Override
+        public void writeStartSiblingArray(java.lang.String name) {
+            generator.writeStartArray("_" + name);
+        }
+
+        @Override
+        public void writeEnd() {
+            generator.writeEnd();
+        }
+
+        @Override
+        public void write(java.lang.String name, java.lang.String value) {
+            generator.write(name, value);
+        }
+
+        @Override
+        public void write(java.lang.String name, BigDecimal value) {
+            generator.write(name, value);
+        }
+
+        @Override
+        public void write(java.lang.String name, boolean value) {
+            generator.write(name, value);
+        }
+
+        @Override
+        public void write(java.lang.String name, int value) {
+            generator.write(name, value);
+        }
+
+        @Override
+        public void write(java.lang.String value) {
+            generator.write(value);
+        }
+
+        @Override
+        public void write(BigDecimal value) {
+            generator.write(value);
+        }
+
+        @Override
+        public void write(boolean value) {
+            generator.write(value);
+        }
+
+        @Override
+        public void write(int value) {
+            generator.write(value);
+        }
+
+        @Override
+        public void writeNull() {
+            generator.writeNull();
+        }
+
+        @Override
+        public void flush() {
+            generator.flush();
+        }
+    }
+
+    private static class JsonGeneratingVisitor extends GeneratingVisitor {
+        private final JsonOutput generator;
                 
-        private JsonGeneratingVisitor(JsonGenerator generator) {
+        private JsonGeneratingVisitor(JsonOutput generator) {
             this.generator = generator;
         }
         
@@ -326,7 +454,7 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
                     elementName = getChoiceElementName(elementName, elementType);
                 }
                 if (elementIndex == -1 && hasIdOrExtension(element)) {
-                    generator.writeStartObject("_" + elementName);
+                    generator.writeStartSiblingObject(elementName);
                     generate(element);
                     generator.writeEnd();
                 }
@@ -343,7 +471,7 @@ public class FHIRJsonGenerator extends FHIRAbstractGenerator {
             if (!visitables.isEmpty()) {
                 generator.writeEnd();
                 if (isPrimitiveType(type) && hasIdOrExtension(visitables)) {
-                    generator.writeStartArray("_" + elementName);
+                    generator.writeStartSiblingArray(elementName);
                     for (Visitable visitable : visitables) {
                         if (hasIdOrExtension((Element) visitable)) {
                             generator.writeStartObject();
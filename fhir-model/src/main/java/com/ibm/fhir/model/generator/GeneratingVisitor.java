@@ -1,12 +1,14 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.model.generator;
 
+import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.type.Element;
@@ -14,6 +16,9 @@ import com.ibm.fhir.model.util.ModelSupport;
 import com.ibm.fhir.model.visitor.PathAwareVisitor;
 
 public abstract class GeneratingVisitor extends PathAwareVisitor {
+    // choice element name -> type -> element name with the type suffix
+    private static final Map<java.lang.String, Map<Class<?>, java.lang.String>> CHOICE_ELEMENT_NAMES = new ConcurrentHashMap<>();
+
     protected final Stack<Class<?>> typeStack = new Stack<>();
     
     protected GeneratingVisitor() {
@@ -21,7 +26,8 @@ public abstract class GeneratingVisitor extends PathAwareVisitor {
     }
     
     protected final java.lang.String getChoiceElementName(java.lang.String name, Class<?> type) {
-        return ModelSupport.getChoiceElementName(name, type);
+        return CHOICE_ELEMENT_NAMES.computeIfAbsent(name, n -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, t -> ModelSupport.getChoiceElementName(name, t));
     }
 
     protected final int getDepth() {
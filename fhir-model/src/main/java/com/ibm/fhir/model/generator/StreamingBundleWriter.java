@@ -0,0 +1,210 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.exception.FHIRGeneratorException;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.visitor.Visitable;
+
+/**
+ * Writes a Bundle to an OutputStream one entry at a time, so that the entries never have to be held in memory
+ * together.
+ *
+ * <p>The envelope is taken from a Bundle without entries (type, id, meta, total, links, ...) and written by
+ * {@link #start(Bundle)}; each entry is then serialized by {@link #entry(Bundle.Entry)} as soon as it is available,
+ * and {@link #end()} closes the envelope. The output is identical to that of a FHIRGenerator (without
+ * pretty-printing) for the complete Bundle.
+ *
+ * <p>This class is not thread-safe and does not close the passed OutputStream.
+ */
+public class StreamingBundleWriter {
+    private static final byte[] JSON_FIRST_ENTRY = ",\"entry\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_NEXT_ENTRY = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_END_ENTRIES = "]}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_START = "{".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_END = "}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_RESOURCE = "\"resource\":".getBytes(StandardCharsets.UTF_8);
+    private static final String XML_START_ENTRY = "<entry>";
+    private static final String XML_END_ENTRY = "</entry>";
+    private static final String XML_END = "</Bundle>";
+
+    private final Format format;
+    private final OutputStream out;
+    private final FHIRGenerator generator;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private Bundle header;
+    private int entryCount = 0;
+    private boolean ended = false;
+
+    /**
+     * @param format the format of the output (JSON or XML)
+     * @param out the OutputStream to write the Bundle to
+     * @throws IllegalArgumentException if {@code format} is not supported
+     */
+    public StreamingBundleWriter(Format format, OutputStream out) {
+        this.format = format;
+        this.out = out;
+        this.generator = FHIRGenerator.generator(format, false);
+    }
+
+    /**
+     * Writes the start of the Bundle.
+     *
+     * @param header a Bundle with the elements of the envelope; it must not have any entries or a signature
+     * @throws FHIRGeneratorException
+     */
+    public void start(Bundle header) throws FHIRGeneratorException {
+        if (this.header != null) {
+            throw new IllegalStateException("The bundle has already been started");
+        }
+        if (!header.getEntry().isEmpty() || header.getSignature() != null) {
+            throw new IllegalArgumentException("The bundle header must not have entries or a signature");
+        }
+        this.header = header;
+
+        String envelope = generate(header);
+        // Everything up to the end of the Bundle element; entries are inserted there
+        String end = Format.JSON.equals(format) ? "}" : XML_END;
+        write(envelope.substring(0, envelope.lastIndexOf(end)));
+    }
+
+    /**
+     * Writes the next entry of the Bundle.
+     *
+     * @param entry the entry to write
+     * @throws FHIRGeneratorException
+     */
+    public void entry(Bundle.Entry entry) throws FHIRGeneratorException {
+        if (header == null || ended) {
+            throw new IllegalStateException("The bundle has not been started or has already ended");
+        }
+        try {
+            if (Format.JSON.equals(format)) {
+                out.write(entryCount == 0 ? JSON_FIRST_ENTRY : JSON_NEXT_ENTRY);
+                // an element is serialized as a JSON object on its own
+                generator.generate(entry, out);
+            } else {
+                // an element is serialized with a wrapper that is not namespace-qualified, so serialize a
+                // single-entry Bundle instead and write the entry element it contains
+                String bundle = generate(Bundle.builder().type(header.getType()).entry(entry).build());
+                write(bundle.substring(bundle.indexOf(XML_START_ENTRY), bundle.lastIndexOf(XML_END_ENTRY) + XML_END_ENTRY.length()));
+            }
+        } catch (IOException e) {
+            throw new FHIRGeneratorException(e.getMessage(), null, e);
+        }
+        entryCount++;
+    }
+
+    /**
+     * Writes the next entry of a JSON Bundle with an already serialized resource, so that the resource doesn't
+     * have to be parsed and generated again. The resource is spliced into the entry between the elements that
+     * precede it (id, extensions, link and fullUrl) and the elements that follow it (search, request and response).
+     *
+     * @param entry the entry to write, without its resource
+     * @param resource the JSON of the resource, as generated without pretty-printing; the stream is not closed
+     * @throws FHIRGeneratorException
+     */
+    public void entry(Bundle.Entry entry, InputStream resource) throws FHIRGeneratorException {
+        if (header == null || ended) {
+            throw new IllegalStateException("The bundle has not been started or has already ended");
+        }
+        if (!Format.JSON.equals(format)) {
+            throw new IllegalStateException("Serialized resources can only be written to a JSON bundle");
+        }
+        if (entry.getResource() != null) {
+            throw new IllegalArgumentException("The entry must not have a resource");
+        }
+        boolean hasHead = entry.getId() != null || !entry.getExtension().isEmpty() || !entry.getModifierExtension().isEmpty()
+                || !entry.getLink().isEmpty() || entry.getFullUrl() != null;
+        boolean hasTail = entry.getSearch() != null || entry.getRequest() != null || entry.getResponse() != null;
+        try {
+            out.write(entryCount == 0 ? JSON_FIRST_ENTRY : JSON_NEXT_ENTRY);
+            out.write(JSON_START);
+            if (hasHead) {
+                Bundle.Entry head = hasTail ? entry.toBuilder().search(null).request(null).response(null).build() : entry;
+                write(members(head) + ",");
+            }
+            out.write(JSON_RESOURCE);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = resource.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            if (hasTail) {
+                Bundle.Entry tail = Bundle.Entry.builder()
+                        .search(entry.getSearch())
+                        .request(entry.getRequest())
+                        .response(entry.getResponse())
+                        .build();
+                write("," + members(tail));
+            }
+            out.write(JSON_END);
+        } catch (IOException e) {
+            throw new FHIRGeneratorException(e.getMessage(), null, e);
+        }
+        entryCount++;
+    }
+
+    /**
+     * Writes the end of the Bundle and flushes the OutputStream.
+     *
+     * @throws FHIRGeneratorException
+     */
+    public void end() throws FHIRGeneratorException {
+        if (header == null || ended) {
+            throw new IllegalStateException("The bundle has not been started or has already ended");
+        }
+        ended = true;
+        try {
+            if (Format.JSON.equals(format)) {
+                out.write(entryCount == 0 ? JSON_END : JSON_END_ENTRIES);
+            } else {
+                out.write(XML_END.getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new FHIRGeneratorException(e.getMessage(), null, e);
+        }
+    }
+
+    /**
+     * @return the number of entries written so far
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    private String generate(Visitable visitable) throws FHIRGeneratorException {
+        buffer.reset();
+        generator.generate(visitable, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the members of the JSON object generated for the passed element, without the enclosing braces
+     */
+    private String members(Visitable visitable) throws FHIRGeneratorException {
+        String json = generate(visitable);
+        return json.substring(1, json.length() - 1);
+    }
+
+    private void write(String s) throws FHIRGeneratorException {
+        try {
+            out.write(s.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new FHIRGeneratorException(e.getMessage(), null, e);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JSON writer (without pretty-printing) which encodes UTF-8 straight into a byte buffer and writes the buffer to the
+ * output stream whenever it is full.
+ *
+ * <p>Element names are encoded once, together with their quotes and the name separator, and the encoded names are
+ * shared by all writers; the set of names is bounded by the FHIR model. Strings that only consist of printable ASCII
+ * characters are copied without escaping or encoding, and integers are written without creating a String. The
+ * output is identical to that of the javax.json generator: the characters '"', '\' and the control characters are
+ * escaped, everything else is written as is.
+ *
+ * <p>The buffer is borrowed from the current thread for the lifetime of the writer and must be returned with
+ * {@link #close()}. This class is not thread-safe and does not close the passed OutputStream.
+ */
+final class Utf8JsonWriter implements FHIRJsonGenerator.JsonOutput {
+    private static final int BUFFER_SIZE = 8192;
+    // the longest encoding of a single char: the \u0000 escape
+    private static final int MAX_CHAR_SIZE = 6;
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<>();
+    private static final Map<String, byte[]> NAMES = new ConcurrentHashMap<>();
+    private static final Map<String, byte[]> SIBLING_NAMES = new ConcurrentHashMap<>();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int count = 0;
+
+    // per nesting level: the closing character and whether the next value needs a separator
+    private byte[] closers = new byte[32];
+    private boolean[] separate = new boolean[32];
+    private int depth = 0;
+
+    Utf8JsonWriter(OutputStream out) {
+        this(out, borrowBuffer());
+    }
+
+    private Utf8JsonWriter(OutputStream out, byte[] buffer) {
+        this.out = out;
+        this.buffer = buffer;
+    }
+
+    private static byte[] borrowBuffer() {
+        byte[] buffer = BUFFERS.get();
+        if (buffer == null) {
+            // the first writer of the thread, or a writer created while another one is in use
+            return new byte[BUFFER_SIZE];
+        }
+        BUFFERS.set(null);
+        return buffer;
+    }
+
+    @Override
+    public void writeStartObject() {
+        separator();
+        start('{', '}');
+    }
+
+    @Override
+    public void writeStartObject(String name) {
+        name(NAMES, name, false);
+        start('{', '}');
+    }
+
+    @Override
+    public void writeStartSiblingObject(String name) {
+        name(SIBLING_NAMES, name, true);
+        start('{', '}');
+    }
+
+    @Override
+    public void writeStartArray(String name) {
+        name(NAMES, name, false);
+        start('[', ']');
+    }
+
+    @Override
+    public void writeStartSiblingArray(String name) {
+        name(SIBLING_NAMES, name, true);
+        start('[', ']');
+    }
+
+    @Override
+    public void writeEnd() {
+        ensure(1);
+        buffer[count++] = closers[depth--];
+    }
+
+    @Override
+    public void write(String name, String value) {
+        name(NAMES, name, false);
+        string(value);
+    }
+
+    @Override
+    public void write(String name, BigDecimal value) {
+        name(NAMES, name, false);
+        ascii(value.toString());
+    }
+
+    @Override
+    public void write(String name, boolean value) {
+        name(NAMES, name, false);
+        bytes(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void write(String name, int value) {
+        name(NAMES, name, false);
+        integer(value);
+    }
+
+    @Override
+    public void write(String value) {
+        separator();
+        string(value);
+    }
+
+    @Override
+    public void write(BigDecimal value) {
+        separator();
+        ascii(value.toString());
+    }
+
+    @Override
+    public void write(boolean value) {
+        separator();
+        bytes(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void write(int value) {
+        separator();
+        integer(value);
+    }
+
+    @Override
+    public void writeNull() {
+        separator();
+        bytes(NULL);
+    }
+
+    /**
+     * Writes the content of the buffer to the output stream and flushes the output stream.
+     */
+    @Override
+    public void flush() {
+        try {
+            flushBuffer();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the buffer to the current thread; the writer can't be used afterwards.
+     */
+    void close() {
+        if (buffer != null) {
+            BUFFERS.set(buffer);
+            buffer = null;
+        }
+    }
+
+    private void start(char opener, char closer) {
+        ensure(1);
+        buffer[count++] = (byte) opener;
+        if (++depth == closers.length) {
+            closers = Arrays.copyOf(closers, depth * 2);
+            separate = Arrays.copyOf(separate, depth * 2);
+        }
+        closers[depth] = (byte) closer;
+        separate[depth] = false;
+    }
+
+    private void separator() {
+        if (separate[depth]) {
+            ensure(1);
+            buffer[count++] = ',';
+        } else {
+            separate[depth] = true;
+        }
+    }
+
+    private void name(Map<String, byte[]> names, String name, boolean sibling) {
+        separator();
+        byte[] encoded = names.get(name);
+        if (encoded == null) {
+            encoded = names.computeIfAbsent(name, n -> encodeName(sibling ? "_" + n : n));
+        }
+        bytes(encoded);
+    }
+
+    private static byte[] encodeName(String name) {
+        Utf8JsonWriter writer = new Utf8JsonWriter(null, new byte[name.length() * MAX_CHAR_SIZE + 3]);
+        writer.string(name);
+        writer.buffer[writer.count++] = ':';
+        return Arrays.copyOf(writer.buffer, writer.count);
+    }
+
+    private void string(String value) {
+        ensure(1);
+        buffer[count++] = '"';
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.length - count < MAX_CHAR_SIZE) {
+                flushBuffer();
+            }
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buffer[count++] = (byte) c;
+            } else if (c < 0x80) {
+                escape(c);
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xc0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[count++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate can't be encoded; the UTF-8 encoder of the javax.json generator writes '?'
+                buffer[count++] = '?';
+            } else {
+                buffer[count++] = (byte) (0xe0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        ensure(1);
+        buffer[count++] = '"';
+    }
+
+    private void escape(char c) {
+        buffer[count++] = '\\';
+        switch (c) {
+        case '"':
+        case '\\':
+            buffer[count++] = (byte) c;
+            break;
+        case '\b':
+            buffer[count++] = 'b';
+            break;
+        case '\f':
+            buffer[count++] = 'f';
+            break;
+        case '\n':
+            buffer[count++] = 'n';
+            break;
+        case '\r':
+            buffer[count++] = 'r';
+            break;
+        case '\t':
+            buffer[count++] = 't';
+            break;
+        default:
+            buffer[count++] = 'u';
+            buffer[count++] = '0';
+            buffer[count++] = '0';
+            buffer[count++] = HEX[c >> 4];
+            buffer[count++] = HEX[c & 0xf];
+        }
+    }
+
+    private void integer(int value) {
+        if (value == java.lang.Integer.MIN_VALUE) {
+            ascii(java.lang.Integer.toString(value));
+            return;
+        }
+        // at most a sign and 10 digits
+        ensure(11);
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+    }
+
+    private void ascii(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void bytes(byte[] bytes) {
+        if (bytes.length > buffer.length - count) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                write(bytes, bytes.length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * Makes room for the given number of bytes, which must not exceed the buffer size.
+     */
+    private void ensure(int size) {
+        if (size > buffer.length - count) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+        write(buffer, count);
+        count = 0;
+    }
+
+    private void write(byte[] bytes, int length) {
+        try {
+            out.write(bytes, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
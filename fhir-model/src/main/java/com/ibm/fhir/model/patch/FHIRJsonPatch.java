@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -23,16 +23,25 @@ import com.ibm.fhir.model.patch.exception.FHIRPatchException;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.util.JsonSupport;
 
+/**
+ * A FHIRPatch backed by a JSON Patch.
+ *
+ * <p>The operations are applied directly to the model where possible, which only rebuilds the elements along the
+ * patched paths; otherwise the patch is applied to the JSON representation of the resource, which is then parsed.
+ */
 public class FHIRJsonPatch implements FHIRPatch {
     private static final JsonProvider PROVIDER = JsonProvider.provider();
     private final JsonPatch patch;
+    private final JsonArray operations;
     
     FHIRJsonPatch(JsonArray array) {
-        this(PROVIDER.createPatch(array));
+        this.patch = PROVIDER.createPatch(array);
+        this.operations = array;
     }
     
     FHIRJsonPatch(JsonPatch patch) {
         this.patch = Objects.requireNonNull(patch);
+        this.operations = patch.toJsonArray();
     }
     
     public JsonPatch getJsonPatch() {
@@ -41,6 +50,10 @@ public class FHIRJsonPatch implements FHIRPatch {
 
     @Override
     public <T extends Resource> T apply(T resource) throws FHIRPatchException {
+        T result = ModelJsonPatch.apply(resource, operations);
+        if (result != null) {
+            return result;
+        }
         try {
             JsonObject object = JsonSupport.toJsonObject(resource);
             return FHIRParser.parser(Format.JSON)
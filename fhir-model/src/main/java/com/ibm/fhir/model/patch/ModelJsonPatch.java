@@ -0,0 +1,543 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.patch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.JsonArray;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.spi.JsonProvider;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.parser.FHIRJsonParser;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.resource.Parameters;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.model.util.ModelSupport.ElementInfo;
+import com.ibm.fhir.model.visitor.Visitable;
+
+/**
+ * Applies the operations of a JSON Patch directly to the model, without converting the resource to a JsonObject and
+ * parsing the patched JsonObject. The JSON Pointers of the operations are resolved against the JSON representation of
+ * the model objects and only the ancestors of the changed elements are rebuilt (see {@link PatchSupport}); JSON values
+ * are parsed into model objects of the type of their target element.
+ *
+ * <p>Operations which can't be mapped onto the model exactly as they would apply to the JSON representation (e.g.
+ * pointers into the "_" siblings of primitive elements, primitive elements with an id or extensions, values of types
+ * which can't be parsed on their own) and operations which fail (e.g. because their target doesn't exist or a test
+ * doesn't match) are not applied; {@link #apply(Resource, JsonArray)} returns null and the caller applies the patch to
+ * the JSON representation instead, which then also reports the error.
+ */
+final class ModelJsonPatch {
+    private static final Logger log = Logger.getLogger(ModelJsonPatch.class.getName());
+
+    private static final JsonBuilderFactory BUILDER_FACTORY = JsonProvider.provider().createBuilderFactory(null);
+    private static final Set<Class<?>> PARAMETER_VALUE_TYPES =
+            new HashSet<>(ModelSupport.getChoiceElementTypes(Parameters.Parameter.class, "value"));
+
+    private ModelJsonPatch() {
+    }
+
+    /**
+     * @param resource
+     *     the resource to patch
+     * @param operations
+     *     the operations of the JSON Patch
+     * @return the patched resource, or null if the patch must be applied to the JSON representation of the resource
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Resource> T apply(T resource, JsonArray operations) {
+        try {
+            Visitable result = resource;
+            for (JsonValue operation : operations) {
+                result = apply(result, operation);
+            }
+            return (T) result;
+        } catch (NotApplicable e) {
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Applying the JSON Patch to the JSON representation of the resource: " + e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            // e.g. an IllegalStateException for a resource or element that is no longer valid
+            if (log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, "Applying the JSON Patch to the JSON representation of the resource", e);
+            }
+        }
+        return null;
+    }
+
+    private static Visitable apply(Visitable resource, JsonValue value) {
+        if (!(value instanceof JsonObject)) {
+            throw new NotApplicable("invalid operation");
+        }
+        JsonObject operation = (JsonObject) value;
+        String op = getString(operation, "op");
+        String[] path = tokens(getString(operation, "path"));
+        switch (op) {
+        case "add":
+            return edit(resource, path, 0, new Add(getValue(operation)));
+        case "remove":
+            return edit(resource, path, 0, new Remove());
+        case "replace":
+            return edit(resource, path, 0, new Replace(getValue(operation)));
+        case "move": {
+            String[] from = tokens(getString(operation, "from"));
+            if (isPrefix(from, path)) {
+                throw new NotApplicable("move to a location within the value that is moved");
+            }
+            Get get = new Get();
+            edit(resource, from, 0, get);
+            Visitable removed = edit(resource, from, 0, new Remove());
+            return edit(removed, path, 0, new AddValue(get.value));
+        }
+        case "copy": {
+            Get get = new Get();
+            edit(resource, tokens(getString(operation, "from")), 0, get);
+            return edit(resource, path, 0, new AddValue(get.value));
+        }
+        case "test":
+            return edit(resource, path, 0, new Test(getValue(operation)));
+        default:
+            throw new NotApplicable("unsupported operation " + op);
+        }
+    }
+
+    /**
+     * Applies the operation to the location identified by the tokens, starting at token i, in the passed object.
+     *
+     * @return the new object, or the passed object if it didn't change
+     */
+    private static Visitable edit(Visitable object, String[] tokens, int i, Operation operation) {
+        Member member = member(object, tokens[i]);
+        Object current = PatchSupport.getValue(object, member.name);
+        Object updated;
+        if (i == tokens.length - 1) {
+            updated = operation.member(member, current);
+        } else if (member.repeating) {
+            List<?> list = (List<?>) current;
+            if (i + 1 == tokens.length - 1) {
+                checkPrimitives(list);
+                updated = operation.item(member, list, tokens[i + 1]);
+            } else {
+                int index = index(tokens[i + 1], list.size() - 1);
+                Visitable item = complex(list.get(index));
+                Visitable updatedItem = edit(item, tokens, i + 2, operation);
+                if (updatedItem == item) {
+                    return object;
+                }
+                List<Object> items = new ArrayList<>(list);
+                items.set(index, updatedItem);
+                updated = items;
+            }
+        } else {
+            if (!exists(member, current)) {
+                throw new NotApplicable("no value at " + tokens[i]);
+            }
+            Visitable child = complex(current);
+            Visitable updatedChild = edit(child, tokens, i + 1, operation);
+            if (updatedChild == child) {
+                return object;
+            }
+            updated = updatedChild;
+        }
+        return updated == current ? object : PatchSupport.setValue(object, member.name, updated);
+    }
+
+    /**
+     * Resolve a member of the JSON representation of a resource or complex element to an element of the model.
+     */
+    private static Member member(Visitable object, String token) {
+        if (token.isEmpty() || token.startsWith("_") || "resourceType".equals(token)) {
+            throw new NotApplicable("unsupported member " + token);
+        }
+        Class<?> modelClass = object.getClass();
+        ElementInfo elementInfo = ModelSupport.getElementInfo(modelClass, token);
+        if (elementInfo != null) {
+            if (elementInfo.isChoice()) {
+                // the JSON representation of a choice element always has a type suffix
+                throw new NotApplicable("unsupported member " + token);
+            }
+            return new Member(elementInfo.getName(), elementInfo.getType(), elementInfo.isRepeating(), false);
+        }
+        elementInfo = ModelSupport.getChoiceElementInfo(modelClass, token);
+        if (elementInfo != null) {
+            for (Class<?> choiceType : elementInfo.getChoiceTypes()) {
+                if (ModelSupport.getChoiceElementName(elementInfo.getName(), choiceType).equals(token)) {
+                    return new Member(elementInfo.getName(), choiceType, false, true);
+                }
+            }
+        }
+        throw new NotApplicable("unknown member " + token);
+    }
+
+    /**
+     * @return true if the member is present in the JSON representation
+     */
+    private static boolean exists(Member member, Object value) {
+        if (member.repeating) {
+            return !((List<?>) value).isEmpty();
+        }
+        if (member.choice) {
+            return value != null && value.getClass() == member.type;
+        }
+        return value != null;
+    }
+
+    private static void checkExists(Member member, Object value) {
+        if (!exists(member, value)) {
+            throw new NotApplicable("no value for member " + member.name);
+        }
+    }
+
+    /**
+     * Adding or replacing a member is only the same as setting the element if it doesn't leave another member behind
+     * in the JSON representation: a choice element with another type or the "_" sibling of a primitive element.
+     */
+    private static void checkReplaceable(Member member, Object current) {
+        if (member.choice && current != null && current.getClass() != member.type) {
+            throw new NotApplicable("choice element " + member.name + " has a value of another type");
+        }
+        if (member.repeating) {
+            checkPrimitives((List<?>) current);
+        } else {
+            checkPrimitive(current);
+        }
+    }
+
+    private static void checkPrimitive(Object value) {
+        if (PatchSupport.hasPrimitiveExtras(value)) {
+            throw new NotApplicable("primitive element with an id or extensions");
+        }
+    }
+
+    private static void checkPrimitives(List<?> list) {
+        for (Object item : list) {
+            checkPrimitive(item);
+        }
+    }
+
+    private static Visitable complex(Object value) {
+        if (!(value instanceof Visitable) || ModelSupport.isPrimitiveType(value.getClass())) {
+            throw new NotApplicable("not an object");
+        }
+        return (Visitable) value;
+    }
+
+    /**
+     * Parse a JSON value into a model object of the passed type, the same way the JSON representation of a resource
+     * with this value is parsed.
+     */
+    private static Object toModel(Class<?> type, JsonValue value) {
+        if (String.class.equals(type)) {
+            if (!(value instanceof JsonString)) {
+                throw new NotApplicable("not a string");
+            }
+            return ((JsonString) value).getString();
+        }
+        try {
+            if (Resource.class.isAssignableFrom(type)) {
+                if (!(value instanceof JsonObject)) {
+                    throw new NotApplicable("not a resource");
+                }
+                Resource resource = parse((JsonObject) value);
+                if (!type.isInstance(resource)) {
+                    throw new NotApplicable("resource of the wrong type");
+                }
+                return resource;
+            }
+            if (Extension.class.equals(type)) {
+                Parameters parameters = parse(BUILDER_FACTORY.createObjectBuilder()
+                        .add("resourceType", "Parameters")
+                        .add("parameter", BUILDER_FACTORY.createArrayBuilder()
+                            .add(BUILDER_FACTORY.createObjectBuilder()
+                                .add("name", "value")
+                                .add("extension", BUILDER_FACTORY.createArrayBuilder().add(value))))
+                        .build());
+                return parameters.getParameter().get(0).getExtension().get(0);
+            }
+            Class<?> valueType = ModelSupport.isCodeSubtype(type) ? Code.class : type;
+            if (!PARAMETER_VALUE_TYPES.contains(valueType)) {
+                throw new NotApplicable("values of type " + type.getSimpleName() + " can't be parsed on their own");
+            }
+            Parameters parameters = parse(BUILDER_FACTORY.createObjectBuilder()
+                    .add("resourceType", "Parameters")
+                    .add("parameter", BUILDER_FACTORY.createArrayBuilder()
+                        .add(BUILDER_FACTORY.createObjectBuilder()
+                            .add("name", "value")
+                            .add(ModelSupport.getChoiceElementName("value", valueType), value)))
+                    .build());
+            Object result = parameters.getParameter().get(0).getValue();
+            return valueType == type ? result : PatchSupport.convertToCodeSubtype((Code) result, type);
+        } catch (FHIRParserException e) {
+            throw new NotApplicable(e.getMessage());
+        }
+    }
+
+    private static <T extends Resource> T parse(JsonObject jsonObject) throws FHIRParserException {
+        return FHIRParser.parser(Format.JSON).as(FHIRJsonParser.class).parse(jsonObject);
+    }
+
+    /**
+     * Check that a model object, which is copied or moved, ends up as the same type as its JSON representation would
+     * be parsed at the target location.
+     */
+    private static Object checkType(Class<?> type, Object value) {
+        if (Resource.class.isAssignableFrom(type) ? !type.isInstance(value) : value.getClass() != type) {
+            throw new NotApplicable("value of type " + value.getClass().getSimpleName() + " can't be used for type " + type.getSimpleName());
+        }
+        return value;
+    }
+
+    private static int index(String token, int max) {
+        if (!token.matches("0|[1-9][0-9]{0,8}")) {
+            throw new NotApplicable("invalid array index " + token);
+        }
+        int index = Integer.parseInt(token);
+        if (index > max) {
+            throw new NotApplicable("array index out of bounds " + token);
+        }
+        return index;
+    }
+
+    private static String[] tokens(String pointer) {
+        if (!pointer.startsWith("/")) {
+            throw new NotApplicable("unsupported pointer '" + pointer + "'");
+        }
+        String[] tokens = pointer.substring(1).split("/", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = tokens[i].replace("~1", "/").replace("~0", "~");
+        }
+        return tokens;
+    }
+
+    private static boolean isPrefix(String[] prefix, String[] tokens) {
+        if (prefix.length > tokens.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (!prefix[i].equals(tokens[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getString(JsonObject operation, String name) {
+        JsonValue value = operation.get(name);
+        if (!(value instanceof JsonString)) {
+            throw new NotApplicable("invalid operation");
+        }
+        return ((JsonString) value).getString();
+    }
+
+    private static JsonValue getValue(JsonObject operation) {
+        JsonValue value = operation.get("value");
+        if (value == null || value.getValueType() == JsonValue.ValueType.NULL) {
+            throw new NotApplicable("missing or null value");
+        }
+        return value;
+    }
+
+    private static final class Member {
+        private final String name;
+        private final Class<?> type;
+        private final boolean repeating;
+        private final boolean choice;
+
+        private Member(String name, Class<?> type, boolean repeating, boolean choice) {
+            this.name = name;
+            this.type = type;
+            this.repeating = repeating;
+            this.choice = choice;
+        }
+    }
+
+    /**
+     * An operation on the last token of a pointer: either a member of an object or an index into an array.
+     */
+    private interface Operation {
+        /**
+         * @return the new value of the member
+         */
+        Object member(Member member, Object current);
+
+        /**
+         * @return the new list of items of the (repeating) member
+         */
+        Object item(Member member, List<?> list, String token);
+    }
+
+    private static class Add implements Operation {
+        private final JsonValue value;
+
+        private Add(JsonValue value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object member(Member member, Object current) {
+            checkReplaceable(member, current);
+            if (!member.repeating) {
+                return toModel(member.type, value);
+            }
+            if (!(value instanceof JsonArray)) {
+                throw new NotApplicable("not an array");
+            }
+            List<Object> items = new ArrayList<>(((JsonArray) value).size());
+            for (JsonValue item : (JsonArray) value) {
+                items.add(toModel(member.type, item));
+            }
+            return items;
+        }
+
+        @Override
+        public Object item(Member member, List<?> list, String token) {
+            List<Object> items = new ArrayList<>(list);
+            items.add("-".equals(token) ? list.size() : index(token, list.size()), toModel(member.type, value));
+            return items;
+        }
+    }
+
+    private static class Replace extends Add {
+        private Replace(JsonValue value) {
+            super(value);
+        }
+
+        @Override
+        public Object member(Member member, Object current) {
+            checkExists(member, current);
+            return super.member(member, current);
+        }
+
+        @Override
+        public Object item(Member member, List<?> list, String token) {
+            List<Object> items = new ArrayList<>(list);
+            items.set(index(token, list.size() - 1), toModel(member.type, super.value));
+            return items;
+        }
+    }
+
+    private static class AddValue implements Operation {
+        private final Object value;
+
+        private AddValue(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object member(Member member, Object current) {
+            checkReplaceable(member, current);
+            if (!member.repeating) {
+                if (value instanceof List) {
+                    throw new NotApplicable("not a single value");
+                }
+                return checkType(member.type, value);
+            }
+            if (!(value instanceof List)) {
+                throw new NotApplicable("not an array");
+            }
+            for (Object item : (List<?>) value) {
+                checkType(member.type, item);
+            }
+            return value;
+        }
+
+        @Override
+        public Object item(Member member, List<?> list, String token) {
+            if (value instanceof List) {
+                throw new NotApplicable("not a single value");
+            }
+            List<Object> items = new ArrayList<>(list);
+            items.add("-".equals(token) ? list.size() : index(token, list.size()), checkType(member.type, value));
+            return items;
+        }
+    }
+
+    private static class Remove implements Operation {
+        @Override
+        public Object member(Member member, Object current) {
+            checkExists(member, current);
+            checkReplaceable(member, current);
+            return member.repeating ? Collections.emptyList() : null;
+        }
+
+        @Override
+        public Object item(Member member, List<?> list, String token) {
+            List<Object> items = new ArrayList<>(list);
+            items.remove(index(token, list.size() - 1));
+            return items;
+        }
+    }
+
+    private static class Get implements Operation {
+        private Object value;
+
+        @Override
+        public Object member(Member member, Object current) {
+            checkExists(member, current);
+            checkReplaceable(member, current);
+            value = current;
+            return current;
+        }
+
+        @Override
+        public Object item(Member member, List<?> list, String token) {
+            value = list.get(index(token, list.size() - 1));
+            return list;
+        }
+    }
+
+    private static class Test implements Operation {
+        private final Add expected;
+
+        private Test(JsonValue value) {
+            this.expected = new Add(value);
+        }
+
+        @Override
+        public Object member(Member member, Object current) {
+            checkExists(member, current);
+            if (!expected.member(member, current).equals(current)) {
+                throw new NotApplicable("test failed");
+            }
+            return current;
+        }
+
+        @Override
+        public Object item(Member member, List<?> list, String token) {
+            Object item = list.get(index(token, list.size() - 1));
+            if (!toModel(member.type, expected.value).equals(item)) {
+                throw new NotApplicable("test failed");
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Signals that the JSON Patch must be applied to the JSON representation of the resource.
+     */
+    private static class NotApplicable extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private NotApplicable(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
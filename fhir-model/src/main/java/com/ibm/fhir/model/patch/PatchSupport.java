@@ -0,0 +1,395 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.patch;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import javax.lang.model.SourceVersion;
+
+import com.ibm.fhir.model.builder.Builder;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.Element;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.model.util.ModelSupport.ElementInfo;
+import com.ibm.fhir.model.visitor.Visitable;
+
+/**
+ * Support for changing immutable model objects with structural sharing.
+ *
+ * <p>A change to an element somewhere in a resource only rebuilds the ancestors of that element (the builders along
+ * the path from the resource to the changed element); all other resources and elements are shared, by reference, with
+ * the original. Element values are read and written through method handles which are looked up once per model class
+ * and element.
+ */
+public final class PatchSupport {
+    private static final Map<Class<?>, Map<String, Accessor>> ACCESSORS = new ConcurrentHashMap<>();
+
+    private PatchSupport() {
+    }
+
+    /**
+     * A step on the path from a resource or element to one of its descendants.
+     */
+    public static final class Step {
+        private final String name;
+        private final int index;
+
+        /**
+         * @param name
+         *     the name of the element; choice element names do not include a type suffix
+         * @param index
+         *     the index of the element within a repeating element, or -1 for a non-repeating element
+         */
+        public Step(String name, int index) {
+            this.name = Objects.requireNonNull(name);
+            this.index = index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return index == -1 ? name : name + "[" + index + "]";
+        }
+    }
+
+    /**
+     * Convert a "simple" FHIRPath path, like the path of a node in a FHIRPathTree (e.g. {@code Patient.name[0].given[1]}),
+     * into the steps from the root of the path to the element it identifies. The first segment of the path (the root
+     * itself) is not included.
+     *
+     * @param path
+     *     a path which consists of dot-separated element names with optional indices; keywords may be delimited with
+     *     backticks
+     * @return the steps after the root of the path
+     * @throws IllegalArgumentException if the path is not a simple path
+     */
+    public static List<Step> parsePath(String path) {
+        String[] segments = path.split("\\.");
+        List<Step> steps = new ArrayList<>(segments.length - 1);
+        for (int i = 1; i < segments.length; i++) {
+            String segment = segments[i];
+            int index = -1;
+            int bracket = segment.indexOf('[');
+            if (bracket != -1) {
+                if (!segment.endsWith("]")) {
+                    throw new IllegalArgumentException("Invalid path segment '" + segment + "' in path: " + path);
+                }
+                try {
+                    index = Integer.parseInt(segment.substring(bracket + 1, segment.length() - 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid path segment '" + segment + "' in path: " + path);
+                }
+                segment = segment.substring(0, bracket);
+            }
+            if (segment.startsWith("`") && segment.endsWith("`") && segment.length() > 1) {
+                segment = segment.substring(1, segment.length() - 1);
+            }
+            steps.add(new Step(segment, index));
+        }
+        return steps;
+    }
+
+    /**
+     * @param parent
+     *     the resource or element
+     * @param elementName
+     *     the name of the element; choice element names do not include a type suffix
+     * @return the value of the element: a (possibly empty) List for repeating elements; otherwise a Visitable, a
+     *     java.lang.String (for the id of a resource or element and the url of an extension) or null
+     * @throws IllegalArgumentException if the parent does not have an element with the passed name
+     */
+    public static Object getValue(Visitable parent, String elementName) {
+        Accessor accessor = getAccessor(parent.getClass(), elementName);
+        try {
+            return accessor.getter.invoke(parent);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unexpected error while reading " + parent.getClass().getName() + "." + elementName, t);
+        }
+    }
+
+    /**
+     * Returns a copy of the parent with a new value for one of its elements; all other elements are shared with the
+     * original. Values of type Code are converted to the Code subtype of the element when needed.
+     *
+     * @param parent
+     *     the resource or element
+     * @param elementName
+     *     the name of the element; choice element names do not include a type suffix
+     * @param value
+     *     the new value: a Collection for repeating elements; otherwise a Visitable, a java.lang.String or null
+     * @return the new resource or element
+     * @throws IllegalArgumentException if the parent does not have an element with the passed name or the value is not
+     *     valid for the element
+     * @throws IllegalStateException if the resulting resource or element is not valid
+     */
+    public static <T extends Visitable> T setValue(T parent, String elementName, Object value) {
+        return setValues(parent, Collections.singletonMap(elementName, value));
+    }
+
+    /**
+     * Returns a copy of the parent with new values for some of its elements, built with a single builder; all other
+     * elements are shared with the original.
+     *
+     * @param parent
+     *     the resource or element
+     * @param values
+     *     the new values by element name, as described for {@link #setValue(Visitable, String, Object)}
+     * @return the new resource or element
+     * @throws IllegalArgumentException if the parent does not have an element with one of the names or a value is not
+     *     valid for its element
+     * @throws IllegalStateException if the resulting resource or element is not valid
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Visitable> T setValues(T parent, Map<String, ?> values) {
+        Builder<?> builder = toBuilder(parent);
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            String elementName = entry.getKey();
+            Object value = entry.getValue();
+            Accessor accessor = getAccessor(parent.getClass(), elementName);
+            Object converted;
+            if (accessor.elementInfo.isRepeating()) {
+                if (value == null) {
+                    converted = Collections.emptyList();
+                } else if (value instanceof Collection) {
+                    List<Object> items = new ArrayList<>(((Collection<?>) value).size());
+                    for (Object item : (Collection<?>) value) {
+                        items.add(convert(item, accessor.elementInfo, parent, elementName));
+                    }
+                    converted = items;
+                } else {
+                    throw new IllegalArgumentException("Element '" + elementName + "' of " + parent.getClass().getSimpleName()
+                            + " is a repeating element and its value must be a Collection");
+                }
+            } else {
+                converted = value == null ? null : convert(value, accessor.elementInfo, parent, elementName);
+            }
+
+            try {
+                accessor.setter.invoke(builder, converted);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unexpected error while setting " + parent.getClass().getName() + "." + elementName, t);
+            }
+        }
+        return (T) builder.build();
+    }
+
+    /**
+     * Returns a copy of the root in which the resource or element at the end of the path is replaced by the result of
+     * the passed function. Only the ancestors of the replaced resource or element are rebuilt; if the function
+     * returns the same instance that it was passed, the root itself is returned.
+     *
+     * @param root
+     *     the resource or element to start from
+     * @param path
+     *     the steps from the root to the resource or element to replace; an empty path denotes the root itself
+     * @param function
+     *     the function which computes the replacement; it may return null to delete the resource or element
+     * @return the new root
+     * @throws IllegalArgumentException if the path does not identify an existing resource or element
+     * @throws IllegalStateException if one of the rebuilt resources or elements is not valid
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Visitable> T update(T root, List<Step> path, UnaryOperator<Visitable> function) {
+        return (T) update(root, path, 0, function);
+    }
+
+    private static Visitable update(Visitable node, List<Step> path, int i, UnaryOperator<Visitable> function) {
+        if (i == path.size()) {
+            return function.apply(node);
+        }
+        Step step = path.get(i);
+        Object value = getValue(node, step.getName());
+        if (step.getIndex() == -1) {
+            if (!(value instanceof Visitable)) {
+                throw new IllegalArgumentException("No element found at '" + step + "' in " + node.getClass().getSimpleName());
+            }
+            Visitable child = (Visitable) value;
+            Visitable updated = update(child, path, i + 1, function);
+            return updated == child ? node : setValue(node, step.getName(), updated);
+        }
+
+        if (!(value instanceof List) || step.getIndex() >= ((List<?>) value).size()) {
+            throw new IllegalArgumentException("No element found at '" + step + "' in " + node.getClass().getSimpleName());
+        }
+        List<?> list = (List<?>) value;
+        Visitable child = (Visitable) list.get(step.getIndex());
+        Visitable updated = update(child, path, i + 1, function);
+        if (updated == child) {
+            return node;
+        }
+        List<Object> items = new ArrayList<>(list);
+        if (updated == null) {
+            items.remove(step.getIndex());
+        } else {
+            items.set(step.getIndex(), updated);
+        }
+        return setValue(node, step.getName(), items);
+    }
+
+    /**
+     * Returns a copy of the root in which the resource or element at the end of the path is replaced with the passed
+     * value, or removed if the value is null.
+     *
+     * @param root
+     *     the resource or element to start from
+     * @param path
+     *     the steps from the root to the resource or element to replace; must not be empty
+     * @param value
+     *     the new value or null
+     * @return the new root
+     * @throws IllegalArgumentException if the path does not identify an existing resource or element or the value is
+     *     not valid at that location
+     * @throws IllegalStateException if one of the rebuilt resources or elements is not valid
+     */
+    public static <T extends Visitable> T replace(T root, List<Step> path, Visitable value) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("The root itself can't be replaced");
+        }
+        return update(root, path, value == null ? ignored -> null : ignored -> value);
+    }
+
+    /**
+     * @return true if the element is a primitive element which has an id or extensions, that is, if its JSON
+     *     representation includes a sibling "_" element
+     */
+    public static boolean hasPrimitiveExtras(Object value) {
+        if (value instanceof Element && ModelSupport.isPrimitiveType(value.getClass())) {
+            Element element = (Element) value;
+            return element.getId() != null || !element.getExtension().isEmpty();
+        }
+        return false;
+    }
+
+    /**
+     * Convert a Code to the Code subtype of the target element; the id and extensions of the Code are retained.
+     *
+     * @throws IllegalArgumentException if the code is not valid for the target type
+     */
+    public static Code convertToCodeSubtype(Code code, Class<?> targetType) {
+        if (code.getClass() == targetType) {
+            return code;
+        }
+        if (code.getValue() == null) {
+            throw new IllegalArgumentException("Value of type '" + code.getClass().getSimpleName()
+                    + "' without a value cannot be used to populate target of type '" + targetType.getSimpleName() + "'");
+        }
+        Code converted;
+        try {
+            MethodHandle of = MethodHandles.publicLookup().findStatic(targetType, "of", MethodType.methodType(targetType, String.class));
+            converted = (Code) of.invoke(code.getValue());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalArgumentException("Value of type '" + code.getClass().getSimpleName()
+                    + "' cannot be used to populate target of type '" + targetType.getSimpleName() + "'", t);
+        }
+        if (code.getId() != null || !code.getExtension().isEmpty()) {
+            converted = (Code) converted.toBuilder()
+                    .id(code.getId())
+                    .extension(code.getExtension())
+                    .build();
+        }
+        return converted;
+    }
+
+    private static Object convert(Object value, ElementInfo elementInfo, Visitable parent, String elementName) {
+        Class<?> type = elementInfo.getType();
+        if (value instanceof Code && ModelSupport.isCodeSubtype(type)) {
+            value = convertToCodeSubtype((Code) value, type);
+        }
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("Value of type '" + value.getClass().getSimpleName() + "' cannot be used to populate element '"
+                    + elementName + "' of " + parent.getClass().getSimpleName() + " with type '" + type.getSimpleName() + "'");
+        }
+        if (elementInfo.isChoice() && !elementInfo.getChoiceTypes().contains(value.getClass())) {
+            throw new IllegalArgumentException("Value of type '" + value.getClass().getSimpleName() + "' is not an allowed type for choice element '"
+                    + elementName + "' of " + parent.getClass().getSimpleName());
+        }
+        return value;
+    }
+
+    private static Builder<?> toBuilder(Visitable visitable) {
+        if (visitable instanceof Resource) {
+            return ((Resource) visitable).toBuilder();
+        }
+        if (visitable instanceof Element) {
+            return ((Element) visitable).toBuilder();
+        }
+        throw new IllegalArgumentException("Unsupported visitable: " + visitable.getClass().getName());
+    }
+
+    private static Accessor getAccessor(Class<?> modelClass, String elementName) {
+        Map<String, Accessor> accessors = ACCESSORS.computeIfAbsent(modelClass, c -> new ConcurrentHashMap<>());
+        Accessor accessor = accessors.get(elementName);
+        if (accessor == null) {
+            accessor = accessors.computeIfAbsent(elementName, n -> createAccessor(modelClass, n));
+        }
+        return accessor;
+    }
+
+    private static Accessor createAccessor(Class<?> modelClass, String elementName) {
+        ElementInfo elementInfo = ModelSupport.getElementInfo(modelClass, elementName);
+        if (elementInfo == null) {
+            throw new IllegalArgumentException("'" + elementName + "' is not a valid element name for " + modelClass.getSimpleName());
+        }
+        String name = "class".equals(elementName) ? "clazz" : elementName;
+        String setterName = SourceVersion.isKeyword(name) ? "_" + name : name;
+        try {
+            Method getter = modelClass.getMethod("get" + name.substring(0, 1).toUpperCase() + name.substring(1));
+            Method setter = getBuilderClass(modelClass).getMethod(setterName,
+                    elementInfo.isRepeating() ? Collection.class : elementInfo.getType());
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            return new Accessor(elementInfo, lookup.unreflect(getter), lookup.unreflect(setter));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to access element '" + elementName + "' of " + modelClass.getName(), e);
+        }
+    }
+
+    private static Class<?> getBuilderClass(Class<?> modelClass) {
+        for (Class<?> declaredClass : modelClass.getDeclaredClasses()) {
+            if ("Builder".equals(declaredClass.getSimpleName())) {
+                return declaredClass;
+            }
+        }
+        throw new IllegalStateException("No builder found for " + modelClass.getName());
+    }
+
+    private static final class Accessor {
+        private final ElementInfo elementInfo;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private Accessor(ElementInfo elementInfo, MethodHandle getter, MethodHandle setter) {
+            this.elementInfo = elementInfo;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Id;
+import com.ibm.fhir.model.type.Uri;
+
+/**
+ * An immutable index of the entries of a Bundle by fullUrl, for resolving references within the Bundle without
+ * scanning all of its entries.
+ *
+ * <p>Build the index once per Bundle (for example, per validation or per transaction) and pass it to
+ * {@link FHIRUtil#resolveBundleReference(BundleReferenceIndex, Bundle.Entry, com.ibm.fhir.model.type.Reference)} for
+ * every reference to resolve. Because Bundles are immutable, the index can be shared between threads.
+ */
+public final class BundleReferenceIndex {
+    private final Bundle bundle;
+    // fullUrl -> the entries with that fullUrl, in bundle order (multiple versions of a resource may share a fullUrl)
+    private final Map<String, List<Bundle.Entry>> fullUrlMap;
+
+    private BundleReferenceIndex(Bundle bundle) {
+        this.bundle = bundle;
+        Map<String, List<Bundle.Entry>> fullUrlMap = new HashMap<>();
+        for (Bundle.Entry entry : bundle.getEntry()) {
+            Uri fullUrl = entry.getFullUrl();
+            if (fullUrl != null && fullUrl.getValue() != null) {
+                List<Bundle.Entry> entries = fullUrlMap.get(fullUrl.getValue());
+                if (entries == null) {
+                    fullUrlMap.put(fullUrl.getValue(), Collections.singletonList(entry));
+                } else {
+                    if (entries.size() == 1) {
+                        entries = new ArrayList<>(entries);
+                        fullUrlMap.put(fullUrl.getValue(), entries);
+                    }
+                    entries.add(entry);
+                }
+            }
+        }
+        this.fullUrlMap = fullUrlMap;
+    }
+
+    /**
+     * Build an index of the entries of the passed bundle.
+     *
+     * @param bundle
+     *     the bundle
+     * @return
+     *     a new index of the entries of the passed bundle
+     */
+    public static BundleReferenceIndex of(Bundle bundle) {
+        Objects.requireNonNull(bundle, "bundle");
+        return new BundleReferenceIndex(bundle);
+    }
+
+    /**
+     * @return
+     *     the indexed bundle
+     */
+    public Bundle getBundle() {
+        return bundle;
+    }
+
+    /**
+     * Get the entries with the passed fullUrl.
+     *
+     * @param fullUrl
+     *     the fullUrl
+     * @return
+     *     an unmodifiable list of the entries with the passed fullUrl, in bundle order, or an empty list if there are none
+     */
+    public List<Bundle.Entry> getEntries(String fullUrl) {
+        List<Bundle.Entry> entries = fullUrlMap.get(fullUrl);
+        return (entries != null) ? Collections.unmodifiableList(entries) : Collections.emptyList();
+    }
+
+    /**
+     * Get the first entry with the passed fullUrl that matches the passed version.
+     *
+     * <p>An entry matches any version if its resource has no {@code meta.versionId}.
+     *
+     * @param fullUrl
+     *     the fullUrl, without the version
+     * @param version
+     *     the version to match against {@code Resource.meta.versionId}, or null to match any version
+     * @return
+     *     the matching entry, or null if there is none
+     */
+    public Bundle.Entry getEntry(String fullUrl, String version) {
+        List<Bundle.Entry> entries = fullUrlMap.get(fullUrl);
+        if (entries == null) {
+            return null;
+        }
+        for (Bundle.Entry entry : entries) {
+            if (version == null) {
+                return entry;
+            }
+            Resource resource = entry.getResource();
+            if (resource == null) {
+                continue;
+            }
+            if (resource.getMeta() != null && resource.getMeta().getVersionId() != null) {
+                Id versionId = resource.getMeta().getVersionId();
+                if (version.equals(versionId.getValue())) {
+                    return entry;
+                }
+            } else {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
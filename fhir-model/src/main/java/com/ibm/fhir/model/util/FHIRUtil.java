@@ -27,7 +27,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -55,7 +54,6 @@ import com.ibm.fhir.model.type.CodeableConcept;
 import com.ibm.fhir.model.type.Coding;
 import com.ibm.fhir.model.type.Element;
 import com.ibm.fhir.model.type.Extension;
-import com.ibm.fhir.model.type.Id;
 import com.ibm.fhir.model.type.Meta;
 import com.ibm.fhir.model.type.Reference;
 import com.ibm.fhir.model.type.Uri;
@@ -340,10 +338,32 @@ public class FHIRUtil {
      * @throws ClassCastException
      *             if the referenced resource cannot be cast to type {@code resourceType}
      */
-    @SuppressWarnings("unchecked")
     public static <T extends Resource> T resolveBundleReference(Class<T> resourceType, Bundle bundle, Bundle.Entry sourceEntry, Reference ref)
         throws Exception {
-        Bundle.Entry targetEntry = resolveBundleReference(bundle, sourceEntry, ref);
+        return resolveBundleReference(resourceType, BundleReferenceIndex.of(bundle), sourceEntry, ref);
+    }
+
+    /**
+     * Resolve the reference {@code ref} to an entry within the bundle of {@code index} and return the corresponding
+     * resource
+     *
+     * @see https://www.hl7.org/fhir/r4/bundle.html#references
+     * @param resourceType
+     * @param index
+     *            the index of the bundle; build it once to resolve several references within the same bundle
+     * @param sourceEntry
+     *            allowed to be null if and only if the reference is absolute
+     * @param ref
+     * @throws Exception
+     *             if the resource could not be found, the reference has no value, or the value does not match the
+     *             expected format for a bundle reference
+     * @throws ClassCastException
+     *             if the referenced resource cannot be cast to type {@code resourceType}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Resource> T resolveBundleReference(Class<T> resourceType, BundleReferenceIndex index, Bundle.Entry sourceEntry, Reference ref)
+        throws Exception {
+        Bundle.Entry targetEntry = resolveBundleReference(index, sourceEntry, ref);
         return (T) targetEntry.getResource();
     }
 
@@ -363,6 +383,26 @@ public class FHIRUtil {
      *             if {@code ref} contains a fragment reference
      */
     public static Bundle.Entry resolveBundleReference(Bundle bundle, Bundle.Entry sourceEntry, Reference ref) throws FHIRException, URISyntaxException {
+        return resolveBundleReference(BundleReferenceIndex.of(bundle), sourceEntry, ref);
+    }
+
+    /**
+     * Resolve the reference {@code ref} to an entry within the bundle of {@code index}
+     *
+     * @see https://www.hl7.org/fhir/r4/bundle.html#references
+     * @param index
+     *            the index of the bundle; build it once to resolve several references within the same bundle
+     * @param sourceEntry
+     *            allowed to be null if and only if the reference is absolute
+     * @param ref
+     * @throws FHIRException
+     *             if the resource could not be found or the reference has no value
+     * @throws URISyntaxException
+     *             if the {@code ref} value is not a valid URI
+     * @throws IllegalArgumentException
+     *             if {@code ref} contains a fragment reference
+     */
+    public static Bundle.Entry resolveBundleReference(BundleReferenceIndex index, Bundle.Entry sourceEntry, Reference ref) throws FHIRException, URISyntaxException {
         if (ref == null || ref.getReference() == null || ref.getReference().getValue() == null) {
             throw new FHIRException("Reference must have a nonempty value to be resolved");
         }
@@ -403,26 +443,9 @@ public class FHIRUtil {
             referenceUriString = referenceUriString.substring(0, referenceUriString.length() - version.length());
         }
         // 2. Look for an entry with a fullUrl that contains the URL in the reference
-        for (Bundle.Entry entry : bundle.getEntry()) {
-            Uri fullUrl = entry.getFullUrl();
-            if (fullUrl != null) {
-                String fullUrlValue = entry.getFullUrl().getValue();
-                if (fullUrlValue != null && fullUrlValue.equals(referenceUriString)) {
-                    try {
-                        Resource resource = entry.getResource();
-                        if (version != null && resource.getMeta() != null && resource.getMeta().getVersionId() != null) {
-                            Id versionId = resource.getMeta().getVersionId();
-                            if (version.equals(versionId.getValue())) {
-                                return entry;
-                            }
-                        } else {
-                            return entry;
-                        }
-                    } catch (Exception e) {
-                        log.log(Level.SEVERE, "Unable to retrieve resource " + referenceUriString + " from the bundle", e);
-                    }
-                }
-            }
+        Bundle.Entry entry = index.getEntry(referenceUriString, version);
+        if (entry != null) {
+            return entry;
         }
         // If no match is found, the resource is not in the bundle, and must be found elsewhere
         throw new FHIRException("Bundle does not contain the referenced resource and retrieval of resources outside the bundle is not supported.");
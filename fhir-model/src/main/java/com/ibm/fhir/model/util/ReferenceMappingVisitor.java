@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,16 +13,17 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.ibm.fhir.model.type.Reference;
-import com.ibm.fhir.model.visitor.CopyingVisitor;
+import com.ibm.fhir.model.visitor.RewritingVisitor;
 import com.ibm.fhir.model.visitor.Visitable;
 
 /**
- * Copy the value of each element within a Resource/Element to a new element
- * with the same values, replacing {@code Reference.reference} values with a new value
- * 
- * @param <T> The type to copy. Only visitables of this type should be visited.
+ * Replace {@code Reference.reference} values within a Resource/Element with a new value.
+ * Only the References that are replaced and their ancestors are rebuilt; all other elements
+ * are shared with the visited Resource/Element.
+ *
+ * @param <T> The type to rewrite. Only visitables of this type should be visited.
  */
-public class ReferenceMappingVisitor<T extends Visitable> extends CopyingVisitor<T> {
+public class ReferenceMappingVisitor<T extends Visitable> extends RewritingVisitor<T> {
     private static final Logger log = java.util.logging.Logger.getLogger(ReferenceMappingVisitor.class.getName());
     private Map<String, String> localRefMap;
 
@@ -43,8 +44,7 @@ public class ReferenceMappingVisitor<T extends Visitable> extends CopyingVisitor
                 if (log.isLoggable(Level.FINER)) {
                     log.finer("Replacing '" + refValue + "' with new value '" + newRefValue + "'");
                 }
-                ((Reference.Builder) getBuilder()).reference(string(newRefValue));
-                markDirty();
+                replace(reference.toBuilder().reference(string(newRefValue)).build());
             } else {
                 if (log.isLoggable(Level.FINER)) {
                     log.finer("Reference '" + refValue + "' is not replaced "
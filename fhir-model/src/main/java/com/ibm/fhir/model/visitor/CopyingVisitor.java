@@ -6,16 +6,12 @@
 
 package com.ibm.fhir.model.visitor;
 
-import static com.ibm.fhir.model.util.ModelSupport.delimit;
-import static com.ibm.fhir.model.util.ModelSupport.isKeyword;
-
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
-import java.util.stream.Collectors;
 
 import javax.lang.model.SourceVersion;
 
@@ -37,13 +33,16 @@ import net.jcip.annotations.NotThreadSafe;
  * by setting new values on the current builder via ({@link BuilderWrapper#getBuilder()) and
  * marking it dirty via ({@link BuilderWrapper#markDirty())).
  *
+ * For rewriting a few elements of a large Resource or Element, prefer {@link RewritingVisitor}, which only rebuilds
+ * the ancestors of the changed elements.
+ *
  * Note: this class is NOT threadsafe.  Only one object should be visited at a time.
  *
  * @param <T> The type to copy. Only visitables of this type should be visited.
  */
 @NotThreadSafe
 public class CopyingVisitor<T extends Visitable> extends DefaultVisitor {
-    private final Stack<String> pathStack = new Stack<>();
+    private final PathStack pathStack = new PathStack();
     private final Stack<BuilderWrapper> builderStack = new Stack<>();
     private final Stack<ListWrapper> listStack = new Stack<>();
     private Object result;
@@ -76,14 +75,61 @@ public class CopyingVisitor<T extends Visitable> extends DefaultVisitor {
      * @return The path of the Resource or Element currently being visited, the path that was being visited when an
      *         exception was thrown, or null if there is no Resource or Element being visited.
      * @implSpec Path segments are appended in the visitStart methods and removed in the visitEnd methods.
+     *           The path is kept in a single reusable buffer and only copied into a String by this method;
+     *           subclasses that don't need the whole path should use the segment methods instead.
      */
     public final String getPath() {
         if (!pathStack.isEmpty()) {
-            return pathStack.stream().collect(Collectors.joining("."));
+            return pathStack.toString();
         }
         return null;
     }
 
+    /**
+     * Get the number of segments in the path of the Resource or Element currently being visited.
+     *
+     * @return the depth of the Resource or Element currently being visited, where the visited root has depth 1, or 0
+     *         if there is no Resource or Element being visited
+     */
+    public final int getPathDepth() {
+        return pathStack.depth();
+    }
+
+    /**
+     * Get the element name of a segment of the current path, without creating the path.
+     *
+     * @param level
+     *     the index of the segment, from 0 (the visited root) to {@link #getPathDepth()} - 1
+     * @return the element name that was passed to visitStart for that segment, without FHIRPath delimiters
+     * @throws IndexOutOfBoundsException if the level is not within the current path
+     */
+    public final String getPathSegmentName(int level) {
+        return pathStack.elementName(level);
+    }
+
+    /**
+     * Get the element index of a segment of the current path, without creating the path.
+     *
+     * @param level
+     *     the index of the segment, from 0 (the visited root) to {@link #getPathDepth()} - 1
+     * @return the element index that was passed to visitStart for that segment, or -1 if the element is not repeating
+     * @throws IndexOutOfBoundsException if the level is not within the current path
+     */
+    public final int getPathSegmentIndex(int level) {
+        return pathStack.elementIndex(level);
+    }
+
+    /**
+     * Append the FHIRPath path of the Resource or Element currently being visited to the passed StringBuilder.
+     *
+     * @param sb
+     *     the StringBuilder to append to
+     * @return the passed StringBuilder
+     */
+    public final StringBuilder appendPath(StringBuilder sb) {
+        return pathStack.appendTo(sb);
+    }
+
     public CopyingVisitor() {
         super(true);
     }
@@ -94,9 +140,7 @@ public class CopyingVisitor<T extends Visitable> extends DefaultVisitor {
      * Invoke this method when visiting has failed and you want to clear the state in order to re-use the visitor.
      */
     public final void reset() {
-        if (!pathStack.isEmpty()) {
-            pathStack.clear();
-        }
+        pathStack.clear();
         if (!builderStack.isEmpty()) {
             builderStack.clear();
         }
@@ -251,14 +295,7 @@ public class CopyingVisitor<T extends Visitable> extends DefaultVisitor {
     }
 
     private void pathStackPush(String elementName, int index) {
-        if (isKeyword(elementName)) {
-            elementName = delimit(elementName);
-        }
-        if (index != -1) {
-            pathStack.push(elementName + "[" + index + "]");
-        } else {
-            pathStack.push(elementName);
-        }
+        pathStack.push(elementName, index);
     }
 
     protected Builder<?> getBuilder() {
@@ -1,18 +1,13 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.model.visitor;
 
-import static com.ibm.fhir.model.util.ModelSupport.delimit;
-import static com.ibm.fhir.model.util.ModelSupport.isKeyword;
-
-import java.util.Stack;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.type.Element;
@@ -21,13 +16,15 @@ import net.jcip.annotations.NotThreadSafe;
 
 /**
  * PathAwareVisitor extends the DefaultVisitor with a {@link #getPath()} method that can be used to get the FHIRPath
- * path of a Resource or Element during a visit.
+ * path of a Resource or Element during a visit. The segments of the path are also available individually through
+ * {@link #getPathDepth()}, {@link #getPathSegmentName(int)} and {@link #getPathSegmentIndex(int)}, which don't
+ * create any strings.
  */
 @NotThreadSafe
 public class PathAwareVisitor extends DefaultVisitor {
     private static final Logger log = Logger.getLogger(PathAwareVisitor.class.getName());
 
-    private final Stack<String> pathStack = new Stack<>();
+    private final PathStack pathStack = new PathStack();
 
     /**
      * Get the FHIRPath path of the Resource or Element currently being visited.
@@ -38,23 +35,68 @@ public class PathAwareVisitor extends DefaultVisitor {
      * @return The path of the Resource or Element currently being visited, the path that was being visited when an
      *         exception was thrown, or null if there is no Resource or Element being visited.
      * @implSpec Path segments are appended in the visitStart methods and removed in the visitEnd methods.
+     *           The path is kept in a single reusable buffer and only copied into a String by this method;
+     *           subclasses that don't need the whole path should use the segment methods instead.
      */
     public final String getPath() {
         if (!pathStack.isEmpty()) {
-            return pathStack.stream().collect(Collectors.joining("."));
+            return pathStack.toString();
         }
         return null;
     }
 
+    /**
+     * Get the number of segments in the path of the Resource or Element currently being visited.
+     *
+     * @return the depth of the Resource or Element currently being visited, where the visited root has depth 1, or 0
+     *         if there is no Resource or Element being visited
+     */
+    public final int getPathDepth() {
+        return pathStack.depth();
+    }
+
+    /**
+     * Get the element name of a segment of the current path, without creating the path.
+     *
+     * @param level
+     *     the index of the segment, from 0 (the visited root) to {@link #getPathDepth()} - 1
+     * @return the element name that was passed to visitStart for that segment, without FHIRPath delimiters
+     * @throws IndexOutOfBoundsException if the level is not within the current path
+     */
+    public final String getPathSegmentName(int level) {
+        return pathStack.elementName(level);
+    }
+
+    /**
+     * Get the element index of a segment of the current path, without creating the path.
+     *
+     * @param level
+     *     the index of the segment, from 0 (the visited root) to {@link #getPathDepth()} - 1
+     * @return the element index that was passed to visitStart for that segment, or -1 if the element is not repeating
+     * @throws IndexOutOfBoundsException if the level is not within the current path
+     */
+    public final int getPathSegmentIndex(int level) {
+        return pathStack.elementIndex(level);
+    }
+
+    /**
+     * Append the FHIRPath path of the Resource or Element currently being visited to the passed StringBuilder.
+     *
+     * @param sb
+     *     the StringBuilder to append to
+     * @return the passed StringBuilder
+     */
+    public final StringBuilder appendPath(StringBuilder sb) {
+        return pathStack.appendTo(sb);
+    }
+
     /**
      * Reset the state of the PathAwareVisitor.
      *
      * Invoke this method when visiting has failed and you want to clear the path in order to re-use the visitor.
      */
     public final void reset() {
-        if (!pathStack.isEmpty()) {
-            pathStack.clear();
-        }
+        pathStack.clear();
     }
 
     /**
@@ -86,14 +128,7 @@ public class PathAwareVisitor extends DefaultVisitor {
     }
 
     private void pathStackPush(String elementName, int index) {
-        if (isKeyword(elementName)) {
-            elementName = delimit(elementName);
-        }
-        if (index != -1) {
-            pathStack.push(elementName + "[" + index + "]");
-        } else {
-            pathStack.push(elementName);
-        }
+        pathStack.push(elementName, index);
         if (log.isLoggable(Level.FINE)) {
             log.fine(getPath());
         }
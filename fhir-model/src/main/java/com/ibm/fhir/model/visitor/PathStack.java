@@ -0,0 +1,97 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.visitor;
+
+import static com.ibm.fhir.model.util.ModelSupport.isKeyword;
+
+import java.util.Arrays;
+
+/**
+ * The FHIRPath path of the Resource or Element being visited, kept in a single reusable StringBuilder.
+ *
+ * <p>Pushing a segment appends it to the builder and records the length of the builder before the segment (the mark);
+ * popping a segment truncates the builder back to that mark. The element name and index of each segment are kept
+ * as well, so that the path can be inspected segment by segment without creating any strings.
+ */
+final class PathStack {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final StringBuilder path = new StringBuilder(128);
+    private int[] marks = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] indices = new int[INITIAL_CAPACITY];
+    private int depth = 0;
+
+    void push(String elementName, int index) {
+        if (depth == marks.length) {
+            marks = Arrays.copyOf(marks, depth * 2);
+            names = Arrays.copyOf(names, depth * 2);
+            indices = Arrays.copyOf(indices, depth * 2);
+        }
+        marks[depth] = path.length();
+        names[depth] = elementName;
+        indices[depth] = index;
+        depth++;
+
+        if (path.length() > 0) {
+            path.append('.');
+        }
+        if (isKeyword(elementName)) {
+            path.append('`').append(elementName).append('`');
+        } else {
+            path.append(elementName);
+        }
+        if (index != -1) {
+            path.append('[').append(index).append(']');
+        }
+    }
+
+    void pop() {
+        depth--;
+        path.setLength(marks[depth]);
+        names[depth] = null;
+    }
+
+    void clear() {
+        Arrays.fill(names, 0, depth, null);
+        depth = 0;
+        path.setLength(0);
+    }
+
+    boolean isEmpty() {
+        return depth == 0;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    String elementName(int level) {
+        checkLevel(level);
+        return names[level];
+    }
+
+    int elementIndex(int level) {
+        checkLevel(level);
+        return indices[level];
+    }
+
+    StringBuilder appendTo(StringBuilder sb) {
+        return sb.append(path);
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    private void checkLevel(int level) {
+        if (level < 0 || level >= depth) {
+            throw new IndexOutOfBoundsException("Level: " + level + ", depth: " + depth);
+        }
+    }
+}
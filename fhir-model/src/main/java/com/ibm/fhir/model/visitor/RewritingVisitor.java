@@ -0,0 +1,214 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.visitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.fhir.model.patch.PatchSupport;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Element;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Rewrite a Resource or Element with structural sharing. Subclasses override the visit methods and call
+ * {@link #replace(Visitable)} or {@link #delete()} for the Resource or Element being visited; only the ancestors of
+ * the replaced or deleted Resources and Elements are rebuilt, and every untouched subtree is reused by reference. If
+ * nothing is replaced or deleted, the result is the visited object itself.
+ *
+ * <p>Unlike {@link CopyingVisitor}, this visitor doesn't create a builder or a path for each visited node: visiting
+ * a node only pushes a (reused) frame onto a stack, so rewriting a few elements of a large resource allocates
+ * little more than the rebuilt ancestors.
+ *
+ * <p>Note: this class is NOT threadsafe. Only one object should be visited at a time.
+ *
+ * @param <T> The type to rewrite. Only visitables of this type should be visited.
+ */
+@NotThreadSafe
+public class RewritingVisitor<T extends Visitable> extends DefaultVisitor {
+    private final List<Frame> frames = new ArrayList<>();
+    private int depth = 0;
+    private Visitable result;
+
+    public RewritingVisitor() {
+        super(true);
+    }
+
+    /**
+     * Retrieve the result of rewriting the object last visited.
+     *
+     * @return the rewritten object, the visited object itself if nothing was changed, or null if no object has been
+     *         visited yet or the visited object itself was deleted
+     * @throws ClassCastException if the result cannot be cast to type T
+     */
+    @SuppressWarnings("unchecked")
+    public T getResult() {
+        return (T) result;
+    }
+
+    /**
+     * Reset the state of the RewritingVisitor.
+     *
+     * Invoke this method when visiting has failed and you want to clear the state in order to re-use the visitor.
+     */
+    public final void reset() {
+        for (int i = 0; i < depth; i++) {
+            frames.get(i).clear();
+        }
+        depth = 0;
+        result = null;
+    }
+
+    /**
+     * Replace the Resource or Element currently being visited. Changes to its children, if they are visited
+     * afterwards, are ignored.
+     *
+     * @param replacement
+     *     the new Resource or Element; it must be valid for the element being visited
+     * @throws IllegalStateException if no Resource or Element is being visited
+     */
+    protected void replace(Visitable replacement) {
+        Frame frame = current();
+        frame.replaced = true;
+        frame.replacement = replacement;
+    }
+
+    /**
+     * Delete the Resource or Element currently being visited.
+     *
+     * @throws IllegalStateException if no Resource or Element is being visited
+     */
+    protected void delete() {
+        replace(null);
+    }
+
+    /**
+     * @return the Resource or Element currently being visited, as it was before visiting
+     * @throws IllegalStateException if no Resource or Element is being visited
+     */
+    protected Visitable getCurrent() {
+        return current().visitable;
+    }
+
+    @Override
+    public final void visitStart(String elementName, int elementIndex, Element element) {
+        push(elementName, elementIndex, element);
+    }
+
+    @Override
+    public final void visitStart(String elementName, int elementIndex, Resource resource) {
+        push(elementName, elementIndex, resource);
+    }
+
+    @Override
+    public final void visitEnd(String elementName, int elementIndex, Element element) {
+        pop();
+    }
+
+    @Override
+    public final void visitEnd(String elementName, int elementIndex, Resource resource) {
+        pop();
+    }
+
+    private Frame current() {
+        if (depth == 0) {
+            throw new IllegalStateException("No Resource or Element is being visited");
+        }
+        return frames.get(depth - 1);
+    }
+
+    private void push(String elementName, int elementIndex, Visitable visitable) {
+        if (depth == 0) {
+            result = null;
+        }
+        if (depth == frames.size()) {
+            frames.add(new Frame());
+        }
+        Frame frame = frames.get(depth++);
+        frame.elementName = elementName;
+        frame.elementIndex = elementIndex;
+        frame.visitable = visitable;
+    }
+
+    private void pop() {
+        Frame frame = frames.get(--depth);
+        Visitable visitable = frame.visitable;
+        Visitable rewritten;
+        if (frame.replaced) {
+            rewritten = frame.replacement;
+        } else if (frame.changes != null) {
+            for (Map.Entry<String, Object> change : frame.changes.entrySet()) {
+                if (change.getValue() instanceof List) {
+                    // deleted list items are null
+                    Iterator<?> iterator = ((List<?>) change.getValue()).iterator();
+                    while (iterator.hasNext()) {
+                        if (iterator.next() == null) {
+                            iterator.remove();
+                        }
+                    }
+                }
+            }
+            rewritten = PatchSupport.setValues(visitable, frame.changes);
+        } else {
+            rewritten = visitable;
+        }
+        String elementName = frame.elementName;
+        int elementIndex = frame.elementIndex;
+        frame.clear();
+
+        if (depth == 0) {
+            result = rewritten;
+        } else if (rewritten != visitable) {
+            frames.get(depth - 1).changed(elementName, elementIndex, rewritten);
+        }
+    }
+
+    /**
+     * The state of a Resource or Element being visited.
+     */
+    private static final class Frame {
+        private String elementName;
+        private int elementIndex;
+        private Visitable visitable;
+        private boolean replaced;
+        private Visitable replacement;
+        // the new values of the changed children, by element name; only created when a child changes
+        private Map<String, Object> changes;
+
+        @SuppressWarnings("unchecked")
+        private void changed(String childName, int childIndex, Visitable child) {
+            if (replaced) {
+                return;
+            }
+            if (changes == null) {
+                changes = new HashMap<>();
+            }
+            if (childIndex == -1) {
+                changes.put(childName, child);
+            } else {
+                List<Object> list = (List<Object>) changes.get(childName);
+                if (list == null) {
+                    list = new ArrayList<>((List<?>) PatchSupport.getValue(visitable, childName));
+                    changes.put(childName, list);
+                }
+                list.set(childIndex, child);
+            }
+        }
+
+        private void clear() {
+            elementName = null;
+            visitable = null;
+            replaced = false;
+            replacement = null;
+            changes = null;
+        }
+    }
+}
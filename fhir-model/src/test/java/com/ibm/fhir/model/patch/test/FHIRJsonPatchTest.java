@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -19,6 +19,7 @@ import java.util.UUID;
 
 import javax.json.Json;
 import javax.json.JsonObject;
+import javax.json.JsonPatch;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -30,18 +31,25 @@ import com.ibm.fhir.model.generator.exception.FHIRGeneratorException;
 import com.ibm.fhir.model.parser.FHIRJsonParser;
 import com.ibm.fhir.model.parser.FHIRParser;
 import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.patch.FHIRJsonPatch;
 import com.ibm.fhir.model.patch.FHIRPatch;
 import com.ibm.fhir.model.patch.exception.FHIRPatchException;
+import com.ibm.fhir.model.resource.Observation;
 import com.ibm.fhir.model.resource.Patient;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.type.Boolean;
+import com.ibm.fhir.model.type.CodeableConcept;
 import com.ibm.fhir.model.type.Date;
+import com.ibm.fhir.model.type.Extension;
 import com.ibm.fhir.model.type.HumanName;
 import com.ibm.fhir.model.type.Id;
 import com.ibm.fhir.model.type.Instant;
 import com.ibm.fhir.model.type.Meta;
 import com.ibm.fhir.model.type.Narrative;
+import com.ibm.fhir.model.type.code.AdministrativeGender;
 import com.ibm.fhir.model.type.code.NarrativeStatus;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+import com.ibm.fhir.model.util.JsonSupport;
 
 public class FHIRJsonPatchTest {        
     @BeforeClass
@@ -151,6 +159,95 @@ public class FHIRJsonPatchTest {
         Assert.assertEquals(patient, updatedPatient);
     }
     
+    @Test
+    public void testStructuralSharing() throws FHIRPatchException {
+        Patient patient = buildPatient();
+        
+        FHIRPatch patch = FHIRPatch.patch(Json.createPatchBuilder()
+            .replace("/name/0/family", "Smith")
+            .build());
+        Patient patched = patch.apply(patient);
+        
+        Assert.assertEquals(patched.getName().get(0).getFamily(), string("Smith"));
+        // only the elements along the patched path are rebuilt
+        Assert.assertSame(patched.getMeta(), patient.getMeta());
+        Assert.assertSame(patched.getText(), patient.getText());
+        Assert.assertSame(patched.getBirthDate(), patient.getBirthDate());
+        Assert.assertSame(patched.getName().get(0).getGiven().get(0), patient.getName().get(0).getGiven().get(0));
+    }
+    
+    @Test
+    public void testSameResultAsJsonRepresentation() throws Exception {
+        Patient patient = buildPatient().toBuilder()
+                .gender(AdministrativeGender.MALE)
+                .extension(Extension.builder()
+                    .url("http://example.com/ext")
+                    .value(string("value"))
+                    .build())
+                .contained(buildObservation())
+                .build();
+        Observation observation = buildObservation();
+        
+        List<JsonPatch> patches = new ArrayList<>();
+        patches.add(Json.createPatchBuilder().add("/name/-", Json.createObjectBuilder().add("family", "Roe").build()).build());
+        patches.add(Json.createPatchBuilder().add("/name/0/given/0", "Jim").remove("/name/0/given/1").build());
+        patches.add(Json.createPatchBuilder().replace("/gender", "female").build());
+        patches.add(Json.createPatchBuilder().replace("/gender", "not-a-gender").build());
+        patches.add(Json.createPatchBuilder().add("/extension/-", Json.createObjectBuilder()
+            .add("url", "http://example.com/other")
+            .add("valueInteger", 5).build()).build());
+        patches.add(Json.createPatchBuilder().replace("/extension/0/valueString", "changed").build());
+        patches.add(Json.createPatchBuilder().add("/extension/0/valueBoolean", true).build());
+        patches.add(Json.createPatchBuilder().replace("/contained/0/status", "amended").build());
+        patches.add(Json.createPatchBuilder().test("/birthDate", "1980-01-01").replace("/birthDate", "1981").build());
+        patches.add(Json.createPatchBuilder().test("/birthDate", "1999-01-01").build());
+        patches.add(Json.createPatchBuilder().move("/name/1", "/name/0").build());
+        patches.add(Json.createPatchBuilder().copy("/name/-", "/name/0").build());
+        patches.add(Json.createPatchBuilder().remove("/name").build());
+        patches.add(Json.createPatchBuilder().remove("/id").build());
+        patches.add(Json.createPatchBuilder().replace("/id", "new-id").build());
+        patches.add(Json.createPatchBuilder().remove("/text/status").build());
+        patches.add(Json.createPatchBuilder().add("/_birthDate", Json.createObjectBuilder().add("id", "x").build()).build());
+        patches.add(Json.createPatchBuilder().replace("/resourceType", "Basic").build());
+        patches.add(Json.createPatchBuilder().remove("/doesNotExist").build());
+        patches.add(Json.createPatchBuilder().remove("/name/5").build());
+        for (JsonPatch jsonPatch : patches) {
+            assertSameResult(jsonPatch, patient);
+        }
+        
+        patches.clear();
+        patches.add(Json.createPatchBuilder().replace("/valueQuantity/value", Json.createValue(12.50)).build());
+        patches.add(Json.createPatchBuilder().remove("/valueQuantity").add("/valueString", "high").build());
+        patches.add(Json.createPatchBuilder().add("/valueString", "high").build());
+        patches.add(Json.createPatchBuilder().replace("/status", "final").replace("/code/text", "other").build());
+        patches.add(Json.createPatchBuilder().add("/component", Json.createArrayBuilder().build()).build());
+        for (JsonPatch jsonPatch : patches) {
+            assertSameResult(jsonPatch, observation);
+        }
+    }
+    
+    /**
+     * Apply the patch to the resource and to its JSON representation and verify that both either have the same result
+     * or fail.
+     */
+    private void assertSameResult(JsonPatch jsonPatch, Resource resource) throws Exception {
+        FHIRPatch patch = FHIRPatch.patch(jsonPatch);
+        Resource expected;
+        try {
+            expected = toResource(jsonPatch.apply(JsonSupport.toJsonObject(resource)));
+        } catch (Exception e) {
+            expected = null;
+        }
+        try {
+            Resource actual = patch.apply(resource);
+            Assert.assertNotNull(expected, "the patch should have failed: " + jsonPatch.toJsonArray());
+            Assert.assertEquals(actual, expected, jsonPatch.toJsonArray().toString());
+        } catch (FHIRPatchException e) {
+            Assert.assertNull(expected, "the patch should not have failed: " + jsonPatch.toJsonArray());
+        }
+        Assert.assertSame(patch.as(FHIRJsonPatch.class).getJsonPatch(), jsonPatch);
+    }
+    
     public void print(Resource resource) throws FHIRGeneratorException {
         FHIRGenerator.generator(Format.JSON, true).generate(resource, nonClosingOutputStream(System.out));
     }
@@ -168,6 +265,18 @@ public class FHIRJsonPatchTest {
         };
     }
 
+    private Observation buildObservation() {
+        return Observation.builder()
+                .id("obs")
+                .status(ObservationStatus.PRELIMINARY)
+                .code(CodeableConcept.builder().text(string("code")).build())
+                .value(com.ibm.fhir.model.type.Quantity.builder()
+                    .value(com.ibm.fhir.model.type.Decimal.of(10))
+                    .unit(string("mg"))
+                    .build())
+                .build();
+    }
+
     private Patient buildPatient() {
         java.lang.String div = "<div xmlns=\"http://www.w3.org/1999/xhtml\"><p><b>Generated Narrative</b></p></div>";
         
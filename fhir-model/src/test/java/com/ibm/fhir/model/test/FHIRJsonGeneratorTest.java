@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.examples.ExamplesUtil;
+import com.ibm.fhir.examples.Index;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Decimal;
+import com.ibm.fhir.model.type.Extension;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Integer;
+import com.ibm.fhir.model.type.Quantity;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+
+/**
+ * Tests that the JSON generated to an OutputStream, which is encoded straight into a byte buffer, is identical to the
+ * JSON generated through the javax.json generator (which is used for Writers).
+ */
+public class FHIRJsonGeneratorTest {
+
+    @Test
+    public void testExamples() throws Exception {
+        int count = 0;
+        try (BufferedReader index = new BufferedReader(ExamplesUtil.indexReader(Index.IBM_JSON))) {
+            String line;
+            while ((line = index.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens.length != 2 || !"OK".equals(tokens[0])) {
+                    continue;
+                }
+                Resource resource;
+                try (Reader reader = ExamplesUtil.resourceReader(tokens[1])) {
+                    resource = FHIRParser.parser(Format.JSON).parse(reader);
+                }
+                assertSameJson(resource, tokens[1]);
+                count++;
+            }
+        }
+        assertTrue(count > 0);
+    }
+
+    @Test
+    public void testEscaping() throws Exception {
+        String family = "quote \" backslash \\ slash / control \b\n\r\t\u0001\u001b del \u007f"
+                + " latin \u00e9 cjk \u4e2d emoji \ud83d\ude00 end";
+        Patient patient = Patient.builder()
+                .id("p1")
+                .name(HumanName.builder()
+                    .family(com.ibm.fhir.model.type.String.of(family))
+                    .given(com.ibm.fhir.model.type.String.builder()
+                        .extension(Extension.builder()
+                            .url("http://example.com/ext")
+                            .value(Integer.of(java.lang.Integer.MIN_VALUE))
+                            .build())
+                        .build())
+                    .given(com.ibm.fhir.model.type.String.of("given"))
+                    .build())
+                .build();
+        assertSameJson(patient, "patient");
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        Observation observation = Observation.builder()
+                .status(ObservationStatus.FINAL)
+                .code(CodeableConcept.builder().text(com.ibm.fhir.model.type.String.of("code")).build())
+                .value(Quantity.builder().value(Decimal.of(new BigDecimal("1.50E+3"))).build())
+                .component(Observation.Component.builder()
+                    .code(CodeableConcept.builder().text(com.ibm.fhir.model.type.String.of("c1")).build())
+                    .value(Integer.of(-1234567890))
+                    .build())
+                .component(Observation.Component.builder()
+                    .code(CodeableConcept.builder().text(com.ibm.fhir.model.type.String.of("c2")).build())
+                    .value(Integer.of(0))
+                    .build())
+                .build();
+        assertSameJson(observation, "observation");
+    }
+
+    @Test
+    public void testLargeString() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("\u00e9\n");
+        }
+        Patient patient = Patient.builder()
+                .name(HumanName.builder().text(com.ibm.fhir.model.type.String.of(text.toString())).build())
+                .build();
+        assertSameJson(patient, "patient");
+    }
+
+    private void assertSameJson(Resource resource, String name) throws Exception {
+        StringWriter writer = new StringWriter();
+        FHIRGenerator.generator(Format.JSON).generate(resource, writer);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FHIRGenerator.generator(Format.JSON).generate(resource, out);
+
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), writer.toString(), name);
+    }
+}
@@ -1,27 +1,40 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.model.test;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import org.testng.annotations.Test;
+
 import com.ibm.fhir.model.format.Format;
 import com.ibm.fhir.model.generator.FHIRGenerator;
 import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.type.Boolean;
 import com.ibm.fhir.model.type.Date;
+import com.ibm.fhir.model.type.Element;
 import com.ibm.fhir.model.type.Extension;
 import com.ibm.fhir.model.type.HumanName;
 import com.ibm.fhir.model.type.Id;
 import com.ibm.fhir.model.type.Instant;
 import com.ibm.fhir.model.type.Integer;
 import com.ibm.fhir.model.type.Meta;
+import com.ibm.fhir.model.type.Narrative;
 import com.ibm.fhir.model.type.String;
+import com.ibm.fhir.model.type.Xhtml;
+import com.ibm.fhir.model.type.code.NarrativeStatus;
 import com.ibm.fhir.model.visitor.PathAwareVisitor;
 
 public class PathAwareVisitorTest {
@@ -67,4 +80,45 @@ public class PathAwareVisitorTest {
 
         FHIRGenerator.generator(Format.JSON, true).generate(patient, System.out);
     }
+
+    @Test
+    public void testPathSegments() {
+        Patient patient = Patient.builder()
+                .text(Narrative.builder()
+                    .status(NarrativeStatus.GENERATED)
+                    .div(Xhtml.of("<div xmlns=\"http://www.w3.org/1999/xhtml\">text</div>"))
+                    .build())
+                .name(HumanName.builder().family(String.of("Doe")).build())
+                .name(HumanName.builder().given(String.of("John")).given(String.of("Jim")).build())
+                .build();
+
+        List<java.lang.String> paths = new ArrayList<>();
+        PathAwareVisitor visitor = new PathAwareVisitor() {
+            @Override
+            protected void doVisitStart(java.lang.String elementName, int elementIndex, Element element) {
+                record(elementName, elementIndex);
+            }
+
+            @Override
+            protected void doVisitStart(java.lang.String elementName, int elementIndex, Resource resource) {
+                record(elementName, elementIndex);
+            }
+
+            private void record(java.lang.String elementName, int elementIndex) {
+                int depth = getPathDepth();
+                assertEquals(getPathSegmentName(depth - 1), elementName);
+                assertEquals(getPathSegmentIndex(depth - 1), elementIndex);
+                assertEquals(appendPath(new StringBuilder()).toString(), getPath());
+                paths.add(getPath());
+            }
+        };
+        patient.accept(visitor);
+
+        assertNull(visitor.getPath());
+        assertEquals(visitor.getPathDepth(), 0);
+        assertEquals(paths.get(0), "Patient");
+        assertEquals(paths.get(paths.size() - 1), "Patient.name[1].given[1]");
+        assertTrue(paths.contains("Patient.text.`div`"));
+        assertTrue(paths.contains("Patient.name[0].family"));
+    }
 }
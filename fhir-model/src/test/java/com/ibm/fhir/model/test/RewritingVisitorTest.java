@@ -0,0 +1,151 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.String;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+import com.ibm.fhir.model.util.ReferenceMappingVisitor;
+import com.ibm.fhir.model.visitor.RewritingVisitor;
+
+public class RewritingVisitorTest {
+    private static final int ENTRY_COUNT = 1000;
+
+    @Test
+    public void testStructuralSharing() {
+        Bundle bundle = buildBundle();
+        // only every tenth reference is mapped
+        Map<java.lang.String, java.lang.String> localRefMap = new HashMap<>();
+        for (int i = 0; i < ENTRY_COUNT; i += 10) {
+            localRefMap.put("urn:uuid:patient-" + i, "Patient/" + i);
+        }
+
+        ReferenceMappingVisitor<Bundle> visitor = new ReferenceMappingVisitor<>(localRefMap);
+        bundle.accept(visitor);
+        Bundle result = visitor.getResult();
+
+        assertNotSame(result, bundle);
+        assertSame(result.getType(), bundle.getType());
+        assertEquals(result.getEntry().size(), ENTRY_COUNT);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            Bundle.Entry entry = bundle.getEntry().get(i);
+            Bundle.Entry resultEntry = result.getEntry().get(i);
+            Observation observation = (Observation) entry.getResource();
+            Observation resultObservation = (Observation) resultEntry.getResource();
+            if (i % 10 == 0) {
+                assertNotSame(resultEntry, entry);
+                assertSame(resultEntry.getFullUrl(), entry.getFullUrl());
+                assertSame(resultObservation.getCode(), observation.getCode());
+                assertEquals(resultObservation.getSubject().getReference().getValue(), "Patient/" + i);
+                assertSame(resultObservation.getSubject().getDisplay(), observation.getSubject().getDisplay());
+            } else {
+                assertSame(resultEntry, entry);
+            }
+        }
+    }
+
+    @Test
+    public void testNoChanges() {
+        Bundle bundle = buildBundle();
+
+        ReferenceMappingVisitor<Bundle> visitor = new ReferenceMappingVisitor<>(Collections.emptyMap());
+        bundle.accept(visitor);
+
+        assertSame(visitor.getResult(), bundle);
+    }
+
+    @Test
+    public void testDelete() {
+        Patient patient = Patient.builder()
+                .name(HumanName.builder().family(String.of("Doe")).given(String.of("John")).build())
+                .name(HumanName.builder().family(String.of("Roe")).given(String.of("Richard")).build())
+                .name(HumanName.builder().family(String.of("Doe")).given(String.of("Jane")).build())
+                .build();
+
+        RewritingVisitor<Patient> visitor = new RewritingVisitor<Patient>() {
+            @Override
+            public boolean visit(java.lang.String elementName, int elementIndex, HumanName humanName) {
+                if ("Doe".equals(humanName.getFamily().getValue())) {
+                    delete();
+                }
+                return false;
+            }
+        };
+        patient.accept(visitor);
+        Patient result = visitor.getResult();
+
+        assertEquals(result.getName().size(), 1);
+        assertSame(result.getName().get(0), patient.getName().get(1));
+
+        // the visitor can be reused
+        Patient other = Patient.builder().id("other").name(HumanName.builder().family(String.of("Doe")).build()).build();
+        other.accept(visitor);
+        assertEquals(visitor.getResult().getName().size(), 0);
+    }
+
+    @Test
+    public void testReplaceRoot() {
+        Patient patient = Patient.builder().id("1").build();
+        Patient replacement = Patient.builder().id("2").build();
+
+        RewritingVisitor<Patient> visitor = new RewritingVisitor<Patient>() {
+            @Override
+            public boolean visit(java.lang.String elementName, int elementIndex, Patient patient) {
+                replace(replacement);
+                return true;
+            }
+        };
+        patient.accept(visitor);
+        assertSame(visitor.getResult(), replacement);
+
+        RewritingVisitor<Patient> deletingVisitor = new RewritingVisitor<Patient>() {
+            @Override
+            public boolean visit(java.lang.String elementName, int elementIndex, Patient patient) {
+                delete();
+                return false;
+            }
+        };
+        patient.accept(deletingVisitor);
+        assertNull(deletingVisitor.getResult());
+    }
+
+    private Bundle buildBundle() {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.TRANSACTION);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            builder.entry(Bundle.Entry.builder()
+                .fullUrl(Uri.of("urn:uuid:observation-" + i))
+                .resource(Observation.builder()
+                    .status(ObservationStatus.FINAL)
+                    .code(CodeableConcept.builder().text(String.of("code " + i)).build())
+                    .subject(Reference.builder()
+                        .reference(String.of("urn:uuid:patient-" + i))
+                        .display(String.of("patient " + i))
+                        .build())
+                    .build())
+                .build());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.test;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.generator.StreamingBundleWriter;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.HumanName;
+import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.UnsignedInt;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.Url;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.HTTPVerb;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+import com.ibm.fhir.model.type.code.SearchEntryMode;
+
+public class StreamingBundleWriterTest {
+
+    @Test
+    public void testJson() throws Exception {
+        testFormat(Format.JSON);
+    }
+
+    @Test
+    public void testXml() throws Exception {
+        testFormat(Format.XML);
+    }
+
+    @Test
+    public void testJsonNoEntries() throws Exception {
+        testNoEntries(Format.JSON);
+    }
+
+    @Test
+    public void testXmlNoEntries() throws Exception {
+        testNoEntries(Format.XML);
+    }
+
+    @Test
+    public void testJsonSerializedResources() throws Exception {
+        testJsonSerializedResources(buildBundle());
+    }
+
+    @Test
+    public void testJsonSerializedResourcesHistory() throws Exception {
+        Bundle bundle = buildBundle();
+        Bundle.Builder builder = bundle.toBuilder().type(BundleType.HISTORY).entry(Collections.emptyList());
+        for (Bundle.Entry entry : bundle.getEntry()) {
+            builder.entry(entry.toBuilder()
+                .search(null)
+                .request(Bundle.Entry.Request.builder()
+                    .method(HTTPVerb.PUT)
+                    .url(Url.of("Patient/1"))
+                    .build())
+                .response(Bundle.Entry.Response.builder().status(com.ibm.fhir.model.type.String.of("200")).build())
+                .build());
+        }
+        // an entry with nothing before its resource
+        builder.entry(Bundle.Entry.builder()
+            .resource(bundle.getEntry().get(0).getResource())
+            .response(Bundle.Entry.Response.builder().status(com.ibm.fhir.model.type.String.of("200")).build())
+            .build());
+        testJsonSerializedResources(builder.build());
+    }
+
+    private void testJsonSerializedResources(Bundle bundle) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingBundleWriter writer = new StreamingBundleWriter(Format.JSON, out);
+        writer.start(bundle.toBuilder().entry(Collections.emptyList()).build());
+        for (Bundle.Entry entry : bundle.getEntry()) {
+            ByteArrayOutputStream resource = new ByteArrayOutputStream();
+            FHIRGenerator.generator(Format.JSON).generate(entry.getResource(), resource);
+            writer.entry(entry.toBuilder().resource(null).build(), new ByteArrayInputStream(resource.toByteArray()));
+        }
+        writer.end();
+
+        assertEquals(writer.getEntryCount(), bundle.getEntry().size());
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), generate(bundle, Format.JSON));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testHeaderWithEntries() throws Exception {
+        new StreamingBundleWriter(Format.JSON, new ByteArrayOutputStream()).start(buildBundle());
+    }
+
+    private void testFormat(Format format) throws Exception {
+        Bundle bundle = buildBundle();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingBundleWriter writer = new StreamingBundleWriter(format, out);
+        writer.start(bundle.toBuilder().entry(Collections.emptyList()).build());
+        for (Bundle.Entry entry : bundle.getEntry()) {
+            writer.entry(entry);
+        }
+        writer.end();
+
+        assertEquals(writer.getEntryCount(), 2);
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), generate(bundle, format));
+    }
+
+    private void testNoEntries(Format format) throws Exception {
+        Bundle bundle = Bundle.builder().type(BundleType.SEARCHSET).total(UnsignedInt.of(0)).build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingBundleWriter writer = new StreamingBundleWriter(format, out);
+        writer.start(bundle);
+        writer.end();
+
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), generate(bundle, format));
+    }
+
+    private String generate(Bundle bundle, Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FHIRGenerator.generator(format).generate(bundle, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private Bundle buildBundle() {
+        Patient patient = Patient.builder()
+                .id("1")
+                .name(HumanName.builder().family(com.ibm.fhir.model.type.String.of("Döe & <Sons>")).build())
+                .build();
+        Observation observation = Observation.builder()
+                .id("2")
+                .status(ObservationStatus.FINAL)
+                .code(CodeableConcept.builder().text(com.ibm.fhir.model.type.String.of("code")).build())
+                .subject(Reference.builder().reference(com.ibm.fhir.model.type.String.of("Patient/1")).build())
+                .build();
+        // A nested bundle, to make sure the entry boundaries are found correctly
+        Bundle nested = Bundle.builder()
+                .type(BundleType.COLLECTION)
+                .entry(Bundle.Entry.builder().resource(observation).build())
+                .build();
+
+        return Bundle.builder()
+                .id("b1")
+                .type(BundleType.SEARCHSET)
+                .total(UnsignedInt.of(2))
+                .link(Bundle.Link.builder()
+                    .relation(com.ibm.fhir.model.type.String.of("self"))
+                    .url(Uri.of("https://example.com/Patient/1/$everything?_type=Patient,Observation&_count=10"))
+                    .build())
+                .entry(Bundle.Entry.builder()
+                    .fullUrl(Uri.of("https://example.com/Patient/1"))
+                    .resource(patient)
+                    .search(Bundle.Entry.Search.builder().mode(SearchEntryMode.MATCH).build())
+                    .build())
+                .entry(Bundle.Entry.builder()
+                    .fullUrl(Uri.of("https://example.com/Bundle/3"))
+                    .resource(nested.toBuilder().id("3").build())
+                    .search(Bundle.Entry.Search.builder().mode(SearchEntryMode.INCLUDE).build())
+                    .build())
+                .build();
+    }
+}
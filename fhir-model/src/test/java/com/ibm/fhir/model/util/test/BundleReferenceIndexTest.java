@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.model.util.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.exception.FHIRException;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.type.Id;
+import com.ibm.fhir.model.type.Meta;
+import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.util.BundleReferenceIndex;
+import com.ibm.fhir.model.util.FHIRUtil;
+
+public class BundleReferenceIndexTest {
+    private static final int ENTRY_COUNT = 1000;
+
+    @Test
+    public void testResolveBundleReference() throws Exception {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.COLLECTION);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            builder.entry(entry("urn:uuid:" + i, null));
+        }
+        // two versions of the same resource
+        builder.entry(entry("http://example.com/fhir/Patient/1", "1"));
+        builder.entry(entry("http://example.com/fhir/Patient/1", "2"));
+        Bundle bundle = builder.build();
+
+        BundleReferenceIndex index = BundleReferenceIndex.of(bundle);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertSame(FHIRUtil.resolveBundleReference(index, null, reference("urn:uuid:" + i)), bundle.getEntry().get(i));
+        }
+
+        Bundle.Entry version1 = bundle.getEntry().get(ENTRY_COUNT);
+        Bundle.Entry version2 = bundle.getEntry().get(ENTRY_COUNT + 1);
+        assertEquals(index.getEntries("http://example.com/fhir/Patient/1").size(), 2);
+        assertSame(index.getEntry("http://example.com/fhir/Patient/1", null), version1);
+        assertSame(index.getEntry("http://example.com/fhir/Patient/1", "2"), version2);
+        assertNull(index.getEntry("http://example.com/fhir/Patient/1", "3"));
+
+        // relative reference from an entry with a RESTful fullUrl
+        assertSame(FHIRUtil.resolveBundleReference(index, version2, reference("Patient/1")), version1);
+        // the overload without an index gives the same result
+        assertSame(FHIRUtil.resolveBundleReference(bundle, version2, reference("Patient/1")), version1);
+
+        assertTrue(index.getEntries("urn:uuid:unknown").isEmpty());
+        try {
+            FHIRUtil.resolveBundleReference(index, null, reference("urn:uuid:unknown"));
+            throw new AssertionError("expected FHIRException");
+        } catch (FHIRException e) {
+            // expected
+        }
+    }
+
+    private Bundle.Entry entry(String fullUrl, String versionId) {
+        Patient.Builder patient = Patient.builder();
+        if (versionId != null) {
+            patient.meta(Meta.builder().versionId(Id.of(versionId)).build());
+        } else {
+            patient.active(com.ibm.fhir.model.type.Boolean.TRUE);
+        }
+        return Bundle.Entry.builder().fullUrl(Uri.of(fullUrl)).resource(patient.build()).build();
+    }
+
+    private Reference reference(String value) {
+        return Reference.builder().reference(string(value)).build();
+    }
+}
@@ -11,9 +11,10 @@ import static com.ibm.fhir.model.type.String.string;
 import java.io.InputStream;
 import java.net.URI;
 import java.time.ZoneOffset;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import com.ibm.fhir.exception.FHIROperationException;
@@ -32,9 +33,11 @@ import com.ibm.fhir.model.type.Meta;
 import com.ibm.fhir.model.type.Reference;
 import com.ibm.fhir.model.type.Uri;
 import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.util.ModelSupport;
 import com.ibm.fhir.operation.AbstractOperation;
 import com.ibm.fhir.operation.context.FHIROperationContext;
 import com.ibm.fhir.operation.util.FHIROperationUtil;
+import com.ibm.fhir.persistence.ResourceKey;
 import com.ibm.fhir.rest.FHIRResourceHelpers;
 import com.ibm.fhir.rest.FHIRRestOperationResponse;
 
@@ -116,38 +119,40 @@ public class DocumentOperation extends AbstractOperation {
         //document.getEntry().add(bundleEntry);
         documentBuilder.entry(entryBuilder.build());
         
-        Map<String, Resource> resources = new HashMap<String, Resource>();
-        
+        // collect the references in document order so that they can be read with a single call
+        Set<String> referenceValues = new LinkedHashSet<String>();
+
         // Composition.subject
-        addBundleEntry(operationContext, documentBuilder, composition.getSubject(), resourceHelper, resources);
-        
+        addReference(composition.getSubject(), referenceValues);
+
         // Composition.author
         for (Reference author : composition.getAuthor()) {
-            addBundleEntry(operationContext, documentBuilder, author, resourceHelper, resources);
+            addReference(author, referenceValues);
         }
-        
+
         // Composition.attester.party
         for (Composition.Attester attester : composition.getAttester()) {
-            addBundleEntry(operationContext, documentBuilder, attester.getParty(), resourceHelper, resources);
+            addReference(attester.getParty(), referenceValues);
         }
-        
+
         // Composition.custodian
-        addBundleEntry(operationContext, documentBuilder, composition.getCustodian(), resourceHelper, resources);
-        
+        addReference(composition.getCustodian(), referenceValues);
+
         // Composition.event.detail
         for (Composition.Event event : composition.getEvent()) {
             for (Reference detail : event.getDetail()) {
-                addBundleEntry(operationContext, documentBuilder, detail, resourceHelper, resources);
+                addReference(detail, referenceValues);
             }
         }
-        
+
         // Composition.encounter
-        addBundleEntry(operationContext, documentBuilder, composition.getEncounter(), resourceHelper, resources);
-        
+        addReference(composition.getEncounter(), referenceValues);
+
         // Composition.section.entry
-        addBundleEntries(operationContext, documentBuilder, composition.getSection(), resourceHelper, resources);
-        
-        
+        addReferences(composition.getSection(), referenceValues);
+
+        addBundleEntries(operationContext, documentBuilder, referenceValues, resourceHelper);
+
         return documentBuilder.timestamp(Instant.now(ZoneOffset.UTC))
                 .identifier(Identifier.builder()
                         .system(Uri.of("http://hl7.org/fhir/OperationDefinition/Composition-document")).value(string("urn:uuid:" + UUID.randomUUID().toString()))
@@ -156,69 +161,73 @@ public class DocumentOperation extends AbstractOperation {
                 .build();
     }
 
-    private void addBundleEntry(FHIROperationContext operationContext, Bundle.Builder documentBuilder, Reference reference, FHIRResourceHelpers resourceHelper, Map<String, Resource> resources) throws Exception {;
+    private void addReference(Reference reference, Set<String> referenceValues) throws FHIROperationException {
         if (reference == null) {
             return;
         }
-        
+
         if (reference.getReference() == null) {
             throw new FHIROperationException("Empty reference object is not allowed");
         }
-    
+
         String referenceValue = reference.getReference().getValue();
         if (referenceValue == null) {
             throw new FHIROperationException("Empty reference value is not allowed");
         }
-        
-        Resource resource = resources.get(referenceValue);
-        
-        if (resource == null) {
-            String[] referenceTokens = referenceValue.split("/");
-            
-            // assumption: references will be relative {resourceTypeName}/{logicalId}
-            if (referenceTokens.length != 2) {
-                throw new FHIROperationException("Could not parse reference value: " + referenceValue);
+
+        // assumption: references will be relative {resourceTypeName}/{logicalId}
+        if (referenceValue.split("/").length != 2) {
+            throw new FHIROperationException("Could not parse reference value: " + referenceValue);
+        }
+
+        referenceValues.add(referenceValue);
+    }
+
+    private void addReferences(List<Composition.Section> sections, Set<String> referenceValues) throws FHIROperationException {
+        for (Composition.Section section : sections) {
+            // process entries for this section
+            for (Reference entry : section.getEntry()) {
+                addReference(entry, referenceValues);
             }
-            
+
+            // process subsections
+            addReferences(section.getSection(), referenceValues);
+        }
+    }
+
+    private void addBundleEntries(FHIROperationContext operationContext, Bundle.Builder documentBuilder, Set<String> referenceValues, FHIRResourceHelpers resourceHelper) throws Exception {
+        List<ResourceKey> keys = new ArrayList<ResourceKey>(referenceValues.size());
+        for (String referenceValue : referenceValues) {
+            String[] referenceTokens = referenceValue.split("/");
             String resourceTypeName = referenceTokens[0];
             String logicalId = referenceTokens[1];
-            
-            resource = resourceHelper.doRead(resourceTypeName, logicalId, false, false, null, null);
-            
+
+            if (!ModelSupport.isResourceType(resourceTypeName)) {
+                throw new FHIROperationException("Could not parse reference value: " + referenceValue);
+            }
+
+            keys.add(new ResourceKey(ModelSupport.getResourceType(resourceTypeName), logicalId));
+        }
+
+        List<Resource> resources = resourceHelper.doReadMany(keys, false, null);
+
+        int i = 0;
+        for (String referenceValue : referenceValues) {
+            Resource resource = resources.get(i++);
             if (resource == null) {
                 throw new FHIROperationException("Could not find resource for reference value: " + referenceValue);
             }
-            
-            resources.put(referenceValue, resource);
-            
+
             // create a bundle entry for the resource
-            //BundleEntry bundleEntry = factory.createBundleEntry();
-            
-            //ResourceContainer container = factory.createResourceContainer();
-            //FHIRUtil.setResourceContainerResource(container, resource);
-            
-            Bundle.Entry.Builder entryBuilder = Entry.builder(); //createBundleEntry();
+            Bundle.Entry.Builder entryBuilder = Entry.builder();
             entryBuilder.resource(resource);
-            
+
             setFullUrl(operationContext, entryBuilder, referenceValue);
-            
-            //document.getEntry().add(bundleEntry);
+
             documentBuilder.entry(entryBuilder.build());
         }
     }
 
-    private void addBundleEntries(FHIROperationContext operationContext, Bundle.Builder documentBuilder, List<Composition.Section> sections, FHIRResourceHelpers resourceHelper, Map<String, Resource> resources) throws Exception {
-        for (Composition.Section section : sections) {                
-            // process entries for this section
-            for (Reference entry : section.getEntry()) {
-                addBundleEntry(operationContext, documentBuilder, entry, resourceHelper, resources);
-            }
-            
-            // process subsections
-            addBundleEntries(operationContext, documentBuilder, section.getSection(), resourceHelper, resources);
-        }
-    }
-    
     private void setFullUrl(FHIROperationContext operationContext, Bundle.Entry.Builder entryBuilder, String referenceValue) {
         String requestBaseURI = (String) operationContext.getProperty(FHIROperationContext.PROPNAME_REQUEST_BASE_URI);
         if (requestBaseURI != null) {
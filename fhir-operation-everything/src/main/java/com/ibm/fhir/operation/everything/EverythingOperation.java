@@ -0,0 +1,366 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.operation.everything;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.exception.FHIROperationException;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.StreamingBundleWriter;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.OperationDefinition;
+import com.ibm.fhir.model.resource.OperationOutcome;
+import com.ibm.fhir.model.resource.Parameters;
+import com.ibm.fhir.model.resource.Parameters.Parameter;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Instant;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.IssueSeverity;
+import com.ibm.fhir.model.type.code.IssueType;
+import com.ibm.fhir.model.type.code.SearchEntryMode;
+import com.ibm.fhir.model.util.FHIRUtil;
+import com.ibm.fhir.operation.AbstractOperation;
+import com.ibm.fhir.operation.context.FHIROperationContext;
+import com.ibm.fhir.rest.FHIRResourceHelpers;
+import com.ibm.fhir.search.SearchConstants;
+import com.ibm.fhir.search.TotalValueSet;
+import com.ibm.fhir.search.compartment.CompartmentUtil;
+
+/**
+ * An implementation of the Patient <a href="https://www.hl7.org/fhir/operation-patient-everything.html">$everything</a>
+ * operation, which returns the patient and every resource in the patient's compartment.
+ *
+ * <p>Rather than building the result in memory, the searchset bundle is written straight to the response: the
+ * resources of each type in the compartment are read with a compartment search (one small page at a time) and each
+ * entry is serialized as soon as its page is retrieved. The compartment searches are run with _total=none, so no count
+ * query is run for any page; a full page is taken to mean that there may be more. Without _count, the entire result set
+ * is returned in a single bundle. With _count, each page holds up to _count resources of a single resource type, and
+ * the "next" link carries the remaining types (_type) and the page within the first of them (_page).
+ */
+public class EverythingOperation extends AbstractOperation {
+    private static final Logger log = Logger.getLogger(EverythingOperation.class.getName());
+
+    private static final String PATIENT = "Patient";
+    private static final String PARAM_SINCE = "_since";
+    private static final String PARAM_TYPE = "_type";
+    private static final String PARAM_COUNT = "_count";
+    private static final String PARAM_PAGE = "_page";
+
+    // The page size used to read the resources of each type when the entire result set is streamed;
+    // only one page of resources is held in memory at a time
+    static final int STREAMING_PAGE_SIZE = 100;
+
+    @Override
+    protected OperationDefinition buildOperationDefinition() {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("everything.json");) {
+            return FHIRParser.parser(Format.JSON).parse(in);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
+    @Override
+    protected Parameters doInvoke(FHIROperationContext operationContext, Class<? extends Resource> resourceType, String logicalId, String versionId, Parameters parameters,
+        FHIRResourceHelpers resourceHelper) throws FHIROperationException {
+        try {
+            // Validate the request before anything is written to the response
+            Resource patient = resourceHelper.doRead(PATIENT, logicalId, false, false, null, null);
+            if (patient == null) {
+                throw buildExceptionWithIssue("Could not find patient with id: " + logicalId, IssueType.NOT_FOUND);
+            }
+
+            EverythingRequest request = new EverythingRequest();
+            request.patient = patient;
+            request.baseUri = (String) operationContext.getProperty(FHIROperationContext.PROPNAME_REQUEST_BASE_URI);
+            request.selfUri = getSelfUri(operationContext, request.baseUri, logicalId);
+            request.types = getTypes(parameters);
+            request.count = getPositiveInteger(parameters, PARAM_COUNT);
+            Integer page = getPositiveInteger(parameters, PARAM_PAGE);
+            request.page = page != null ? page : 1;
+            Parameter sinceParameter = getParameter(parameters, PARAM_SINCE);
+            if (sinceParameter != null && sinceParameter.getValue() != null) {
+                request.since = Instant.PARSER_FORMATTER.format(sinceParameter.getValue().as(Instant.class).getValue());
+            }
+            request.format = getFormat(operationContext.getHttpHeaders());
+            request.requestContext = FHIRRequestContext.get();
+
+            StreamingOutput output = out -> write(out, request, resourceHelper);
+            operationContext.setProperty(FHIROperationContext.PROPNAME_STREAMING_OUTPUT, output);
+
+            // The result is the streaming output; an empty Parameters resource isn't valid
+            return null;
+        } catch (FHIROperationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FHIROperationException("An error occurred during the everything operation", e);
+        }
+    }
+
+    /**
+     * The validated parameters of an $everything request, captured for the streaming output.
+     */
+    private static class EverythingRequest {
+        Resource patient;
+        String baseUri;
+        String selfUri;
+        List<String> types;
+        Integer count;
+        int page;
+        String since;
+        Format format;
+        FHIRRequestContext requestContext;
+    }
+
+    /**
+     * Writes the searchset bundle to the response.
+     * Errors which occur after the start of the bundle has been written are reported with an OperationOutcome entry.
+     */
+    private void write(OutputStream out, EverythingRequest request, FHIRResourceHelpers resourceHelper) {
+        // The output may be written after the resource method has returned; run with the context of the request
+        FHIRRequestContext previousContext = FHIRRequestContext.get();
+        FHIRRequestContext.set(request.requestContext);
+
+        StreamingBundleWriter writer = new StreamingBundleWriter(request.format, out);
+        boolean started = false;
+        try {
+            if (request.count == null) {
+                writer.start(buildHeader(request.selfUri, null));
+                started = true;
+                for (String type : request.types) {
+                    int pageNumber = 1;
+                    if (PATIENT.equals(type)) {
+                        writer.entry(buildPatientEntry(request));
+                    }
+                    while (true) {
+                        Bundle page = search(resourceHelper, request, type, pageNumber, STREAMING_PAGE_SIZE);
+                        writeEntries(writer, request, page);
+                        if (!hasMore(page, STREAMING_PAGE_SIZE)) {
+                            break;
+                        }
+                        pageNumber++;
+                    }
+                }
+            } else {
+                // Find the first non-empty page, starting with the page of the first type
+                Bundle page = null;
+                List<Bundle.Entry> entries = new ArrayList<>();
+                String nextUri = null;
+                int pageNumber = request.page;
+                for (int i = 0; i < request.types.size() && entries.isEmpty(); i++) {
+                    String type = request.types.get(i);
+                    if (PATIENT.equals(type) && pageNumber == 1) {
+                        entries.add(buildPatientEntry(request));
+                    }
+                    page = search(resourceHelper, request, type, pageNumber, request.count);
+                    entries.addAll(getEntries(request, page));
+                    if (hasMore(page, request.count)) {
+                        nextUri = buildNextUri(request, request.types.subList(i, request.types.size()), pageNumber + 1);
+                    } else if (i + 1 < request.types.size()) {
+                        nextUri = buildNextUri(request, request.types.subList(i + 1, request.types.size()), 1);
+                    } else {
+                        nextUri = null;
+                    }
+                    pageNumber = 1;
+                }
+
+                writer.start(buildHeader(request.selfUri, nextUri));
+                started = true;
+                for (Bundle.Entry entry : entries) {
+                    writer.entry(entry);
+                }
+            }
+            writer.end();
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "An error occurred while writing the response of the everything operation", e);
+            if (!started) {
+                throw new WebApplicationException(e);
+            }
+            try {
+                writer.entry(buildOutcomeEntry("An error occurred while retrieving the resources of the patient compartment; the result is incomplete."));
+                writer.end();
+            } catch (Exception e2) {
+                throw new WebApplicationException(e2);
+            }
+        } finally {
+            FHIRRequestContext.set(previousContext);
+        }
+    }
+
+    /**
+     * Retrieves one page of the resources of the given type in the patient compartment.
+     */
+    private Bundle search(FHIRResourceHelpers resourceHelper, EverythingRequest request, String type, int pageNumber, int pageSize) throws Exception {
+        MultivaluedMap<String, String> queryParameters = new MultivaluedHashMap<>();
+        queryParameters.putSingle(PARAM_COUNT, Integer.toString(pageSize));
+        queryParameters.putSingle(PARAM_PAGE, Integer.toString(pageNumber));
+        queryParameters.putSingle(SearchConstants.TOTAL, TotalValueSet.NONE.value());
+        if (request.since != null) {
+            queryParameters.putSingle("_lastUpdated", "ge" + request.since);
+        }
+        return resourceHelper.doSearch(type, PATIENT, request.patient.getId(), queryParameters, null, null, null);
+    }
+
+    /**
+     * Without a total, a full page means that there may be another page of the same type.
+     */
+    private boolean hasMore(Bundle page, int pageSize) {
+        return page.getEntry().size() >= pageSize;
+    }
+
+    private void writeEntries(StreamingBundleWriter writer, EverythingRequest request, Bundle page) throws Exception {
+        for (Bundle.Entry entry : getEntries(request, page)) {
+            writer.entry(entry);
+        }
+    }
+
+    /**
+     * Returns the entries of a search result page, without the patient itself (which may link to itself).
+     */
+    private List<Bundle.Entry> getEntries(EverythingRequest request, Bundle page) {
+        List<Bundle.Entry> entries = new ArrayList<>();
+        for (Bundle.Entry entry : page.getEntry()) {
+            Resource resource = entry.getResource();
+            if (resource == null || (resource.getClass() == request.patient.getClass() && request.patient.getId().equals(resource.getId()))) {
+                continue;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private Bundle buildHeader(String selfUri, String nextUri) {
+        Bundle.Builder builder = Bundle.builder().type(BundleType.SEARCHSET);
+        builder.link(Bundle.Link.builder().relation(com.ibm.fhir.model.type.String.of("self")).url(Uri.of(selfUri)).build());
+        if (nextUri != null) {
+            builder.link(Bundle.Link.builder().relation(com.ibm.fhir.model.type.String.of("next")).url(Uri.of(nextUri)).build());
+        }
+        return builder.build();
+    }
+
+    private Bundle.Entry buildPatientEntry(EverythingRequest request) {
+        Bundle.Entry.Builder builder = Bundle.Entry.builder()
+                .resource(request.patient)
+                .search(Bundle.Entry.Search.builder().mode(SearchEntryMode.MATCH).build());
+        if (request.baseUri != null) {
+            builder.fullUrl(Uri.of(request.baseUri + "/" + PATIENT + "/" + request.patient.getId()));
+        }
+        return builder.build();
+    }
+
+    private Bundle.Entry buildOutcomeEntry(String msg) {
+        OperationOutcome outcome = FHIRUtil.buildOperationOutcome(msg, IssueType.EXCEPTION, IssueSeverity.ERROR);
+        return Bundle.Entry.builder()
+                .resource(outcome)
+                .search(Bundle.Entry.Search.builder().mode(SearchEntryMode.OUTCOME).build())
+                .build();
+    }
+
+    private String buildNextUri(EverythingRequest request, List<String> types, int pageNumber) throws UnsupportedEncodingException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(request.baseUri).append("/").append(PATIENT).append("/").append(request.patient.getId()).append("/$everything");
+        sb.append("?").append(PARAM_TYPE).append("=").append(String.join(",", types));
+        sb.append("&").append(PARAM_COUNT).append("=").append(request.count);
+        sb.append("&").append(PARAM_PAGE).append("=").append(pageNumber);
+        if (request.since != null) {
+            sb.append("&").append(PARAM_SINCE).append("=").append(URLEncoder.encode(request.since, StandardCharsets.UTF_8.name()));
+        }
+        return sb.toString();
+    }
+
+    private String getSelfUri(FHIROperationContext operationContext, String baseUri, String logicalId) {
+        UriInfo uriInfo = (UriInfo) operationContext.getProperty(FHIROperationContext.PROPNAME_URI_INFO);
+        if (uriInfo != null && uriInfo.getRequestUri() != null) {
+            return uriInfo.getRequestUri().toString();
+        }
+        return baseUri + "/" + PATIENT + "/" + logicalId + "/$everything";
+    }
+
+    /**
+     * Returns the requested resource types (all the resource types of the patient compartment by default),
+     * with the Patient first and the others in alphabetical order.
+     */
+    private List<String> getTypes(Parameters parameters) throws Exception {
+        List<String> compartmentTypes = new ArrayList<>(CompartmentUtil.getCompartmentResourceTypes(PATIENT));
+        if (!compartmentTypes.contains(PATIENT)) {
+            compartmentTypes.add(PATIENT);
+        }
+
+        List<String> requested = new ArrayList<>();
+        for (Parameter parameter : getParameters(parameters, PARAM_TYPE)) {
+            if (parameter.getValue() == null) {
+                continue;
+            }
+            String value = parameter.getValue().as(com.ibm.fhir.model.type.Code.class).getValue();
+            for (String type : value.split(",")) {
+                type = type.trim();
+                if (type.isEmpty()) {
+                    continue;
+                }
+                if (!compartmentTypes.contains(type)) {
+                    throw buildExceptionWithIssue("Resource type '" + type + "' is not a member of the patient compartment", IssueType.INVALID);
+                }
+                if (!requested.contains(type)) {
+                    requested.add(type);
+                }
+            }
+        }
+
+        List<String> types = requested.isEmpty() ? compartmentTypes : requested;
+        Collections.sort(types, (t1, t2) -> PATIENT.equals(t1) ? (PATIENT.equals(t2) ? 0 : -1) : PATIENT.equals(t2) ? 1 : t1.compareTo(t2));
+        return types;
+    }
+
+    private Integer getPositiveInteger(Parameters parameters, String name) throws FHIROperationException {
+        Parameter parameter = getParameter(parameters, name);
+        if (parameter == null || parameter.getValue() == null) {
+            return null;
+        }
+        Integer value = parameter.getValue().as(com.ibm.fhir.model.type.Integer.class).getValue();
+        if (value == null || value < 1) {
+            throw buildExceptionWithIssue("The value of parameter '" + name + "' must be greater than 0", IssueType.INVALID);
+        }
+        return value;
+    }
+
+    /**
+     * Selects the format of the response from the acceptable media types of the request,
+     * in the same way as the JAX-RS runtime selects the response media type (JSON by default).
+     */
+    private Format getFormat(HttpHeaders httpHeaders) {
+        if (httpHeaders != null) {
+            for (MediaType mediaType : httpHeaders.getAcceptableMediaTypes()) {
+                if (mediaType.isWildcardSubtype() || mediaType.getSubtype().endsWith("json")) {
+                    return Format.JSON;
+                }
+                if (mediaType.getSubtype().endsWith("xml")) {
+                    return Format.XML;
+                }
+            }
+        }
+        return Format.JSON;
+    }
+}
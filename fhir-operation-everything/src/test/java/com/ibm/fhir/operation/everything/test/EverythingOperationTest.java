@@ -0,0 +1,250 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.operation.everything.test;
+
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.patch.FHIRPatch;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Parameters;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Integer;
+import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.ObservationStatus;
+import com.ibm.fhir.operation.context.FHIROperationContext;
+import com.ibm.fhir.operation.everything.EverythingOperation;
+import com.ibm.fhir.persistence.FHIRPersistenceTransaction;
+import com.ibm.fhir.rest.FHIRResourceHelpers;
+import com.ibm.fhir.rest.FHIRRestOperationResponse;
+
+public class EverythingOperationTest {
+    private static final String BASE_URI = "https://localhost:9443/fhir-server/api/v4";
+
+    /**
+     * A stub of the resource helpers with one patient and a number of observations in its compartment,
+     * which records the query parameters of each compartment search.
+     */
+    private static class Helpers implements FHIRResourceHelpers {
+        final Patient patient = Patient.builder().id("p1").active(com.ibm.fhir.model.type.Boolean.TRUE).build();
+        final List<Observation> observations = new ArrayList<>();
+        final List<String> searches = new ArrayList<>();
+        final List<MultivaluedMap<String, String>> queryParameters = new ArrayList<>();
+
+        Helpers(int observationCount) {
+            for (int i = 1; i <= observationCount; i++) {
+                observations.add(Observation.builder()
+                    .id("o" + i)
+                    .status(ObservationStatus.FINAL)
+                    .code(CodeableConcept.builder().text(string("code")).build())
+                    .subject(Reference.builder().reference(string("Patient/p1")).build())
+                    .build());
+            }
+        }
+
+        @Override
+        public Resource doRead(String type, String id, boolean throwExcOnNull, boolean includeDeleted,
+                Map<String, String> requestProperties, Resource contextResource) {
+            return "Patient".equals(type) && patient.getId().equals(id) ? patient : null;
+        }
+
+        @Override
+        public Bundle doSearch(String type, String compartment, String compartmentId, MultivaluedMap<String, String> queryParameters,
+                String requestUri, Map<String, String> requestProperties, Resource contextResource) {
+            searches.add(type + " page " + queryParameters.getFirst("_page"));
+            this.queryParameters.add(queryParameters);
+            return search(type, java.lang.Integer.parseInt(queryParameters.getFirst("_count")),
+                java.lang.Integer.parseInt(queryParameters.getFirst("_page")));
+        }
+
+        Bundle search(String type, int count, int page) {
+            Bundle.Builder builder = Bundle.builder().type(BundleType.SEARCHSET);
+            if ("Observation".equals(type)) {
+                for (int i = (page - 1) * count; i < Math.min(page * count, observations.size()); i++) {
+                    builder.entry(Bundle.Entry.builder().resource(observations.get(i)).build());
+                }
+            }
+            return builder.build();
+        }
+
+        @Override
+        public FHIRRestOperationResponse doCreate(String type, Resource resource, String ifNoneExist, Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doCreate");
+        }
+
+        @Override
+        public FHIRRestOperationResponse doUpdate(String type, String id, Resource newResource, String ifMatchValue,
+                String searchQueryString, Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doUpdate");
+        }
+
+        @Override
+        public FHIRRestOperationResponse doPatch(String type, String id, FHIRPatch patch, String ifMatchValue,
+                String searchQueryString, Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doPatch");
+        }
+
+        @Override
+        public FHIRRestOperationResponse doDelete(String type, String id, String searchQueryString, Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doDelete");
+        }
+
+        @Override
+        public Resource doRead(String type, String id, boolean throwExcOnNull, boolean includeDeleted,
+                Map<String, String> requestProperties, Resource contextResource, MultivaluedMap<String, String> queryParameters) {
+            throw new UnsupportedOperationException("doRead");
+        }
+
+        @Override
+        public Resource doVRead(String type, String id, String versionId, Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doVRead");
+        }
+
+        @Override
+        public Bundle doHistory(String type, String id, MultivaluedMap<String, String> queryParameters, String requestUri,
+                Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doHistory");
+        }
+
+        @Override
+        public Resource doInvoke(FHIROperationContext operationContext, String resourceTypeName, String logicalId, String versionId,
+                String operationName, Resource resource, MultivaluedMap<String, String> queryParameters,
+                Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doInvoke");
+        }
+
+        @Override
+        public Bundle doBundle(Bundle bundle, Map<String, String> requestProperties) {
+            throw new UnsupportedOperationException("doBundle");
+        }
+
+        @Override
+        public FHIRPersistenceTransaction getTransaction() {
+            throw new UnsupportedOperationException("getTransaction");
+        }
+    }
+
+    @Test
+    public void testStreamAllPages() throws Exception {
+        Helpers helpers = new Helpers(250);
+        Bundle bundle = invoke(helpers, Parameters.builder()
+            .parameter(parameter("_type", Code.of("Patient")))
+            .parameter(parameter("_type", Code.of("Observation")))
+            .build());
+
+        assertEquals(bundle.getEntry().size(), 251);
+        assertEquals(bundle.getEntry().get(0).getResource().getId(), "p1");
+        assertEquals(bundle.getEntry().get(250).getResource().getId(), "o250");
+        assertNull(bundle.getTotal());
+        assertEquals(bundle.getLink().size(), 1);
+
+        // the pages of each type are read until a page isn't full, without counting the matches
+        List<String> expected = new ArrayList<>();
+        expected.add("Patient page 1");
+        expected.add("Observation page 1");
+        expected.add("Observation page 2");
+        expected.add("Observation page 3");
+        assertEquals(helpers.searches, expected);
+        for (MultivaluedMap<String, String> params : helpers.queryParameters) {
+            assertEquals(params.getFirst("_total"), "none");
+        }
+    }
+
+    @Test
+    public void testCountNextLinks() throws Exception {
+        Helpers helpers = new Helpers(3);
+
+        // the first page holds the first two observations, and the next page continues with the observations
+        Bundle bundle = invoke(helpers, Parameters.builder()
+            .parameter(parameter("_type", Code.of("Observation,Procedure")))
+            .parameter(parameter("_count", Integer.of(2)))
+            .build());
+        assertIds(bundle, "o1", "o2");
+        assertNull(bundle.getTotal());
+        assertEquals(getNextUri(bundle), BASE_URI + "/Patient/p1/$everything?_type=Observation,Procedure&_count=2&_page=2");
+
+        // the second page holds the last observation, and the next page continues with the next type
+        bundle = invoke(helpers, Parameters.builder()
+            .parameter(parameter("_type", Code.of("Observation,Procedure")))
+            .parameter(parameter("_count", Integer.of(2)))
+            .parameter(parameter("_page", Integer.of(2)))
+            .build());
+        assertIds(bundle, "o3");
+        assertEquals(getNextUri(bundle), BASE_URI + "/Patient/p1/$everything?_type=Procedure&_count=2&_page=1");
+
+        // the last type has no resources, so there is no next page
+        bundle = invoke(helpers, Parameters.builder()
+            .parameter(parameter("_type", Code.of("Procedure")))
+            .parameter(parameter("_count", Integer.of(2)))
+            .build());
+        assertIds(bundle);
+        assertNull(getNextUri(bundle));
+
+        for (MultivaluedMap<String, String> params : helpers.queryParameters) {
+            assertEquals(params.getFirst("_total"), "none");
+            assertEquals(params.getFirst("_count"), "2");
+        }
+    }
+
+    private Bundle invoke(Helpers helpers, Parameters parameters) throws Exception {
+        FHIROperationContext operationContext = FHIROperationContext.createInstanceOperationContext();
+        operationContext.setProperty(FHIROperationContext.PROPNAME_REQUEST_BASE_URI, BASE_URI);
+        new EverythingOperation().invoke(operationContext, Patient.class, "p1", null, parameters, helpers);
+
+        StreamingOutput output = (StreamingOutput) operationContext.getProperty(FHIROperationContext.PROPNAME_STREAMING_OUTPUT);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        return FHIRParser.parser(Format.JSON).parse(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private Parameters.Parameter parameter(String name, com.ibm.fhir.model.type.Element value) {
+        return Parameters.Parameter.builder().name(string(name)).value(value).build();
+    }
+
+    private void assertIds(Bundle bundle, String... ids) {
+        List<String> actual = new ArrayList<>();
+        for (Bundle.Entry entry : bundle.getEntry()) {
+            Resource resource = entry.getResource();
+            actual.add(resource.getId());
+        }
+        List<String> expected = new ArrayList<>();
+        for (String id : ids) {
+            expected.add(id);
+        }
+        assertEquals(actual, expected);
+    }
+
+    private String getNextUri(Bundle bundle) {
+        for (Bundle.Link link : bundle.getLink()) {
+            if ("next".equals(link.getRelation().getValue())) {
+                return link.getUrl().getValue();
+            }
+        }
+        assertTrue(bundle.getLink().size() == 1, "unexpected links");
+        return null;
+    }
+}
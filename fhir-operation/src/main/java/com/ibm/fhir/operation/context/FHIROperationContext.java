@@ -75,6 +75,12 @@ public class FHIROperationContext {
      */
     public static final String PROPNAME_RESPONSE = "RESPONSE";
 
+    /**
+     * This property is of type javax.ws.rs.core.StreamingOutput. When set by an operation, it is written as the
+     * entity of the response instead of the returned Parameters, so that large results can be streamed to the client.
+     */
+    public static final String PROPNAME_STREAMING_OUTPUT = "STREAMING_OUTPUT";
+
     private Type type = null;
     private Map<String, Object> properties = null;
     
@@ -6,6 +6,8 @@
 
 package com.ibm.fhir.rest;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.MultivaluedMap;
@@ -15,6 +17,8 @@ import com.ibm.fhir.model.resource.Bundle;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.operation.context.FHIROperationContext;
 import com.ibm.fhir.persistence.FHIRPersistenceTransaction;
+import com.ibm.fhir.persistence.ResourceKey;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceDeletedException;
 
 /**
  * This interface describes the set of helper methods from the FHIR REST layer that are used by custom operation
@@ -114,6 +118,29 @@ public interface FHIRResourceHelpers {
      */
     public Resource doRead(String type, String id, boolean throwExcOnNull, boolean includeDeleted, Map<String, String> requestProperties, Resource contextResource) throws Exception;
 
+    /**
+     * Performs a 'read' operation to retrieve a list of Resources, potentially of different resource types,
+     * with as few round-trips to the persistence layer as possible.
+     *
+     * @param keys
+     *            the resource types and ids of the Resources to be retrieved
+     * @param includeDeleted
+     *            whether deleted resources should be returned
+     * @param requestProperties
+     *            additional request properties which supplement the HTTP headers associated with this request
+     * @return a list with one entry per key, in key order; entries for Resources that were not found are null
+     * @throws FHIRPersistenceResourceDeletedException
+     *             if one of the Resources is deleted and includeDeleted is false
+     * @throws Exception
+     */
+    default List<Resource> doReadMany(List<ResourceKey> keys, boolean includeDeleted, Map<String, String> requestProperties) throws Exception {
+        List<Resource> resources = new ArrayList<>(keys.size());
+        for (ResourceKey key : keys) {
+            resources.add(doRead(key.getResourceType().getSimpleName(), key.getLogicalId(), false, includeDeleted, requestProperties, null));
+        }
+        return resources;
+    }
+
     /**
      * Performs a 'vread' operation by retrieving the specified version of a Resource.
      *
@@ -132,14 +159,15 @@ public interface FHIRResourceHelpers {
      * Performs the work of retrieving versions of a Resource.
      *
      * @param type
-     *            the resource type associated with the Resource to be retrieved
+     *            the resource type associated with the Resource to be retrieved, or null for system-level history
      * @param id
-     *            the id of the Resource to be retrieved
+     *            the id of the Resource to be retrieved, or null for type or system-level history
      * @param queryParameters
      *            a Map containing the query parameters from the request URL
      * @param requestUri
      * @param requestProperties
-     * @return a Bundle containing the history of the specified Resource
+     * @return a Bundle containing the history of the specified Resource, or of all resources of the type
+     *         (or system) in the order they were stored
      * @throws Exception
      */
     public Bundle doHistory(String type, String id, MultivaluedMap<String, String> queryParameters, String requestUri, Map<String, String> requestProperties) throws Exception;
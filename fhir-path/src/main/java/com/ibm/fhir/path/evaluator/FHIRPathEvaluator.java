@@ -52,6 +52,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -61,9 +62,11 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import com.ibm.fhir.model.annotation.Constraint;
+import com.ibm.fhir.model.resource.Bundle;
 import com.ibm.fhir.model.resource.OperationOutcome.Issue;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.type.Element;
+import com.ibm.fhir.model.util.BundleReferenceIndex;
 import com.ibm.fhir.model.visitor.Visitable;
 import com.ibm.fhir.path.FHIRPathBaseVisitor;
 import com.ibm.fhir.path.FHIRPathBooleanValue;
@@ -1323,6 +1326,8 @@ public class FHIRPathEvaluator {
         private static final Collection<FHIRPathNode> SCT_SYSTEM_SINGLETON = singleton(stringValue(SCT_SYSTEM));
 
         private final FHIRPathTree tree;
+        // shared with the evaluation contexts copied from this one; built on first use
+        private final AtomicReference<BundleReferenceIndex> bundleReferenceIndex;
         private final Map<String, Collection<FHIRPathNode>> externalConstantMap = new HashMap<>();
 
         private Constraint constraint;
@@ -1358,8 +1363,26 @@ public class FHIRPathEvaluator {
             this(FHIRPathTree.tree(element));
         }
 
+        /**
+         * Create an evaluation context that shares the FHIRPath tree and the external constants of the passed
+         * evaluation context. The constraint under evaluation and the supplemental issues are not shared, so
+         * the new evaluation context can be used concurrently with the passed one.
+         *
+         * @param evaluationContext
+         *     the evaluation context to copy
+         */
+        public EvaluationContext(EvaluationContext evaluationContext) {
+            this(evaluationContext.tree, evaluationContext.bundleReferenceIndex);
+            externalConstantMap.putAll(evaluationContext.externalConstantMap);
+        }
+
         private EvaluationContext(FHIRPathTree tree) {
+            this(tree, new AtomicReference<>());
+        }
+
+        private EvaluationContext(FHIRPathTree tree, AtomicReference<BundleReferenceIndex> bundleReferenceIndex) {
             this.tree = tree;
+            this.bundleReferenceIndex = bundleReferenceIndex;
         }
 
         /**
@@ -1372,6 +1395,31 @@ public class FHIRPathEvaluator {
             return tree;
         }
 
+        /**
+         * Get the index of the entries of the Bundle at the root of the FHIRPath tree associated with this
+         * EvaluationContext
+         *
+         * <p>The index is built on first use and shared with the evaluation contexts that are copied from this one, so
+         * that resolving the references of a Bundle takes constant time per reference.
+         *
+         * @return
+         *     the index of the root Bundle, or null if the root of the FHIRPath tree is not a Bundle
+         */
+        public BundleReferenceIndex getBundleReferenceIndex() {
+            BundleReferenceIndex index = bundleReferenceIndex.get();
+            if (index == null) {
+                if (tree == null || !tree.getRoot().isResourceNode()
+                        || !tree.getRoot().asResourceNode().resource().is(Bundle.class)) {
+                    return null;
+                }
+                // concurrent callers may build equivalent indexes; only one of them is kept
+                Bundle bundle = tree.getRoot().asResourceNode().resource().as(Bundle.class);
+                bundleReferenceIndex.compareAndSet(null, BundleReferenceIndex.of(bundle));
+                index = bundleReferenceIndex.get();
+            }
+            return index;
+        }
+
         /**
          * Set an external constant using a name and FHIRPath node
          *
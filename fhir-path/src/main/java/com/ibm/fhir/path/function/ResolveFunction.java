@@ -9,14 +9,20 @@ package com.ibm.fhir.path.function;
 import static com.ibm.fhir.model.util.FHIRUtil.REFERENCE_PATTERN;
 import static com.ibm.fhir.model.util.ModelSupport.isResourceType;
 
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 
+import com.ibm.fhir.exception.FHIRException;
+import com.ibm.fhir.model.resource.Bundle;
 import com.ibm.fhir.model.resource.DomainResource;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.util.BundleReferenceIndex;
+import com.ibm.fhir.model.util.FHIRUtil;
+import com.ibm.fhir.model.util.ModelSupport;
 import com.ibm.fhir.model.type.code.IssueSeverity;
 import com.ibm.fhir.model.type.code.IssueType;
 import com.ibm.fhir.path.FHIRPathNode;
@@ -54,7 +60,11 @@ public class ResolveFunction extends FHIRPathAbstractFunction {
      *
      * <pre>Observation.subject.where(resolve() is Patient)</pre>
      *
-     * <p>If the resource type cannot be inferred from the reference URL or type, then {@code FHIR_UNKNOWN_RESOURCE_TYPE} is used
+     * <p>If the resource type cannot be inferred from the reference URL or type, and the reference is within an entry of
+     * the Bundle under evaluation, then the resource type of the referenced entry is used (see
+     * {@link EvaluationContext#getBundleReferenceIndex()}).
+     *
+     * <p>If the resource type still cannot be inferred, then {@code FHIR_UNKNOWN_RESOURCE_TYPE} is used
      * so that we index these references by default.
      *
      * @param evaluationContext
@@ -97,6 +107,11 @@ public class ResolveFunction extends FHIRPathAbstractFunction {
                     resourceType = referenceType;
                 }
 
+                if (resourceType == null && referenceReference != null && !referenceReference.startsWith("#")) {
+                    // e.g. a urn:uuid reference to another entry of the bundle under evaluation
+                    resourceType = resolveBundleReference(evaluationContext, reference, node);
+                }
+
                 FHIRPathType type = isResourceType(resourceType) ? FHIRPathType.from(resourceType) : FHIRPathType.FHIR_UNKNOWN_RESOURCE_TYPE;
 
                 result.add(FHIRPathResourceNode.resourceNode(type));
@@ -109,6 +124,39 @@ public class ResolveFunction extends FHIRPathAbstractFunction {
         return result;
     }
 
+    private String resolveBundleReference(EvaluationContext evaluationContext, Reference reference, FHIRPathNode node) {
+        BundleReferenceIndex index = evaluationContext.getBundleReferenceIndex();
+        if (index == null) {
+            return null;
+        }
+        Bundle.Entry sourceEntry = getSourceEntry(evaluationContext.getTree(), node);
+        if (sourceEntry == null) {
+            return null;
+        }
+        try {
+            Resource resource = FHIRUtil.resolveBundleReference(index, sourceEntry, reference).getResource();
+            return (resource != null) ? ModelSupport.getTypeName(resource.getClass()) : null;
+        } catch (FHIRException | URISyntaxException | IllegalArgumentException e) {
+            // not resolvable within the bundle
+            return null;
+        }
+    }
+
+    /**
+     * Get the entry of the root bundle that contains the passed node, or null if the node is not within an entry of
+     * the root bundle (e.g. it is within a nested bundle)
+     */
+    private Bundle.Entry getSourceEntry(FHIRPathTree tree, FHIRPathNode node) {
+        FHIRPathNode parent = tree.getParent(node);
+        while (parent != null) {
+            if (parent.isElementNode() && parent.asElementNode().element().is(Bundle.Entry.class)) {
+                return (tree.getParent(parent) == tree.getRoot()) ? parent.asElementNode().element().as(Bundle.Entry.class) : null;
+            }
+            parent = tree.getParent(parent);
+        }
+        return null;
+    }
+
     private String resolveInternalFragmentReference(FHIRPathTree tree, String referenceReference) {
         if (tree != null) {
             FHIRPathNode root = tree.getRoot();
@@ -1,24 +1,30 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.path.function;
 
-public class SubsumedByFunction extends FHIRPathAbstractFunction {
+import java.util.Collection;
+import java.util.List;
+
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.path.FHIRPathNode;
+
+/**
+ * Implementation of the 'subsumedBy' FHIRPath function per: http://hl7.org/fhir/fhirpath.html#functions
+ *
+ * <p>This is the inverse of the 'subsumes' function: the input is subsumed by the argument if the argument subsumes the input.
+ */
+public class SubsumedByFunction extends SubsumesFunction {
     @Override
     public String getName() {
         return "subsumedBy";
     }
 
     @Override
-    public int getMinArity() {
-        return 1;
-    }
-
-    @Override
-    public int getMaxArity() {
-        return 1;
+    protected Collection<FHIRPathNode> subsumes(List<Coding> codings, List<Coding> otherCodings) {
+        return super.subsumes(otherCodings, codings);
     }
 }
@@ -1,11 +1,43 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.path.function;
 
+import static com.ibm.fhir.path.evaluator.FHIRPathEvaluator.SINGLETON_FALSE;
+import static com.ibm.fhir.path.evaluator.FHIRPathEvaluator.SINGLETON_TRUE;
+import static com.ibm.fhir.path.util.FHIRPathUtil.empty;
+import static com.ibm.fhir.path.util.FHIRPathUtil.getElementNode;
+import static com.ibm.fhir.path.util.FHIRPathUtil.isCodedElementNode;
+import static com.ibm.fhir.profile.CodeSystemSupport.getCodeSystem;
+import static com.ibm.fhir.profile.CodeSystemSupport.getDescendantsAndSelf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.ibm.fhir.model.resource.CodeSystem;
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.Element;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.CodeSystemHierarchyMeaning;
+import com.ibm.fhir.path.FHIRPathElementNode;
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
+import com.ibm.fhir.registry.FHIRRegistry;
+
+/**
+ * Implementation of the 'subsumes' FHIRPath function per: http://hl7.org/fhir/fhirpath.html#functions
+ *
+ * <p>The subsumption check uses the precomputed closure of the "is-a" hierarchy of the code system in the
+ * FHIR registry. The result is empty if the code system is not available or does not define an "is-a" hierarchy.
+ */
 public class SubsumesFunction extends FHIRPathAbstractFunction {
     @Override
     public String getName() {
@@ -21,4 +53,119 @@ public class SubsumesFunction extends FHIRPathAbstractFunction {
     public int getMaxArity() {
         return 1;
     }
+
+    @Override
+    public Collection<FHIRPathNode> apply(EvaluationContext evaluationContext, Collection<FHIRPathNode> context, List<Collection<FHIRPathNode>> arguments) {
+        if (context.isEmpty() || arguments.get(0).isEmpty()) {
+            return empty();
+        }
+
+        if (!isCodedElementNode(context)) {
+            throw new IllegalArgumentException("The '" + getName() + "' function must be invoked on a coded element node");
+        }
+
+        if (!isCodedElementNode(arguments.get(0))) {
+            throw new IllegalArgumentException("The argument to the '" + getName() + "' function must be a coded element node");
+        }
+
+        List<Coding> codings = getCodings(evaluationContext, getElementNode(context));
+        List<Coding> otherCodings = getCodings(evaluationContext, getElementNode(arguments.get(0)));
+
+        return subsumes(codings, otherCodings);
+    }
+
+    /**
+     * Determine whether any of the provided codings subsumes any of the other codings.
+     *
+     * @param codings
+     *     the codings that may subsume the other codings
+     * @param otherCodings
+     *     the codings that may be subsumed
+     * @return
+     *     true if any coding subsumes any other coding, false if subsumption could be tested but none was found,
+     *     empty otherwise
+     */
+    protected Collection<FHIRPathNode> subsumes(List<Coding> codings, List<Coding> otherCodings) {
+        boolean tested = false;
+        for (Coding coding : codings) {
+            for (Coding otherCoding : otherCodings) {
+                Set<String> descendantsAndSelf = getSubsumedCodes(coding, otherCoding);
+                if (descendantsAndSelf != null) {
+                    if (descendantsAndSelf.contains(otherCoding.getCode().getValue())) {
+                        return SINGLETON_TRUE;
+                    }
+                    tested = true;
+                }
+            }
+        }
+        return tested ? SINGLETON_FALSE : empty();
+    }
+
+    /**
+     * Get the codes subsumed by the code of the first coding, or null if subsumption cannot be tested
+     * for the pair of codings.
+     */
+    private Set<String> getSubsumedCodes(Coding coding, Coding otherCoding) {
+        String system = getValue(coding.getSystem());
+        if (system == null || !system.equals(getValue(otherCoding.getSystem())) ||
+                coding.getCode() == null || coding.getCode().getValue() == null ||
+                otherCoding.getCode() == null || otherCoding.getCode().getValue() == null) {
+            return null;
+        }
+
+        String url = system;
+        if (coding.getVersion() != null && coding.getVersion().getValue() != null) {
+            url = url + "|" + coding.getVersion().getValue();
+        }
+        if (!FHIRRegistry.getInstance().hasResource(url, CodeSystem.class)) {
+            return null;
+        }
+
+        CodeSystem codeSystem = getCodeSystem(url);
+        if (!CodeSystemHierarchyMeaning.IS_A.equals(codeSystem.getHierarchyMeaning())) {
+            return null;
+        }
+
+        Set<String> descendantsAndSelf = getDescendantsAndSelf(codeSystem, coding.getCode());
+        return !descendantsAndSelf.isEmpty() ? descendantsAndSelf : null;
+    }
+
+    private List<Coding> getCodings(EvaluationContext evaluationContext, FHIRPathElementNode elementNode) {
+        Element element = elementNode.element();
+        if (element.is(Coding.class)) {
+            return Collections.singletonList(element.as(Coding.class));
+        }
+        if (element.is(CodeableConcept.class)) {
+            return element.as(CodeableConcept.class).getCoding();
+        }
+        // element.is(Code.class)
+        List<Coding> codings = new ArrayList<>(1);
+        Uri system = getSystem(evaluationContext.getTree() != null ? evaluationContext.getTree().getParent(elementNode) : null);
+        if (system != null) {
+            codings.add(Coding.builder()
+                .system(system)
+                .code(element.as(Code.class))
+                .build());
+        }
+        return codings;
+    }
+
+    /**
+     * Get the value of the URI-typed child node of the input parameter with name "system".
+     */
+    private Uri getSystem(FHIRPathNode node) {
+        if (node == null || !node.isElementNode()) {
+            return null;
+        }
+        for (FHIRPathNode child : node.children()) {
+            if ("system".equals(child.name()) && child.isElementNode() && child.asElementNode().element().is(Uri.class)) {
+                return child.asElementNode().element().as(Uri.class);
+            }
+        }
+        return null;
+    }
+
+    private String getValue(Uri uri) {
+        return (uri != null) ? uri.getValue() : null;
+    }
 }
@@ -34,6 +34,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import com.ibm.fhir.model.patch.PatchSupport;
+import com.ibm.fhir.model.patch.PatchSupport.Step;
 import com.ibm.fhir.model.patch.exception.FHIRPatchException;
 import com.ibm.fhir.model.type.Code;
 import com.ibm.fhir.model.type.CodeableConcept;
@@ -605,18 +607,26 @@ public final class FHIRPathUtil {
      * @throws NullPointerException if any of the passed arguments are null
      */
     public static <T extends Visitable> T add(T elementOrResource, String fhirPath, String elementName, Visitable value) throws FHIRPathException, FHIRPatchException {
+        Objects.requireNonNull(elementName);
+        Objects.requireNonNull(value);
         FHIRPathNode node = evaluateToSingle(elementOrResource, fhirPath);
-        Visitable parent = node.isResourceNode() ?
-                node.asResourceNode().resource() : node.asElementNode().element();
-
-        AddingVisitor<T> addingVisitor = new AddingVisitor<>(parent, node.path(), elementName, value);
 
         try {
-            elementOrResource.accept(addingVisitor);
-        } catch (IllegalStateException e) {
+            return PatchSupport.update(elementOrResource, getSteps(node, fhirPath), parent -> {
+                Object current = PatchSupport.getValue(parent, elementName);
+                if (current instanceof List) {
+                    List<Object> list = new ArrayList<>((List<?>) current);
+                    list.add(value);
+                    return PatchSupport.setValue(parent, elementName, list);
+                }
+                if (current != null) {
+                    throw new IllegalStateException("Add cannot replace an existing value at " + node.path() + "." + elementName);
+                }
+                return PatchSupport.setValue(parent, elementName, value);
+            });
+        } catch (IllegalStateException | IllegalArgumentException e) {
             throw new FHIRPatchException("An error occurred while adding the value", fhirPath, e);
         }
-        return addingVisitor.getResult();
     }
 
     /**
@@ -627,14 +637,16 @@ public final class FHIRPathUtil {
      */
     public static <T extends Visitable> T delete(T elementOrResource, String fhirPath) throws FHIRPathException, FHIRPatchException {
         FHIRPathNode node = evaluateToSingle(elementOrResource, fhirPath);
-        DeletingVisitor<T> deletingVisitor = new DeletingVisitor<T>(node.path());
+        List<Step> steps = getSteps(node, fhirPath);
+        if (steps.isEmpty()) {
+            throw new FHIRPatchException("The root of the patched resource or element can't be deleted", fhirPath);
+        }
 
         try {
-            elementOrResource.accept(deletingVisitor);
-        } catch (IllegalStateException e) {
+            return PatchSupport.replace(elementOrResource, steps, null);
+        } catch (IllegalStateException | IllegalArgumentException e) {
             throw new FHIRPatchException("An error occurred while deleting the value", fhirPath, e);
         }
-        return deletingVisitor.getResult();
     }
 
     /**
@@ -645,22 +657,18 @@ public final class FHIRPathUtil {
      * @throws NullPointerException if any of the passed arguments are null
      */
     public static <T extends Visitable> T replace(T elementOrResource, String fhirPath, Visitable value) throws FHIRPathException, FHIRPatchException {
+        Objects.requireNonNull(value);
         FHIRPathNode node = evaluateToSingle(elementOrResource, fhirPath);
-        String elementName = node.name();
-
-        FHIRPathTree tree = evaluator.getEvaluationContext().getTree();
-        FHIRPathNode parentNode = tree.getParent(node);
-        Visitable parent = parentNode.isResourceNode() ?
-                parentNode.asResourceNode().resource() : parentNode.asElementNode().element();
-
-        ReplacingVisitor<T> replacingVisitor = new ReplacingVisitor<T>(parent, elementName, node.path(), value);
+        List<Step> steps = getSteps(node, fhirPath);
+        if (steps.isEmpty()) {
+            throw new FHIRPatchException("The root of the patched resource or element can't be replaced", fhirPath);
+        }
 
         try {
-            elementOrResource.accept(replacingVisitor);
-        } catch (IllegalStateException e) {
+            return PatchSupport.replace(elementOrResource, steps, value);
+        } catch (IllegalStateException | IllegalArgumentException e) {
             throw new FHIRPatchException("An error occurred while replacing the value", fhirPath, e);
         }
-        return replacingVisitor.getResult();
     }
 
     private static FHIRPathNode evaluateToSingle(Visitable elementOrResource, String fhirPath) throws FHIRPathException, FHIRPatchException {
@@ -700,17 +708,16 @@ public final class FHIRPathUtil {
 
         FHIRPathTree tree = evaluator.getEvaluationContext().getTree();
         FHIRPathNode parentNode = getCommonParent(fhirPath, nodes, tree);
-        Visitable parent = parentNode.isResourceNode() ?
-                parentNode.asResourceNode().resource() : parentNode.asElementNode().element();
-
-        InsertingVisitor<T> insertingVisitor = new InsertingVisitor<T>(parent, parentNode.path(), elementName, index, value);
 
         try {
-            elementOrResource.accept(insertingVisitor);
-        } catch (IllegalStateException e) {
+            return PatchSupport.update(elementOrResource, getSteps(parentNode, fhirPath), parent -> {
+                List<Object> list = new ArrayList<>((List<?>) PatchSupport.getValue(parent, elementName));
+                list.add(index, value);
+                return PatchSupport.setValue(parent, elementName, list);
+            });
+        } catch (IllegalStateException | IllegalArgumentException e) {
             throw new FHIRPatchException("An error occurred while inserting the value", fhirPath, e);
         }
-        return insertingVisitor.getResult();
     }
 
     /**
@@ -732,16 +739,28 @@ public final class FHIRPathUtil {
         String elementName = getCommonName(fhirPath, nodes);
 
         FHIRPathTree tree = evaluator.getEvaluationContext().getTree();
-        FHIRPathNode parent = getCommonParent(fhirPath, nodes, tree);
-
-        MovingVisitor<T> movingVisitor = new MovingVisitor<T>(parent.path(), elementName, source, target);
+        FHIRPathNode parentNode = getCommonParent(fhirPath, nodes, tree);
 
         try {
-            elementOrResource.accept(movingVisitor);
-        } catch (IllegalStateException e) {
+            return PatchSupport.update(elementOrResource, getSteps(parentNode, fhirPath), parent -> {
+                List<Object> list = new ArrayList<>((List<?>) PatchSupport.getValue(parent, elementName));
+                list.add(target, list.remove(source));
+                return PatchSupport.setValue(parent, elementName, list);
+            });
+        } catch (IllegalStateException | IllegalArgumentException | IndexOutOfBoundsException e) {
             throw new FHIRPatchException("An error occurred while moving the value", fhirPath, e);
         }
-        return movingVisitor.getResult();
+    }
+
+    /**
+     * @return the steps from the root of the tree to the resource or element of the passed node
+     * @throws FHIRPatchException if the node is not a resource or element node
+     */
+    private static List<Step> getSteps(FHIRPathNode node, String fhirPath) throws FHIRPatchException {
+        if (!node.isResourceNode() && !node.isElementNode()) {
+            throw new FHIRPatchException("The FHIRPath expression must select a resource or element", fhirPath);
+        }
+        return PatchSupport.parsePath(node.path());
     }
 
     /**
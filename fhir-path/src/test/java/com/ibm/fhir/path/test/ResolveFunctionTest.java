@@ -1,18 +1,32 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.path.test;
 
+import static com.ibm.fhir.model.type.String.string;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
 import java.io.InputStream;
 import java.util.Collection;
 
+import org.testng.annotations.Test;
+
 import com.ibm.fhir.model.format.Format;
 import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.Bundle;
 import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.type.CodeableConcept;
 import com.ibm.fhir.model.type.Reference;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.model.type.code.BundleType;
+import com.ibm.fhir.model.type.code.ObservationStatus;
 import com.ibm.fhir.path.FHIRPathNode;
 import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
 import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
@@ -37,4 +51,36 @@ public class ResolveFunctionTest {
             System.out.println("");
         }
     }
+
+    @Test
+    public void testResolveBundleReference() throws Exception {
+        Bundle bundle = Bundle.builder()
+                .type(BundleType.TRANSACTION)
+                .entry(Bundle.Entry.builder()
+                    .fullUrl(Uri.of("urn:uuid:1c3d9a8e-2b6a-4f0e-9d5e-7d0f6a1b2c3d"))
+                    .resource(Patient.builder().active(com.ibm.fhir.model.type.Boolean.TRUE).build())
+                    .build())
+                .entry(Bundle.Entry.builder()
+                    .fullUrl(Uri.of("urn:uuid:5e8f2b1a-9c4d-4e7f-8a6b-3d2c1b0a9f8e"))
+                    .resource(Observation.builder()
+                        .status(ObservationStatus.FINAL)
+                        .code(CodeableConcept.builder().text(string("code")).build())
+                        .subject(Reference.builder().reference(string("urn:uuid:1c3d9a8e-2b6a-4f0e-9d5e-7d0f6a1b2c3d")).build())
+                        .build())
+                    .build())
+                .build();
+
+        FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
+        EvaluationContext evaluationContext = new EvaluationContext(bundle);
+
+        Collection<FHIRPathNode> result = evaluator.evaluate(evaluationContext, "Bundle.entry.resource.subject.where(resolve() is Patient)");
+        assertEquals(result.size(), 1);
+        result = evaluator.evaluate(evaluationContext, "Bundle.entry.resource.subject.where(resolve() is Device)");
+        assertEquals(result.size(), 0);
+
+        // the index is built once and shared with copies of the evaluation context
+        assertNotNull(evaluationContext.getBundleReferenceIndex());
+        assertSame(new EvaluationContext(evaluationContext).getBundleReferenceIndex(), evaluationContext.getBundleReferenceIndex());
+        assertNull(new EvaluationContext(bundle.getEntry().get(0).getResource()).getBundleReferenceIndex());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.path.test;
+
+import static com.ibm.fhir.path.evaluator.FHIRPathEvaluator.SINGLETON_FALSE;
+import static com.ibm.fhir.path.evaluator.FHIRPathEvaluator.SINGLETON_TRUE;
+
+import java.util.Collection;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.type.Code;
+import com.ibm.fhir.model.type.CodeableConcept;
+import com.ibm.fhir.model.type.Coding;
+import com.ibm.fhir.model.type.Element;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.path.FHIRPathElementNode;
+import com.ibm.fhir.path.FHIRPathNode;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator;
+import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
+
+public class SubsumesFunctionTest {
+    private static final String CS2 = "http://ibm.com/fhir/CodeSystem/cs2";
+
+    @Test
+    public void testSubsumesFunction1() throws Exception {
+        Collection<FHIRPathNode> result = evaluate(coding(CS2, "a"), "$this.subsumes(%other)", coding(CS2, "c"));
+        Assert.assertEquals(result, SINGLETON_TRUE);
+    }
+
+    @Test
+    public void testSubsumesFunction2() throws Exception {
+        Collection<FHIRPathNode> result = evaluate(coding(CS2, "c"), "$this.subsumes(%other)", coding(CS2, "a"));
+        Assert.assertEquals(result, SINGLETON_FALSE);
+    }
+
+    @Test
+    public void testSubsumesFunction3() throws Exception {
+        Collection<FHIRPathNode> result = evaluate(coding(CS2, "b"), "$this.subsumes(%other)", coding(CS2, "b"));
+        Assert.assertEquals(result, SINGLETON_TRUE);
+    }
+
+    @Test
+    public void testSubsumesFunction4() throws Exception {
+        Collection<FHIRPathNode> result = evaluate(coding(CS2, "a"), "$this.subsumes(%other)", coding("http://ibm.com/fhir/CodeSystem/unknown", "c"));
+        Assert.assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testSubsumedByFunction1() throws Exception {
+        Collection<FHIRPathNode> result = evaluate(coding(CS2, "c"), "$this.subsumedBy(%other)", coding(CS2, "b"));
+        Assert.assertEquals(result, SINGLETON_TRUE);
+    }
+
+    @Test
+    public void testSubsumedByFunction2() throws Exception {
+        CodeableConcept codeableConcept = CodeableConcept.builder()
+                .coding(coding(CS2, "d"), coding(CS2, "c"))
+                .build();
+        Collection<FHIRPathNode> result = evaluate(codeableConcept, "$this.subsumedBy(%other)", coding(CS2, "a"));
+        Assert.assertEquals(result, SINGLETON_TRUE);
+    }
+
+    @Test
+    public void testSubsumedByFunction3() throws Exception {
+        Collection<FHIRPathNode> result = evaluate(coding(CS2, "d"), "$this.subsumedBy(%other)", coding(CS2, "a"));
+        Assert.assertEquals(result, SINGLETON_FALSE);
+    }
+
+    private Collection<FHIRPathNode> evaluate(Element element, String expr, Coding other) throws Exception {
+        FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
+        EvaluationContext evaluationContext = new EvaluationContext(element);
+        evaluationContext.setExternalConstant("other", FHIRPathElementNode.elementNode(other));
+        return evaluator.evaluate(evaluationContext, expr);
+    }
+
+    private Coding coding(String system, String code) {
+        return Coding.builder()
+                .system(Uri.of(system))
+                .code(Code.of(code))
+                .build();
+    }
+}
@@ -6,6 +6,7 @@
 
 package com.ibm.fhir.persistence.jdbc.dao.api;
 
+import java.util.Collection;
 import java.util.Map;
 
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDBConnectException;
@@ -46,4 +47,14 @@ public interface CodeSystemDAO {
      */
     Integer readCodeSystemId(String codeSystem) throws FHIRPersistenceDBConnectException, FHIRPersistenceDataAccessException;
 
+    /**
+     * Read the code_system_ids for the given code system names with as few round-trips as possible.
+     * Names which are not found in the code_systems table are not included in the returned map.
+     * @param codeSystems
+     * @return A map containing key=system-name, value=system-id for the systems which exist
+     * @throws FHIRPersistenceDBConnectException
+     * @throws FHIRPersistenceDataAccessException
+     */
+    Map<String,Integer> readCodeSystemIds(Collection<String> codeSystems) throws FHIRPersistenceDBConnectException, FHIRPersistenceDataAccessException;
+
 }
\ No newline at end of file
@@ -7,6 +7,7 @@
 package com.ibm.fhir.persistence.jdbc.dao.api;
 
 import java.sql.Connection;
+import java.util.Collection;
 import java.util.Map;
 
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
@@ -90,6 +91,35 @@ public interface ParameterDAO extends FHIRDbDAO {
      */
     int acquireCodeSystemId(String codeSystemName) throws FHIRPersistenceException;
 
+    /**
+     * Returns the id associated with the passed parameter name if it is cached, or was acquired or prefetched
+     * earlier in the current transaction, without accessing the database.
+     * @param parameterName The name of a valid FHIR search parameter.
+     * @return Integer A parameter id, or null if it isn't cached.
+     */
+    Integer getParameterNameIdFromCaches(String parameterName);
+
+    /**
+     * Returns the id associated with the passed code-system name if it is cached, or was acquired or prefetched
+     * earlier in the current transaction, without accessing the database.
+     * @param codeSystemName The name of a code-system; a null or empty name maps to the default token system.
+     * @return Integer A code-system id, or null if it isn't cached.
+     */
+    Integer getCodeSystemIdFromCaches(String codeSystemName);
+
+    /**
+     * Resolves the ids of the passed parameter names and code-system names ahead of their use, for example
+     * for all the search parameter values extracted from a resource. The first use for a tenant/datastore
+     * preloads the full tables with one query each; after that, all names and systems which are not yet cached
+     * are read with a single query per table. Subsequent calls to {@link #acquireParameterNameId(String)} and
+     * {@link #acquireCodeSystemId(String)} are then served without further round-trips, except for
+     * names and systems which do not exist in the database yet.
+     * @param parameterNames The names of valid FHIR search parameters.
+     * @param codeSystemNames The names of code-systems; null or empty names map to the default token system.
+     * @throws FHIRPersistenceException
+     */
+    void prefetchIds(Collection<String> parameterNames, Collection<String> codeSystemNames) throws FHIRPersistenceException;
+
     /**
      * Adds a code system name / code system id pair to a candidate collection for population into the CodeSystemsCache.
      * This pair must be present as a row in the FHIR DB CODE_SYSTEMS table.
@@ -6,6 +6,7 @@
 
 package com.ibm.fhir.persistence.jdbc.dao.api;
 
+import java.util.Collection;
 import java.util.Map;
 
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDataAccessException;
@@ -39,4 +40,13 @@ public interface ParameterNameDAO {
      */
     Integer readParameterNameId(String parameterName) throws FHIRPersistenceDataAccessException;
 
+    /**
+     * Read the parameter_name_ids for the given parameter names with as few round-trips as possible.
+     * Names which are not found in the Parameter_Names table are not included in the returned map.
+     * @param parameterNames Valid FHIR search parameter names.
+     * @return A map containing key=parameter-name, value=parameter-name-id for the names which exist
+     * @throws FHIRPersistenceDataAccessException
+     */
+    Map<String,Integer> readParameterNameIds(Collection<String> parameterNames) throws FHIRPersistenceDataAccessException;
+
 }
@@ -7,14 +7,17 @@
 package com.ibm.fhir.persistence.jdbc.dao.api;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.ibm.fhir.persistence.context.FHIRPersistenceContext;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceVersionIdMismatchException;
 import com.ibm.fhir.persistence.jdbc.dto.ExtractedParameterValue;
 import com.ibm.fhir.persistence.jdbc.dto.Resource;
+import com.ibm.fhir.persistence.jdbc.dto.ResourceChange;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDBConnectException;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDataAccessException;
 import com.ibm.fhir.persistence.jdbc.util.SqlQueryData;
@@ -49,6 +52,30 @@ public interface ResourceDAO extends FHIRDbDAO {
     Resource versionRead(String logicalId, String resourceType, int versionId)
             throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
 
+    /**
+     * Reads and returns the latest versions of the Resources with the passed logical ids and resource type.
+     * Logical ids without a matching resource are ignored.
+     * @param logicalIds
+     * @param resourceType
+     * @return List<Resource> - The most recent versions of the matching Resources, in no particular order.
+     * @throws FHIRPersistenceDataAccessException
+     * @throws FHIRPersistenceDBConnectException
+     */
+    List<Resource> readMany(Collection<String> logicalIds, String resourceType)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
+
+    /**
+     * Reads and returns the requested versions of the Resources with the passed resource type.
+     * Versions without a matching resource are ignored.
+     * @param versionIds - a map of logical id to the version ids requested for that logical id
+     * @param resourceType
+     * @return List<Resource> - The matching Resource versions, in no particular order.
+     * @throws FHIRPersistenceDataAccessException
+     * @throws FHIRPersistenceDBConnectException
+     */
+    List<Resource> versionReadMany(Map<String, Set<Integer>> versionIds, String resourceType)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
+
     /**
      * Reads and returns all versions of the Resource with the passed logicalId, ordered by descending version id.
      * If non-null, the passed fromDateTime is used to limit the returned Resource
@@ -63,6 +90,19 @@ public interface ResourceDAO extends FHIRDbDAO {
     List<Resource> history(String resourceType, String logicalId, Timestamp fromDateTime, int offset, int maxResults)
             throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
 
+    /**
+     * Reads a page of the global RESOURCE_CHANGE_LOG, ordered by ascending change id.
+     * @param resourceType - The name of a FHIR Resource type, or null for changes of all types
+     * @param fromDateTime - If non-null, return only changes with a change timestamp at or after this time
+     * @param afterChangeId - If non-null, return only changes with a change id greater than this
+     * @param maxResults - The maximum number of changes to return
+     * @return List<ResourceChange> - An ordered list of changes.
+     * @throws FHIRPersistenceDataAccessException
+     * @throws FHIRPersistenceDBConnectException
+     */
+    List<ResourceChange> changes(String resourceType, Timestamp fromDateTime, Long afterChangeId, int maxResults)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException;
+
     /**
      * Reads and returns the COUNT of all versions of the Resource with the passed logicalId.
      * If non-null, the passed fromDateTime is used to limit the count of Resource versions to those that were updated after the fromDateTime.
@@ -11,7 +11,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,6 +39,11 @@ public class CodeSystemDAOImpl implements CodeSystemDAO {
     
     private static final String SQL_SELECT_CODE_SYSTEM_ID = "SELECT CODE_SYSTEM_ID FROM CODE_SYSTEMS WHERE CODE_SYSTEM_NAME = ?";
 
+    private static final String SQL_SELECT_CODE_SYSTEM_IDS = "SELECT CODE_SYSTEM_ID, CODE_SYSTEM_NAME FROM CODE_SYSTEMS WHERE CODE_SYSTEM_NAME IN (";
+
+    // The maximum number of names bound to a single IN-list query
+    private static final int MAX_NAMES_PER_QUERY = 256;
+
     // The JDBC connection used by this DAO instance
     private final Connection connection;
     
@@ -173,4 +181,50 @@ public class CodeSystemDAOImpl implements CodeSystemDAO {
                 
         return result;
     }
+
+    @Override
+    public Map<String, Integer> readCodeSystemIds(Collection<String> codeSystems) throws FHIRPersistenceDataAccessException {
+        final String METHODNAME = "readCodeSystemIds";
+        log.entering(CLASSNAME, METHODNAME);
+
+        Map<String, Integer> systemMap = new HashMap<>();
+        List<String> names = new ArrayList<>(codeSystems);
+        String errMsg = "Failure retrieving code systems. count=" + names.size();
+        long dbCallStartTime;
+        double dbCallDuration;
+
+        try {
+            for (int start = 0; start < names.size(); start += MAX_NAMES_PER_QUERY) {
+                List<String> chunk = names.subList(start, Math.min(start + MAX_NAMES_PER_QUERY, names.size()));
+                StringBuilder sql = new StringBuilder(SQL_SELECT_CODE_SYSTEM_IDS);
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ",?");
+                }
+                sql.append(")");
+
+                try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i));
+                    }
+                    dbCallStartTime = System.nanoTime();
+                    ResultSet resultSet = stmt.executeQuery();
+                    dbCallDuration = (System.nanoTime()-dbCallStartTime)/1e6;
+                    if (log.isLoggable(Level.FINE)) {
+                        log.fine("DB read code systems count=" + chunk.size() + " complete. executionTime=" + dbCallDuration + "ms");
+                    }
+                    while (resultSet.next()) {
+                        systemMap.put(resultSet.getString(2), resultSet.getInt(1));
+                    }
+                }
+            }
+        }
+        catch (Throwable e) {
+            throw new FHIRPersistenceDataAccessException(errMsg,e);
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+
+        return systemMap;
+    }
 }
@@ -7,8 +7,11 @@
 package com.ibm.fhir.persistence.jdbc.dao.impl;
 
 import java.sql.Connection;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,6 +45,9 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
     private boolean runningInTrx = false;
     private CodeSystemsCacheUpdater csCacheUpdater = null;
     private ParameterNamesCacheUpdater pnCacheUpdater = null;
+    // Whether the caches have been preloaded in the current transaction
+    private boolean codeSystemsPreloaded = false;
+    private boolean parameterNamesPreloaded = false;
     private TransactionSynchronizationRegistry trxSynchRegistry;
 
 
@@ -165,18 +171,7 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
         log.entering(CLASSNAME, METHODNAME);
 
         if (this.runningInTrx && CodeSystemsCache.isEnabled()) {
-            if (this.csCacheUpdater == null) {
-                // Register a new CodeSystemsCacheUpdater for this thread/trx, if one hasn't been already registered.
-                this.csCacheUpdater = new CodeSystemsCacheUpdater(CodeSystemsCache.getCacheNameForTenantDatastore(), this.newCodeSystemIds);
-                try {
-                    trxSynchRegistry.registerInterposedSynchronization(csCacheUpdater);
-                    log.fine("Registered CodeSystemsCacheUpdater.");
-                }
-                catch(Throwable e) {
-                    FHIRPersistenceException fx = new FHIRPersistenceException("Failure registering CodeSystemsCacheUpdater");
-                    throw severe(log, fx, e);
-                }
-            }
+            this.getCodeSystemsCacheUpdater();
             this.newCodeSystemIds.put(codeSystemName, codeSystemId);
         }
 
@@ -184,6 +179,27 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
 
     }
 
+    /**
+     * Returns the CodeSystemsCacheUpdater of the current transaction, registering a new one the first time.
+     * Must only be called while running in a transaction.
+     * @throws FHIRPersistenceException
+     */
+    private CodeSystemsCacheUpdater getCodeSystemsCacheUpdater() throws FHIRPersistenceException {
+        if (this.csCacheUpdater == null) {
+            // Register a new CodeSystemsCacheUpdater for this thread/trx, if one hasn't been already registered.
+            this.csCacheUpdater = new CodeSystemsCacheUpdater(CodeSystemsCache.getCacheNameForTenantDatastore(), this.newCodeSystemIds);
+            try {
+                trxSynchRegistry.registerInterposedSynchronization(csCacheUpdater);
+                log.fine("Registered CodeSystemsCacheUpdater.");
+            }
+            catch(Throwable e) {
+                FHIRPersistenceException fx = new FHIRPersistenceException("Failure registering CodeSystemsCacheUpdater");
+                throw severe(log, fx, e);
+            }
+        }
+        return this.csCacheUpdater;
+    }
+
     /**
      * Adds a parameter name / parameter id pair to a candidate collection for population into the ParameterNamesCache.
      * This pair must be present as a row in the FHIR DB PARAMETER_NAMES table.
@@ -197,18 +213,7 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
         log.entering(CLASSNAME, METHODNAME);
 
         if (this.runningInTrx && ParameterNamesCache.isEnabled()) {
-            if (this.pnCacheUpdater == null) {
-                // Register a new ParameterNamesCacheUpdater for this thread/trx, if one hasn't been already registered.
-                this.pnCacheUpdater = new ParameterNamesCacheUpdater(ParameterNamesCache.getCacheNameForTenantDatastore(), this.newParameterNameIds);
-                try {
-                    trxSynchRegistry.registerInterposedSynchronization(pnCacheUpdater);
-                    log.fine("Registered ParameterNamesCacheUpdater.");
-                }
-                catch(Throwable e) {
-                    FHIRPersistenceException fx = new FHIRPersistenceException("Failure registering ParameterNamesCacheUpdater");
-                    throw severe(log, fx, e);
-                }
-            }
+            this.getParameterNamesCacheUpdater();
             this.newParameterNameIds.put(parameterName, parameterId);
         }
 
@@ -216,6 +221,27 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
 
     }
 
+    /**
+     * Returns the ParameterNamesCacheUpdater of the current transaction, registering a new one the first time.
+     * Must only be called while running in a transaction.
+     * @throws FHIRPersistenceException
+     */
+    private ParameterNamesCacheUpdater getParameterNamesCacheUpdater() throws FHIRPersistenceException {
+        if (this.pnCacheUpdater == null) {
+            // Register a new ParameterNamesCacheUpdater for this thread/trx, if one hasn't been already registered.
+            this.pnCacheUpdater = new ParameterNamesCacheUpdater(ParameterNamesCache.getCacheNameForTenantDatastore(), this.newParameterNameIds);
+            try {
+                trxSynchRegistry.registerInterposedSynchronization(pnCacheUpdater);
+                log.fine("Registered ParameterNamesCacheUpdater.");
+            }
+            catch(Throwable e) {
+                FHIRPersistenceException fx = new FHIRPersistenceException("Failure registering ParameterNamesCacheUpdater");
+                throw severe(log, fx, e);
+            }
+        }
+        return this.pnCacheUpdater;
+    }
+
     /**
      * Acquire and return the id associated with the passed parameter name.
      * @param parameterName The name of a valid FHIR search parameter.
@@ -231,7 +257,8 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
         boolean acquiredFromCache;
 
         try {
-            parameterNameId = ParameterNamesCache.getParameterNameId(parameterName);
+            this.preloadParameterNamesCache();
+            parameterNameId = this.getParameterNameIdFromCaches(parameterName);
             if (parameterNameId == null) {
                 acquiredFromCache = false;
                 parameterNameId = this.readOrAddParameterNameId(parameterName);
@@ -271,7 +298,8 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
             if (myCodeSystemName == null || myCodeSystemName.isEmpty()) {
                 myCodeSystemName = DEFAULT_TOKEN_SYSTEM;
             }
-            codeSystemId = CodeSystemsCache.getCodeSystemId(myCodeSystemName);
+            this.preloadCodeSystemsCache();
+            codeSystemId = this.getCodeSystemIdFromCaches(myCodeSystemName);
             if (codeSystemId == null) {
                 acquiredFromCache = false;
                 myCodeSystemName = SqlParameterEncoder.encode(myCodeSystemName);
@@ -293,6 +321,149 @@ public class ParameterDAOImpl extends FHIRDbDAOImpl implements ParameterDAO {
         return codeSystemId;
     }
 
+    @Override
+    public Integer getParameterNameIdFromCaches(String parameterName) {
+        Integer parameterNameId = ParameterNamesCache.getParameterNameId(parameterName);
+        if (parameterNameId == null) {
+            // Ids acquired earlier in this transaction are only published to the cache after commit
+            parameterNameId = this.newParameterNameIds.get(parameterName);
+        }
+        return parameterNameId;
+    }
+
+    @Override
+    public Integer getCodeSystemIdFromCaches(String codeSystemName) {
+        String myCodeSystemName = codeSystemName;
+        if (myCodeSystemName == null || myCodeSystemName.isEmpty()) {
+            myCodeSystemName = DEFAULT_TOKEN_SYSTEM;
+        }
+        Integer codeSystemId = CodeSystemsCache.getCodeSystemId(myCodeSystemName);
+        if (codeSystemId == null) {
+            // Ids acquired earlier in this transaction are only published to the cache after commit
+            codeSystemId = this.newCodeSystemIds.get(SqlParameterEncoder.encode(myCodeSystemName));
+        }
+        return codeSystemId;
+    }
+
+    @Override
+    public void prefetchIds(Collection<String> parameterNames, Collection<String> codeSystemNames) throws FHIRPersistenceException {
+        final String METHODNAME = "prefetchIds";
+        log.entering(CLASSNAME, METHODNAME);
+
+        try {
+            if (!this.runningInTrx) {
+                // Without a transaction, acquired ids are never cached, so there is nothing to prefetch into
+                return;
+            }
+            this.preloadParameterNamesCache();
+            this.preloadCodeSystemsCache();
+
+            Set<String> unknownNames = new LinkedHashSet<>();
+            if (ParameterNamesCache.isEnabled()) {
+                for (String parameterName : parameterNames) {
+                    if (ParameterNamesCache.getParameterNameId(parameterName) == null
+                            && !this.newParameterNameIds.containsKey(parameterName)) {
+                        unknownNames.add(parameterName);
+                    }
+                }
+            }
+
+            Set<String> unknownSystems = new LinkedHashSet<>();
+            if (CodeSystemsCache.isEnabled()) {
+                for (String codeSystemName : codeSystemNames) {
+                    if (codeSystemName == null || codeSystemName.isEmpty()) {
+                        codeSystemName = DEFAULT_TOKEN_SYSTEM;
+                    }
+                    if (CodeSystemsCache.getCodeSystemId(codeSystemName) == null) {
+                        String encodedName = SqlParameterEncoder.encode(codeSystemName);
+                        if (!this.newCodeSystemIds.containsKey(encodedName)) {
+                            unknownSystems.add(encodedName);
+                        }
+                    }
+                }
+            }
+
+            if (unknownNames.isEmpty() && unknownSystems.isEmpty()) {
+                return;
+            }
+
+            // Resolve everything that already exists with one query per table. Anything still missing
+            // after this is new, and is added one at a time by the stored procedures when first acquired.
+            Connection connection = null;
+            try {
+                connection = this.getConnection();
+                if (!unknownNames.isEmpty()) {
+                    ParameterNameDAO pnd = new ParameterNameDAOImpl(connection);
+                    for (Map.Entry<String, Integer> entry : pnd.readParameterNameIds(unknownNames).entrySet()) {
+                        this.addParameterNamesCacheCandidate(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (!unknownSystems.isEmpty()) {
+                    CodeSystemDAO csd = new CodeSystemDAOImpl(connection);
+                    for (Map.Entry<String, Integer> entry : csd.readCodeSystemIds(unknownSystems).entrySet()) {
+                        this.addCodeSystemsCacheCandidate(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            finally {
+                this.cleanup(null, connection);
+            }
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    /**
+     * Loads all rows of the PARAMETER_NAMES table for the current tenant-datastore with a single query,
+     * the first time the cache is used. The ids become cache candidates, so they are published to the
+     * cache, and the cache is marked as preloaded, only when the current transaction commits.
+     * @throws FHIRPersistenceException
+     */
+    private void preloadParameterNamesCache() throws FHIRPersistenceException {
+        String tenantDatastoreCacheName = ParameterNamesCache.getCacheNameForTenantDatastore();
+        if (this.runningInTrx && !this.parameterNamesPreloaded && !ParameterNamesCache.isPreloaded(tenantDatastoreCacheName)) {
+            this.parameterNamesPreloaded = true;
+            Map<String, Integer> allNames = this.readAllSearchParameterNames();
+            for (Map.Entry<String, Integer> entry : allNames.entrySet()) {
+                this.addParameterNamesCacheCandidate(entry.getKey(), entry.getValue());
+            }
+            // Mark the cache as preloaded even if the table is empty, so it isn't read again
+            if (ParameterNamesCache.isEnabled()) {
+                this.getParameterNamesCacheUpdater().setPreload(true);
+            }
+            log.fine("Preloaded " + allNames.size() + " parameter names for tenantDatastoreCacheName=" + tenantDatastoreCacheName);
+        }
+    }
+
+    /**
+     * Loads all rows of the CODE_SYSTEMS table for the current tenant-datastore with a single query,
+     * the first time the cache is used. The ids become cache candidates, so they are published to the
+     * cache (subject to its maximum size), and the cache is marked as preloaded, only when the current
+     * transaction commits.
+     * @throws FHIRPersistenceException
+     */
+    private void preloadCodeSystemsCache() throws FHIRPersistenceException {
+        String tenantDatastoreCacheName = CodeSystemsCache.getCacheNameForTenantDatastore();
+        if (this.runningInTrx && !this.codeSystemsPreloaded && !CodeSystemsCache.isPreloaded(tenantDatastoreCacheName)) {
+            this.codeSystemsPreloaded = true;
+            Map<String, Integer> allSystems = this.readAllCodeSystems();
+            int maxSize = CodeSystemsCache.getMaxSize();
+            int count = 0;
+            for (Map.Entry<String, Integer> entry : allSystems.entrySet()) {
+                if (maxSize > 0 && count++ >= maxSize) {
+                    break;
+                }
+                this.addCodeSystemsCacheCandidate(entry.getKey(), entry.getValue());
+            }
+            // Mark the cache as preloaded even if the table is empty, so it isn't read again
+            if (CodeSystemsCache.isEnabled()) {
+                this.getCodeSystemsCacheUpdater().setPreload(true);
+            }
+            log.fine("Preloaded " + Math.min(count, allSystems.size()) + " code systems for tenantDatastoreCacheName=" + tenantDatastoreCacheName);
+        }
+    }
+
     @Override
     public Integer readParameterNameId(String parameterName) throws FHIRPersistenceDBConnectException, FHIRPersistenceDataAccessException {
         final String METHODNAME = "readParameterNameId";
@@ -11,7 +11,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -35,6 +38,11 @@ public class ParameterNameDAOImpl implements ParameterNameDAO {
 
     private static final String SQL_SELECT_PARAMETER_NAME_ID = "SELECT PARAMETER_NAME_ID FROM PARAMETER_NAMES WHERE PARAMETER_NAME = ?";
 
+    private static final String SQL_SELECT_PARAMETER_NAME_IDS = "SELECT PARAMETER_NAME_ID, PARAMETER_NAME FROM PARAMETER_NAMES WHERE PARAMETER_NAME IN (";
+
+    // The maximum number of names bound to a single IN-list query
+    private static final int MAX_NAMES_PER_QUERY = 256;
+
     private static final String SQL_CALL_ADD_PARAMETER_NAME = "CALL %s.add_parameter_name(?, ?)";
     
     // The JDBC connection to be used by this instance of the DAO
@@ -174,4 +182,50 @@ public class ParameterNameDAOImpl implements ParameterNameDAO {
                 
         return result;
     }
+
+    @Override
+    public Map<String, Integer> readParameterNameIds(Collection<String> parameterNames) throws FHIRPersistenceDataAccessException {
+        final String METHODNAME = "readParameterNameIds";
+        log.entering(CLASSNAME, METHODNAME);
+
+        Map<String, Integer> parameterMap = new HashMap<>();
+        List<String> names = new ArrayList<>(parameterNames);
+        String errMsg = "Failure retrieving parameter names. count=" + names.size();
+        long dbCallStartTime;
+        double dbCallDuration;
+
+        try {
+            for (int start = 0; start < names.size(); start += MAX_NAMES_PER_QUERY) {
+                List<String> chunk = names.subList(start, Math.min(start + MAX_NAMES_PER_QUERY, names.size()));
+                StringBuilder sql = new StringBuilder(SQL_SELECT_PARAMETER_NAME_IDS);
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ",?");
+                }
+                sql.append(")");
+
+                try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i));
+                    }
+                    dbCallStartTime = System.nanoTime();
+                    ResultSet resultSet = stmt.executeQuery();
+                    dbCallDuration = (System.nanoTime()-dbCallStartTime)/1e6;
+                    if (log.isLoggable(Level.FINE)) {
+                        log.fine("DB select parameter_name_ids count=" + chunk.size() + ". executionTime=" + dbCallDuration + "ms");
+                    }
+                    while (resultSet.next()) {
+                        parameterMap.put(resultSet.getString(2), resultSet.getInt(1));
+                    }
+                }
+            }
+        }
+        catch (Throwable e) {
+            throw new FHIRPersistenceDataAccessException(errMsg,e);
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+
+        return parameterMap;
+    }
 }
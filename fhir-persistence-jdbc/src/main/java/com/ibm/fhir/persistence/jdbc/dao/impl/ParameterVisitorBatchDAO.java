@@ -16,7 +16,10 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -34,6 +37,7 @@ import com.ibm.fhir.persistence.jdbc.dto.QuantityParmVal;
 import com.ibm.fhir.persistence.jdbc.dto.StringParmVal;
 import com.ibm.fhir.persistence.jdbc.dto.TokenParmVal;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDataAccessException;
+import com.ibm.fhir.persistence.jdbc.util.SortValuesUtil;
 import com.ibm.fhir.schema.control.FhirSchemaConstants;
 
 /**
@@ -95,6 +99,13 @@ public class ParameterVisitorBatchDAO implements ExtractedParameterValueVisitor,
     private final PreparedStatement resourceTokens;
     private int resourceTokenCount;
 
+    // The lowest and highest value of each sortable parameter, inserted into the sort values table on close
+    private final String deleteSortValues;
+    private final String insertSortValues;
+    private final Set<String> sortValueParameters;
+    private final Map<Integer, SortValue> sortValues = new HashMap<>();
+    private boolean sortValuesReplaced = false;
+
     // For looking up parameter name ids
     private final IParameterNameCache parameterNameCache;
 
@@ -186,6 +197,15 @@ public class ParameterVisitorBatchDAO implements ExtractedParameterValueVisitor,
                 :
                 "INSERT INTO resource_token_values (parameter_name_id, code_system_id, token_value, logical_resource_id) VALUES (?,?,?,?)";
         resourceTokens = c.prepareStatement(insertResourceToken);
+
+        // Sort values are only collected for the parameters configured in fhirServer/search/sortValueParameters,
+        // and replace the values of the previous version of the resource
+        deleteSortValues = "DELETE FROM " + tablePrefix + "_sort_values WHERE logical_resource_id = ?";
+        insertSortValues = multitenant ?
+                "INSERT INTO " + tablePrefix + "_sort_values (mt_id, parameter_name_id, logical_resource_id, str_value_min, str_value_max, date_value_min, date_value_max, number_value_min, number_value_max) VALUES (" + adminSchemaName + ".sv_tenant_id,?,?,?,?,?,?,?,?)"
+                :
+                "INSERT INTO " + tablePrefix + "_sort_values (parameter_name_id, logical_resource_id, str_value_min, str_value_max, date_value_min, date_value_max, number_value_min, number_value_max) VALUES (?,?,?,?,?,?,?,?)";
+        sortValueParameters = SortValuesUtil.getSortValueParameters();
     }
 
     /**
@@ -220,6 +240,10 @@ public class ParameterVisitorBatchDAO implements ExtractedParameterValueVisitor,
 
         try {
             int parameterNameId = getParameterNameId(parameterName);
+            if (value != null && sortValueParameters.contains(parameterName)) {
+                getSortValue(parameterNameId).addString(value);
+            }
+
             if (isBase(param)) {
                 if (logger.isLoggable(Level.FINE)) {
                     logger.fine("baseStringValue: " + parameterName + "[" + parameterNameId + "], " + value);
@@ -284,6 +308,9 @@ public class ParameterVisitorBatchDAO implements ExtractedParameterValueVisitor,
 
         try {
             int parameterNameId = getParameterNameId(parameterName);
+            if (value != null && sortValueParameters.contains(parameterName)) {
+                getSortValue(parameterNameId).addNumber(value);
+            }
 
             if (logger.isLoggable(Level.FINE)) {
                 logger.fine("numberValue: " + parameterName + "[" + parameterNameId + "], "
@@ -318,6 +345,9 @@ public class ParameterVisitorBatchDAO implements ExtractedParameterValueVisitor,
         Timestamp dateEnd = param.getValueDateEnd();
         try {
             int parameterNameId = getParameterNameId(parameterName);
+            if (dateStart != null && sortValueParameters.contains(parameterName)) {
+                getSortValue(parameterNameId).addDate(dateStart);
+            }
 
             if (isBase(param)) {
                 // store in the base (resource) table
@@ -669,6 +699,8 @@ public class ParameterVisitorBatchDAO implements ExtractedParameterValueVisitor,
                 resourceTokens.executeBatch();
                 resourceTokenCount = 0;
             }
+
+            insertSortValues();
         }
         catch (SQLException x) {
             SQLException batchException = x.getNextException();
@@ -692,6 +724,97 @@ public class ParameterVisitorBatchDAO implements ExtractedParameterValueVisitor,
         closeStatement(resourceTokens);
     }
 
+    /**
+     * Get the sort value being collected for the given parameter, creating it if this is the first value
+     * @param parameterNameId
+     * @return
+     */
+    private SortValue getSortValue(int parameterNameId) {
+        return sortValues.computeIfAbsent(parameterNameId, k -> new SortValue());
+    }
+
+    /**
+     * Replace the rows of the resource in the sort values table with one row for each sortable
+     * parameter seen by this visitor, then forget them so that close() stays idempotent. Nothing
+     * is done when no sort value parameters are configured, in which case the table may not exist.
+     * @throws SQLException
+     */
+    private void insertSortValues() throws SQLException {
+        if (sortValueParameters.isEmpty()) {
+            return;
+        }
+
+        if (!sortValuesReplaced) {
+            try (PreparedStatement delete = connection.prepareStatement(deleteSortValues)) {
+                delete.setLong(1, logicalResourceId);
+                delete.executeUpdate();
+            }
+            sortValuesReplaced = true;
+        }
+
+        if (sortValues.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(insertSortValues)) {
+            for (Map.Entry<Integer, SortValue> entry : sortValues.entrySet()) {
+                SortValue sv = entry.getValue();
+                insert.setInt(1, entry.getKey());
+                insert.setLong(2, logicalResourceId);
+                insert.setString(3, sv.strMin);
+                insert.setString(4, sv.strMax);
+                insert.setTimestamp(5, sv.dateMin, UTC);
+                insert.setTimestamp(6, sv.dateMax, UTC);
+                insert.setBigDecimal(7, sv.numberMin);
+                insert.setBigDecimal(8, sv.numberMax);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        sortValues.clear();
+    }
+
+    /**
+     * The lowest and highest values of a sortable parameter. These are the values the
+     * MIN/MAX aggregates over the parameter tables would find when sorting ascending
+     * and descending respectively.
+     */
+    private static class SortValue {
+        private String strMin;
+        private String strMax;
+        private Timestamp dateMin;
+        private Timestamp dateMax;
+        private BigDecimal numberMin;
+        private BigDecimal numberMax;
+
+        void addString(String value) {
+            if (strMin == null || value.compareTo(strMin) < 0) {
+                strMin = value;
+            }
+            if (strMax == null || value.compareTo(strMax) > 0) {
+                strMax = value;
+            }
+        }
+
+        void addDate(Timestamp value) {
+            if (dateMin == null || value.before(dateMin)) {
+                dateMin = value;
+            }
+            if (dateMax == null || value.after(dateMax)) {
+                dateMax = value;
+            }
+        }
+
+        void addNumber(BigDecimal value) {
+            if (numberMin == null || value.compareTo(numberMin) < 0) {
+                numberMin = value;
+            }
+            if (numberMax == null || value.compareTo(numberMax) > 0) {
+                numberMax = value;
+            }
+        }
+    }
+
     /**
      * Quietly close the given statement
      * @param ps
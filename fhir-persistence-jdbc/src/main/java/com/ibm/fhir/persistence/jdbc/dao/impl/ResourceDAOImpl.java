@@ -21,10 +21,13 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -37,8 +40,12 @@ import com.ibm.fhir.persistence.exception.FHIRPersistenceVersionIdMismatchExcept
 import com.ibm.fhir.persistence.jdbc.JDBCConstants;
 import com.ibm.fhir.persistence.jdbc.dao.api.ParameterDAO;
 import com.ibm.fhir.persistence.jdbc.dao.api.ResourceDAO;
+import com.ibm.fhir.persistence.jdbc.dto.CompositeParmVal;
 import com.ibm.fhir.persistence.jdbc.dto.ExtractedParameterValue;
+import com.ibm.fhir.persistence.jdbc.dto.QuantityParmVal;
 import com.ibm.fhir.persistence.jdbc.dto.Resource;
+import com.ibm.fhir.persistence.jdbc.dto.ResourceChange;
+import com.ibm.fhir.persistence.jdbc.dto.TokenParmVal;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDBConnectException;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDataAccessException;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceFKVException;
@@ -64,6 +71,19 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
                                                       "FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE " +
                                                       "LR.LOGICAL_ID = ? AND R.LOGICAL_RESOURCE_ID = LR.LOGICAL_RESOURCE_ID AND R.VERSION_ID = ?";
 
+    // Read the current version of multiple resources of the same type; the IN list markers are appended
+    private static final String SQL_READ_MANY = "SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, R.DATA, LR.LOGICAL_ID " +
+                                                "FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE " +
+                                                "R.RESOURCE_ID = LR.CURRENT_RESOURCE_ID AND LR.LOGICAL_ID IN ";
+
+    // Read specific versions of multiple resources of the same type; the (logical id, version) predicates are appended
+    private static final String SQL_VERSION_READ_MANY = "SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, R.DATA, LR.LOGICAL_ID " +
+                                                        "FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE " +
+                                                        "R.LOGICAL_RESOURCE_ID = LR.LOGICAL_RESOURCE_ID AND ";
+
+    // The maximum number of bind markers used by a single multi-read query
+    private static final int MAX_BIND_MARKERS_PER_QUERY = 256;
+
     //                                                                                 0
     //                                                                                 1 2 3 4 5 6 7 8
     // Don't forget that we must account for IN and OUT parameters.
@@ -87,6 +107,13 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
     private static final String SQL_HISTORY_FROM_DATETIME_COUNT = "SELECT COUNT(R.VERSION_ID) FROM %s_RESOURCES R, %s_LOGICAL_RESOURCES LR WHERE LR.LOGICAL_ID = ? AND " +
                                                                   "R.LAST_UPDATED >= ? AND R.LOGICAL_RESOURCE_ID = LR.LOGICAL_RESOURCE_ID";
 
+    // Read a page of the global change log, oldest first. The type and cursor predicates are appended
+    private static final String SQL_CHANGES = "SELECT C.CHANGE_ID, C.RESOURCE_ID, C.VERSION_ID, C.CHANGE_TSTAMP, C.CHANGE_TYPE, RT.RESOURCE_TYPE " +
+                                              "FROM RESOURCE_CHANGE_LOG C, RESOURCE_TYPES RT WHERE " +
+                                              "RT.RESOURCE_TYPE_ID = C.RESOURCE_TYPE_ID";
+
+    private static final String SQL_CHANGES_ORDER_BY = " ORDER BY C.CHANGE_ID FETCH FIRST %d ROWS ONLY";
+
     private static final String SQL_READ_ALL_RESOURCE_TYPE_NAMES = "SELECT RESOURCE_TYPE_ID, RESOURCE_TYPE FROM RESOURCE_TYPES";
 
     private static final String SQL_READ_RESOURCE_TYPE = "CALL %s.add_resource_type(?, ?)";
@@ -172,6 +199,63 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
 
     }
 
+    @Override
+    public List<Resource> readMany(Collection<String> logicalIds, String resourceType)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        final String METHODNAME = "readMany";
+        log.entering(CLASSNAME, METHODNAME);
+
+        List<Resource> resources = new ArrayList<>();
+        try {
+            List<String> ids = new ArrayList<>(new HashSet<>(logicalIds));
+            String prefix = String.format(SQL_READ_MANY, resourceType, resourceType);
+            for (int start = 0; start < ids.size(); start += MAX_BIND_MARKERS_PER_QUERY) {
+                List<String> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_BIND_MARKERS_PER_QUERY));
+                StringBuilder stmtString = new StringBuilder(prefix).append("(");
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmtString.append(i == 0 ? "?" : ",?");
+                }
+                stmtString.append(")");
+                resources.addAll(this.runQuery(stmtString.toString(), chunk.toArray()));
+            }
+        } finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+        return resources;
+    }
+
+    @Override
+    public List<Resource> versionReadMany(Map<String, Set<Integer>> versionIds, String resourceType)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        final String METHODNAME = "versionReadMany";
+        log.entering(CLASSNAME, METHODNAME);
+
+        List<Resource> resources = new ArrayList<>();
+        try {
+            String prefix = String.format(SQL_VERSION_READ_MANY, resourceType, resourceType);
+            StringBuilder predicates = new StringBuilder();
+            List<Object> bindVariables = new ArrayList<>();
+            for (Map.Entry<String, Set<Integer>> entry : versionIds.entrySet()) {
+                for (Integer versionId : entry.getValue()) {
+                    predicates.append(predicates.length() == 0 ? "((" : " OR (").append("LR.LOGICAL_ID = ? AND R.VERSION_ID = ?)");
+                    bindVariables.add(entry.getKey());
+                    bindVariables.add(versionId);
+                    if (bindVariables.size() >= MAX_BIND_MARKERS_PER_QUERY) {
+                        resources.addAll(this.runQuery(prefix + predicates + ")", bindVariables.toArray()));
+                        predicates.setLength(0);
+                        bindVariables.clear();
+                    }
+                }
+            }
+            if (!bindVariables.isEmpty()) {
+                resources.addAll(this.runQuery(prefix + predicates + ")", bindVariables.toArray()));
+            }
+        } finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+        return resources;
+    }
+
     /**
      * Creates and returns a Resource DTO based on the contents of the passed ResultSet
      * @param resultSet A ResultSet containing FHIR persistent object data.
@@ -188,7 +272,7 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
         try {
             resource.setData(resultSet.getBytes("DATA"));
             resource.setId(resultSet.getLong("RESOURCE_ID"));
-            resource.setLastUpdated(resultSet.getTimestamp("LAST_UPDATED"));
+            resource.setLastUpdated(resultSet.getTimestamp("LAST_UPDATED", UTC));
             resource.setLogicalId(resultSet.getString("LOGICAL_ID"));
             resource.setVersionId(resultSet.getInt("VERSION_ID"));
             resource.setDeleted(resultSet.getString("IS_DELETED").equals("Y") ? true : false);
@@ -241,6 +325,74 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
         return resources;
     }
 
+    @Override
+    public List<ResourceChange> changes(String resourceType, Timestamp fromDateTime, Long afterChangeId, int maxResults)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        final String METHODNAME = "changes";
+        log.entering(CLASSNAME, METHODNAME);
+
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        List<ResourceChange> changes = new ArrayList<>();
+        StringBuilder query = new StringBuilder(SQL_CHANGES);
+        long dbCallStartTime;
+        double dbCallDuration;
+
+        if (resourceType != null) {
+            query.append(" AND RT.RESOURCE_TYPE = ?");
+        }
+        if (fromDateTime != null) {
+            query.append(" AND C.CHANGE_TSTAMP >= ?");
+        }
+        if (afterChangeId != null) {
+            // keyset paging: continue strictly after the last change of the previous page
+            query.append(" AND C.CHANGE_ID > ?");
+        }
+        query.append(String.format(SQL_CHANGES_ORDER_BY, maxResults));
+
+        try {
+            connection = this.getConnection();
+            stmt = connection.prepareStatement(query.toString());
+            int i = 1;
+            if (resourceType != null) {
+                stmt.setString(i++, resourceType);
+            }
+            if (fromDateTime != null) {
+                stmt.setTimestamp(i++, fromDateTime, UTC);
+            }
+            if (afterChangeId != null) {
+                stmt.setLong(i++, afterChangeId);
+            }
+
+            dbCallStartTime = System.nanoTime();
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                ResourceChange change = new ResourceChange();
+                change.setChangeId(resultSet.getLong(1));
+                change.setResourceId(resultSet.getLong(2));
+                change.setVersionId(resultSet.getInt(3));
+                change.setChangeTstamp(resultSet.getTimestamp(4, UTC));
+                change.setDeleted("D".equals(resultSet.getString(5)));
+                change.setResourceType(resultSet.getString(6));
+                changes.add(change);
+            }
+
+            if (log.isLoggable(Level.FINE)) {
+                dbCallDuration = (System.nanoTime()-dbCallStartTime)/1e6;
+                log.fine("DB read changes complete. SQL=[" + query + "]  executionTime=" + dbCallDuration + "ms");
+            }
+        } catch (Throwable e) {
+            FHIRPersistenceDataAccessException fx = new FHIRPersistenceDataAccessException("Failure reading the resource change log");
+            String errMsg = "Failure reading the resource change log. SQL=[" + query + "]";
+            throw severe(log, fx, errMsg, e);
+        } finally {
+            this.cleanup(resultSet, stmt, connection);
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+        return changes;
+    }
+
     @Override
     public int historyCount(String resourceType, String logicalId, Timestamp fromDateTime) throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
         final String METHODNAME = "historyCount";
@@ -473,6 +625,40 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
         return resourceTypeId;
     }
 
+    /**
+     * Resolves the ids of all the parameter names and code systems used by the passed parameter values
+     * up front, so they don't need to be looked up one at a time while the values are being inserted.
+     * @param parameters the search parameter values extracted from a resource
+     * @param parameterDao
+     * @throws FHIRPersistenceException
+     */
+    protected void prefetchParameterIds(List<ExtractedParameterValue> parameters, ParameterDAO parameterDao)
+            throws FHIRPersistenceException {
+        Set<String> parameterNames = new HashSet<>();
+        Set<String> codeSystemNames = new HashSet<>();
+        for (ExtractedParameterValue p : parameters) {
+            parameterNames.add(p.getName());
+            addCodeSystemName(p, codeSystemNames);
+            if (p instanceof CompositeParmVal) {
+                for (ExtractedParameterValue component : ((CompositeParmVal) p).getComponent()) {
+                    addCodeSystemName(component, codeSystemNames);
+                }
+            }
+        }
+        parameterDao.prefetchIds(parameterNames, codeSystemNames);
+    }
+
+    private void addCodeSystemName(ExtractedParameterValue p, Set<String> codeSystemNames) {
+        if (p instanceof TokenParmVal) {
+            codeSystemNames.add(((TokenParmVal) p).getValueSystem());
+        } else if (p instanceof QuantityParmVal) {
+            QuantityParmVal quantity = (QuantityParmVal) p;
+            if (quantity.getValueCode() != null && !quantity.getValueCode().isEmpty()) {
+                codeSystemNames.add(quantity.getValueSystem());
+            }
+        }
+    }
+
     @Override
     public Resource insert(Resource resource, List<ExtractedParameterValue> parameters, ParameterDAO parameterDao)
             throws FHIRPersistenceException {
@@ -529,6 +715,7 @@ public class ResourceDAOImpl extends FHIRDbDAOImpl implements ResourceDAO {
             // Parameter time
             // TODO FHIR_ADMIN schema name needs to come from the configuration/context
             if (parameters != null) {
+                prefetchParameterIds(parameters, parameterDao);
                 try (ParameterVisitorBatchDAO pvd = new ParameterVisitorBatchDAO(connection, "FHIR_ADMIN", resource.getResourceType(), true,
                         resource.getId(), 100, new ParameterNameCacheAdapter(parameterDao), new CodeSystemCacheAdapter(parameterDao))) {
                     for (ExtractedParameterValue p: parameters) {
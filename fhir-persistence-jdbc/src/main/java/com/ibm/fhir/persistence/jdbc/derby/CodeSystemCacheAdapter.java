@@ -9,6 +9,8 @@ package com.ibm.fhir.persistence.jdbc.derby;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.jdbc.dao.api.CodeSystemDAO;
 import com.ibm.fhir.persistence.jdbc.dao.api.ICodeSystemCache;
+import com.ibm.fhir.persistence.jdbc.dao.api.ParameterDAO;
+import com.ibm.fhir.persistence.jdbc.util.SqlParameterEncoder;
 
 /**
  * caches the code system artifacts
@@ -16,14 +18,25 @@ import com.ibm.fhir.persistence.jdbc.dao.api.ICodeSystemCache;
 public class CodeSystemCacheAdapter implements ICodeSystemCache {
     
     private final CodeSystemDAO delegate;
-    
-    public CodeSystemCacheAdapter(CodeSystemDAO delegate) {
+    private final ParameterDAO parameterDao;
+
+    /**
+     * @param delegate reads and adds the code systems which aren't cached
+     * @param parameterDao provides the cached code system ids, including those prefetched for the current transaction
+     */
+    public CodeSystemCacheAdapter(CodeSystemDAO delegate, ParameterDAO parameterDao) {
         this.delegate = delegate;
+        this.parameterDao = parameterDao;
     }
 
     @Override
     public int readOrAddCodeSystem(String codeSystem) throws FHIRPersistenceException {
-        return delegate.readOrAddCodeSystem(codeSystem);
+        Integer codeSystemId = parameterDao.getCodeSystemIdFromCaches(codeSystem);
+        if (codeSystemId == null) {
+            codeSystemId = delegate.readOrAddCodeSystem(codeSystem);
+            parameterDao.addCodeSystemsCacheCandidate(SqlParameterEncoder.encode(codeSystem), codeSystemId);
+        }
+        return codeSystemId;
     }
 
 }
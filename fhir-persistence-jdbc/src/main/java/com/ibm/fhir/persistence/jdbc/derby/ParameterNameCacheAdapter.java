@@ -8,6 +8,7 @@ package com.ibm.fhir.persistence.jdbc.derby;
 
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.jdbc.dao.api.IParameterNameCache;
+import com.ibm.fhir.persistence.jdbc.dao.api.ParameterDAO;
 import com.ibm.fhir.persistence.jdbc.dao.api.ParameterNameDAO;
 
 /**
@@ -15,14 +16,25 @@ import com.ibm.fhir.persistence.jdbc.dao.api.ParameterNameDAO;
  */
 public class ParameterNameCacheAdapter implements IParameterNameCache {
     private final ParameterNameDAO delegate;
+    private final ParameterDAO parameterDao;
 
-    public ParameterNameCacheAdapter(ParameterNameDAO delegate) {
+    /**
+     * @param delegate reads and adds the parameter names which aren't cached
+     * @param parameterDao provides the cached parameter name ids, including those prefetched for the current transaction
+     */
+    public ParameterNameCacheAdapter(ParameterNameDAO delegate, ParameterDAO parameterDao) {
         this.delegate = delegate;
+        this.parameterDao = parameterDao;
     }
 
     @Override
     public int readOrAddParameterNameId(String parameterName) throws FHIRPersistenceException {
-        return delegate.readOrAddParameterNameId(parameterName);
+        Integer parameterNameId = parameterDao.getParameterNameIdFromCaches(parameterName);
+        if (parameterNameId == null) {
+            parameterNameId = delegate.readOrAddParameterNameId(parameterName);
+            parameterDao.addParameterNamesCacheCandidate(parameterName, parameterNameId);
+        }
+        return parameterNameId;
     }
 
 }
@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.dto;
+
+import java.sql.Timestamp;
+
+/**
+ * This class defines the Data Transfer Object representing a row in the RESOURCE_CHANGE_LOG table.
+ */
+public class ResourceChange {
+
+    private long changeId;
+    private long resourceId;
+    private String resourceType;
+    private int versionId;
+    private Timestamp changeTstamp;
+    private boolean deleted;
+
+    public ResourceChange() {
+        super();
+    }
+
+    public long getChangeId() {
+        return changeId;
+    }
+
+    public void setChangeId(long changeId) {
+        this.changeId = changeId;
+    }
+
+    public long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public int getVersionId() {
+        return versionId;
+    }
+
+    public void setVersionId(int versionId) {
+        this.versionId = versionId;
+    }
+
+    public Timestamp getChangeTstamp() {
+        return changeTstamp;
+    }
+
+    public void setChangeTstamp(Timestamp changeTstamp) {
+        this.changeTstamp = changeTstamp;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceChange [changeId=" + changeId + ", resourceId=" + resourceId + ", resourceType=" + resourceType
+                + ", versionId=" + versionId + ", changeTstamp=" + changeTstamp + ", deleted=" + deleted + "]";
+    }
+}
@@ -6,6 +6,8 @@
 
 package com.ibm.fhir.persistence.jdbc.impl;
 
+import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_JDBC_CHANGE_LOG_SETTLE_SECONDS;
+import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_JDBC_CODE_SYSTEMS_CACHE_SIZE;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_JDBC_ENABLE_CODE_SYSTEMS_CACHE;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_JDBC_ENABLE_PARAMETER_NAMES_CACHE;
 import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_JDBC_ENABLE_RESOURCE_TYPES_CACHE;
@@ -27,6 +29,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -44,6 +49,7 @@ import javax.transaction.Status;
 import javax.transaction.TransactionSynchronizationRegistry;
 import javax.transaction.UserTransaction;
 
+import com.ibm.fhir.config.FHIRConfigHelper;
 import com.ibm.fhir.config.FHIRConfiguration;
 import com.ibm.fhir.config.PropertyGroup;
 import com.ibm.fhir.core.FHIRUtilities;
@@ -76,10 +82,13 @@ import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
 import com.ibm.fhir.persistence.FHIRPersistence;
 import com.ibm.fhir.persistence.FHIRPersistenceTransaction;
 import com.ibm.fhir.persistence.MultiResourceResult;
+import com.ibm.fhir.persistence.ResourceKey;
+import com.ibm.fhir.persistence.ResourcePayload;
 import com.ibm.fhir.persistence.SingleResourceResult;
 import com.ibm.fhir.persistence.context.FHIRHistoryContext;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContext;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceNotSupportedException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceDeletedException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceNotFoundException;
 import com.ibm.fhir.persistence.jdbc.FHIRResourceDAOFactory;
@@ -94,6 +103,7 @@ import com.ibm.fhir.persistence.jdbc.dto.DateParmVal;
 import com.ibm.fhir.persistence.jdbc.dto.ExtractedParameterValue;
 import com.ibm.fhir.persistence.jdbc.dto.NumberParmVal;
 import com.ibm.fhir.persistence.jdbc.dto.QuantityParmVal;
+import com.ibm.fhir.persistence.jdbc.dto.ResourceChange;
 import com.ibm.fhir.persistence.jdbc.dto.StringParmVal;
 import com.ibm.fhir.persistence.jdbc.dto.TokenParmVal;
 import com.ibm.fhir.persistence.jdbc.exception.FHIRPersistenceDBConnectException;
@@ -103,11 +113,13 @@ import com.ibm.fhir.persistence.jdbc.util.CodeSystemsCache;
 import com.ibm.fhir.persistence.jdbc.util.JDBCParameterBuildingVisitor;
 import com.ibm.fhir.persistence.jdbc.util.JDBCQueryBuilder;
 import com.ibm.fhir.persistence.jdbc.util.ParameterNamesCache;
+import com.ibm.fhir.persistence.jdbc.util.QuerySegmentAggregator;
 import com.ibm.fhir.persistence.jdbc.util.ResourceTypesCache;
 import com.ibm.fhir.persistence.jdbc.util.SqlQueryData;
 import com.ibm.fhir.persistence.util.FHIRPersistenceUtil;
 import com.ibm.fhir.search.SearchConstants;
 import com.ibm.fhir.search.SummaryValueSet;
+import com.ibm.fhir.search.compartment.CompartmentUtil;
 import com.ibm.fhir.search.context.FHIRSearchContext;
 import com.ibm.fhir.search.date.DateTimeHandler;
 import com.ibm.fhir.search.parameters.QueryParameter;
@@ -125,6 +137,9 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
     private static final Logger log = Logger.getLogger(CLASSNAME);
 
     protected static final String TXN_JNDI_NAME = "java:comp/UserTransaction";
+
+    // The default number of seconds a change must be old before type and system-level history return it
+    private static final int DEFAULT_CHANGE_LOG_SETTLE_SECONDS = 60;
     public static final String TRX_SYNCH_REG_JNDI_NAME = "java:comp/TransactionSynchronizationRegistry";
 
     private FHIRDbDAO baseDao;
@@ -159,6 +174,7 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
                                        Boolean.TRUE));
         CodeSystemsCache.setEnabled(fhirConfig.getBooleanProperty(PROPERTY_JDBC_ENABLE_CODE_SYSTEMS_CACHE,
                                     Boolean.TRUE));
+        CodeSystemsCache.setMaxSize(fhirConfig.getIntProperty(PROPERTY_JDBC_CODE_SYSTEMS_CACHE_SIZE, 0));
         ResourceTypesCache.setEnabled(fhirConfig.getBooleanProperty(PROPERTY_JDBC_ENABLE_RESOURCE_TYPES_CACHE,
                                       Boolean.TRUE));
 
@@ -432,85 +448,27 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         List<Resource> resources = Collections.emptyList();
         MultiResourceResult.Builder<Resource> resultBuilder = new MultiResourceResult.Builder<>();
         FHIRSearchContext searchContext = context.getSearchContext();
-        JDBCQueryBuilder queryBuilder;
-        List<Long> sortedIdList;
-        List<com.ibm.fhir.persistence.jdbc.dto.Resource> unsortedResultsList;
-        int searchResultCount = 0;
-        SqlQueryData countQuery;
-        SqlQueryData query;
 
         try {
-            checkModifiers(searchContext);
-            queryBuilder = new JDBCQueryBuilder(this.getParameterDao(),
-                                                this.getResourceDao());
-
-            countQuery = queryBuilder.buildCountQuery(resourceType, searchContext);
-            if (countQuery != null) {
-                searchResultCount = this.getResourceDao().searchCount(countQuery);
-                if (log.isLoggable(Level.FINE)) {
-                    log.fine("searchResultCount = " + searchResultCount);
-                }
-                searchContext.setTotalCount(searchResultCount);
-
-                List<OperationOutcome.Issue> issues = validatePagingContext(searchContext);
-                if (!issues.isEmpty()) {
-                    resultBuilder.outcome(OperationOutcome.builder()
-                        .issue(issues)
-                        .build());
-                    if (!searchContext.isLenient()) {
-                        return resultBuilder.success(false).build();
-                    }
+            List<OperationOutcome.Issue> issues = new ArrayList<>();
+            List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOs = searchResourceDTOs(searchContext, resourceType, issues);
+            if (!issues.isEmpty()) {
+                resultBuilder.outcome(OperationOutcome.builder()
+                    .issue(issues)
+                    .build());
+                if (resourceDTOs == null) {
+                    return resultBuilder.success(false).build();
                 }
+            }
 
-                // For _summary=count or pageSize == 0, we return only the count
-                if (searchResultCount > 0
-                        && !SummaryValueSet.COUNT.equals(searchContext.getSummaryParameter())
-                        && searchContext.getPageSize() > 0) {
-                    query = queryBuilder.buildQuery(resourceType, searchContext);
-
-                    List<String> elements = searchContext.getElementsParameters();
-
-                    //Only consider _summary if _elements parameter is empty
-                    if (elements == null && searchContext.hasSummaryParameter()) {
-                        Set<String> summaryElements = null;
-                        SummaryValueSet summary = searchContext.getSummaryParameter();
-
-                        switch (summary) {
-                        case TRUE:
-                            summaryElements = JsonSupport.getSummaryElementNames(resourceType);
-                            break;
-                        case TEXT:
-                            summaryElements = SearchUtil.getSummaryTextElementNames(resourceType);
-                            break;
-                        case DATA:
-                            summaryElements = JsonSupport.getSummaryDataElementNames(resourceType);
-                            break;
-                        default:
-                            break;
-                        }
-
-                        if (summaryElements != null) {
-                            elements = new ArrayList<>();
-                            elements.addAll(summaryElements);
-                        }
-                    }
+            if (!resourceDTOs.isEmpty()) {
+                List<String> elements = searchContext.getElementsParameters();
 
-                    if (searchContext.hasSortParameters()) {
-                        // Sorting results of a system-level search is limited, and has a different logic path
-                        // than other sorted searches.
-                        if (resourceType.equals(Resource.class)) {
-                           resources = this.convertResourceDTOList(this.resourceDao.search(query), resourceType, elements);
-                        }
-                        else {
-                            sortedIdList = this.resourceDao.searchForIds(query);
-                            resources = this.buildSortedFhirResources(context, resourceType, sortedIdList, elements);
-                        }
-                    }
-                    else {
-                        unsortedResultsList = this.getResourceDao().search(query);
-                        resources = this.convertResourceDTOList(unsortedResultsList, resourceType, elements);
-                    }
+                //Only consider _summary if _elements parameter is empty
+                if (elements == null) {
+                    elements = getSummaryElements(searchContext, resourceType);
                 }
+                resources = this.convertResourceDTOList(resourceDTOs, resourceType, elements);
             }
 
             return resultBuilder
@@ -531,6 +489,166 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         }
     }
 
+    @Override
+    public List<ResourcePayload> searchPayloads(FHIRPersistenceContext context, Class<? extends Resource> resourceType)
+            throws FHIRPersistenceException {
+        final String METHODNAME = "searchPayloads";
+        log.entering(CLASSNAME, METHODNAME);
+
+        FHIRSearchContext searchContext = context.getSearchContext();
+        try {
+            if (resourceType.equals(Resource.class) || searchContext.hasElementsParameters() || searchContext.hasSummaryParameter()
+                    || searchContext.hasIncludeParameters() || searchContext.hasRevIncludeParameters()) {
+                throw new FHIRPersistenceNotSupportedException("The search result set of this search can't be returned as payloads");
+            }
+
+            List<OperationOutcome.Issue> issues = new ArrayList<>();
+            List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOs = searchResourceDTOs(searchContext, resourceType, issues);
+            if (!issues.isEmpty()) {
+                // Only the outcome of search() can report the issues of the paging parameters
+                throw new FHIRPersistenceNotSupportedException("The paging parameters of this search have issues which must be reported by a regular search");
+            }
+            return convertResourceDTOListToPayloads(resourceDTOs, resourceType);
+        }
+        catch(FHIRPersistenceException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a search operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    /**
+     * Supports a single token search parameter without modifier and with a single value, as used by the
+     * conditional interactions of upstream feeds (e.g. identifier=system|value); the matches are found with a
+     * single query on the token values table.
+     */
+    @Override
+    public List<String> searchLogicalIds(FHIRPersistenceContext context, Class<? extends Resource> resourceType, int maxResults)
+            throws FHIRPersistenceException {
+        final String METHODNAME = "searchLogicalIds";
+        log.entering(CLASSNAME, METHODNAME);
+
+        FHIRSearchContext searchContext = context.getSearchContext();
+        try {
+            List<QueryParameter> searchParameters = searchContext.getSearchParameters();
+            QueryParameter queryParm = searchParameters.size() == 1 ? searchParameters.get(0) : null;
+            if (resourceType.equals(Resource.class) || queryParm == null
+                    || !SearchConstants.Type.TOKEN.equals(queryParm.getType()) || queryParm.getModifier() != null
+                    || queryParm.isChained() || queryParm.isReverseChained() || queryParm.isInclusionCriteria()
+                    || QuerySegmentAggregator.ID.equals(queryParm.getCode())
+                    || queryParm.getValues().size() != 1 || queryParm.getValues().get(0).getValueCode() == null) {
+                throw new FHIRPersistenceNotSupportedException("The search parameters can't be resolved with a logical id search");
+            }
+
+            JDBCQueryBuilder queryBuilder = new JDBCQueryBuilder(this.getParameterDao(), this.getResourceDao());
+            SqlQueryData query = queryBuilder.buildLogicalIdQuery(resourceType, queryParm, maxResults);
+            if (query == null) {
+                return Collections.emptyList();
+            }
+            return this.getResourceDao().searchStringValues(query);
+        }
+        catch(FHIRPersistenceException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a search operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    /**
+     * Runs the count and result queries of a search and returns the resource DTOs of the requested page,
+     * in result order. The total count is set on the search context. With _total=none, the count query is
+     * skipped: no total is set, and the last page number is the requested page, or the next page if the
+     * requested page is full.
+     * @param searchContext - the search context of the current request
+     * @param resourceType - the resource type which is the target of the search
+     * @param issues - receives the issues found with the paging parameters
+     * @return List - the resource DTOs, or null if the paging parameters are invalid and the search isn't lenient
+     * @throws Exception
+     */
+    private List<com.ibm.fhir.persistence.jdbc.dto.Resource> searchResourceDTOs(FHIRSearchContext searchContext,
+            Class<? extends Resource> resourceType, List<OperationOutcome.Issue> issues) throws Exception {
+        List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOs = Collections.emptyList();
+        JDBCQueryBuilder queryBuilder;
+        QuerySegmentAggregator aggregator;
+        int searchResultCount = 0;
+        SqlQueryData countQuery;
+
+        checkModifiers(searchContext);
+        queryBuilder = new JDBCQueryBuilder(this.getParameterDao(),
+                                            this.getResourceDao());
+        // The query segments are built once and shared by the count query and the result query
+        aggregator = queryBuilder.buildQueryAggregator(resourceType, searchContext);
+
+        if (!searchContext.isTotalCounted() && !SummaryValueSet.COUNT.equals(searchContext.getSummaryParameter())) {
+            issues.addAll(validatePagingContext(searchContext, false));
+            if (!issues.isEmpty() && !searchContext.isLenient()) {
+                return null;
+            }
+            resourceDTOs = searchPage(queryBuilder, aggregator, resourceType, searchContext);
+            int pageNumber = searchContext.getPageNumber();
+            searchContext.setLastPageNumber(resourceDTOs.size() < searchContext.getPageSize() ? pageNumber : pageNumber + 1);
+            return resourceDTOs;
+        }
+
+        countQuery = queryBuilder.buildCountQuery(aggregator);
+        if (countQuery != null) {
+            searchResultCount = this.getResourceDao().searchCount(countQuery);
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("searchResultCount = " + searchResultCount);
+            }
+            searchContext.setTotalCount(searchResultCount);
+
+            issues.addAll(validatePagingContext(searchContext, true));
+            if (!issues.isEmpty() && !searchContext.isLenient()) {
+                return null;
+            }
+
+            // For _summary=count or pageSize == 0, we return only the count
+            if (searchResultCount > 0
+                    && !SummaryValueSet.COUNT.equals(searchContext.getSummaryParameter())) {
+                resourceDTOs = searchPage(queryBuilder, aggregator, resourceType, searchContext);
+            }
+        }
+        return resourceDTOs;
+    }
+
+    /**
+     * Runs the result query of a search and returns the resource DTOs of the requested page, in result order.
+     */
+    private List<com.ibm.fhir.persistence.jdbc.dto.Resource> searchPage(JDBCQueryBuilder queryBuilder, QuerySegmentAggregator aggregator,
+            Class<? extends Resource> resourceType, FHIRSearchContext searchContext) throws Exception {
+        if (searchContext.getPageSize() <= 0) {
+            return Collections.emptyList();
+        }
+        SqlQueryData query = queryBuilder.buildQuery(aggregator, searchContext);
+        if (query == null) {
+            return Collections.emptyList();
+        }
+
+        if (searchContext.hasSortParameters()) {
+            // Sorting results of a system-level search is limited, and has a different logic path
+            // than other sorted searches. Searches sorted on materialized sort values read the
+            // sorted resources in a single query too.
+            if (resourceType.equals(Resource.class) || queryBuilder.isSortValueQuery(aggregator)) {
+                return this.resourceDao.search(query);
+            }
+            return this.getSortedResourceDTOs(resourceType, this.resourceDao.searchForIds(query));
+        }
+        return this.getResourceDao().search(query);
+    }
+
     /**
      * @throws FHIRPersistenceException if the search context contains one or more unsupported modifiers
      */
@@ -672,7 +790,43 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         T resource = null;
         com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO = null;
 
-        FHIRSearchContext searchContext = context.getSearchContext();
+        List<String> elements = getSummaryElements(context.getSearchContext(), resourceType);
+
+        try {
+            resourceDTO = this.getResourceDao().read(logicalId, resourceType.getSimpleName());
+            if (resourceDTO != null && resourceDTO.isDeleted() && !context.includeDeleted()) {
+                throw new FHIRPersistenceResourceDeletedException("Resource '" +
+                        resourceType.getSimpleName() + "/" + logicalId + "' is deleted.");
+            }
+            resource = this.convertResourceDTO(resourceDTO, resourceType, elements);
+
+            SingleResourceResult<T> result = new SingleResourceResult.Builder<T>()
+                    .success(true)
+                    .resource(resource)
+                    .build();
+
+            return result;
+        }
+        catch(FHIRPersistenceResourceDeletedException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a read operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    /**
+     * Returns the names of the elements to include for the _summary parameter of the passed search context.
+     * @param searchContext - the search context of the current request; may be null
+     * @param resourceType - the type of the resources being read
+     * @return List<String> - the element names, or null if the whole resource is to be returned
+     */
+    private List<String> getSummaryElements(FHIRSearchContext searchContext, Class<? extends Resource> resourceType) {
         List<String> elements = null;
         //Check if _summary is required
         if (searchContext != null && searchContext.hasSummaryParameter()) {
@@ -698,27 +852,114 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
                 elements.addAll(summaryElements);
             }
         }
+        return elements;
+    }
+
+    /**
+     * @throws FHIRPersistenceResourceDeletedException if one of the resources being read is currently in a deleted state and
+     *         FHIRPersistenceContext.includeDeleted() is set to false
+     */
+    @Override
+    public MultiResourceResult<Resource> readMany(FHIRPersistenceContext context, List<ResourceKey> keys) throws FHIRPersistenceException {
+        final String METHODNAME = "readMany";
+        log.entering(CLASSNAME, METHODNAME);
 
         try {
-            resourceDTO = this.getResourceDao().read(logicalId, resourceType.getSimpleName());
-            if (resourceDTO != null && resourceDTO.isDeleted() && !context.includeDeleted()) {
-                throw new FHIRPersistenceResourceDeletedException("Resource '" +
-                        resourceType.getSimpleName() + "/" + logicalId + "' is deleted.");
+            // One query per resource type (chunked by the DAO for large id lists)
+            Map<Class<? extends Resource>, Set<String>> logicalIdsByType = new LinkedHashMap<>();
+            for (ResourceKey key : keys) {
+                logicalIdsByType.computeIfAbsent(key.getResourceType(), k -> new LinkedHashSet<>()).add(key.getLogicalId());
             }
-            resource = this.convertResourceDTO(resourceDTO, resourceType, elements);
 
-            SingleResourceResult<T> result = new SingleResourceResult.Builder<T>()
+            Map<ResourceKey, Resource> resourceMap = new HashMap<>();
+            for (Map.Entry<Class<? extends Resource>, Set<String>> entry : logicalIdsByType.entrySet()) {
+                Class<? extends Resource> resourceType = entry.getKey();
+                List<String> elements = getSummaryElements(context.getSearchContext(), resourceType);
+                for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : this.getResourceDao().readMany(entry.getValue(), resourceType.getSimpleName())) {
+                    if (resourceDTO.isDeleted() && !context.includeDeleted()) {
+                        throw new FHIRPersistenceResourceDeletedException("Resource '" +
+                                resourceType.getSimpleName() + "/" + resourceDTO.getLogicalId() + "' is deleted.");
+                    }
+                    resourceMap.put(new ResourceKey(resourceType, resourceDTO.getLogicalId()),
+                            this.convertResourceDTO(resourceDTO, resourceType, elements));
+                }
+            }
+
+            List<Resource> resources = new ArrayList<>(keys.size());
+            for (ResourceKey key : keys) {
+                resources.add(resourceMap.get(new ResourceKey(key.getResourceType(), key.getLogicalId())));
+            }
+
+            return new MultiResourceResult.Builder<Resource>()
                     .success(true)
-                    .resource(resource)
+                    .resource(resources)
                     .build();
+        }
+        catch(FHIRPersistenceResourceDeletedException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a multi-read operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
 
-            return result;
+    /**
+     * @throws FHIRPersistenceResourceDeletedException if one of the resource versions being read is deleted and
+     *         FHIRPersistenceContext.includeDeleted() is set to false
+     */
+    @Override
+    public MultiResourceResult<Resource> vreadMany(FHIRPersistenceContext context, List<ResourceKey> keys) throws FHIRPersistenceException {
+        final String METHODNAME = "vreadMany";
+        log.entering(CLASSNAME, METHODNAME);
+
+        Map<Class<? extends Resource>, Map<String, Set<Integer>>> versionIdsByType = new LinkedHashMap<>();
+        for (ResourceKey key : keys) {
+            try {
+                int version = Integer.parseInt(key.getVersionId());
+                versionIdsByType.computeIfAbsent(key.getResourceType(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(key.getLogicalId(), k -> new LinkedHashSet<>())
+                    .add(version);
+            } catch (NumberFormatException e) {
+                throw new FHIRPersistenceException("Invalid version id specified for vread operation: " + key.getVersionId());
+            }
+        }
+
+        try {
+            // One query per resource type (chunked by the DAO for large numbers of versions)
+            Map<ResourceKey, Resource> resourceMap = new HashMap<>();
+            for (Map.Entry<Class<? extends Resource>, Map<String, Set<Integer>>> entry : versionIdsByType.entrySet()) {
+                Class<? extends Resource> resourceType = entry.getKey();
+                for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : this.getResourceDao().versionReadMany(entry.getValue(), resourceType.getSimpleName())) {
+                    if (resourceDTO.isDeleted() && !context.includeDeleted()) {
+                        throw new FHIRPersistenceResourceDeletedException("Resource '" + resourceType.getSimpleName() + "/" +
+                                resourceDTO.getLogicalId() + "' version " + resourceDTO.getVersionId() + " is deleted.");
+                    }
+                    resourceMap.put(new ResourceKey(resourceType, resourceDTO.getLogicalId(), Integer.toString(resourceDTO.getVersionId())),
+                            this.convertResourceDTO(resourceDTO, resourceType, null));
+                }
+            }
+
+            List<Resource> resources = new ArrayList<>(keys.size());
+            for (ResourceKey key : keys) {
+                resources.add(resourceMap.get(new ResourceKey(key.getResourceType(), key.getLogicalId(),
+                        Integer.toString(Integer.parseInt(key.getVersionId())))));
+            }
+
+            return new MultiResourceResult.Builder<Resource>()
+                    .success(true)
+                    .resource(resources)
+                    .build();
         }
         catch(FHIRPersistenceResourceDeletedException e) {
             throw e;
         }
         catch(Throwable e) {
-            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a read operation.");
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a multi-version read operation.");
             log.log(Level.SEVERE, fx.getMessage(), e);
             throw fx;
         }
@@ -735,50 +976,117 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
 
         List<T> resources = new ArrayList<>();
         MultiResourceResult.Builder<T> resultBuilder = new MultiResourceResult.Builder<>();
-        List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList;
-        Map<String,List<Integer>> deletedResourceVersions = new HashMap<>();
-        FHIRHistoryContext historyContext;
-        int resourceCount;
-        Instant since;
-        Timestamp fromDateTime = null;
-        int offset;
+        List<OperationOutcome.Issue> issues = new ArrayList<>();
 
         try {
-            historyContext = context.getHistoryContext();
-            historyContext.setDeletedResources(deletedResourceVersions);
-            since = historyContext.getSince();
-            if (since != null) {
-                fromDateTime = FHIRUtilities.convertToTimestamp(since.getValue());
-            }
-
-            resourceCount = this.getResourceDao().historyCount(resourceType.getSimpleName(), logicalId, fromDateTime);
-            historyContext.setTotalCount(resourceCount);
-
-            List<OperationOutcome.Issue> issues = validatePagingContext(historyContext);
+            List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList =
+                    historyResourceDTOs(context.getHistoryContext(), resourceType, logicalId, issues);
 
             if (!issues.isEmpty()) {
                 resultBuilder.outcome(OperationOutcome.builder()
                     .issue(issues)
                     .build());
-                if (!historyContext.isLenient()) {
-                    return resultBuilder.success(false).build();
-                }
             }
+            if (resourceDTOList == null) {
+                return resultBuilder.success(false).build();
+            }
+            resources = this.convertResourceDTOList(resourceDTOList, resourceType);
 
-            if (resourceCount > 0) {
-                offset = (historyContext.getPageNumber() - 1) * historyContext.getPageSize();
-                resourceDTOList = this.getResourceDao().history(resourceType.getSimpleName(), logicalId, fromDateTime, offset, historyContext.getPageSize());
-                for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : resourceDTOList) {
-                    if (resourceDTO.isDeleted()) {
-                        deletedResourceVersions.putIfAbsent(logicalId, new ArrayList<Integer>());
-                        deletedResourceVersions.get(logicalId).add(resourceDTO.getVersionId());
-                    }
+            return resultBuilder
+                    .success(true)
+                    .resource(resources)
+                    .build();
+        }
+        catch(FHIRPersistenceException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a history operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    @Override
+    public List<ResourcePayload> historyPayloads(FHIRPersistenceContext context, Class<? extends Resource> resourceType,
+            String logicalId) throws FHIRPersistenceException {
+        final String METHODNAME = "historyPayloads";
+        log.entering(CLASSNAME, METHODNAME);
+
+        try {
+            List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList =
+                    historyResourceDTOs(context.getHistoryContext(), resourceType, logicalId, new ArrayList<>());
+            return convertResourceDTOListToPayloads(resourceDTOList, resourceType);
+        }
+        catch(FHIRPersistenceException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a history operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    /**
+     * Runs the count and history queries of a resource and returns the resource DTOs of the requested page,
+     * in history order. The total count and the deleted versions are set on the history context.
+     * @param historyContext - the history context of the current request
+     * @param resourceType - the resource type of the resource
+     * @param logicalId - the logical id of the resource
+     * @param issues - receives the issues found with the paging parameters
+     * @return List - the resource DTOs, or null if the paging parameters are invalid and the history isn't lenient
+     * @throws Exception
+     */
+    private List<com.ibm.fhir.persistence.jdbc.dto.Resource> historyResourceDTOs(FHIRHistoryContext historyContext,
+            Class<? extends Resource> resourceType, String logicalId, List<OperationOutcome.Issue> issues) throws Exception {
+        List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList = new ArrayList<>();
+        Map<String,List<Integer>> deletedResourceVersions = new HashMap<>();
+        Timestamp fromDateTime = null;
+
+        historyContext.setDeletedResources(deletedResourceVersions);
+        Instant since = historyContext.getSince();
+        if (since != null) {
+            fromDateTime = FHIRUtilities.convertToTimestamp(since.getValue());
+        }
+
+        int resourceCount = this.getResourceDao().historyCount(resourceType.getSimpleName(), logicalId, fromDateTime);
+        historyContext.setTotalCount(resourceCount);
+
+        issues.addAll(validatePagingContext(historyContext, true));
+        if (!issues.isEmpty() && !historyContext.isLenient()) {
+            return null;
+        }
+
+        if (resourceCount > 0) {
+            int offset = (historyContext.getPageNumber() - 1) * historyContext.getPageSize();
+            resourceDTOList = this.getResourceDao().history(resourceType.getSimpleName(), logicalId, fromDateTime, offset, historyContext.getPageSize());
+            for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : resourceDTOList) {
+                if (resourceDTO.isDeleted()) {
+                    deletedResourceVersions.putIfAbsent(logicalId, new ArrayList<Integer>());
+                    deletedResourceVersions.get(logicalId).add(resourceDTO.getVersionId());
                 }
-                log.log(Level.FINE, "deletedResourceVersions=" + deletedResourceVersions);
-                resources = this.convertResourceDTOList(resourceDTOList, resourceType);
             }
+            log.log(Level.FINE, "deletedResourceVersions=" + deletedResourceVersions);
+        }
+        return resourceDTOList;
+    }
 
-            return resultBuilder
+    @Override
+    public <T extends Resource> MultiResourceResult<T> history(FHIRPersistenceContext context, Class<T> resourceType)
+            throws FHIRPersistenceException {
+        final String METHODNAME = "history(Class)";
+        log.entering(CLASSNAME, METHODNAME);
+
+        try {
+            List<T> resources = this.convertResourceDTOList(changeResourceDTOs(context.getHistoryContext(), resourceType), resourceType);
+            return new MultiResourceResult.Builder<T>()
                     .success(true)
                     .resource(resources)
                     .build();
@@ -796,16 +1104,138 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         }
     }
 
+    @Override
+    public List<ResourcePayload> historyPayloads(FHIRPersistenceContext context, Class<? extends Resource> resourceType)
+            throws FHIRPersistenceException {
+        final String METHODNAME = "historyPayloads(Class)";
+        log.entering(CLASSNAME, METHODNAME);
+
+        try {
+            return convertResourceDTOListToPayloads(changeResourceDTOs(context.getHistoryContext(), resourceType), resourceType);
+        }
+        catch(FHIRPersistenceException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a history operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    /**
+     * Reads a page of changes from the change log and returns the changed resource versions, in the order they
+     * were stored. The resource type of each DTO is set, the deleted versions are set on the history context and
+     * the next cursor is set if there may be more changes.
+     * <p>
+     * The change ids are allocated in order, but a transaction may commit after another one which allocated a
+     * greater change id. A reader that had already moved its cursor past the later change id would never see the
+     * earlier one. So a page ends before the first change which is younger than the settle time
+     * (fhirServer/persistence/jdbc/changeLogSettleSeconds), by which time its predecessors are expected to be
+     * committed.
+     * @param historyContext - the history context of the current request
+     * @param resourceType - the resource type whose changes are read, or Resource.class for all types
+     * @return List - the resource DTOs
+     * @throws Exception
+     */
+    private List<com.ibm.fhir.persistence.jdbc.dto.Resource> changeResourceDTOs(FHIRHistoryContext historyContext,
+            Class<? extends Resource> resourceType) throws Exception {
+        Map<String,List<Integer>> deletedResourceVersions = new HashMap<>();
+        Timestamp fromDateTime = null;
+        Long afterChangeId = null;
+
+        historyContext.setDeletedResources(deletedResourceVersions);
+        historyContext.setNextCursor(null);
+
+        // The cursor (if given) is the change id of the last change returned on the previous page,
+        // and takes precedence over _since
+        if (historyContext.getCursor() != null) {
+            String cursor = historyContext.getCursor();
+            try {
+                afterChangeId = Long.valueOf(cursor);
+            } catch (NumberFormatException x) {
+                throw new FHIRPersistenceException("Invalid history cursor: '" + cursor + "'");
+            }
+        } else if (historyContext.getSince() != null) {
+            fromDateTime = FHIRUtilities.convertToTimestamp(historyContext.getSince().getValue());
+        }
+
+        final int pageSize = historyContext.getPageSize();
+        if (pageSize < 1) {
+            return new ArrayList<>();
+        }
+
+        // Read the page of changes from the change log (index-only), then fetch the resource
+        // versions with one query per resource type
+        final String typeName = Resource.class.equals(resourceType) ? null : resourceType.getSimpleName();
+        List<ResourceChange> page = this.getResourceDao().changes(typeName, fromDateTime, afterChangeId, pageSize);
+
+        // Hold back the changes which haven't settled yet, and everything after them
+        final int settleSeconds = FHIRConfigHelper.getIntProperty(PROPERTY_JDBC_CHANGE_LOG_SETTLE_SECONDS, DEFAULT_CHANGE_LOG_SETTLE_SECONDS);
+        final Timestamp settled = Timestamp.from(java.time.Instant.now().minusSeconds(settleSeconds));
+        List<ResourceChange> changes = new ArrayList<>(page.size());
+        for (ResourceChange change : page) {
+            if (change.getChangeTstamp().after(settled)) {
+                break;
+            }
+            changes.add(change);
+        }
+
+        Map<String, List<Long>> resourceIdsByType = new LinkedHashMap<>();
+        for (ResourceChange change : changes) {
+            resourceIdsByType.computeIfAbsent(change.getResourceType(), k -> new ArrayList<>()).add(change.getResourceId());
+        }
+        Map<Long, com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOs = new HashMap<>();
+        for (Entry<String, List<Long>> entry : resourceIdsByType.entrySet()) {
+            for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : this.getResourceDao().searchByIds(entry.getKey(), entry.getValue())) {
+                resourceDTOs.put(resourceDTO.getId(), resourceDTO);
+            }
+        }
+
+        List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList = new ArrayList<>(changes.size());
+        for (ResourceChange change : changes) {
+            com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO = resourceDTOs.get(change.getResourceId());
+            if (resourceDTO == null) {
+                // the version was erased after the change was logged
+                continue;
+            }
+            resourceDTO.setResourceType(change.getResourceType());
+            if (change.isDeleted()) {
+                deletedResourceVersions.computeIfAbsent(change.getResourceType() + "/" + resourceDTO.getLogicalId(),
+                    k -> new ArrayList<Integer>()).add(resourceDTO.getVersionId());
+            }
+            resourceDTOList.add(resourceDTO);
+        }
+        log.log(Level.FINE, "deletedResourceVersions=" + deletedResourceVersions);
+
+        // A full page means there may be more changes after the last one we read. The next page
+        // of a page which was cut short starts with the first change held back.
+        if (page.size() == pageSize || changes.size() < page.size()) {
+            if (!changes.isEmpty()) {
+                historyContext.setNextCursor(Long.toString(changes.get(changes.size() - 1).getChangeId()));
+            } else if (afterChangeId != null) {
+                historyContext.setNextCursor(Long.toString(afterChangeId));
+            }
+        }
+        return resourceDTOList;
+    }
+
     /**
      * Validate pageSize and pageNumber in the FHIRPagingContext instance and update
      * paging context parameters accordingly.
      *
      * @param pagingContext
      *     the FHIRPagingContext instance (FHIRSearchContext or FHIRHistoryContext)
+     * @param totalCounted
+     *     whether the total count has been set on the paging context; if not, the page number isn't checked
+     *     against the last page
      * @return
      *     a list of operation outcome issues if the paging context has invalid parameters
      */
-    private List<OperationOutcome.Issue> validatePagingContext(FHIRPagingContext pagingContext) {
+    private List<OperationOutcome.Issue> validatePagingContext(FHIRPagingContext pagingContext, boolean totalCounted) {
         List<OperationOutcome.Issue> issues = new ArrayList<>();
 
         int pageSize = pagingContext.getPageSize();
@@ -820,7 +1250,8 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
             pagingContext.setPageSize(10);
         }
 
-        int lastPageNumber = Math.max(((pagingContext.getTotalCount() + pageSize - 1) / pageSize), 1);
+        // Without a total count, the last page number isn't known
+        int lastPageNumber = totalCounted ? Math.max(((pagingContext.getTotalCount() + pageSize - 1) / pageSize), 1) : Integer.MAX_VALUE;
         pagingContext.setLastPageNumber(lastPageNumber);
 
         int pageNumber = pagingContext.getPageNumber();
@@ -893,56 +1324,100 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         }
     }
 
+    @Override
+    public ResourcePayload readPayload(FHIRPersistenceContext context, Class<? extends Resource> resourceType, String logicalId)
+            throws FHIRPersistenceException {
+        final String METHODNAME = "readPayload";
+        log.entering(CLASSNAME, METHODNAME);
+
+        try {
+            com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO = this.getResourceDao().read(logicalId, resourceType.getSimpleName());
+            if (resourceDTO != null && resourceDTO.isDeleted() && !context.includeDeleted()) {
+                throw new FHIRPersistenceResourceDeletedException("Resource '" +
+                        resourceType.getSimpleName() + "/" + logicalId + "' is deleted.");
+            }
+            return convertResourceDTOToPayload(resourceDTO, resourceType);
+        }
+        catch(FHIRPersistenceResourceDeletedException e) {
+            throw e;
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a read operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
+    @Override
+    public ResourcePayload vreadPayload(FHIRPersistenceContext context, Class<? extends Resource> resourceType, String logicalId,
+            String versionId) throws FHIRPersistenceException {
+        final String METHODNAME = "vreadPayload";
+        log.entering(CLASSNAME, METHODNAME);
+
+        try {
+            int version = Integer.parseInt(versionId);
+            com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO =
+                    this.getResourceDao().versionRead(logicalId, resourceType.getSimpleName(), version);
+            if (resourceDTO != null && resourceDTO.isDeleted() && !context.includeDeleted()) {
+                throw new FHIRPersistenceResourceDeletedException("Resource '" +
+                        resourceType.getSimpleName() + "/" + logicalId + "' version " + versionId + " is deleted.");
+            }
+            return convertResourceDTOToPayload(resourceDTO, resourceType);
+        }
+        catch(FHIRPersistenceResourceDeletedException e) {
+            throw e;
+        }
+        catch (NumberFormatException e) {
+            throw new FHIRPersistenceException("Invalid version id specified for vread operation: " + versionId);
+        }
+        catch(Throwable e) {
+            FHIRPersistenceException fx = new FHIRPersistenceException("Unexpected error while performing a version read operation.");
+            log.log(Level.SEVERE, fx.getMessage(), e);
+            throw fx;
+        }
+        finally {
+            log.exiting(CLASSNAME, METHODNAME);
+        }
+    }
+
     /**
-     * This method takes the passed list of sorted Resource ids, acquires the Resource corresponding to each id, and returns those Resources in a List,
+     * This method takes the passed list of sorted Resource ids, acquires the Resource DTO corresponding to each id, and returns those DTOs in a List,
      * sorted according to the input sorted ids.
-     * @param context - The FHIR persistence context for the current request.
      * @param resourceType - The type of Resource that each id in the passed list represents.
      * @param sortedIdList - A list of Resource ids representing the proper sort order for the list of Resources to be returned.
-     * @param elements - An optional list of element names to include in the resources. If null, filtering will be skipped.
-     * @return List<Resource> - A list of Resources of the passed resourceType, sorted according the order of ids in the passed sortedIdList.
-     * @throws FHIRPersistenceException
-     * @throws IOException
+     * @return List - A list of Resource DTOs of the passed resourceType, sorted according the order of ids in the passed sortedIdList.
+     * @throws FHIRPersistenceDataAccessException
+     * @throws FHIRPersistenceDBConnectException
      */
-    protected List<Resource> buildSortedFhirResources(FHIRPersistenceContext context, Class<? extends Resource> resourceType, List<Long> sortedIdList,
-            List<String> elements) throws FHIRException, FHIRPersistenceException, IOException {
-        final String METHOD_NAME = "buildSortedFhirResources";
+    protected List<com.ibm.fhir.persistence.jdbc.dto.Resource> getSortedResourceDTOs(Class<? extends Resource> resourceType, List<Long> sortedIdList)
+            throws FHIRPersistenceDataAccessException, FHIRPersistenceDBConnectException {
+        final String METHOD_NAME = "getSortedResourceDTOs";
         log.entering(this.getClass().getName(), METHOD_NAME);
 
-        long resourceId;
-        Resource[] sortedFhirResources = new Resource[sortedIdList.size()];
-        Resource fhirResource;
-        int sortIndex;
-        List<Resource> sortedResourceList = new ArrayList<>();
-        List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList;
+        com.ibm.fhir.persistence.jdbc.dto.Resource[] sortedResourceDTOs = new com.ibm.fhir.persistence.jdbc.dto.Resource[sortedIdList.size()];
+        List<com.ibm.fhir.persistence.jdbc.dto.Resource> sortedResourceDTOList = new ArrayList<>();
         Map<Long,Integer> idPositionMap = new HashMap<>();
 
         // This loop builds a Map where key=resourceId, and value=its proper position in the returned sorted collection.
         for(int i = 0; i < sortedIdList.size(); i++) {
-            resourceId = sortedIdList.get(i);
-            idPositionMap.put(new Long(resourceId), new Integer(i));
+            idPositionMap.put(sortedIdList.get(i), i);
         }
 
-        resourceDTOList = this.getResourceDTOs(resourceType, sortedIdList);
-
-
-        // Convert the returned JPA Resources to FHIR Resources, and store each FHIRResource in its proper position
-        // in the returned sorted resource list.
-        for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : resourceDTOList) {
-            fhirResource = this.convertResourceDTO(resourceDTO, resourceType, elements);
-            if (fhirResource != null) {
-                sortIndex = idPositionMap.get(resourceDTO.getId());
-                sortedFhirResources[sortIndex] = fhirResource;
-            }
+        // Store each returned DTO in its proper position in the returned sorted list.
+        for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : this.getResourceDTOs(resourceType, sortedIdList)) {
+            sortedResourceDTOs[idPositionMap.get(resourceDTO.getId())] = resourceDTO;
         }
 
-        for (int i = 0; i <sortedFhirResources.length; i++) {
-            if (sortedFhirResources[i] != null) {
-                sortedResourceList.add(sortedFhirResources[i]);
+        for (int i = 0; i < sortedResourceDTOs.length; i++) {
+            if (sortedResourceDTOs[i] != null) {
+                sortedResourceDTOList.add(sortedResourceDTOs[i]);
             }
         }
         log.exiting(this.getClass().getName(), METHOD_NAME);
-        return sortedResourceList;
+        return sortedResourceDTOList;
     }
 
     /**
@@ -1238,6 +1713,8 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
                     }
                 }
             }
+
+            allParameters.addAll(extractCompartmentParameters(fhirResource.getClass().getSimpleName(), allParameters));
         }
         finally {
             log.exiting(CLASSNAME, METHODNAME);
@@ -1245,6 +1722,53 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         return allParameters;
     }
 
+    /**
+     * Derives the compartment membership of a resource from its extracted reference parameters.
+     * For each compartment reference (e.g. Patient/123) found in a parameter which is an inclusion criteria of
+     * that compartment for the resource type, an internal parameter named after the compartment
+     * (e.g. ibm-internal-Patient-Compartment) is created, so that compartment searches can be performed with a
+     * single lookup instead of one per inclusion criteria.
+     * @param resourceType - the type of the resource from which the parameters were extracted
+     * @param parameters - the parameters extracted from the resource
+     * @return the compartment membership parameters, with duplicates removed
+     */
+    private List<ExtractedParameterValue> extractCompartmentParameters(String resourceType, List<ExtractedParameterValue> parameters) {
+        Map<String, Set<String>> inclusionCriteria = CompartmentUtil.getCompartmentInclusionCriteria(resourceType);
+        if (inclusionCriteria.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<ExtractedParameterValue> result = new ArrayList<>();
+        Set<String> memberships = new HashSet<>();
+        for (ExtractedParameterValue parameter : parameters) {
+            Set<String> compartments = inclusionCriteria.get(parameter.getName());
+            if (compartments == null || !(parameter instanceof StringParmVal)) {
+                continue;
+            }
+            String ref = ((StringParmVal) parameter).getValueString();
+            if (ref == null) {
+                continue;
+            }
+            for (String compartment : compartments) {
+                // Only local references to the compartment resource itself, i.e. <compartment>/<id>
+                if (ref.startsWith(compartment + "/") && ref.indexOf('/', compartment.length() + 1) < 0) {
+                    String parmName = CompartmentUtil.makeCompartmentParamName(compartment);
+                    if (memberships.add(parmName + "|" + ref)) {
+                        StringParmVal p = new StringParmVal();
+                        p.setName(parmName);
+                        p.setValueString(ref);
+                        p.setResourceType(resourceType);
+                        result.add(p);
+                        if (log.isLoggable(Level.FINE)) {
+                            log.fine("Extracted compartment membership '" + ref + "' from Parameter '" + parameter.getName() + "'.");
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Create a Parameter DTO from the primitive value.
      * Note: this method only sets the value;
@@ -1547,6 +2071,38 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         return resource;
     }
 
+    /**
+     * @param resourceDTO - the Resource DTO, or null
+     * @param resourceType - the FHIR type of the resource
+     * @return ResourcePayload - the stored representation of the resource, or null if the passed DTO is null
+     */
+    private ResourcePayload convertResourceDTOToPayload(com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO,
+            Class<? extends Resource> resourceType) {
+        if (resourceDTO == null) {
+            return null;
+        }
+        // the DTOs of a type or system-level history know their own resource type
+        String typeName = resourceDTO.getResourceType() != null ? resourceDTO.getResourceType() : resourceType.getSimpleName();
+        return new ResourcePayload(typeName, resourceDTO.getLogicalId(), resourceDTO.getVersionId(),
+                resourceDTO.getLastUpdated().toInstant(), resourceDTO.getData());
+    }
+
+    /**
+     * @param resourceDTOList - the Resource DTOs, or null
+     * @param resourceType - the FHIR type of the resources
+     * @return List - the stored representation of the resources, or an empty list if the passed list is null
+     */
+    private List<ResourcePayload> convertResourceDTOListToPayloads(List<com.ibm.fhir.persistence.jdbc.dto.Resource> resourceDTOList,
+            Class<? extends Resource> resourceType) {
+        List<ResourcePayload> payloads = new ArrayList<>();
+        if (resourceDTOList != null) {
+            for (com.ibm.fhir.persistence.jdbc.dto.Resource resourceDTO : resourceDTOList) {
+                payloads.add(convertResourceDTOToPayload(resourceDTO, resourceType));
+            }
+        }
+        return payloads;
+    }
+
     @Override
     public boolean isTransactional() {
         return true;
@@ -1562,6 +2118,11 @@ public class FHIRPersistenceJDBCImpl implements FHIRPersistence, FHIRPersistence
         return true;
     }
 
+    @Override
+    public boolean isPayloadPassThroughSupported() {
+        return true;
+    }
+
     private FHIRDbDAO getBaseDao() {
         return baseDao;
     }
@@ -58,6 +58,9 @@ public class PostgreSqlResourceDAO extends ResourceDAOImpl {
     // DAO used to manage code_systems
     private CodeSystemDAO codeSystemDAO;
 
+    // DAO which caches the parameter name and code system ids, including those prefetched for the current resource
+    private ParameterDAO parameterDao;
+
     public PostgreSqlResourceDAO(Connection managedConnection) {
         super(managedConnection);
     }
@@ -97,6 +100,12 @@ public class PostgreSqlResourceDAO extends ResourceDAOImpl {
             this.fhirRefSequenceDAO = new FhirRefSequenceDAOImpl(connection);
             this.parameterNameDAO = new PostgreSqlParameterNamesDAO(connection, fhirRefSequenceDAO);
             this.codeSystemDAO = new PostgreSqlCodeSystemDAO(connection, fhirRefSequenceDAO);
+            this.parameterDao = parameterDao;
+
+            // Resolve the ids of all the parameter names and code systems of the resource up front
+            if (parameters != null) {
+                prefetchParameterIds(parameters, parameterDao);
+            }
 
             resourceTypeId = getResourceTypeIdFromCaches(resource.getResourceType());
             if (resourceTypeId == null) {
@@ -399,6 +408,19 @@ public class PostgreSqlResourceDAO extends ResourceDAOImpl {
             stmt.executeUpdate();
         }
 
+        // Append the change to the global change log used for type and system-level history
+        String sqlChange = "INSERT INTO resource_change_log (change_id, resource_id, resource_type_id, logical_resource_id, version_id, change_tstamp, change_type) "
+                + "VALUES (nextval('fhir_change_sequence'),?,?,?,?,?,?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sqlChange)) {
+            stmt.setLong(1, v_resource_id);
+            stmt.setInt(2, v_resource_type_id);
+            stmt.setLong(3, v_logical_resource_id);
+            stmt.setInt(4, v_insert_version);
+            stmt.setTimestamp(5, p_last_updated, UTC);
+            stmt.setString(6, p_is_deleted ? "D" : (v_insert_version == 1 ? "C" : "U"));
+            stmt.executeUpdate();
+        }
+
         if (p_version == null || p_version > v_version) {
             //only update the logical resource if the resource we are adding supercedes the
             //current resource
@@ -416,7 +438,7 @@ public class PostgreSqlResourceDAO extends ResourceDAOImpl {
             if (parameters != null) {
                 // postgresql doesn't support partitioned multi-tenancy, so we disable it on the DAO:
                 try (ParameterVisitorBatchDAO pvd = new ParameterVisitorBatchDAO(conn, null, tablePrefix, false, v_logical_resource_id, 100,
-                    new ParameterNameCacheAdapter(parameterNameDAO), new CodeSystemCacheAdapter(codeSystemDAO))) {
+                    new ParameterNameCacheAdapter(parameterNameDAO, parameterDao), new CodeSystemCacheAdapter(codeSystemDAO, parameterDao))) {
                     for (ExtractedParameterValue p: parameters) {
                         p.accept(pvd);
                     }
@@ -23,6 +23,8 @@ public abstract class CacheUpdater implements Synchronization {
         
     private Map<String, Integer> cacheCandidates;
     private String tenantDatastoreCacheName;
+    // Whether the candidates include the preloaded contents of the cached table
+    private boolean preload = false;
     
     
     public CacheUpdater(String tenantDatastoreCacheName, Map<String, Integer> newCacheCandidates) {
@@ -82,6 +84,18 @@ public abstract class CacheUpdater implements Synchronization {
         this.cacheCandidates = cacheCandidates;
     }
 
+    public boolean isPreload() {
+        return preload;
+    }
+
+    /**
+     * Indicates that the candidates include the contents of the cached table, so that the cache is
+     * marked as preloaded once they have been published.
+     */
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
     public String getTenantDatastoreCacheName() {
         return tenantDatastoreCacheName;
     }
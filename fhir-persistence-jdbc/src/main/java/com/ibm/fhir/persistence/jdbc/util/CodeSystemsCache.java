@@ -6,8 +6,12 @@
 
 package com.ibm.fhir.persistence.jdbc.util;
 
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,11 +29,24 @@ public class CodeSystemsCache {
     
     private static boolean enabled = true;
 
+    // The maximum number of code systems held for each tenant/datastore combination; 0 means unbounded
+    private static int maxSize = 0;
+
+    /**
+     * The tenant/datastore combinations for which the cache has been preloaded from the CODE_SYSTEMS table.
+     */
+    private static Set<String> preloadedCaches = ConcurrentHashMap.newKeySet();
+
     /**
      * The following is a map of parameter name maps. Each FHIR tenant/datastore combination will have its own
      * mapping of system-name to system-id.
      */
     private static ConcurrentHashMap<String,ConcurrentHashMap<String,Integer>> codeSystemIdMaps = new ConcurrentHashMap<>();
+
+    /**
+     * The order in which the entries of each bounded tenant/datastore map were added, oldest first.
+     */
+    private static ConcurrentHashMap<String,Queue<String>> insertionOrders = new ConcurrentHashMap<>();
     
     /**
      * Retrieves the id for the passed system, for the current tenant-datastore. 
@@ -72,7 +89,20 @@ public class CodeSystemsCache {
                 log.fine("putCodeSystemId() - Added new cache map for tennantDatastore=" + tenantDatastoreCacheName);
             }
             currentDsMap = codeSystemIdMaps.get(tenantDatastoreCacheName);
-            tempValue = currentDsMap.putIfAbsent(encodedSysName, systemId);
+            if (maxSize > 0) {
+                Queue<String> insertionOrder = insertionOrders.computeIfAbsent(tenantDatastoreCacheName, k -> new ConcurrentLinkedQueue<>());
+                synchronized (currentDsMap) {
+                    while (currentDsMap.size() >= maxSize && !currentDsMap.containsKey(encodedSysName)) {
+                        evictCodeSystemId(tenantDatastoreCacheName, currentDsMap, insertionOrder);
+                    }
+                    tempValue = currentDsMap.putIfAbsent(encodedSysName, systemId);
+                    if (tempValue == null) {
+                        insertionOrder.add(encodedSysName);
+                    }
+                }
+            } else {
+                tempValue = currentDsMap.putIfAbsent(encodedSysName, systemId);
+            }
             if (tempValue == null) {
                 log.fine("putCodeSystemId() - Added new cache entry, key=" + encodedSysName + "  value=" + systemId + "  tenantDatstoreCacheName=" + tenantDatastoreCacheName);
             }
@@ -93,6 +123,43 @@ public class CodeSystemsCache {
         }
     }
     
+    /**
+     * Removes the oldest entry from the passed tenant-datastore cache to make room for a new one. The cache is
+     * expected to hold the commonly used systems, which are typically added first, so no attempt is made to track
+     * usage; an evicted system is simply read again from the database when it is next needed.
+     */
+    private static void evictCodeSystemId(String tenantDatastoreCacheName, ConcurrentHashMap<String,Integer> currentDsMap,
+            Queue<String> insertionOrder) {
+        String evicted = insertionOrder.poll();
+        if (evicted == null) {
+            // entries added while the cache was unbounded aren't tracked
+            Iterator<String> keys = currentDsMap.keySet().iterator();
+            evicted = keys.next();
+        }
+        currentDsMap.remove(evicted);
+        log.fine("putCodeSystemId() - Evicted cache entry, key=" + evicted + "  tenantDatstoreCacheName=" + tenantDatastoreCacheName);
+    }
+
+    /**
+     * Indicates whether the passed tenant-datastore cache has already been preloaded with the contents
+     * of the CODE_SYSTEMS table.
+     * @param tenantDatastoreCacheName The name of a datastore-specific cache.
+     * @return boolean
+     */
+    public static boolean isPreloaded(String tenantDatastoreCacheName) {
+        return !enabled || preloadedCaches.contains(tenantDatastoreCacheName);
+    }
+
+    /**
+     * Marks the passed tenant-datastore cache as preloaded. This is called once the preloaded entries have been
+     * published to the cache, when the transaction that read them commits.
+     * @param tenantDatastoreCacheName The name of a datastore-specific cache.
+     * @return boolean - true if the cache was not already marked as preloaded.
+     */
+    public static boolean setPreloaded(String tenantDatastoreCacheName) {
+        return preloadedCaches.add(tenantDatastoreCacheName);
+    }
+
     /**
      * Returns a String containing a combination of the current tenantId and datastoreId.
      * @return
@@ -153,8 +220,22 @@ public class CodeSystemsCache {
                 // When enabling the cache, clear out any old stuff.
                 if (newEnabled) {
                     codeSystemIdMaps.clear();
+                    insertionOrders.clear();
+                    preloadedCaches.clear();
                 }
             }
         }
     }
+
+    public static int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of code systems held for each tenant/datastore combination.
+     * @param newMaxSize the maximum size, or 0 for an unbounded cache
+     */
+    public static void setMaxSize(int newMaxSize) {
+        maxSize = Math.max(newMaxSize, 0);
+    }
 }
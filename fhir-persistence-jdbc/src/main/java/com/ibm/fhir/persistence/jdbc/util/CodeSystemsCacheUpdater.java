@@ -27,6 +27,9 @@ public class CodeSystemsCacheUpdater extends CacheUpdater {
         log.entering(CLASSNAME, METHODNAME);
         
         CodeSystemsCache.putCodeSystemIds(this.getTenantDatastoreCacheName(), this.getCacheCandidates());
+        if (this.isPreload()) {
+            CodeSystemsCache.setPreloaded(this.getTenantDatastoreCacheName());
+        }
         
         log.exiting(CLASSNAME, METHODNAME);
     }
@@ -114,8 +114,10 @@ public class DerbyBootstrapper {
         // Use the version history service to determine if this table existed before we run `applyWithHistory`
         boolean newDb = vhs.getVersion(dataSchemaName, DatabaseObjectType.TABLE.name(), "PARAMETER_NAMES") == null;
 
-        // Define the schema and apply it (or required updates)
+        // Define the schema and apply it (or required updates). The sort values tables are
+        // only needed when the tenant materializes the sort values of some search parameters.
         FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, dataSchemaName);
+        gen.setSortValues(!SortValuesUtil.getSortValueParameters().isEmpty());
         PhysicalDataModel pdm = new PhysicalDataModel();
         gen.buildSchema(pdm);
 
@@ -6,6 +6,7 @@
 
 package com.ibm.fhir.persistence.jdbc.util;
 
+import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_SEARCH_USE_STORED_COMPARTMENT_PARAM;
 import static com.ibm.fhir.persistence.jdbc.JDBCConstants.AND;
 import static com.ibm.fhir.persistence.jdbc.JDBCConstants.BIND_VAR;
 import static com.ibm.fhir.persistence.jdbc.JDBCConstants.CODE_SYSTEM_ID;
@@ -43,6 +44,7 @@ import java.util.Map;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import com.ibm.fhir.config.FHIRConfigHelper;
 import com.ibm.fhir.model.resource.Location;
 import com.ibm.fhir.model.resource.SearchParameter;
 import com.ibm.fhir.model.type.Code;
@@ -61,6 +63,7 @@ import com.ibm.fhir.persistence.jdbc.util.type.QuantityParmBehaviorUtil;
 import com.ibm.fhir.persistence.util.AbstractQueryBuilder;
 import com.ibm.fhir.search.SearchConstants.Modifier;
 import com.ibm.fhir.search.SearchConstants.Type;
+import com.ibm.fhir.search.compartment.CompartmentUtil;
 import com.ibm.fhir.search.context.FHIRSearchContext;
 import com.ibm.fhir.search.location.bounding.Bounding;
 import com.ibm.fhir.search.location.util.LocationUtil;
@@ -124,18 +127,24 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
         log.entering(CLASSNAME, METHODNAME,
                 new Object[] { resourceType.getSimpleName(), searchContext.getSearchParameters() });
 
-        QuerySegmentAggregator helper;
-        SqlQueryData query = null;
-
-        helper = this.buildQueryCommon(resourceType, searchContext);
-        if (helper != null) {
-            query = helper.buildCountQuery();
-        }
+        SqlQueryData query = this.buildCountQuery(this.buildQueryCommon(resourceType, searchContext));
 
         log.exiting(CLASSNAME, METHODNAME);
         return query;
     }
 
+    /**
+     * Builds the count query of the passed query segment aggregator.
+     *
+     * @param helper
+     *                      - A query builder helper built by {@link #buildQueryAggregator(Class, FHIRSearchContext)}, or null.
+     * @return SqlQueryData - The count query, or null if no valid query could be built.
+     * @throws Exception
+     */
+    public SqlQueryData buildCountQuery(QuerySegmentAggregator helper) throws Exception {
+        return helper != null ? helper.buildCountQuery() : null;
+    }
+
     @Override
     public SqlQueryData buildQuery(Class<?> resourceType, FHIRSearchContext searchContext) throws Exception {
         final String METHODNAME = "buildQuery";
@@ -154,6 +163,141 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
         return query;
     }
 
+    /**
+     * Builds the result query of the passed query segment aggregator, for the page of the passed search context.
+     * The pagination is taken from the search context again, because the paging context may have been corrected
+     * after the count query of the same aggregator was run.
+     *
+     * @param helper
+     *                      - A query builder helper built by {@link #buildQueryAggregator(Class, FHIRSearchContext)}, or null.
+     * @param searchContext
+     *                      - The search context the aggregator was built for.
+     * @return SqlQueryData - The result query, or null if no valid query could be built.
+     * @throws Exception
+     */
+    public SqlQueryData buildQuery(QuerySegmentAggregator helper, FHIRSearchContext searchContext) throws Exception {
+        if (helper == null) {
+            return null;
+        }
+        int pageSize = searchContext.getPageSize();
+        helper.setPagination((searchContext.getPageNumber() - 1) * pageSize, pageSize);
+        return helper.buildQuery();
+    }
+
+    /**
+     * Builds the query segments of a search once, so that the count query and the result query of the
+     * same search can be built from the returned aggregator with {@link #buildCountQuery(QuerySegmentAggregator)}
+     * and {@link #buildQuery(QuerySegmentAggregator, FHIRSearchContext)}.
+     *
+     * @param resourceType
+     *                      The type of FHIR resource being searched for.
+     * @param searchContext
+     *                      The search context containing search parameters.
+     * @return QuerySegmentAggregator - A query builder helper containing processed
+     *         query segments, or null if no valid query could be built.
+     * @throws Exception
+     */
+    public QuerySegmentAggregator buildQueryAggregator(Class<?> resourceType, FHIRSearchContext searchContext) throws Exception {
+        return this.buildQueryCommon(resourceType, searchContext);
+    }
+
+    /**
+     * Does the query built by {@link #buildQuery(QuerySegmentAggregator, FHIRSearchContext)} for a sorted search
+     * read the sorted resources directly, because all of its sort parameters are materialized
+     * as sort values? Otherwise a sorted search query returns only the sorted resource ids.
+     *
+     * @param helper
+     *                      A query builder helper built by {@link #buildQueryAggregator(Class, FHIRSearchContext)}.
+     * @return
+     */
+    public boolean isSortValueQuery(QuerySegmentAggregator helper) {
+        return helper instanceof SortedQuerySegmentAggregator && ((SortedQuerySegmentAggregator) helper).isSortValueSearch();
+    }
+
+    /**
+     * Builds a query that returns the logical ids of the current, non-deleted resources that have the value of the
+     * passed token search parameter, for example:
+     *
+     * <pre>
+     * SELECT DISTINCT LR.LOGICAL_ID FROM Patient_TOKEN_VALUES pX
+     *   JOIN Patient_LOGICAL_RESOURCES LR ON LR.LOGICAL_RESOURCE_ID = pX.LOGICAL_RESOURCE_ID
+     *   JOIN Patient_RESOURCES R ON R.RESOURCE_ID = LR.CURRENT_RESOURCE_ID AND R.IS_DELETED &lt;&gt; 'Y'
+     *  WHERE pX.PARAMETER_NAME_ID = ? AND pX.CODE_SYSTEM_ID = ? AND pX.TOKEN_VALUE = ?
+     *  OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY
+     * </pre>
+     *
+     * With a system, the token values are found with a single probe of the PARAMETER_NAME_ID, CODE_SYSTEM_ID,
+     * TOKEN_VALUE index; the resources themselves are not read.
+     *
+     * @param resourceType
+     *                      - The type of resource being searched for.
+     * @param queryParm
+     *                      - A token search parameter without modifier and with a single value.
+     * @param maxResults
+     *                      - The maximum number of logical ids to return.
+     * @return the query, or null if no resource can match because the parameter name or the system is unknown
+     * @throws Exception
+     */
+    public SqlQueryData buildLogicalIdQuery(Class<?> resourceType, QueryParameter queryParm, int maxResults) throws Exception {
+        final String METHODNAME = "buildLogicalIdQuery";
+        log.entering(CLASSNAME, METHODNAME, new Object[] { resourceType.getSimpleName(), queryParm });
+
+        String code = queryParm.getCode();
+        Integer parameterNameId = ParameterNamesCache.getParameterNameId(code);
+        if (parameterNameId == null) {
+            parameterNameId = this.parameterDao.readParameterNameId(code);
+            if (parameterNameId == null) {
+                log.exiting(CLASSNAME, METHODNAME);
+                return null;
+            }
+            this.parameterDao.addParameterNamesCacheCandidate(code, parameterNameId);
+        }
+
+        QueryParameterValue value = queryParm.getValues().get(0);
+        Integer codeSystemId = null;
+        String system = value.getValueSystem();
+        if (system != null && !system.isEmpty()) {
+            codeSystemId = CodeSystemsCache.getCodeSystemId(system);
+            if (codeSystemId == null) {
+                codeSystemId = this.parameterDao.readCodeSystemId(system);
+                if (codeSystemId == null) {
+                    log.exiting(CLASSNAME, METHODNAME);
+                    return null;
+                }
+                this.parameterDao.addCodeSystemsCacheCandidate(system, codeSystemId);
+            }
+        }
+
+        String simpleName = resourceType.getSimpleName();
+        List<Object> bindVariables = new ArrayList<>();
+        StringBuilder queryString = new StringBuilder("SELECT DISTINCT LR.LOGICAL_ID");
+        queryString.append(FROM).append(simpleName).append("_TOKEN_VALUES ").append(PARAMETER_TABLE_ALIAS)
+                .append(JOIN).append(simpleName).append("_LOGICAL_RESOURCES LR")
+                .append(ON).append("LR.LOGICAL_RESOURCE_ID").append(EQ).append(PARAMETER_TABLE_ALIAS).append(".LOGICAL_RESOURCE_ID")
+                .append(JOIN).append(simpleName).append("_RESOURCES R")
+                .append(ON).append("R.RESOURCE_ID").append(EQ).append("LR.CURRENT_RESOURCE_ID")
+                .append(AND).append("R.IS_DELETED <> 'Y'");
+        queryString.append(WHERE).append(PARAMETER_TABLE_ALIAS + DOT).append("PARAMETER_NAME_ID").append(EQ).append(BIND_VAR);
+        bindVariables.add(parameterNameId);
+        if (codeSystemId != null) {
+            queryString.append(AND).append(PARAMETER_TABLE_ALIAS + DOT).append(CODE_SYSTEM_ID).append(EQ).append(BIND_VAR);
+            bindVariables.add(codeSystemId);
+        }
+        queryString.append(AND).append(PARAMETER_TABLE_ALIAS + DOT).append(TOKEN_VALUE).append(EQ).append(BIND_VAR);
+        bindVariables.add(SqlParameterEncoder.encode(value.getValueCode()));
+
+        if (this.parameterDao.isDb2Database()) {
+            queryString.append(" LIMIT ?");
+        } else {
+            queryString.append(" OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+        }
+        bindVariables.add(maxResults);
+
+        SqlQueryData query = new SqlQueryData(queryString.toString(), bindVariables);
+        log.exiting(CLASSNAME, METHODNAME, query);
+        return query;
+    }
+
     /**
      * Contains logic common to the building of both 'count' resource queries and
      * 'regular' resource queries.
@@ -335,6 +479,8 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
                 case REFERENCE:
                     if (queryParm.isChained()) {
                         databaseQueryParm = this.processChainedReferenceParm(queryParm);
+                    } else if (queryParm.isReverseChained()) {
+                        databaseQueryParm = this.processReverseChainedReferenceParm(resourceType, queryParm);
                     } else if (queryParm.isInclusionCriteria()) {
                         databaseQueryParm = this.processInclusionCriteria(queryParm);
                     } else {
@@ -688,22 +834,7 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
                 .append(QuerySegmentAggregator.tableName(resourceTypeName, currentParm.getNextParameter()))
                 .append(chainedParmVar);
 
-        if (Type.COMPOSITE.equals(nextParameter.getType())) {
-            if (nextParameter.getValues() != null && !nextParameter.getValues().isEmpty()) {
-                // Assumption:  all the values should have the same number of components and the same types
-                List<QueryParameter> components = nextParameter.getValues().get(0).getComponent();
-                for (int componentNum = 1; componentNum <= components.size(); componentNum++) {
-                    String alias = chainedParmVar + "_p" + componentNum;
-                    QueryParameter component = components.get(componentNum - 1);
-                    whereClauseSegment
-                            .append(JOIN + QuerySegmentAggregator.tableName(resourceTypeName, component) + alias)
-                            .append(ON)
-                            .append(chainedParmVar + ".COMP" + componentNum + QuerySegmentAggregator.abbr(component))
-                            .append("=")
-                            .append(alias + ".ROW_ID");
-                }
-            }
-        }
+        appendCompositeJoins(whereClauseSegment, resourceTypeName, nextParameter, chainedParmVar);
 
         whereClauseSegment.append(" WHERE ");
 
@@ -720,6 +851,143 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
                 .append(AND);
     }
 
+    /**
+     * Joins the component tables of the passed composite parameter (if it is one) to the composites table with the
+     * passed alias.
+     */
+    private void appendCompositeJoins(StringBuilder whereClauseSegment, String resourceTypeName, QueryParameter parameter,
+            String compositeVar) {
+        if (Type.COMPOSITE.equals(parameter.getType())) {
+            if (parameter.getValues() != null && !parameter.getValues().isEmpty()) {
+                // Assumption:  all the values should have the same number of components and the same types
+                List<QueryParameter> components = parameter.getValues().get(0).getComponent();
+                for (int componentNum = 1; componentNum <= components.size(); componentNum++) {
+                    String alias = compositeVar + "_p" + componentNum;
+                    QueryParameter component = components.get(componentNum - 1);
+                    whereClauseSegment
+                            .append(JOIN + QuerySegmentAggregator.tableName(resourceTypeName, component) + alias)
+                            .append(ON)
+                            .append(compositeVar + ".COMP" + componentNum + QuerySegmentAggregator.abbr(component))
+                            .append("=")
+                            .append(alias + ".ROW_ID");
+                }
+            }
+        }
+    }
+
+    /**
+     * Contains special logic for handling reverse chained (_has) reference search parameters.
+     * <p>
+     * The whole chain is compiled into nested EXISTS semi-joins against the reference parameter (STR_VALUES) table of
+     * each referring resource type, correlated on the reference value ('{resource type}/' || LOGICAL_ID), so that the
+     * ids of the referring resources are never materialized. Here is a sample query segment for a Patient search with
+     * _has:Observation:patient:code=1234-5, where pX is replaced with the alias of the Patient logical resources by
+     * the QuerySegmentAggregator:
+     *
+     * <pre>
+     * EXISTS (SELECT 1 FROM Observation_STR_VALUES HP1
+     *     JOIN Observation_LOGICAL_RESOURCES HLR1 ON HLR1.LOGICAL_RESOURCE_ID = HP1.LOGICAL_RESOURCE_ID
+     *     JOIN Observation_RESOURCES HR1 ON HR1.RESOURCE_ID = HLR1.CURRENT_RESOURCE_ID AND HR1.IS_DELETED <> 'Y'
+     *   WHERE (HP1.PARAMETER_NAME_ID=7 AND HP1.STR_VALUE = 'Patient/' || pX.LOGICAL_ID) AND
+     *     EXISTS (SELECT 1 FROM Observation_TOKEN_VALUES HV1 WHERE HV1.LOGICAL_RESOURCE_ID = HLR1.LOGICAL_RESOURCE_ID AND
+     *       (HV1.PARAMETER_NAME_ID=3 AND ((HV1.TOKEN_VALUE = ?)))))
+     * </pre>
+     *
+     * A nested _has (e.g. _has:Observation:patient:_has:AuditEvent:entity:agent=x) adds an EXISTS for each further
+     * link, correlated to the logical resources of the previous link (HLR1, HLR2, ...).
+     *
+     * @see https://www.hl7.org/fhir/search.html#has
+     */
+    @Override
+    protected SqlQueryData processReverseChainedReferenceParm(Class<?> resourceType, QueryParameter queryParm)
+            throws Exception {
+        final String METHODNAME = "processReverseChainedReferenceParm";
+        log.entering(CLASSNAME, METHODNAME, queryParm.toString());
+
+        final String HP = "HP";
+        final String HLR = "HLR";
+        final String HR = "HR";
+        final String HV = "HV";
+        StringBuilder whereClauseSegment = new StringBuilder();
+        List<Object> bindVariables = new ArrayList<>();
+
+        String referencedResourceTypeName = resourceType.getSimpleName();
+        String referencedLogicalResourceVar = PARAMETER_TABLE_ALIAS;
+        int linkIndex = 0;
+        QueryParameter currentParm = queryParm;
+        while (currentParm.isReverseChained()) {
+            linkIndex++;
+            String referringResourceTypeName = currentParm.getModifierResourceTypeName();
+            String refParmVar = HP + linkIndex;
+            String logicalResourceVar = HLR + linkIndex;
+            String resourceVar = HR + linkIndex;
+
+            // Build this piece: EXISTS (SELECT 1 FROM Observation_STR_VALUES HP1
+            // JOIN Observation_LOGICAL_RESOURCES HLR1 ON HLR1.LOGICAL_RESOURCE_ID = HP1.LOGICAL_RESOURCE_ID
+            // JOIN Observation_RESOURCES HR1 ON HR1.RESOURCE_ID = HLR1.CURRENT_RESOURCE_ID AND HR1.IS_DELETED <> 'Y' WHERE
+            whereClauseSegment.append("EXISTS (SELECT 1").append(FROM)
+                    .append(referringResourceTypeName).append("_STR_VALUES ").append(refParmVar)
+                    .append(JOIN).append(referringResourceTypeName).append("_LOGICAL_RESOURCES ").append(logicalResourceVar)
+                    .append(ON).append(logicalResourceVar).append(".LOGICAL_RESOURCE_ID = ")
+                    .append(refParmVar).append(".LOGICAL_RESOURCE_ID")
+                    .append(JOIN).append(referringResourceTypeName).append("_RESOURCES ").append(resourceVar)
+                    .append(ON).append(resourceVar).append(".RESOURCE_ID = ")
+                    .append(logicalResourceVar).append(".CURRENT_RESOURCE_ID")
+                    .append(AND).append(resourceVar).append(".IS_DELETED <> 'Y'")
+                    .append(WHERE);
+
+            // Build this piece: (HP1.PARAMETER_NAME_ID=x AND HP1.STR_VALUE = 'Patient/' || pX.LOGICAL_ID) AND
+            this.populateNameIdSubSegment(whereClauseSegment, currentParm.getCode(), refParmVar);
+            whereClauseSegment.append(AND).append(refParmVar).append(DOT).append(STR_VALUE).append(EQ)
+                    .append("'").append(referencedResourceTypeName).append("/' || ")
+                    .append(referencedLogicalResourceVar).append(".LOGICAL_ID")
+                    .append(RIGHT_PAREN).append(AND);
+
+            referencedResourceTypeName   = referringResourceTypeName;
+            referencedLogicalResourceVar = logicalResourceVar;
+            currentParm                  = currentParm.getNextParameter();
+        }
+
+        // This logic processes the LAST parameter, which applies to the last referring resource type.
+        // Build this piece: EXISTS (SELECT 1 FROM Observation_TOKEN_VALUES HV1 WHERE HV1.LOGICAL_RESOURCE_ID = HLR1.LOGICAL_RESOURCE_ID AND
+        String valuesVar = HV + linkIndex;
+        if (Modifier.MISSING.equals(currentParm.getModifier())
+                && Boolean.parseBoolean(currentParm.getValues().get(0).getValueCode())) {
+            whereClauseSegment.append("NOT ");
+        }
+        whereClauseSegment.append("EXISTS (SELECT 1").append(FROM)
+                .append(QuerySegmentAggregator.tableName(referencedResourceTypeName, currentParm)).append(valuesVar);
+        appendCompositeJoins(whereClauseSegment, referencedResourceTypeName, currentParm, valuesVar);
+        whereClauseSegment.append(WHERE)
+                .append(valuesVar).append(".LOGICAL_RESOURCE_ID = ")
+                .append(referencedLogicalResourceVar).append(".LOGICAL_RESOURCE_ID")
+                .append(AND);
+
+        if (Modifier.MISSING.equals(currentParm.getModifier())) {
+            // Build this piece: (HV1.PARAMETER_NAME_ID=x)
+            this.populateNameIdSubSegment(whereClauseSegment, currentParm.getCode(), valuesVar);
+            whereClauseSegment.append(RIGHT_PAREN);
+        } else {
+            Class<?> referringResourceType = ModelSupport.getResourceType(referencedResourceTypeName);
+            SqlQueryData sqlQueryData = buildQueryParm(referringResourceType, currentParm, valuesVar);
+            if (sqlQueryData == null) {
+                throw new FHIRPersistenceNotSupportedException("Search parameter '" + currentParm.getCode()
+                        + "' is not supported within _has");
+            }
+            whereClauseSegment.append(sqlQueryData.getQueryString());
+            bindVariables.addAll(sqlQueryData.getBindVariables());
+        }
+
+        // Finally, close the EXISTS of the last parameter and of each link.
+        for (int i = 0; i <= linkIndex; i++) {
+            whereClauseSegment.append(RIGHT_PAREN);
+        }
+
+        SqlQueryData queryData = new SqlQueryData(whereClauseSegment.toString(), bindVariables);
+        log.exiting(CLASSNAME, METHODNAME, whereClauseSegment.toString());
+        return queryData;
+    }
+
     /**
      * This method handles the processing of a wildcard chained reference parameter.
      * The wildcard represents ALL FHIR
@@ -793,6 +1061,11 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
      * }
      * </pre>
      * <p>
+     * If fhirServer/search/useStoredCompartmentParam is true, the compartment membership which was extracted
+     * from the inclusion criteria when the resource was stored is used instead, and the criteria collapse to a single
+     * lookup of the internal compartment parameter (e.g. ibm-internal-Patient-Compartment = 'Patient/123').
+     * Otherwise (the default) each of the inclusion criteria is evaluated.
+     * <p>
      * Here is a sample generated query for this inclusion criteria:
      * <li>PARAMETER_NAME_ID 13 = 'participant'
      * <li>PARAMETER_NAME_ID 14 = 'patient'
@@ -856,6 +1129,22 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
         SqlQueryData queryData;
         SqlQueryData chainedIncQueryData;
 
+        String compartmentParmName = getStoredCompartmentParmName(queryParm);
+        if (compartmentParmName != null) {
+            // The compartment membership was extracted when the resource was stored, so a single lookup suffices:
+            // ((pX.PARAMETER_NAME_ID = x AND pX.str_value = compartment-reference))
+            whereClauseSegment.append(LEFT_PAREN);
+            this.populateNameIdSubSegment(whereClauseSegment, compartmentParmName, PARAMETER_TABLE_ALIAS);
+            whereClauseSegment.append(AND);
+            whereClauseSegment.append(PARAMETER_TABLE_ALIAS + DOT).append(STR_VALUE).append(operator).append(BIND_VAR);
+            whereClauseSegment.append(RIGHT_PAREN).append(RIGHT_PAREN);
+            bindVariables.add(queryParm.getValues().get(0).getValueString());
+
+            queryData = new SqlQueryData(whereClauseSegment.toString(), bindVariables);
+            log.exiting(CLASSNAME, METHODNAME, whereClauseSegment.toString());
+            return queryData;
+        }
+
         currentParm = queryParm;
         whereClauseSegment.append(LEFT_PAREN);
         while (currentParm != null) {
@@ -894,6 +1183,37 @@ public class JDBCQueryBuilder extends AbstractQueryBuilder<SqlQueryData> {
         return queryData;
     }
 
+    /**
+     * Returns the name of the internal parameter which holds the compartment membership for the compartment
+     * targeted by the passed inclusion criteria, or null if the inclusion criteria must be evaluated one by one
+     * (because use of the stored compartment membership is disabled or one of the criteria is chained).
+     * 
+     * @param queryParm
+     *                  - the first parameter in the chain of inclusion criteria
+     * @return the name of the compartment membership parameter, or null
+     * @see CompartmentUtil#makeCompartmentParamName(String)
+     */
+    private String getStoredCompartmentParmName(QueryParameter queryParm) {
+        if (!FHIRConfigHelper.getBooleanProperty(PROPERTY_SEARCH_USE_STORED_COMPARTMENT_PARAM, Boolean.FALSE)) {
+            return null;
+        }
+        for (QueryParameter currentParm = queryParm; currentParm != null; currentParm = currentParm.getNextParameter()) {
+            if (currentParm.getCode().contains(DOT)) {
+                return null;
+            }
+        }
+        if (queryParm.getValues() == null || queryParm.getValues().isEmpty()) {
+            return null;
+        }
+        // The value of each inclusion criteria is the compartment reference, e.g. Patient/123
+        String compartmentRef = queryParm.getValues().get(0).getValueString();
+        int slash = compartmentRef == null ? -1 : compartmentRef.indexOf('/');
+        if (slash < 1) {
+            return null;
+        }
+        return CompartmentUtil.makeCompartmentParamName(compartmentRef.substring(0, slash));
+    }
+
     @Override
     protected SqlQueryData processDateParm(Class<?> resourceType, QueryParameter queryParm) throws Exception {
         return processDateParm(resourceType, queryParm, PARAMETER_TABLE_ALIAS);
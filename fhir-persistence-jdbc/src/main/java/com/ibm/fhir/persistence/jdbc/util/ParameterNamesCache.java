@@ -7,6 +7,7 @@
 package com.ibm.fhir.persistence.jdbc.util;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -25,6 +26,11 @@ public class ParameterNamesCache {
     
     private static boolean enabled = true;
 
+    /**
+     * The tenant/datastore combinations for which the cache has been preloaded from the PARAMETER_NAMES table.
+     */
+    private static Set<String> preloadedCaches = ConcurrentHashMap.newKeySet();
+
     /**
      * The following is a map of parameter name maps. Each FHIR tenant/datastore combination will have its own
      * mapping of parameter-name to parameter-name-id.
@@ -98,6 +104,25 @@ public class ParameterNamesCache {
     
     
     
+    /**
+     * Indicates whether the passed tenant-datastore cache has already been preloaded with the contents
+     * of the PARAMETER_NAMES table.
+     * @param tenantDatastoreCacheName The name of a datastore-specific cache.
+     * @return boolean
+     */
+    public static boolean isPreloaded(String tenantDatastoreCacheName) {
+        return !enabled || preloadedCaches.contains(tenantDatastoreCacheName);
+    }
+
+    /**
+     * Marks the passed tenant-datastore cache as preloaded.
+     * @param tenantDatastoreCacheName The name of a datastore-specific cache.
+     * @return boolean - true if the cache was not already marked as preloaded.
+     */
+    public static boolean setPreloaded(String tenantDatastoreCacheName) {
+        return preloadedCaches.add(tenantDatastoreCacheName);
+    }
+
     /**
      * Returns a String containing a combination of the current tenantId and datastoreId.
      * @return
@@ -159,6 +184,7 @@ public class ParameterNamesCache {
                 // When enabling the cache, clear out any old stuff.
                 if (newEnabled) {
                     parameterNameIdMaps.clear();
+                    preloadedCaches.clear();
                 }
             }
         }
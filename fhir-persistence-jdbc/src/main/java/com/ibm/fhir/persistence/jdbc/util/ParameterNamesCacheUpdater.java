@@ -27,6 +27,9 @@ public class ParameterNamesCacheUpdater extends CacheUpdater {
         log.entering(CLASSNAME, METHODNAME);
         
         ParameterNamesCache.putParameterNameIds(this.getTenantDatastoreCacheName(), this.getCacheCandidates());
+        if (this.isPreload()) {
+            ParameterNamesCache.setPreloaded(this.getTenantDatastoreCacheName());
+        }
         
         log.exiting(CLASSNAME, METHODNAME);
 
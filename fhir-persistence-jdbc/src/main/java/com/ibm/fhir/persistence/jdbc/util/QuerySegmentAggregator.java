@@ -103,6 +103,18 @@ public class QuerySegmentAggregator {
         this.searchQueryParameters = new ArrayList<>();
     }
 
+    /**
+     * Resets the pagination of the query to be built, e.g. after the paging context
+     * was corrected based on the result of the count query.
+     *
+     * @param offset   - The beginning index of the first search result.
+     * @param pageSize - The max number of requested search results.
+     */
+    protected void setPagination(int offset, int pageSize) {
+        this.offset   = offset;
+        this.pageSize = pageSize;
+    }
+
     public void setResourceTypes(List<String> resourceTypes) {
         this.resourceTypes = resourceTypes;
     }
@@ -164,7 +176,7 @@ public class QuerySegmentAggregator {
 
             // Add default ordering
             queryString.append(DEFAULT_ORDERING);
-            this.addPaginationClauses(queryString);
+            this.addPaginationClauses(queryString, allBindVariables);
             queryData = new SqlQueryData(queryString.toString(), allBindVariables);
         }
 
@@ -282,7 +294,7 @@ public class QuerySegmentAggregator {
         // Add Ordering and Pagination
         if (addFinalClauses) {
             queryString.append(DEFAULT_ORDERING);
-            this.addPaginationClauses(queryString);
+            this.addPaginationClauses(queryString, allBindVariables);
         }
 
         SqlQueryData queryData = new SqlQueryData(queryString.toString(), allBindVariables);
@@ -420,6 +432,20 @@ public class QuerySegmentAggregator {
                 if (Modifier.MISSING.equals(param.getModifier())) {
                     whereClauseSegment = querySegment.getQueryString().replaceAll(PARAMETER_TABLE_ALIAS + "\\.", "");
                     whereClause.append(whereClauseSegment);
+                } else if (param.isReverseChained()) {
+                    // The segment of a reverse chain (_has) is an EXISTS which is correlated to the logical resources
+                    // of the searched resource type
+                    String logicalResourceAlias = "HLR0";
+                    whereClauseSegment =
+                            querySegment.getQueryString().replaceAll(PARAMETER_TABLE_ALIAS + "\\.",
+                                    logicalResourceAlias + ".");
+
+                    whereClause.append(JOIN).append("(SELECT ").append(logicalResourceAlias)
+                            .append(".LOGICAL_RESOURCE_ID FROM ").append(overrideType).append("_LOGICAL_RESOURCES ")
+                            .append(logicalResourceAlias).append(" WHERE ").append(whereClauseSegment).append(") ");
+                    String tmpTableName = overrideType + i;
+                    whereClause.append(tmpTableName).append(ON).append(tmpTableName)
+                            .append(".LOGICAL_RESOURCE_ID = R.LOGICAL_RESOURCE_ID");
                 } else {
                     if (!Type.COMPOSITE.equals(param.getType())) {
                         whereClauseSegment =
@@ -521,7 +547,9 @@ public class QuerySegmentAggregator {
     /**
      * Adds the appropriate pagination clauses to the passed query string buffer,
      * based on the type
-     * of database we're running against.
+     * of database we're running against. The offset and page size are inlined as
+     * literals, which is only appropriate for queries whose text varies per page anyway
+     * (e.g. the inclusion queries which inline the included reference values).
      * 
      * @param queryString A query string buffer.
      * @throws Exception
@@ -535,4 +563,28 @@ public class QuerySegmentAggregator {
                     .append(" FETCH NEXT ").append(this.pageSize).append(" ROWS ONLY");
         }
     }
+
+    /**
+     * Adds the appropriate pagination clauses to the passed query string buffer,
+     * using bind markers for the offset and page size and appending the corresponding
+     * values to the passed bind variables. Unlike {@link #addPaginationClauses(StringBuilder)},
+     * the resulting query text is the same for every page, which allows the prepared
+     * statement to be reused.
+     *
+     * @param queryString   A query string buffer.
+     * @param bindVariables The bind variables of the query; the pagination values are appended.
+     * @throws Exception
+     */
+    protected void addPaginationClauses(StringBuilder queryString, List<Object> bindVariables) throws Exception {
+
+        if (this.parameterDao.isDb2Database()) {
+            queryString.append(" LIMIT ? OFFSET ?");
+            bindVariables.add(this.pageSize);
+            bindVariables.add(this.offset);
+        } else {
+            queryString.append(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+            bindVariables.add(this.offset);
+            bindVariables.add(this.pageSize);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.util;
+
+import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_SEARCH_SORT_VALUE_PARAMETERS;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ibm.fhir.config.FHIRConfigHelper;
+import com.ibm.fhir.persistence.jdbc.util.type.LastUpdatedParmBehaviorUtil;
+import com.ibm.fhir.search.SearchConstants.Type;
+import com.ibm.fhir.search.parameters.SortParameter;
+
+/**
+ * Sort values are the lowest and highest value of a search parameter for a resource, materialized
+ * in the &lt;TYPE&gt;_SORT_VALUES table when the resource is stored. The parameters to materialize are
+ * configured with fhirServer/search/sortValueParameters; _id and _lastUpdated don't need to be configured
+ * because they are columns of the logical resources and resources tables.
+ */
+public class SortValuesUtil {
+
+    private SortValuesUtil() {
+        // No Operation
+    }
+
+    /**
+     * @return the codes of the search parameters whose sort values are materialized for the current tenant,
+     *         or an empty set if the feature is disabled
+     */
+    public static Set<String> getSortValueParameters() {
+        List<String> codes = FHIRConfigHelper.getStringListProperty(PROPERTY_SEARCH_SORT_VALUE_PARAMETERS);
+        if (codes == null || codes.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(codes);
+    }
+
+    /**
+     * @param type
+     * @return true if values of the given search parameter type can be materialized as sort values
+     */
+    public static boolean isSortValueType(Type type) {
+        switch (type) {
+        case STRING:
+        case REFERENCE:
+        case URI:
+        case DATE:
+        case NUMBER:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Can the search results be sorted by the given parameters using only the sort values table
+     * (and the columns of the resources and logical resources tables)?
+     *
+     * @param sortParameters
+     * @param sortValueParameters the configured sort value parameters
+     * @return
+     */
+    public static boolean isSortValueSearch(List<SortParameter> sortParameters, Set<String> sortValueParameters) {
+        if (sortParameters == null || sortParameters.isEmpty() || sortValueParameters.isEmpty()) {
+            return false;
+        }
+        for (SortParameter sortParm : sortParameters) {
+            String code = sortParm.getCode();
+            if (!QuerySegmentAggregator.ID.equals(code) && !LastUpdatedParmBehaviorUtil.LAST_UPDATED.equals(code)
+                    && (!sortValueParameters.contains(code) || !isSortValueType(sortParm.getType()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -28,6 +28,7 @@ import static com.ibm.fhir.persistence.jdbc.JDBCConstants.TOKEN_VALUE;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
@@ -35,6 +36,7 @@ import com.ibm.fhir.persistence.exception.FHIRPersistenceNotSupportedException;
 import com.ibm.fhir.persistence.jdbc.dao.api.ParameterDAO;
 import com.ibm.fhir.persistence.jdbc.dao.api.ResourceDAO;
 import com.ibm.fhir.persistence.jdbc.util.type.LastUpdatedParmBehaviorUtil;
+import com.ibm.fhir.search.SearchConstants.Type;
 import com.ibm.fhir.search.parameters.SortParameter;
 import com.ibm.fhir.search.sort.Sort;
 
@@ -52,6 +54,9 @@ public class SortedQuerySegmentAggregator extends QuerySegmentAggregator {
 
     private List<SortParameter> sortParameters;
 
+    // The search parameters whose lowest and highest values are materialized in the <TYPE>_SORT_VALUES table
+    private final Set<String> sortValueParameters;
+
     /**
      * Constructs a new SortedQuerySegmentAggregator
      * 
@@ -65,6 +70,18 @@ public class SortedQuerySegmentAggregator extends QuerySegmentAggregator {
             ResourceDAO resourceDao, List<SortParameter> sortParms) {
         super(resourceType, offset, pageSize, parameterDao, resourceDao);
         this.sortParameters = sortParms;
+        this.sortValueParameters = SortValuesUtil.getSortValueParameters();
+    }
+
+    /**
+     * Can the results be sorted using the materialized sort values? If so, {@link #buildQuery()} returns
+     * the sorted resources themselves (the same columns as an unsorted search) rather than
+     * just the sorted resource ids.
+     *
+     * @return true if every sort parameter is _id, _lastUpdated or a configured sort value parameter
+     */
+    public boolean isSortValueSearch() {
+        return !this.isSystemLevelSearch() && SortValuesUtil.isSortValueSearch(this.sortParameters, this.sortValueParameters);
     }
 
     /**
@@ -112,8 +129,11 @@ public class SortedQuerySegmentAggregator extends QuerySegmentAggregator {
             // Add in order-by clause.
             sysLvlQueryString.append(this.buildSysLvlOrderByClause());
             // Add pagination clauses.
-            this.addPaginationClauses(sysLvlQueryString);
-            queryData = new SqlQueryData(sysLvlQueryString.toString(), queryData.getBindVariables());
+            List<Object> allBindVariables = new ArrayList<>(queryData.getBindVariables());
+            this.addPaginationClauses(sysLvlQueryString, allBindVariables);
+            queryData = new SqlQueryData(sysLvlQueryString.toString(), allBindVariables);
+        } else if (this.isSortValueSearch()) {
+            queryData = this.buildSortValueQuery();
         } else {
             StringBuilder sqlSortQuery = new StringBuilder();
             // Build SELECT clause
@@ -144,7 +164,7 @@ public class SortedQuerySegmentAggregator extends QuerySegmentAggregator {
             sqlSortQuery.append(this.buildOrderByClause());
 
             // Add in clauses to support pagination
-            this.addPaginationClauses(sqlSortQuery);
+            this.addPaginationClauses(sqlSortQuery, allBindVariables);
 
             queryData = new SqlQueryData(sqlSortQuery.toString(), allBindVariables);
         }
@@ -153,6 +173,124 @@ public class SortedQuerySegmentAggregator extends QuerySegmentAggregator {
         return queryData;
     }
 
+    /**
+     * Builds a query which reads the sorted resources in a single round trip, ordering on the
+     * materialized sort values instead of aggregating over the parameter tables. For example:
+     *
+     * <pre>
+     * SELECT R.RESOURCE_ID, R.LOGICAL_RESOURCE_ID, R.VERSION_ID, R.LAST_UPDATED, R.IS_DELETED, R.DATA, LR.LOGICAL_ID
+     *   FROM Patient_LOGICAL_RESOURCES LR
+     *   JOIN Patient_RESOURCES R ON R.LOGICAL_RESOURCE_ID=LR.LOGICAL_RESOURCE_ID AND R.RESOURCE_ID = LR.CURRENT_RESOURCE_ID AND R.IS_DELETED <> 'Y'
+     *   LEFT OUTER JOIN Patient_SORT_VALUES S1 ON (S1.PARAMETER_NAME_ID=50 AND S1.LOGICAL_RESOURCE_ID = R.LOGICAL_RESOURCE_ID)
+     *  WHERE ...
+     * ORDER BY S1.STR_VALUE_MIN asc NULLS LAST, R.LAST_UPDATED desc, R.RESOURCE_ID
+     * OFFSET ? ROWS FETCH NEXT ? ROWS ONLY
+     * </pre>
+     *
+     * @return
+     * @throws Exception
+     */
+    private SqlQueryData buildSortValueQuery() throws Exception {
+        final String METHODNAME = "buildSortValueQuery";
+        log.entering(CLASSNAME, METHODNAME);
+
+        StringBuilder sqlSortQuery = new StringBuilder();
+        sqlSortQuery.append(SELECT_ROOT);
+        buildFromClause(sqlSortQuery, resourceType.getSimpleName());
+
+        List<Object> allBindVariables = new ArrayList<>();
+        allBindVariables.addAll(idsObjects);
+        allBindVariables.addAll(lastUpdatedObjects);
+        for (SqlQueryData querySegment : this.querySegments) {
+            allBindVariables.addAll(querySegment.getBindVariables());
+        }
+
+        // One join per sort value parameter; _id and _lastUpdated are already in the FROM clause
+        StringBuilder orderByBuffer = new StringBuilder(ORDER_BY);
+        int sortParmIndex = 1;
+        for (SortParameter sortParm : this.sortParameters) {
+            boolean increasing = Sort.Direction.INCREASING.equals(sortParm.getDirection());
+            String code = sortParm.getCode();
+            if (ID.equals(code)) {
+                orderByBuffer.append("LR.").append(ID_COLUMN_NAME).append(SPACE);
+            } else if (LastUpdatedParmBehaviorUtil.LAST_UPDATED.equals(code)) {
+                orderByBuffer.append("R.").append(LastUpdatedParmBehaviorUtil.LAST_UPDATED_COLUMN_NAME).append(SPACE);
+            } else {
+                sqlSortQuery.append(" LEFT OUTER JOIN ").append(this.resourceType.getSimpleName()).append("_SORT_VALUES ")
+                        .append(SORT_PARAMETER_ALIAS).append(sortParmIndex)
+                        .append(ON)
+                        .append(LEFT_PAREN)
+                        .append(SORT_PARAMETER_ALIAS).append(sortParmIndex).append(".PARAMETER_NAME_ID=")
+                        .append(this.getSortParameterNameId(sortParm))
+                        .append(AND)
+                        .append(SORT_PARAMETER_ALIAS).append(sortParmIndex)
+                        .append(".LOGICAL_RESOURCE_ID = R.LOGICAL_RESOURCE_ID")
+                        .append(RIGHT_PAREN).append(SPACE);
+                orderByBuffer.append(SORT_PARAMETER_ALIAS).append(sortParmIndex).append(DOT_CHAR)
+                        .append(getSortValueColumnName(sortParm.getType(), increasing)).append(SPACE);
+            }
+            orderByBuffer.append(increasing ? ASCENDING : DESCENDING).append(" NULLS LAST").append(COMMA_CHAR);
+            sortParmIndex++;
+        }
+        // Make the order total so that pages never overlap
+        orderByBuffer.append("R.RESOURCE_ID");
+
+        buildWhereClause(sqlSortQuery, null);
+        sqlSortQuery.append(orderByBuffer);
+        this.addPaginationClauses(sqlSortQuery, allBindVariables);
+
+        SqlQueryData queryData = new SqlQueryData(sqlSortQuery.toString(), allBindVariables);
+        log.exiting(CLASSNAME, METHODNAME, queryData);
+        return queryData;
+    }
+
+    /**
+     * Returns the column of the sort values table which holds the lowest (ascending sort)
+     * or highest (descending sort) value of a parameter of the given type.
+     *
+     * @param type
+     * @param increasing
+     * @return
+     * @throws FHIRPersistenceException
+     */
+    private static String getSortValueColumnName(Type type, boolean increasing) throws FHIRPersistenceException {
+        final String suffix = increasing ? "_MIN" : "_MAX";
+        switch (type) {
+        case REFERENCE:
+        case URI:
+        case STRING:
+            return "STR_VALUE" + suffix;
+        case DATE:
+            return "DATE_VALUE" + suffix;
+        case NUMBER:
+            return "NUMBER_VALUE" + suffix;
+        default:
+            throw new FHIRPersistenceNotSupportedException("Parm type not supported: " + type.value());
+        }
+    }
+
+    /**
+     * Returns the id of the parameter name of the passed sort parameter, or -1 if the
+     * parameter name doesn't exist yet (so that we don't break the query syntax).
+     *
+     * @param sortParm
+     * @return
+     * @throws FHIRPersistenceException
+     */
+    private int getSortParameterNameId(SortParameter sortParm) throws FHIRPersistenceException {
+        Integer sortParameterNameId = ParameterNamesCache.getParameterNameId(sortParm.getCode());
+        if (sortParameterNameId == null) {
+            // Only read...don't try and create the parameter name if it doesn't exist
+            sortParameterNameId = this.parameterDao.readParameterNameId(sortParm.getCode());
+            if (sortParameterNameId != null) {
+                this.parameterDao.addParameterNamesCacheCandidate(sortParm.getCode(), sortParameterNameId);
+            } else {
+                sortParameterNameId = -1;
+            }
+        }
+        return sortParameterNameId;
+    }
+
     /**
      * Builds the SELECT clause necessary to return sorted Resource ids.
      * For example:
@@ -293,21 +431,12 @@ public class SortedQuerySegmentAggregator extends QuerySegmentAggregator {
         log.entering(CLASSNAME, METHODNAME);
 
         StringBuilder joinBuffer = new StringBuilder();
-        Integer sortParameterNameId;
+        int sortParameterNameId;
 
         // Build the LEFT OUTER JOINs needed to access the required sort parameters.
         int sortParmIndex = 1;
         for (SortParameter sortParm : this.sortParameters) {
-            sortParameterNameId = ParameterNamesCache.getParameterNameId(sortParm.getCode());
-            if (sortParameterNameId == null) {
-                // Only read...don't try and create the parameter name if it doesn't exist
-                sortParameterNameId = this.parameterDao.readParameterNameId(sortParm.getCode());
-                if (sortParameterNameId != null) {
-                    this.parameterDao.addParameterNamesCacheCandidate(sortParm.getCode(), sortParameterNameId);
-                } else {
-                    sortParameterNameId = -1; // so we don't break the query syntax
-                }
-            }
+            sortParameterNameId = this.getSortParameterNameId(sortParm);
 
             // Note...the PARAMETER_NAME_ID=xxx is provided as a literal because this helps
             // the query optimizer significantly with index range scan cardinality estimation
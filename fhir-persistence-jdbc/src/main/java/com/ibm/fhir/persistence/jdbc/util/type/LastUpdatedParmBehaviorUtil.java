@@ -48,6 +48,9 @@ import com.ibm.fhir.search.parameters.QueryParameterValue;
  *         )
  *     ) R
  * </pre>
+ * The predicates always compare the bare LAST_UPDATED column with the bounds of the range
+ * (never an expression of the column), so that on a table which is range-partitioned by
+ * LAST_UPDATED the database can skip the partitions outside of the range.
  */
 public class LastUpdatedParmBehaviorUtil {
     public static final String LAST_UPDATED = "_lastUpdated";
@@ -76,10 +79,10 @@ public class LastUpdatedParmBehaviorUtil {
 
         boolean parmProcessed = false;
         for (QueryParameter queryParm : parameters) {
-            // If multiple values are present, we need to OR them together.
+            // If multiple parameters are present, we need to AND them together.
             if (parmProcessed) {
-                // OR
-                fromClause.append(RIGHT_PAREN).append(AND).append(LEFT_PAREN);
+                // AND
+                fromClause.append(AND);
             } else {
                 // Signal to the downstream to treat any subsequent value as an OR condition 
                 parmProcessed = true;
@@ -233,11 +236,12 @@ public class LastUpdatedParmBehaviorUtil {
      * @param upperBound
      */
     public void buildNotEqualsRangeClause(StringBuilder whereClauseSegment, Instant lowerBound, Instant upperBound) {
+        // Either side of the range, which remains two ranges the database can prune by
         // @formatter:off
         whereClauseSegment
                 .append(LEFT_PAREN)
                         .append(LAST_UPDATED_COLUMN_NAME).append(LT).append(BIND_VAR)
-                        .append(AND)
+                        .append(OR)
                         .append(LAST_UPDATED_COLUMN_NAME).append(GT).append(BIND_VAR)
                 .append(RIGHT_PAREN);
         // @formatter:on
@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.jdbc.test.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.transaction.Status;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.persistence.jdbc.util.CodeSystemsCache;
+import com.ibm.fhir.persistence.jdbc.util.CodeSystemsCacheUpdater;
+
+/**
+ * Tests the bounded size, eviction order and preload tracking of the CodeSystemsCache
+ */
+public class CodeSystemsCacheTest {
+
+    @AfterClass
+    public void resetCache() {
+        CodeSystemsCache.setMaxSize(0);
+    }
+
+    @Test
+    public void testBoundedCache() {
+        String cacheName = "testBoundedCache~default";
+        CodeSystemsCache.setMaxSize(3);
+        for (int i = 0; i < 10; i++) {
+            CodeSystemsCache.putCodeSystemId(cacheName, "http://example.com/system" + i, i);
+        }
+
+        int cached = 0;
+        for (String line : CodeSystemsCache.dumpCacheContents().split(System.lineSeparator())) {
+            if (line.contains("http://example.com/system")) {
+                cached++;
+            }
+        }
+        assertEquals(cached, 3);
+    }
+
+    @Test
+    public void testEvictionOrder() throws Exception {
+        String cacheName = "testEvictionOrder~default";
+        FHIRRequestContext.set(new FHIRRequestContext("testEvictionOrder", "default"));
+        try {
+            CodeSystemsCache.setMaxSize(2);
+            CodeSystemsCache.putCodeSystemId(cacheName, "http://example.com/first", 1);
+            CodeSystemsCache.putCodeSystemId(cacheName, "http://example.com/second", 2);
+            CodeSystemsCache.putCodeSystemId(cacheName, "http://example.com/third", 3);
+
+            // the oldest entry is evicted
+            assertEquals(CodeSystemsCache.getCodeSystemId("http://example.com/first"), null);
+            assertEquals(CodeSystemsCache.getCodeSystemId("http://example.com/second"), Integer.valueOf(2));
+            assertEquals(CodeSystemsCache.getCodeSystemId("http://example.com/third"), Integer.valueOf(3));
+
+            CodeSystemsCache.putCodeSystemId(cacheName, "http://example.com/fourth", 4);
+            assertEquals(CodeSystemsCache.getCodeSystemId("http://example.com/second"), null);
+            assertEquals(CodeSystemsCache.getCodeSystemId("http://example.com/third"), Integer.valueOf(3));
+            assertEquals(CodeSystemsCache.getCodeSystemId("http://example.com/fourth"), Integer.valueOf(4));
+        } finally {
+            CodeSystemsCache.setMaxSize(0);
+            FHIRRequestContext.remove();
+        }
+    }
+
+    @Test
+    public void testPreloadedOnCommit() {
+        String cacheName = "testPreloadedOnCommit~default";
+        Map<String, Integer> candidates = new HashMap<>();
+        candidates.put("http://example.com/system", 1);
+        CodeSystemsCacheUpdater updater = new CodeSystemsCacheUpdater(cacheName, candidates);
+        updater.setPreload(true);
+
+        // a rolled back preload must not mark the cache as preloaded
+        updater.afterCompletion(Status.STATUS_ROLLEDBACK);
+        assertFalse(CodeSystemsCache.isPreloaded(cacheName));
+
+        candidates.put("http://example.com/system", 1);
+        updater.afterCompletion(Status.STATUS_COMMITTED);
+        assertTrue(CodeSystemsCache.isPreloaded(cacheName));
+    }
+
+    @Test
+    public void testPreloaded() {
+        String cacheName = "testPreloaded~default";
+        assertFalse(CodeSystemsCache.isPreloaded(cacheName));
+        assertTrue(CodeSystemsCache.setPreloaded(cacheName));
+        assertFalse(CodeSystemsCache.setPreloaded(cacheName));
+        assertTrue(CodeSystemsCache.isPreloaded(cacheName));
+        assertNotNull(CodeSystemsCache.dumpCacheContents());
+    }
+}
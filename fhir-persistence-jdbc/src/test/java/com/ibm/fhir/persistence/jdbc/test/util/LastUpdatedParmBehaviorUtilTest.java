@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -243,7 +243,7 @@ public class LastUpdatedParmBehaviorUtilTest {
         expectedBindVariables.add(value);
 
         String expectedSql =
-                "((LAST_UPDATED < ? AND LAST_UPDATED > ?))";
+                "((LAST_UPDATED < ? OR LAST_UPDATED > ?))";
         runTest(queryParm,
                 expectedBindVariables,
                 expectedSql);
@@ -291,4 +291,22 @@ public class LastUpdatedParmBehaviorUtilTest {
                 expectedBindVariables,
                 expectedSql, "Date", true);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDerivedTableWithMultipleParameters() throws Exception {
+        String vTime = "2019-12-11T00:00:00Z";
+        String vTime2 = "2020-01-11T00:00:00Z";
+
+        List<QueryParameter> parameters = new ArrayList<>();
+        parameters.add(generateQueryParameter(SearchConstants.Prefix.GE, null, vTime));
+        parameters.add(generateQueryParameter(SearchConstants.Prefix.LT, null, vTime2));
+
+        StringBuilder fromClause = new StringBuilder();
+        LastUpdatedParmBehaviorUtil behavior = new LastUpdatedParmBehaviorUtil();
+        behavior.buildLastUpdatedDerivedTable(fromClause, "Patient", parameters);
+
+        assertEquals(fromClause.toString(),
+                "( SELECT * FROM Patient_RESOURCES IR WHERE (LAST_UPDATED >= ?) AND (LAST_UPDATED < ?))");
+        assertEquals(behavior.getBindVariables().size(), 2);
+    }
+}
@@ -11,6 +11,7 @@ import static org.testng.Assert.assertEquals;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -235,6 +236,22 @@ public class QuantityParmBehaviorUtilTest {
                 return 0;
             }
 
+            @Override
+            public Integer getParameterNameIdFromCaches(String parameterName) {
+                return null;
+            }
+
+            @Override
+            public Integer getCodeSystemIdFromCaches(String codeSystemName) {
+                return null;
+            }
+
+            @Override
+            public void prefetchIds(Collection<String> parameterNames, Collection<String> codeSystemNames)
+                    throws FHIRPersistenceException {
+                // do nothing
+            }
+
             @Override
             public void addCodeSystemsCacheCandidate(String codeSystemName, Integer codeSystemId)
                     throws FHIRPersistenceException {
@@ -19,6 +19,8 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Base64.Encoder;
@@ -27,6 +29,7 @@ import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -65,6 +68,7 @@ import com.ibm.fhir.database.utils.transaction.TransactionFactory;
 import com.ibm.fhir.database.utils.version.CreateVersionHistory;
 import com.ibm.fhir.database.utils.version.VersionHistoryService;
 import com.ibm.fhir.schema.app.util.TenantKeyFileUtil;
+import com.ibm.fhir.schema.control.FhirResourceTableGroup;
 import com.ibm.fhir.schema.control.FhirSchemaConstants;
 import com.ibm.fhir.schema.control.FhirSchemaGenerator;
 import com.ibm.fhir.schema.control.GetResourceTypeList;
@@ -92,6 +96,13 @@ public class Main {
     private static final int EXIT_VALIDATION_FAILED = 3; // validation test failed
     private static final double NANOS = 1e9;
 
+    // The version history entry which marks a time-partitioned data schema
+    private static final String TIME_PARTITION_MARKER = "LAST_UPDATED";
+    private static final int DEFAULT_ROLL_PARTITIONS_MONTHS_AHEAD = 3;
+
+    // The version history entry which marks a data schema with the xx_SORT_VALUES tables
+    private static final String SORT_VALUES_MARKER = "SORT_VALUES";
+
     // Indicates if the feature is enabled for the DbType
     public List<DbType> MULTITENANT_FEATURE_ENABLED = Arrays.asList(DbType.DB2);
 
@@ -148,7 +159,21 @@ public class Main {
 
     // The connection pool and transaction provider to support concurrent operations
     private int maxConnectionPoolSize = FhirSchemaConstants.DEFAULT_POOL_SIZE;
+    // The number of threads used to apply DDL in parallel (defaults to the pool size)
+    private int threadPoolSize = 0;
     private PoolConnectionProvider connectionPool;
+
+    // Range-partition the resource version tables by LAST_UPDATED (new schemas only)
+    private boolean timePartitioned = false;
+
+    // Add the xx_SORT_VALUES tables to the data schema
+    private boolean sortValues = false;
+
+    // Add the monthly time partitions for this many months ahead of the current month
+    private Integer rollPartitionsMonthsAhead;
+
+    // Detach the monthly time partitions holding only versions older than this date
+    private LocalDate archivePartitionsBefore;
     private ITransactionProvider transactionProvider;
 
     // Random generator for new tenant keys and salts
@@ -257,6 +282,13 @@ public class Main {
                     throw new IllegalArgumentException("Missing value for argument at posn: " + i);
                 }
                 break;
+            case "--thread-pool-size":
+                if (++i < args.length) {
+                    this.threadPoolSize = Integer.parseInt(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Missing value for argument at posn: " + i);
+                }
+                break;
             case "--prop":
                 if (++i < args.length) {
                     // properties are given as name=value
@@ -265,6 +297,26 @@ public class Main {
                     throw new IllegalArgumentException("Missing value for argument at posn: " + i);
                 }
                 break;
+            case "--time-partitioned":
+                this.timePartitioned = true;
+                break;
+            case "--sort-values":
+                this.sortValues = true;
+                break;
+            case "--roll-partitions":
+                if (++i < args.length) {
+                    this.rollPartitionsMonthsAhead = Integer.parseInt(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Missing value for argument at posn: " + i);
+                }
+                break;
+            case "--archive-partitions-before":
+                if (++i < args.length) {
+                    this.archivePartitionsBefore = LocalDate.parse(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Missing value for argument at posn: " + i);
+                }
+                break;
             case "--confirm-drop":
                 this.confirmDrop = true;
                 break;
@@ -406,10 +458,35 @@ public class Main {
         ps.println("--pool-size poolSize");
         ps.println(" * poolsize used with the database actions ");
 
+        // Uses a specified number of threads for the DDL
+        ps.println("--thread-pool-size threadPoolSize");
+        ps.println(" * number of threads applying schema changes, partitions, procedures and grants in parallel ");
+        ps.println(" * (defaults to the poolsize)");
+
         // Property used to connect
         ps.println("--prop name=value");
         ps.println(" * name=value that is passed in on the commandline  ");
 
+        // Time partitioning of the resource version tables
+        ps.println("--time-partitioned");
+        ps.println(" * with --update-schema, range-partitions the xx_RESOURCES tables by LAST_UPDATED");
+        ps.println(" * with a partition per tenant and month (DB2 only, new schemas only)");
+
+        // Tables materializing the sort values of the configured search parameters
+        ps.println("--sort-values");
+        ps.println(" * with --update-schema, adds the xx_SORT_VALUES tables needed by");
+        ps.println(" * fhirServer/search/sortValueParameters (kept by later updates)");
+
+        // Adds the time partitions for the coming months
+        ps.println("--roll-partitions monthsAhead");
+        ps.println(" * adds the monthly partitions up to monthsAhead months after the current month");
+        ps.println(" * must be run before the last partition fills up, e.g. as a weekly job");
+
+        // Detaches old time partitions
+        ps.println("--archive-partitions-before yyyy-MM-dd");
+        ps.println(" * detaches the monthly partitions ending on or before the date into tables which");
+        ps.println(" * can be exported and dropped");
+
         // Confirms dropping of the schema
         ps.println("--confirm-drop");
         ps.println(" * confirms the dropping of a schema");
@@ -488,8 +565,10 @@ public class Main {
      */
     protected void dropSchema() {
 
-        // Build/update the tables as well as the stored procedures
+        // Build/update the tables as well as the stored procedures. The sort values tables
+        // are included whether or not they were added; dropping a missing table is skipped.
         FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
+        gen.setSortValues(true);
         PhysicalDataModel pdm = new PhysicalDataModel();
         gen.buildSchema(pdm);
 
@@ -563,24 +642,9 @@ public class Main {
      */
     protected void updateSchema() {
 
-        // Build/update the FHIR-related tables as well as the stored procedures
-        FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
-        PhysicalDataModel pdm = new PhysicalDataModel();
-        gen.buildSchema(pdm);
-        gen.buildProcedures(pdm);
-
-        // Build/update the Liberty OAuth-related tables
-        if (updateOauthSchema) {
-            OAuthSchemaGenerator oauthSchemaGenerator = new OAuthSchemaGenerator(oauthSchemaName);
-            oauthSchemaGenerator.buildOAuthSchema(pdm);
-        }
-
         // The objects are applied in parallel, which relies on each object
         // expressing its dependencies correctly. Changes are only applied
         // if their version is greater than the current version.
-        TaskService taskService = new TaskService();
-        ExecutorService pool = Executors.newFixedThreadPool(this.maxConnectionPoolSize);
-        ITaskCollector collector = taskService.makeTaskCollector(pool);
         IDatabaseAdapter adapter = getDbAdapter(connectionPool);
 
         // Before we start anything, we need to make sure our schema history
@@ -596,9 +660,50 @@ public class Main {
         vhs.init();
 
         // Use the version history service to determine if this table existed before we run `applyWithHistory`
-        boolean newDb = vhs.getVersion(schemaName, DatabaseObjectType.TABLE.name(), "PARAMETER_NAMES") == null;
+        boolean newDb = vhs.getVersion(schemaName, DatabaseObjectType.TABLE.name(), "PARAMETER_NAMES") == 0;
+
+        // Time partitioning changes how the tables are created, so it can only be chosen for
+        // a new schema. The choice is recorded in the version history before anything is
+        // created, so later runs (including a rerun after a failure) build the same model.
+        if (this.timePartitioned && !isTimePartitioned(vhs)) {
+            if (!newDb) {
+                throw new IllegalArgumentException("--time-partitioned can only be used when the schema is first created");
+            }
+            if (MULTITENANT_FEATURE_ENABLED.contains(dbType)) {
+                addVersionHistoryMarker(vhs, DatabaseObjectType.PARTITION, TIME_PARTITION_MARKER);
+            } else {
+                logger.warning("Time partitioning is not supported for " + dbType + "; ignoring --time-partitioned");
+            }
+        }
+
+        // The sort values tables can be added to an existing schema at any time. Like time
+        // partitioning, the choice is recorded in the version history so that later runs
+        // (and the other actions) build the same model.
+        if (this.sortValues && !hasSortValues(vhs)) {
+            addVersionHistoryMarker(vhs, DatabaseObjectType.TABLE, SORT_VALUES_MARKER);
+        }
 
-        applyModel(pdm, adapter, collector, vhs);
+        // Build/update the FHIR-related tables as well as the stored procedures
+        FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
+        gen.setTimePartitioned(isTimePartitioned(vhs));
+        gen.setSortValues(hasSortValues(vhs));
+        PhysicalDataModel pdm = new PhysicalDataModel();
+        gen.buildSchema(pdm);
+        gen.buildProcedures(pdm);
+
+        // Build/update the Liberty OAuth-related tables
+        if (updateOauthSchema) {
+            OAuthSchemaGenerator oauthSchemaGenerator = new OAuthSchemaGenerator(oauthSchemaName);
+            oauthSchemaGenerator.buildOAuthSchema(pdm);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(this.threadPoolSize);
+        try {
+            ITaskCollector collector = new TaskService().makeTaskCollector(pool);
+            applyModel(pdm, adapter, collector, vhs);
+        } finally {
+            pool.shutdown();
+        }
         // There is a working data model at this point.
 
         // If the db is multi-tenant, we populate the resource types and parameter names in allocate-tenant.
@@ -606,6 +711,23 @@ public class Main {
         if (!MULTITENANT_FEATURE_ENABLED.contains(dbType) && newDb) {
             populateResourceTypeAndParameterNameTableEntries(null);
         }
+
+        // Tables added by this update only have the initial partition, so give them a partition
+        // for each of the tenants already allocated. Like allocate-tenant, this can simply be
+        // run again after a failure.
+        if (MULTITENANT_FEATURE_ENABLED.contains(dbType) && !newDb) {
+            boolean partitioned = runTasks("tenant partition",
+                collector -> pdm.collectMissingTenantPartitions(collector, adapter, this.transactionProvider, vhs, schemaName));
+            if (!partitioned) {
+                throw new DataAccessException("Tenant partition creation did not complete; run --update-schema again to resume");
+            }
+        }
+
+        // Keep the time partitions of the existing tenants ahead on each deployment; this also
+        // adds the future partition to tenants allocated before there was one
+        if (MULTITENANT_FEATURE_ENABLED.contains(dbType) && !newDb && isTimePartitioned(vhs) && this.rollPartitionsMonthsAhead == null) {
+            rollPartitions(DEFAULT_ROLL_PARTITIONS_MONTHS_AHEAD);
+        }
     }
 
     /**
@@ -646,23 +768,10 @@ public class Main {
         gen.buildSchema(pdm);
 
         // Now only apply the procedures in the model. Much faster than
-        // going through the whole schema
-        try {
-            try (Connection c = createConnection()) {
-                try {
-                    JdbcTarget target = new JdbcTarget(c);
-                    Db2Adapter adapter = new Db2Adapter(target);
-                    pdm.applyProcedures(adapter);
-                } catch (Exception x) {
-                    c.rollback();
-                    throw x;
-                }
-                c.commit();
-            }
-        } catch (SQLException x) {
-            throw translator.translate(x);
-        }
-
+        // going through the whole schema. Each procedure is replaced in
+        // its own transaction, so a failure doesn't undo the others.
+        Db2Adapter adapter = new Db2Adapter(connectionPool);
+        runTasks("procedure updates", collector -> pdm.collectProcedures(collector, adapter, this.transactionProvider));
     }
 
     /**
@@ -680,6 +789,40 @@ public class Main {
 
         // FHIR in the hole!
         logger.info("Starting model updates");
+        startAndWait(collector);
+    }
+
+    /**
+     * Collect tasks using the given collector function, then run them on a new
+     * pool of threadPoolSize threads and wait for everything to complete
+     *
+     * @param description
+     * @param collectorFunction
+     * @return true if all of the tasks completed successfully
+     */
+    protected boolean runTasks(String description, Consumer<ITaskCollector> collectorFunction) {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threadPoolSize);
+        try {
+            ITaskCollector collector = new TaskService().makeTaskCollector(pool);
+            logger.info("Collecting " + description + " tasks");
+            collectorFunction.accept(collector);
+
+            logger.info("Starting " + description + " [threads=" + this.threadPoolSize + "]");
+            return startAndWait(collector);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Start the tasks of the collector and wait for them to complete, reporting
+     * any failures. Tasks which completed successfully have their progress
+     * recorded, so running the action again will pick up where it stopped.
+     *
+     * @param collector
+     * @return true if all of the tasks completed successfully
+     */
+    protected boolean startAndWait(ITaskCollector collector) {
         collector.startAndWait();
 
         Collection<ITaskGroup> failedTaskGroups = collector.getFailedTaskGroups();
@@ -689,7 +832,9 @@ public class Main {
             final String failedStr =
                     failedTaskGroups.stream().map((tg) -> tg.getTaskId()).collect(Collectors.joining(","));
             logger.severe("List of failed task groups: " + failedStr);
+            return false;
         }
+        return true;
     }
 
     /**
@@ -735,6 +880,13 @@ public class Main {
     protected void configureConnectionPool() {
         JdbcPropertyAdapter adapter = getPropertyAdapter(properties);
 
+        // Each DDL thread needs its own connection
+        if (this.threadPoolSize <= 0 || this.dbType == DbType.DERBY) {
+            this.threadPoolSize = this.maxConnectionPoolSize;
+        } else {
+            this.maxConnectionPoolSize = Math.max(this.maxConnectionPoolSize, this.threadPoolSize);
+        }
+
         JdbcConnectionProvider cp = new JdbcConnectionProvider(this.translator, adapter);
         this.connectionPool = new PoolConnectionProvider(cp, this.maxConnectionPoolSize);
         this.transactionProvider = new SimpleTransactionProvider(this.connectionPool);
@@ -781,6 +933,14 @@ public class Main {
             dropTenant();
         }
 
+        if (this.rollPartitionsMonthsAhead != null) {
+            rollPartitions(this.rollPartitionsMonthsAhead);
+        }
+
+        if (this.archivePartitionsBefore != null) {
+            archivePartitions();
+        }
+
         if (this.grantTo != null) {
             grantPrivileges(FhirSchemaConstants.FHIR_USER_GRANT_GROUP);
         }
@@ -801,22 +961,19 @@ public class Main {
             return;
         }
 
+        final Db2Adapter adapter = new Db2Adapter(this.connectionPool);
+        VersionHistoryService vhs = new VersionHistoryService(adminSchemaName, schemaName);
+        vhs.setTransactionProvider(transactionProvider);
+        vhs.setTarget(adapter);
+        vhs.init();
+
         // Build/update the tables as well as the stored procedures
         FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
+        gen.setSortValues(hasSortValues(vhs));
         PhysicalDataModel pdm = new PhysicalDataModel();
         gen.buildSchema(pdm);
 
-        final Db2Adapter adapter = new Db2Adapter(this.connectionPool);
-        try (ITransaction tx = TransactionFactory.openTransaction(connectionPool)) {
-            try {
-                pdm.applyGrants(adapter, groupName, grantTo);
-            } catch (DataAccessException x) {
-                // Something went wrong, so mark the transaction as failed
-                tx.setRollbackOnly();
-                throw x;
-            }
-        }
-
+        runTasks("grant", collector -> pdm.collectGrants(collector, adapter, this.transactionProvider, groupName, grantTo));
     }
 
     /**
@@ -919,13 +1076,87 @@ public class Main {
     }
 
     /**
-     * Allocate this tenant, creating new partitions if required.
+     * Allocate this tenant, creating new partitions if required. If an earlier
+     * allocation of the tenant did not complete, it is resumed from where it stopped.
      */
     protected void allocateTenant() {
         if (!MULTITENANT_FEATURE_ENABLED.contains(dbType)) {
             return;
         }
 
+        Db2Adapter adapter = new Db2Adapter(connectionPool);
+
+        // A tenant which is still being provisioned is the result of an earlier allocation
+        // which failed part way through. We keep its id and key and finish the job.
+        Tenant tenant = getTenant(adapter, tenantName);
+        boolean resume = tenant != null && tenant.getTenantStatus() == TenantStatus.PROVISIONING;
+
+        int tenantId;
+        if (resume) {
+            tenantId = tenant.getTenantId();
+            logger.info("Resuming allocation of tenant: " + tenantName + " with Id = " + tenantId);
+        } else {
+            tenantId = allocateNewTenant(adapter);
+        }
+
+        // The partitions which already exist for this tenant (if we're resuming) are
+        // recorded in the version history of the data schema
+        VersionHistoryService vhs = new VersionHistoryService(adminSchemaName, schemaName);
+        vhs.setTransactionProvider(transactionProvider);
+        vhs.setTarget(adapter);
+        vhs.init();
+
+        // Build/update the tables as well as the stored procedures
+        FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
+        gen.setTimePartitioned(isTimePartitioned(vhs));
+        gen.setSortValues(hasSortValues(vhs));
+        PhysicalDataModel pdm = new PhysicalDataModel();
+        gen.buildSchema(pdm);
+
+        // Create the tenant tablespace and then the table partitions in parallel. Each partition
+        // is created in its own transaction. Note...the extent size used for the partitions needs
+        // to match the extent size of the original table tablespace (FHIR_TS) so this must be constant.
+        boolean partitioned = runTasks("tenant partition",
+            collector -> pdm.collectTenantPartitions(collector, adapter, this.transactionProvider, vhs, schemaName,
+                tenantId, FhirSchemaConstants.FHIR_TS_EXTENT_KB));
+        if (!partitioned) {
+            throw new DataAccessException("Tenant partition creation did not complete for tenant: " + tenantName
+                    + "; run --allocate-tenant again to resume");
+        }
+
+        // Fill any static data tables (which are also partitioned by tenant)
+        // Prepopulate the Resource Type Tables and Parameters Name/Code Table
+        populateResourceTypeAndParameterNameTableEntries(tenantId, vhs);
+
+        // Now all the table partitions have been allocated, we can mark the tenant as ready
+        try (ITransaction tx = TransactionFactory.openTransaction(connectionPool)) {
+            try {
+                adapter.updateTenantStatus(adminSchemaName, tenantId, TenantStatus.ALLOCATED);
+            } catch (DataAccessException x) {
+                // Something went wrong, so mark the transaction as failed
+                tx.setRollbackOnly();
+                throw x;
+            }
+        }
+
+        if (resume) {
+            logger.info("Allocated tenant: " + tenantName + " with Id = " + tenantId);
+        } else if (tenantKeyFileName == null) {
+            logger.info("Allocated tenant: " + tenantName + " [key=" + tenantKey + "] with Id = " + tenantId);
+        } else {
+            logger.info("Allocated tenant: " + tenantName + " [tenantKeyFileName=" + tenantKeyFileName + "] with Id = "
+                    + tenantId);
+        }
+    }
+
+    /**
+     * Add the new tenant and its key to the tenants table. The tenant stays in the
+     * PROVISIONING state until all of its partitions have been created.
+     *
+     * @param adapter
+     * @return the id of the new tenant
+     */
+    protected int allocateNewTenant(Db2Adapter adapter) {
         // The key we'll use for this tenant. This key should be used in subsequent
         // activities related to this tenant, such as setting the tenant context.
         if (tenantKeyFileUtil.keyFileExists(tenantKeyFileName)) {
@@ -942,7 +1173,6 @@ public class Main {
         // key, giving 256 bits of entropy.
         final String tenantSalt = getRandomKey();
 
-        Db2Adapter adapter = new Db2Adapter(connectionPool);
         checkIfTenantNameAndTenantKeyExists(adapter, tenantName, tenantKey);
 
         if (tenantKeyFileName == null) {
@@ -970,42 +1200,31 @@ public class Main {
             }
         }
 
-        // Build/update the tables as well as the stored procedures
-        FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
-        PhysicalDataModel pdm = new PhysicalDataModel();
-        gen.buildSchema(pdm);
-
-        // Get the data model to create the table partitions. This is threaded, so transactions are
-        // handled within each thread by the adapter. This means we should probably pull some of
-        // that logic out of the adapter and handle it at a higher level. Note...the extent size used
-        // for the partitions needs to match the extent size of the original table tablespace (FHIR_TS)
-        // so this must be constant.
-        pdm.addTenantPartitions(adapter, schemaName, tenantId, FhirSchemaConstants.FHIR_TS_EXTENT_KB);
-
-        // Fill any static data tables (which are also partitioned by tenant)
-        // Prepopulate the Resource Type Tables and Parameters Name/Code Table
-        populateResourceTypeAndParameterNameTableEntries(tenantId);
+        // The tenant now exists, so save the key straight away. If the allocation
+        // fails after this point, it is resumed with the same key.
+        if (tenantKeyFileName != null && !tenantKeyFileUtil.keyFileExists(tenantKeyFileName)) {
+            tenantKeyFileUtil.writeTenantFile(tenantKeyFileName, tenantKey);
+        }
+        return tenantId;
+    }
 
-        // Now all the table partitions have been allocated, we can mark the tenant as ready
+    /**
+     * Get the tenant with the given name
+     *
+     * @param adapter
+     * @param tenantName
+     * @return the tenant, or null if it doesn't exist
+     */
+    protected Tenant getTenant(Db2Adapter adapter, String tenantName) {
         try (ITransaction tx = TransactionFactory.openTransaction(connectionPool)) {
             try {
-                adapter.updateTenantStatus(adminSchemaName, tenantId, TenantStatus.ALLOCATED);
+                return adapter.runStatement(new GetTenantDAO(adminSchemaName, tenantName));
             } catch (DataAccessException x) {
                 // Something went wrong, so mark the transaction as failed
                 tx.setRollbackOnly();
                 throw x;
             }
         }
-
-        if (tenantKeyFileName == null) {
-            logger.info("Allocated tenant: " + tenantName + " [key=" + tenantKey + "] with Id = " + tenantId);
-        } else {
-            logger.info("Allocated tenant: " + tenantName + " [tenantKeyFileName=" + tenantKeyFileName + "] with Id = "
-                    + tenantId);
-            if (!tenantKeyFileUtil.keyFileExists(tenantKeyFileName)) {
-                tenantKeyFileUtil.writeTenantFile(tenantKeyFileName, tenantKey);
-            }
-        }
     }
 
     /**
@@ -1019,6 +1238,25 @@ public class Main {
      *                 passing in null signals not multi-tenant.
      */
     protected void populateResourceTypeAndParameterNameTableEntries(Integer tenantId) {
+        populateResourceTypeAndParameterNameTableEntries(tenantId, null);
+    }
+
+    /**
+     * populates for the given tenantId the RESOURCE_TYPE table, unless the version
+     * history shows that this has already been done. Completion is recorded in the
+     * version history in the same transaction.
+     *
+     * @param tenantId the mt_id that is used to setup the partition.
+     *                 passing in null signals not multi-tenant.
+     * @param vhs the version history service of the data schema, or null
+     */
+    protected void populateResourceTypeAndParameterNameTableEntries(Integer tenantId, VersionHistoryService vhs) {
+        final String objectName = "LOOKUP_TABLES_TENANT" + tenantId;
+        if (vhs != null && !vhs.applies(schemaName, DatabaseObjectType.DATA.name(), objectName, 1)) {
+            logger.info("tenantId [" + tenantId + "] has already been pre-populated with lookup table data.");
+            return;
+        }
+
         try (ITransaction tx = TransactionFactory.openTransaction(connectionPool)) {
             try (Connection c = connectionPool.getConnection();) {
                 logger.info("tenantId [" + tenantId + "] is being pre-populated with lookup table data.");
@@ -1029,6 +1267,9 @@ public class Main {
                 PopulateParameterNames populateParameterNames =
                         new PopulateParameterNames(adminSchemaName, schemaName, tenantId);
                 populateParameterNames.run(translator, c);
+                if (vhs != null) {
+                    vhs.insertVersionHistoryInTx(schemaName, DatabaseObjectType.DATA.name(), objectName, 1);
+                }
                 logger.info("Finished prepopulating the resource type and search parameter code/name tables tables");
             } catch (SQLException ex) {
                 tx.setRollbackOnly();
@@ -1124,8 +1365,14 @@ public class Main {
             }
         }
 
+        VersionHistoryService vhs = new VersionHistoryService(adminSchemaName, schemaName);
+        vhs.setTransactionProvider(transactionProvider);
+        vhs.setTarget(adapter);
+        vhs.init();
+
         // Build the model of the data (FHIRDATA) schema which is then used to drive the drop
         FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
+        gen.setSortValues(hasSortValues(vhs));
         PhysicalDataModel pdm = new PhysicalDataModel();
         gen.buildSchema(pdm);
 
@@ -1147,6 +1394,113 @@ public class Main {
 
     }
 
+    /**
+     * Add the monthly partitions of the time-partitioned tables for each tenant, up to
+     * the given number of months after the current month. New versions after the last
+     * monthly partition go to the tenant's future partition, which can't be split, so
+     * this needs to be run regularly.
+     *
+     * @param monthsAhead
+     */
+    protected void rollPartitions(int monthsAhead) {
+        if (!MULTITENANT_FEATURE_ENABLED.contains(dbType)) {
+            return;
+        }
+
+        Db2Adapter adapter = new Db2Adapter(connectionPool);
+        PhysicalDataModel pdm = buildTimePartitionedModel(adapter);
+        if (pdm != null) {
+            final LocalDate until = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).plusMonths(monthsAhead + 1);
+            logger.info("Adding time partitions up to " + until);
+            runTasks("partition roll", collector -> pdm.collectTimePartitionRolls(collector, adapter, this.transactionProvider, until));
+        }
+    }
+
+    /**
+     * Archive the monthly partitions of the time-partitioned tables which only hold
+     * versions last updated before archivePartitionsBefore. The current versions stay:
+     * a partition without current versions is detached, and otherwise only its other
+     * versions are moved. Either way, the archived versions end up in tables named after
+     * the table and partition, which can then be exported and dropped.
+     */
+    protected void archivePartitions() {
+        if (!MULTITENANT_FEATURE_ENABLED.contains(dbType)) {
+            return;
+        }
+
+        Db2Adapter adapter = new Db2Adapter(connectionPool);
+        PhysicalDataModel pdm = buildTimePartitionedModel(adapter);
+        if (pdm != null) {
+            logger.info("Archiving time partitions before " + archivePartitionsBefore);
+            runTasks("partition archive", collector -> pdm.collectTimePartitionArchives(collector, adapter, this.transactionProvider,
+                archivePartitionsBefore, t -> FhirResourceTableGroup.getCurrentVersionPredicate(t.getSchemaName(), t.getObjectName())));
+        }
+    }
+
+    /**
+     * Build the model of the data schema if it is time-partitioned
+     *
+     * @param adapter
+     * @return the model, or null if the schema isn't time-partitioned
+     */
+    protected PhysicalDataModel buildTimePartitionedModel(IDatabaseAdapter adapter) {
+        VersionHistoryService vhs = new VersionHistoryService(adminSchemaName, schemaName);
+        vhs.setTransactionProvider(transactionProvider);
+        vhs.setTarget(adapter);
+        vhs.init();
+
+        if (!isTimePartitioned(vhs)) {
+            logger.warning("Schema " + schemaName + " is not time-partitioned; nothing to do");
+            return null;
+        }
+
+        FhirSchemaGenerator gen = new FhirSchemaGenerator(adminSchemaName, schemaName);
+        gen.setTimePartitioned(true);
+        PhysicalDataModel pdm = new PhysicalDataModel();
+        gen.buildSchema(pdm);
+        return pdm;
+    }
+
+    /**
+     * Was the data schema created with time partitioning
+     *
+     * @param vhs the version history service of the data schema
+     * @return
+     */
+    protected boolean isTimePartitioned(VersionHistoryService vhs) {
+        return vhs.getVersion(schemaName, DatabaseObjectType.PARTITION.name(), TIME_PARTITION_MARKER) > 0;
+    }
+
+    /**
+     * Does the data schema have the xx_SORT_VALUES tables
+     *
+     * @param vhs the version history service of the data schema
+     * @return
+     */
+    protected boolean hasSortValues(VersionHistoryService vhs) {
+        return vhs.getVersion(schemaName, DatabaseObjectType.TABLE.name(), SORT_VALUES_MARKER) > 0;
+    }
+
+    /**
+     * Record an option of the data schema in the version history, such as time partitioning
+     *
+     * @param vhs the version history service of the data schema
+     * @param type
+     * @param marker
+     */
+    protected void addVersionHistoryMarker(VersionHistoryService vhs, DatabaseObjectType type, String marker) {
+        try (ITransaction tx = TransactionFactory.openTransaction(connectionPool)) {
+            try {
+                vhs.insertVersionHistoryInTx(schemaName, type.name(), marker, 1);
+            } catch (DataAccessException x) {
+                // Something went wrong, so mark the transaction as failed
+                tx.setRollbackOnly();
+                throw x;
+            }
+        }
+        vhs.init();
+    }
+
     protected boolean checkCompatibility() {
         Db2Adapter adapter = new Db2Adapter(connectionPool);
         try (ITransaction tx = TransactionFactory.openTransaction(connectionPool)) {
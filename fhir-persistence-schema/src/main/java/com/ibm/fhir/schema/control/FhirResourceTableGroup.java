@@ -18,6 +18,8 @@ import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATA;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_END;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_START;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_VALUE_DROPPED_COLUMN;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_VALUE_MAX;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_VALUE_MIN;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.FK;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.IDX;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.IS_DELETED;
@@ -36,6 +38,8 @@ import static com.ibm.fhir.schema.control.FhirSchemaConstants.MT_ID;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.NUMBER_VALUE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.NUMBER_VALUE_HIGH;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.NUMBER_VALUE_LOW;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.NUMBER_VALUE_MAX;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.NUMBER_VALUE_MIN;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.PARAMETER_NAMES;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.PARAMETER_NAME_ID;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.PATIENT_CURRENT_REFS;
@@ -47,8 +51,11 @@ import static com.ibm.fhir.schema.control.FhirSchemaConstants.QUANTITY_VALUE_LOW
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_ID;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_TYPES;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_TYPE_ID;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.SORT_VALUES;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.STR_VALUE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.STR_VALUE_LCASE;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.STR_VALUE_MAX;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.STR_VALUE_MIN;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.TOKEN_VALUE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.VERSION_ID;
 
@@ -98,6 +105,12 @@ public class FhirResourceTableGroup {
     // Privileges to be granted to each of the resource tables created by this class
     private final Collection<GroupPrivilege> resourceTablePrivileges;
 
+    // Range-partition the version tables by LAST_UPDATED within each tenant (where supported)
+    private final boolean timePartitioned;
+
+    // Add the table materializing the sort values of each resource
+    private final boolean sortValues;
+
     private static final String _LOGICAL_RESOURCES = "_LOGICAL_RESOURCES";
     private static final String _RESOURCES = "_RESOURCES";
 
@@ -121,13 +134,16 @@ public class FhirResourceTableGroup {
      * Public constructor
      */
     public FhirResourceTableGroup(PhysicalDataModel model, String schemaName, SessionVariableDef sessionVariable,
-            Set<IDatabaseObject> procedureDependencies, Tablespace fhirTablespace, Collection<GroupPrivilege> privileges) {
+            Set<IDatabaseObject> procedureDependencies, Tablespace fhirTablespace, Collection<GroupPrivilege> privileges,
+            boolean timePartitioned, boolean sortValues) {
         this.model = model;
         this.schemaName = schemaName;
         this.sessionVariable = sessionVariable;
         this.procedureDependencies = procedureDependencies;
         this.fhirTablespace = fhirTablespace;
         this.resourceTablePrivileges = privileges;
+        this.timePartitioned = timePartitioned;
+        this.sortValues = sortValues;
     }
 
     /**
@@ -161,6 +177,9 @@ public class FhirResourceTableGroup {
         addLatLngValues(group, tablePrefix);
         addQuantityValues(group, tablePrefix);
         addComposites(group, tablePrefix);
+        if (sortValues) {
+            addSortValues(group, tablePrefix);
+        }
 
         // group all the tables under one object so that we can perform everything within one
         // transaction. This helps to eliminate deadlocks when adding the FK constraints due to
@@ -237,8 +256,12 @@ public class FhirResourceTableGroup {
         final List<String> prfIncludeCols = Arrays.asList(LOGICAL_RESOURCE_ID, VERSION_ID, IS_DELETED);
         final String tableName = prefix + _RESOURCES;
 
+        // When time partitioned, the versions of each tenant are split into monthly partitions
+        // by LAST_UPDATED so that history, _lastUpdated and _since ranges only touch the partitions
+        // they need and old months can be detached for archival
         Table tbl = Table.builder(schemaName, tableName)
                 .setTenantColumnName(MT_ID)
+                .setTimePartitionColumnName(timePartitioned ? LAST_UPDATED : null)
                 .addTag(FhirSchemaTags.RESOURCE_TYPE, prefix)
                 .addBigIntColumn(        RESOURCE_ID,              false)
                 .addBigIntColumn(LOGICAL_RESOURCE_ID,              false)
@@ -258,6 +281,22 @@ public class FhirResourceTableGroup {
         model.addTable(tbl);
     }
 
+    /**
+     * Get the predicate matching the current versions among the rows of the given xx_RESOURCES
+     * table, which it refers to by the correlation name T. The current versions must stay in
+     * the table when its old time partitions are archived.
+     *
+     * @param schemaName
+     * @param resourcesTableName
+     * @return
+     */
+    public static String getCurrentVersionPredicate(String schemaName, String resourcesTableName) {
+        final String prefix = resourcesTableName.substring(0, resourcesTableName.length() - _RESOURCES.length());
+        return "EXISTS (SELECT 1 FROM " + schemaName + "." + prefix + _LOGICAL_RESOURCES + " LR"
+                + " WHERE LR." + LOGICAL_RESOURCE_ID + " = T." + LOGICAL_RESOURCE_ID
+                + " AND LR." + CURRENT_RESOURCE_ID + " = T." + RESOURCE_ID + ")";
+    }
+
     /**
      * Add the STR_VALUES table for the given resource name prefix
      * <pre>
@@ -481,6 +520,62 @@ ALTER TABLE device_number_values ADD CONSTRAINT fk_device_number_values_r  FOREI
         model.addTable(tbl);
     }
 
+    /**
+     * The sort values table holds one row per resource and sortable search parameter (see
+     * fhirServer/search/sortValueParameters), carrying the lowest and highest value of that
+     * parameter. A sorted search can then order by a single column of a single outer join
+     * instead of aggregating over the parameter tables.
+     * <pre>
+CREATE TABLE device_sort_values  (
+  parameter_name_id     INT NOT NULL,
+  logical_resource_id   BIGINT NOT NULL,
+  str_value_min         VARCHAR(1024),
+  str_value_max         VARCHAR(1024),
+  date_value_min        TIMESTAMP,
+  date_value_max        TIMESTAMP,
+  number_value_min      DOUBLE,
+  number_value_max      DOUBLE
+)
+ALTER TABLE device_sort_values ADD CONSTRAINT pk_device_sort_values PRIMARY KEY (logical_resource_id, parameter_name_id);
+CREATE INDEX idx_device_sort_values_psn ON device_sort_values(parameter_name_id, str_value_min, logical_resource_id);
+...
+     * </pre>
+     * @param group
+     * @param prefix
+     */
+    public void addSortValues(List<IDatabaseObject> group, String prefix) {
+        final int msb = MAX_SEARCH_STRING_BYTES;
+        final String tableName = prefix + "_" + SORT_VALUES;
+        final String logicalResourcesTable = prefix + _LOGICAL_RESOURCES;
+
+        Table tbl = Table.builder(schemaName, tableName)
+                .addTag(FhirSchemaTags.RESOURCE_TYPE, prefix)
+                .setTenantColumnName(MT_ID)
+                .addIntColumn(     PARAMETER_NAME_ID,      false)
+                .addBigIntColumn(LOGICAL_RESOURCE_ID,      false)
+                .addVarcharColumn(     STR_VALUE_MIN, msb,  true)
+                .addVarcharColumn(     STR_VALUE_MAX, msb,  true)
+                .addTimestampColumn(  DATE_VALUE_MIN,       true)
+                .addTimestampColumn(  DATE_VALUE_MAX,       true)
+                .addDoubleColumn(   NUMBER_VALUE_MIN,       true)
+                .addDoubleColumn(   NUMBER_VALUE_MAX,       true)
+                .addIndex(IDX + tableName + "_PSN", PARAMETER_NAME_ID, STR_VALUE_MIN, LOGICAL_RESOURCE_ID)
+                .addIndex(IDX + tableName + "_PSX", PARAMETER_NAME_ID, STR_VALUE_MAX, LOGICAL_RESOURCE_ID)
+                .addIndex(IDX + tableName + "_PDN", PARAMETER_NAME_ID, DATE_VALUE_MIN, LOGICAL_RESOURCE_ID)
+                .addIndex(IDX + tableName + "_PDX", PARAMETER_NAME_ID, DATE_VALUE_MAX, LOGICAL_RESOURCE_ID)
+                .addPrimaryKey(PK + tableName, LOGICAL_RESOURCE_ID, PARAMETER_NAME_ID)
+                .addForeignKeyConstraint(FK + tableName + "_PN", schemaName, PARAMETER_NAMES, PARAMETER_NAME_ID)
+                .addForeignKeyConstraint(FK + tableName + "_RID", schemaName, logicalResourcesTable, LOGICAL_RESOURCE_ID)
+                .setTablespace(fhirTablespace)
+                .addPrivileges(resourceTablePrivileges)
+                .enableAccessControl(this.sessionVariable)
+                .build(model)
+                ;
+
+        group.add(tbl);
+        model.addTable(tbl);
+    }
+
     /**
      * <pre>
 CREATE TABLE device_latlng_values  (
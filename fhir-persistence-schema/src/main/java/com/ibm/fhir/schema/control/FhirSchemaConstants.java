@@ -32,6 +32,7 @@ public class FhirSchemaConstants {
 
     public static final String FHIR_SEQUENCE = "FHIR_SEQUENCE";
     public static final String FHIR_REF_SEQUENCE = "FHIR_REF_SEQUENCE";
+    public static final String FHIR_CHANGE_SEQUENCE = "FHIR_CHANGE_SEQUENCE";
     public static final String TENANT_SEQUENCE = "TENANT_SEQUENCE";
 
     // Tenant constants
@@ -53,6 +54,21 @@ public class FhirSchemaConstants {
     // R4 Logical Resource Date values for things like lastUpdated
     public static final String DATE_VALUES = "DATE_VALUES";
 
+    // R4 Append-only log of every resource version change, for type and system-level history
+    public static final String RESOURCE_CHANGE_LOG = "RESOURCE_CHANGE_LOG";
+    public static final String CHANGE_ID = "CHANGE_ID";
+    public static final String CHANGE_TSTAMP = "CHANGE_TSTAMP";
+    public static final String CHANGE_TYPE = "CHANGE_TYPE";
+
+    // R4 Per-resource-type sort values, one row per (resource, sortable parameter)
+    public static final String SORT_VALUES = "SORT_VALUES";
+    public static final String STR_VALUE_MIN = "STR_VALUE_MIN";
+    public static final String STR_VALUE_MAX = "STR_VALUE_MAX";
+    public static final String DATE_VALUE_MIN = "DATE_VALUE_MIN";
+    public static final String DATE_VALUE_MAX = "DATE_VALUE_MAX";
+    public static final String NUMBER_VALUE_MIN = "NUMBER_VALUE_MIN";
+    public static final String NUMBER_VALUE_MAX = "NUMBER_VALUE_MAX";
+
     // R4 Special extension to LIST_LOGICAL_RESOURCES to support list items
     public static final String LIST_LOGICAL_RESOURCES = "LIST_LOGICAL_RESOURCES";
     public static final String LIST_LOGICAL_RESOURCE_ITEMS = "LIST_LOGICAL_RESOURCE_ITEMS";
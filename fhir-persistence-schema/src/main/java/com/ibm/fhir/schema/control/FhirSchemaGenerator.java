@@ -6,6 +6,9 @@
 
 package com.ibm.fhir.schema.control;
 
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.CHANGE_ID;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.CHANGE_TSTAMP;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.CHANGE_TYPE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.CODE_SYSTEMS;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.CODE_SYSTEM_ID;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.CODE_SYSTEM_NAME;
@@ -13,6 +16,7 @@ import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_END;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_START;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_VALUES;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.DATE_VALUE_DROPPED_COLUMN;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.FHIR_CHANGE_SEQUENCE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.FHIR_REF_SEQUENCE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.FHIR_SEQUENCE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.FK;
@@ -27,6 +31,8 @@ import static com.ibm.fhir.schema.control.FhirSchemaConstants.MT_ID;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.PARAMETER_NAME;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.PARAMETER_NAMES;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.PARAMETER_NAME_ID;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_CHANGE_LOG;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_ID;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_TYPE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_TYPES;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.RESOURCE_TYPE_ID;
@@ -43,6 +49,7 @@ import static com.ibm.fhir.schema.control.FhirSchemaConstants.TENANT_SEQUENCE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.TENANT_STATUS;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.TOKEN_VALUE;
 import static com.ibm.fhir.schema.control.FhirSchemaConstants.TOKEN_VALUES;
+import static com.ibm.fhir.schema.control.FhirSchemaConstants.VERSION_ID;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -129,6 +136,9 @@ public class FhirSchemaGenerator {
     // The sequence used for the reference tables (parameter_names, code_systems etc)
     private Sequence fhirRefSequence;
 
+    // The sequence used for the change ids of the resource change log
+    private Sequence fhirChangeSequence;
+
     // The set of dependencies common to all of our resource procedures
     private Set<IDatabaseObject> procedureDependencies = new HashSet<>();
 
@@ -155,6 +165,12 @@ public class FhirSchemaGenerator {
     // The default tablespace used for everything not specific to a tenant
     private Tablespace fhirTablespace;
 
+    // Range-partition the resource version tables by LAST_UPDATED (DB2 only)
+    private boolean timePartitioned = false;
+
+    // Add the <TYPE>_SORT_VALUES tables, used when fhirServer/search/sortValueParameters is configured
+    private boolean sortValues = false;
+
     /**
      * Generate the IBM FHIR Server Schema for all resourceTypes
      *
@@ -336,10 +352,12 @@ public class FhirSchemaGenerator {
         buildAdminSchema(model);
         addFhirSequence(model);
         addFhirRefSequence(model);
+        addFhirChangeSequence(model);
         addParameterNames(model);
         addCodeSystems(model);
         addResourceTypes(model);
         addLogicalResources(model); // for system-level parameter search
+        addResourceChangeLog(model); // for system and type-level history
 
         Table globalTokenValues = addResourceTokenValues(model); // for system-level _tag and _security parameters
         Table globalStrValues = addResourceStrValues(model); // for system-level _profile parameters
@@ -386,11 +404,15 @@ public class FhirSchemaGenerator {
                 procedurePrivileges);
         pd.addTag(SCHEMA_GROUP_TAG, FHIRDATA_GROUP);
 
+        // Version 2 also appends to the RESOURCE_CHANGE_LOG
+        // Version 3 also deletes the _SORT_VALUES of an updated resource
+        // Version 4 also allocates the CHANGE_ID of the RESOURCE_CHANGE_LOG row
+        // Version 5 leaves the _SORT_VALUES to the server, as the tables only exist when enabled
         pd = model.addProcedure(this.schemaName,
                 ADD_ANY_RESOURCE,
-                FhirSchemaConstants.INITIAL_VERSION,
+                5,
                 () -> SchemaGeneratorUtil.readTemplate(adminSchemaName, schemaName, ADD_ANY_RESOURCE.toLowerCase() + ".sql", null),
-                Arrays.asList(fhirSequence, resourceTypesTable, allTablesComplete),
+                Arrays.asList(fhirSequence, fhirChangeSequence, resourceTypesTable, allTablesComplete),
                 procedurePrivileges);
         pd.addTag(SCHEMA_GROUP_TAG, FHIRDATA_GROUP);
     }
@@ -425,6 +447,53 @@ public class FhirSchemaGenerator {
         pdm.addObject(tbl);
     }
 
+    /**
+     * Add the system-wide RESOURCE_CHANGE_LOG table. A row is appended for every
+     * resource version stored, in the same transaction, so that type-level and
+     * system-level history can be read in CHANGE_ID order from the index without
+     * touching the resource tables. CHANGE_ID comes from the uncached FHIR_CHANGE_SEQUENCE,
+     * so it follows the order in which the changes were made. CHANGE_TYPE is 'C'reate,
+     * 'U'pdate or 'D'elete.
+     * <pre>
+        CREATE TABLE resource_change_log (
+          change_id               BIGINT     NOT NULL,
+          resource_id             BIGINT     NOT NULL,
+          resource_type_id        INT        NOT NULL,
+          logical_resource_id     BIGINT     NOT NULL,
+          version_id              INT        NOT NULL,
+          change_tstamp           TIMESTAMP  NOT NULL,
+          change_type             CHAR(1)    NOT NULL
+        );
+       </pre>
+     * @param pdm
+     */
+    public void addResourceChangeLog(PhysicalDataModel pdm) {
+        final String tableName = RESOURCE_CHANGE_LOG;
+
+        Table tbl = Table.builder(schemaName, tableName)
+                .setTenantColumnName(MT_ID)
+                .addBigIntColumn(          CHANGE_ID,     false)
+                .addBigIntColumn(        RESOURCE_ID,     false)
+                .addIntColumn(      RESOURCE_TYPE_ID,     false)
+                .addBigIntColumn(LOGICAL_RESOURCE_ID,     false)
+                .addIntColumn(            VERSION_ID,     false)
+                .addTimestampColumn(   CHANGE_TSTAMP,     false)
+                .addCharColumn(          CHANGE_TYPE,  1, false)
+                .addPrimaryKey(tableName + "_PK", CHANGE_ID)
+                .addUniqueIndex(IDX + tableName + "_RTCI", RESOURCE_TYPE_ID, CHANGE_ID)
+                .addUniqueIndex(IDX + tableName + "_TSCI", CHANGE_TSTAMP, CHANGE_ID)
+                .addForeignKeyConstraint(FK + tableName + "_RTID", schemaName, RESOURCE_TYPES, RESOURCE_TYPE_ID)
+                .setTablespace(fhirTablespace)
+                .addPrivileges(resourceTablePrivileges)
+                .enableAccessControl(this.sessionVariable)
+                .build(pdm);
+
+        tbl.addTag(SCHEMA_GROUP_TAG, FHIRDATA_GROUP);
+        this.procedureDependencies.add(tbl);
+        pdm.addTable(tbl);
+        pdm.addObject(tbl);
+    }
+
     /**
      * Add the system-wide TOKEN_VALUES table which is used for
      * _tag and _security search properties in R4
@@ -574,6 +643,26 @@ public class FhirSchemaGenerator {
         model.addObject(resourceTypesTable);
     }
 
+    /**
+     * Range-partition the xx_RESOURCES tables of each tenant by LAST_UPDATED, with a
+     * partition per month. This can only be chosen when the schema is first created.
+     *
+     * @param timePartitioned
+     */
+    public void setTimePartitioned(boolean timePartitioned) {
+        this.timePartitioned = timePartitioned;
+    }
+
+    /**
+     * Add the xx_SORT_VALUES table of each resource type, which materializes the sort
+     * values of the search parameters configured in fhirServer/search/sortValueParameters.
+     *
+     * @param sortValues
+     */
+    public void setSortValues(boolean sortValues) {
+        this.sortValues = sortValues;
+    }
+
     /**
      * Add the collection of tables for each of the listed
      * FHIR resource types
@@ -586,7 +675,7 @@ public class FhirSchemaGenerator {
 
         // The sessionVariable is used to enable access control on every table, so we
         // provide it as a dependency
-        FhirResourceTableGroup frg = new FhirResourceTableGroup(model, this.schemaName, sessionVariable, this.procedureDependencies, this.fhirTablespace, this.resourceTablePrivileges);
+        FhirResourceTableGroup frg = new FhirResourceTableGroup(model, this.schemaName, sessionVariable, this.procedureDependencies, this.fhirTablespace, this.resourceTablePrivileges, this.timePartitioned, this.sortValues);
         for (String resourceType: this.resourceTypes) {
             ObjectGroup group = frg.addResourceType(resourceType);
             group.addTag(SCHEMA_GROUP_TAG, FHIRDATA_GROUP);
@@ -741,6 +830,29 @@ public class FhirSchemaGenerator {
         pdm.addObject(fhirRefSequence);
     }
 
+    /**
+     * The change ids are used to page through the resource change log, so they must be
+     * allocated in order. The sequence is therefore created without a cache, because a
+     * cache per connection (as in PostgreSQL) hands out the values out of order.
+     * <pre>
+    CREATE SEQUENCE fhir_change_sequence
+             AS BIGINT
+     START WITH 1
+       NO CACHE
+       NO CYCLE;
+     * </pre>
+     *
+     * @param pdm
+     */
+    protected void addFhirChangeSequence(PhysicalDataModel pdm) {
+        this.fhirChangeSequence = new Sequence(schemaName, FHIR_CHANGE_SEQUENCE, FhirSchemaConstants.INITIAL_VERSION, 1);
+        this.fhirChangeSequence.addTag(SCHEMA_GROUP_TAG, FHIRDATA_GROUP);
+        procedureDependencies.add(fhirChangeSequence);
+        sequencePrivileges.forEach(p -> p.addToObject(fhirChangeSequence));
+
+        pdm.addObject(fhirChangeSequence);
+    }
+
     /**
      * Visitor for the resource types
      * @param consumer
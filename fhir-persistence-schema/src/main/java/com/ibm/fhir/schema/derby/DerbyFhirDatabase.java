@@ -64,7 +64,9 @@ public class DerbyFhirDatabase implements AutoCloseable, IConnectionProvider {
         derby.runWithAdapter(adapter -> CreateVersionHistory.createTableIfNeeded(ADMIN_SCHEMA_NAME, adapter));
 
         // Database objects for the admin schema (shared across multiple tenants in the same DB)
+        // The tests cover the materialized sort values too, so include their tables
         FhirSchemaGenerator gen = new FhirSchemaGenerator(ADMIN_SCHEMA_NAME, SCHEMA_NAME);
+        gen.setSortValues(true);
         PhysicalDataModel pdm = new PhysicalDataModel();
         gen.buildSchema(pdm);
         gen.buildProcedures(pdm);
@@ -181,6 +181,11 @@ BEGIN
       || ' VALUES ( ?, ?, ?, ?, ?, ?, ?)';
   EXECUTE stmt USING {{ADMIN_SCHEMA_NAME}}.sv_tenant_id, v_resource_id, v_logical_resource_id, v_insert_version, p_payload, p_last_updated, p_is_deleted;
 
+  -- Append the change to the global change log used for type and system-level history
+  INSERT INTO {{SCHEMA_NAME}}.resource_change_log (mt_id, change_id, resource_id, resource_type_id, logical_resource_id, version_id, change_tstamp, change_type)
+       VALUES ({{ADMIN_SCHEMA_NAME}}.sv_tenant_id, NEXT VALUE FOR {{SCHEMA_NAME}}.fhir_change_sequence, v_resource_id, v_resource_type_id, v_logical_resource_id, v_insert_version, p_last_updated,
+               CASE WHEN p_is_deleted = 'Y' THEN 'D' WHEN v_insert_version = 1 THEN 'C' ELSE 'U' END);
+
   IF p_version IS NULL OR p_version > v_version
   THEN
     -- only update the logical resource if the resource we are adding supercedes the
@@ -6,10 +6,14 @@
 
 package com.ibm.fhir.persistence;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.ibm.fhir.model.resource.OperationOutcome;
 import com.ibm.fhir.model.resource.Resource;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContext;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceDeletedException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceNotSupportedException;
 
 /**
@@ -57,6 +61,60 @@ public interface FHIRPersistence {
     <T extends Resource> SingleResourceResult<T> vread(FHIRPersistenceContext context, Class<T> resourceType, String logicalId, String versionId)
             throws FHIRPersistenceException;
 
+    /**
+     * Retrieves the most recent version of each of the specified FHIR Resources from the datastore.
+     * Version ids of the passed keys are ignored.
+     *
+     * <p>Implementations should retrieve the resources with as few datastore interactions as possible; the default
+     * implementation performs one 'read' per key.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param keys the resource type and logical id of each Resource instance to be retrieved
+     * @return a MultiResourceResult with one entry per key, in the order of the keys; the entry is null if the
+     *         resource was not found
+     * @throws FHIRPersistenceResourceDeletedException if one of the resources is currently in a deleted state and
+     *         FHIRPersistenceContext.includeDeleted() is set to false
+     * @throws FHIRPersistenceException
+     */
+    default MultiResourceResult<Resource> readMany(FHIRPersistenceContext context, List<ResourceKey> keys) throws FHIRPersistenceException {
+        List<Resource> resources = new ArrayList<>(keys.size());
+        for (ResourceKey key : keys) {
+            resources.add(read(context, key.getResourceType(), key.getLogicalId()).getResource());
+        }
+        return new MultiResourceResult.Builder<Resource>()
+                .success(true)
+                .resource(resources)
+                .build();
+    }
+
+    /**
+     * Retrieves specific versions of FHIR Resources from the datastore.
+     *
+     * <p>Implementations should retrieve the resources with as few datastore interactions as possible; the default
+     * implementation performs one 'vread' per key.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param keys the resource type, logical id and version id of each Resource instance to be retrieved
+     * @return a MultiResourceResult with one entry per key, in the order of the keys; the entry is null if the
+     *         resource version was not found
+     * @throws FHIRPersistenceResourceDeletedException if one of the resource versions is a deletion and
+     *         FHIRPersistenceContext.includeDeleted() is set to false
+     * @throws FHIRPersistenceException
+     */
+    default MultiResourceResult<Resource> vreadMany(FHIRPersistenceContext context, List<ResourceKey> keys) throws FHIRPersistenceException {
+        List<Resource> resources = new ArrayList<>(keys.size());
+        for (ResourceKey key : keys) {
+            if (key.getVersionId() == null) {
+                throw new FHIRPersistenceException("A version id is required for the vread of '" + key + "'");
+            }
+            resources.add(vread(context, key.getResourceType(), key.getLogicalId(), key.getVersionId()).getResource());
+        }
+        return new MultiResourceResult.Builder<Resource>()
+                .success(true)
+                .resource(resources)
+                .build();
+    }
+
     /**
      * Updates an existing FHIR Resource by storing a new version in the datastore.
      *
@@ -95,6 +153,21 @@ public interface FHIRPersistence {
      */
     <T extends Resource> MultiResourceResult<T> history(FHIRPersistenceContext context, Class<T> resourceType, String logicalId) throws FHIRPersistenceException;
 
+    /**
+     * Retrieves the versions of all FHIR Resources of the specified type (or of all types when resourceType is
+     * Resource.class) in the order they were stored, oldest first. Paging uses the cursor of the history context
+     * rather than a page number: the next cursor is set on the history context when there may be more changes.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param resourceType the resource type of the Resource instances to be retrieved, or Resource.class for all types
+     * @return a MultiResourceResult with a list containing the resource versions and/or
+     *         an OperationOutcome with hints, warnings, or errors related to the interaction
+     * @throws FHIRPersistenceException
+     */
+    default <T extends Resource> MultiResourceResult<T> history(FHIRPersistenceContext context, Class<T> resourceType) throws FHIRPersistenceException {
+        throw new FHIRPersistenceNotSupportedException("Type and system-level 'history' is not supported by this persistence implementation");
+    }
+
     /**
      * Performs a search on the specified target resource type using the specified search parameters.
      *
@@ -106,6 +179,109 @@ public interface FHIRPersistence {
      */
     MultiResourceResult<Resource> search(FHIRPersistenceContext context, Class<? extends Resource> resourceType) throws FHIRPersistenceException;
 
+    /**
+     * Retrieves the most recent version of a FHIR Resource from the datastore in its stored representation,
+     * without parsing it. Only supported if {@link #isPayloadPassThroughSupported()} returns true.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param resourceType the resource type of the Resource instance to be retrieved
+     * @param logicalId the logical id of the Resource instance to be retrieved
+     * @return the stored representation of the resource, or null if the resource was not found
+     * @throws FHIRPersistenceResourceDeletedException if the resource is deleted and the context does not include
+     *         deleted resources
+     * @throws FHIRPersistenceException
+     */
+    default ResourcePayload readPayload(FHIRPersistenceContext context, Class<? extends Resource> resourceType, String logicalId)
+            throws FHIRPersistenceException {
+        throw new FHIRPersistenceNotSupportedException("Payload pass-through is not supported by this persistence implementation");
+    }
+
+    /**
+     * Retrieves a specific version of a FHIR Resource from the datastore in its stored representation,
+     * without parsing it. Only supported if {@link #isPayloadPassThroughSupported()} returns true.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param resourceType the resource type of the Resource instance to be retrieved
+     * @param logicalId the logical id of the Resource instance to be retrieved
+     * @param versionId the version of the Resource instance to be retrieved
+     * @return the stored representation of the resource version, or null if the version was not found
+     * @throws FHIRPersistenceResourceDeletedException if the version is deleted and the context does not include
+     *         deleted resources
+     * @throws FHIRPersistenceException
+     */
+    default ResourcePayload vreadPayload(FHIRPersistenceContext context, Class<? extends Resource> resourceType, String logicalId,
+            String versionId) throws FHIRPersistenceException {
+        throw new FHIRPersistenceNotSupportedException("Payload pass-through is not supported by this persistence implementation");
+    }
+
+    /**
+     * Performs a search on the specified target resource type and returns the stored representation of the
+     * resources in the search result set, without parsing them. The search context must not request _elements,
+     * _summary or included resources, which need the parsed resources. Only supported if
+     * {@link #isPayloadPassThroughSupported()} returns true.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param resourceType the resource type which is the target of the search
+     * @return the stored representation of the resources of the requested page, in result order
+     * @throws FHIRPersistenceNotSupportedException if the search has issues, such as an invalid page number, which
+     *     must be reported in the outcome of {@link #search(FHIRPersistenceContext, Class)}
+     * @throws FHIRPersistenceException
+     */
+    default List<ResourcePayload> searchPayloads(FHIRPersistenceContext context, Class<? extends Resource> resourceType)
+            throws FHIRPersistenceException {
+        throw new FHIRPersistenceNotSupportedException("Payload pass-through is not supported by this persistence implementation");
+    }
+
+    /**
+     * Retrieves the versions of a FHIR Resource in their stored representation, without parsing them; the
+     * counterpart of {@link #history(FHIRPersistenceContext, Class, String)}. Only supported if
+     * {@link #isPayloadPassThroughSupported()} returns true.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param resourceType the resource type of the Resource instance whose history should be retrieved
+     * @param logicalId the logical id of the Resource instance whose history should be retrieved
+     * @return the stored representation of the versions of the requested page, in history order
+     * @throws FHIRPersistenceException
+     */
+    default List<ResourcePayload> historyPayloads(FHIRPersistenceContext context, Class<? extends Resource> resourceType,
+            String logicalId) throws FHIRPersistenceException {
+        throw new FHIRPersistenceNotSupportedException("Payload pass-through is not supported by this persistence implementation");
+    }
+
+    /**
+     * Retrieves the changes to all resources of a type (or of all types) in their stored representation, without
+     * parsing them; the counterpart of {@link #history(FHIRPersistenceContext, Class)}. Only supported if
+     * {@link #isPayloadPassThroughSupported()} returns true.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request
+     * @param resourceType the resource type whose history should be retrieved, or Resource.class for all types
+     * @return the stored representation of the resource versions of the requested page, in the order they were stored
+     * @throws FHIRPersistenceException
+     */
+    default List<ResourcePayload> historyPayloads(FHIRPersistenceContext context, Class<? extends Resource> resourceType)
+            throws FHIRPersistenceException {
+        throw new FHIRPersistenceNotSupportedException("Payload pass-through is not supported by this persistence implementation");
+    }
+
+    /**
+     * Finds the logical ids of the resources that match the search parameters of the passed context, without counting
+     * the matches or retrieving the resources; used to resolve the search criteria of conditional interactions,
+     * which only need to know whether there are zero, one or more matches. Implementations may support this for
+     * some search parameters only.
+     *
+     * @param context the FHIRPersistenceContext instance associated with the current request; it holds the search context
+     * @param resourceType the resource type which is the target of the search
+     * @param maxResults the maximum number of logical ids to return
+     * @return the logical ids of at most maxResults matching resources, in no particular order
+     * @throws FHIRPersistenceNotSupportedException if the search parameters can't be resolved this way; use
+     *         {@link #search(FHIRPersistenceContext, Class)} instead
+     * @throws FHIRPersistenceException
+     */
+    default List<String> searchLogicalIds(FHIRPersistenceContext context, Class<? extends Resource> resourceType, int maxResults)
+            throws FHIRPersistenceException {
+        throw new FHIRPersistenceNotSupportedException("Logical id searches are not supported by this persistence implementation");
+    }
+
     /**
      * Returns true iff the persistence layer implementation supports transactions.
      */
@@ -130,4 +306,12 @@ public interface FHIRPersistence {
     default boolean isDeleteSupported() {
         return false;
     }
+
+    /**
+     * Returns true iff the persistence layer implementation can return the stored representation of resources
+     * with readPayload, vreadPayload, searchPayloads and historyPayloads.
+     */
+    default boolean isPayloadPassThroughSupported() {
+        return false;
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence;
+
+import java.util.Objects;
+
+import com.ibm.fhir.model.resource.Resource;
+
+/**
+ * Identifies a FHIR resource (and optionally one of its versions) by resource type and logical id.
+ * Instances are immutable and are used to request multiple resources in a single persistence interaction.
+ */
+public final class ResourceKey {
+    private final Class<? extends Resource> resourceType;
+    private final String logicalId;
+    private final String versionId;
+
+    /**
+     * @param resourceType the resource type
+     * @param logicalId the logical id of the resource
+     * @param versionId the version id of the resource, or null to identify the current version
+     */
+    public ResourceKey(Class<? extends Resource> resourceType, String logicalId, String versionId) {
+        this.resourceType = Objects.requireNonNull(resourceType, "resourceType");
+        this.logicalId = Objects.requireNonNull(logicalId, "logicalId");
+        this.versionId = versionId;
+    }
+
+    /**
+     * @param resourceType the resource type
+     * @param logicalId the logical id of the resource
+     */
+    public ResourceKey(Class<? extends Resource> resourceType, String logicalId) {
+        this(resourceType, logicalId, null);
+    }
+
+    public Class<? extends Resource> getResourceType() {
+        return resourceType;
+    }
+
+    public String getLogicalId() {
+        return logicalId;
+    }
+
+    /**
+     * @return the version id, or null if this key identifies the current version of the resource
+     */
+    public String getVersionId() {
+        return versionId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ResourceKey other = (ResourceKey) obj;
+        return resourceType.equals(other.resourceType)
+                && logicalId.equals(other.logicalId)
+                && Objects.equals(versionId, other.versionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(resourceType, logicalId, versionId);
+    }
+
+    @Override
+    public String toString() {
+        return resourceType.getSimpleName() + "/" + logicalId + (versionId != null ? "/_history/" + versionId : "");
+    }
+}
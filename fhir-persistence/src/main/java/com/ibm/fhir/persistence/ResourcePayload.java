@@ -0,0 +1,118 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.resource.Resource;
+
+/**
+ * The stored representation of a version of a FHIR resource: the gzip-compressed JSON generated (without
+ * pretty-printing) when the resource was stored, together with the metadata needed to serve it without parsing it.
+ * Since the stored JSON already includes the meta element set by the persistence layer, it is identical to the
+ * JSON a FHIRGenerator would produce for the parsed resource.
+ *
+ * <p>Instances are immutable; the compressed data must not be modified.
+ */
+public final class ResourcePayload {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String resourceType;
+    private final String logicalId;
+    private final int versionId;
+    private final Instant lastUpdated;
+    private final byte[] compressedData;
+
+    /**
+     * @param resourceType the name of the resource type
+     * @param logicalId the logical id of the resource
+     * @param versionId the version of the resource
+     * @param lastUpdated the time this version was stored
+     * @param compressedData the gzip-compressed JSON of the resource
+     */
+    public ResourcePayload(String resourceType, String logicalId, int versionId, Instant lastUpdated, byte[] compressedData) {
+        this.resourceType = Objects.requireNonNull(resourceType, "resourceType");
+        this.logicalId = Objects.requireNonNull(logicalId, "logicalId");
+        this.versionId = versionId;
+        this.lastUpdated = Objects.requireNonNull(lastUpdated, "lastUpdated");
+        this.compressedData = Objects.requireNonNull(compressedData, "compressedData");
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public String getLogicalId() {
+        return logicalId;
+    }
+
+    public int getVersionId() {
+        return versionId;
+    }
+
+    public Instant getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * @return the gzip-compressed JSON of the resource, which can be sent as is with a gzip Content-Encoding
+     */
+    public byte[] getCompressedData() {
+        return compressedData;
+    }
+
+    /**
+     * @return a stream of the (uncompressed) JSON of the resource
+     * @throws IOException
+     */
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(new ByteArrayInputStream(compressedData), BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the (uncompressed) JSON of the resource to the passed stream, which is not closed.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        try (InputStream in = getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Parses the payload; this is only needed when the stored representation can't be served as is.
+     *
+     * @return the resource
+     * @throws FHIRParserException
+     * @throws IOException
+     */
+    public Resource getResource() throws FHIRParserException, IOException {
+        try (InputStream in = getInputStream()) {
+            return FHIRParser.parser(Format.JSON).parse(in);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return resourceType + "/" + logicalId + "/_history/" + versionId;
+    }
+}
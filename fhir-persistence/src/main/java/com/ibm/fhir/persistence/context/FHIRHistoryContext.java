@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -32,4 +32,20 @@ public interface FHIRHistoryContext extends FHIRPagingContext {
      * @param deletedResources
      */
     void setDeletedResources(Map<String,List<Integer>> deletedResources);
+
+    /**
+     * Returns the opaque position in the change log after which a type or system-level history continues,
+     * as given by the _cursor parameter of the request.
+     * @return the cursor, or null to start at the _since instant (or the beginning)
+     */
+    String getCursor();
+    void setCursor(String cursor);
+
+    /**
+     * Returns the opaque position in the change log at which the next page of a type or system-level
+     * history starts, or null if there are no more changes.
+     * @return the next cursor
+     */
+    String getNextCursor();
+    void setNextCursor(String nextCursor);
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -83,6 +83,27 @@ public class FHIRPersistenceInterceptorMgr {
         interceptors.add(0, interceptor);
     }
     
+    /**
+     * Tells whether any registered interceptor implements the given interceptor method, as opposed to
+     * inheriting the default no-op implementation. For example, the REST layer only needs to parse the
+     * resources it serves for an 'afterRead' event if some interceptor implements afterRead.
+     * @param methodName the name of a FHIRPersistenceInterceptor method, e.g. "afterRead"
+     * @return true if at least one registered interceptor implements the method
+     */
+    public boolean isImplemented(String methodName) {
+        for (FHIRPersistenceInterceptor interceptor : interceptors) {
+            try {
+                if (!FHIRPersistenceInterceptor.class.equals(
+                        interceptor.getClass().getMethod(methodName, FHIRPersistenceEvent.class).getDeclaringClass())) {
+                    return true;
+                }
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Not an interceptor method: " + methodName, e);
+            }
+        }
+        return false;
+    }
+
     /**
      * The following methods will invoke the respective interceptor methods on each registered interceptor.
      */
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016,2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -99,6 +99,8 @@ public abstract class AbstractQueryBuilder<T1> implements QueryBuilder<T1> {
                 case REFERENCE:
                     if (queryParm.isChained()) {
                         databaseQueryParm = this.processChainedReferenceParm(queryParm);
+                    } else if (queryParm.isReverseChained()) {
+                        databaseQueryParm = this.processReverseChainedReferenceParm(resourceType, queryParm);
                     } else if (queryParm.isInclusionCriteria()) {
                         databaseQueryParm = this.processInclusionCriteria(queryParm);
                     } else {
@@ -161,6 +163,17 @@ public abstract class AbstractQueryBuilder<T1> implements QueryBuilder<T1> {
      */
     protected abstract T1 processChainedReferenceParm(QueryParameter queryParm) throws Exception;
 
+    /**
+     * Contains special logic for handling reverse chained (_has) search parameters.
+     * 
+     * @see https://www.hl7.org/fhir/search.html#has
+     * @param resourceType - The type of resource being searched, which is referred to by the first link of the chain.
+     * @param queryParm - The query parameter.
+     * @return T1 - An object containing a query segment.
+     * @throws FHIRPersistenceException
+     */
+    protected abstract T1 processReverseChainedReferenceParm(Class<?> resourceType, QueryParameter queryParm) throws Exception;
+
     /**
      * Contains special logic for handling Compartment based searches.
      * 
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -50,6 +50,8 @@ public class FHIRPersistenceUtil {
                     else {
                         throw new FHIRPersistenceException("The '_since' parameter must be a fully specified ISO 8601 date/time");
                     }
+                } else if ("_cursor".equals(name)) {
+                    context.setCursor(first);
                 } else if ("_format".equals(name)) {
                     // safely ignore
                     continue;
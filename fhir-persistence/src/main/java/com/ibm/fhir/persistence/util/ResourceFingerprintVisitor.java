@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -191,11 +191,19 @@ public class ResourceFingerprintVisitor extends PathAwareVisitor {
      * @return
      */
     protected boolean includePath() {
-        String idName = currentResourceName + ".id";
-        String versionIdName = currentResourceName + ".meta.versionId";
-        String lastUpdatedName = currentResourceName + ".meta.lastUpdated";
-        String path = getPath();
-        return !path.startsWith(idName) && !path.startsWith(versionIdName) && !path.startsWith(lastUpdatedName);
-        
+        // equivalent to checking whether getPath() starts with <resource>.id, <resource>.meta.versionId or
+        // <resource>.meta.lastUpdated, but without building the path for every value
+        if (getPathDepth() < 2 || !getPathSegmentName(0).equals(currentResourceName)) {
+            return true;
+        }
+        String name = getPathSegmentName(1);
+        if (name.startsWith("id")) {
+            return false;
+        }
+        if ("meta".equals(name) && getPathSegmentIndex(1) == -1 && getPathDepth() > 2) {
+            String metaName = getPathSegmentName(2);
+            return !metaName.startsWith("versionId") && !metaName.startsWith("lastUpdated");
+        }
+        return true;
     }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2018,2019
+ * (C) Copyright IBM Corp. 2018, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -71,6 +71,27 @@ public abstract class AbstractSearchReferenceTest extends AbstractPLSearchTest {
         assertTrue(searchReturnsResource(Basic.class, queryParms, composition));
     }
 
+    @Test
+    public void testSearchReference_reverseChained() throws Exception {
+        assertSearchReturnsSavedResource("_has:Composition:subject:title", "TEST");
+        assertSearchDoesntReturnSavedResource("_has:Composition:subject:title", "NOT-TEST");
+        assertSearchReturnsSavedResource("_has:Composition:subject:status", "preliminary,final");
+        assertSearchDoesntReturnSavedResource("_has:Composition:entry:title", "TEST");
+    }
+
+    @Test
+    public void testSearchReference_reverseChained_missing() throws Exception {
+        assertSearchReturnsSavedResource("_has:Composition:subject:title:missing", "false");
+        assertSearchDoesntReturnSavedResource("_has:Composition:subject:title:missing", "true");
+        assertSearchReturnsSavedResource("_has:Composition:subject:confidentiality:missing", "true");
+    }
+
+    @Test
+    public void testSearchReference_reverseChained_nested() throws Exception {
+        // No Composition refers to the Composition which refers to the saved resource
+        assertSearchDoesntReturnSavedResource("_has:Composition:subject:_has:Composition:subject:title", "TEST");
+    }
+
     @Test
     public void testSearchReference_Reference_absolute() throws Exception {
         // TODO if the resource contained an absolute URI which matches the hostname
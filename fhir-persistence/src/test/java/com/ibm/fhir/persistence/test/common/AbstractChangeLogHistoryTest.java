@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.model.resource.Device;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.test.TestUtil;
+import com.ibm.fhir.model.type.Instant;
+import com.ibm.fhir.persistence.context.FHIRHistoryContext;
+import com.ibm.fhir.persistence.context.FHIRPersistenceContextFactory;
+
+/**
+ * This class contains tests for type and system-level history, which are read from the change log
+ * using cursor paging.
+ */
+public abstract class AbstractChangeLogHistoryTest extends AbstractPersistenceTest {
+    protected Instant since;
+    protected String deviceId;
+    protected String patientId;
+
+    @BeforeClass
+    public void createResources() throws Exception {
+        // only look at the changes made by this test
+        since = Instant.of(ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(1));
+
+        Device device = TestUtil.readExampleResource("json/ibm/minimal/Device-1.json");
+        Device device1 = persistence.create(getDefaultPersistenceContext(), device).getResource();
+        deviceId = device1.getId();
+        persistence.update(getDefaultPersistenceContext(), deviceId, device1);
+
+        Patient patient = TestUtil.readExampleResource("json/ibm/minimal/Patient-1.json");
+        patientId = persistence.create(getDefaultPersistenceContext(), patient).getResource().getId();
+
+        if (persistence.isDeleteSupported()) {
+            persistence.delete(getDefaultPersistenceContext(), Device.class, deviceId);
+        }
+    }
+
+    @Test
+    public void testTypeHistory() throws Exception {
+        FHIRHistoryContext historyContext = FHIRPersistenceContextFactory.createHistoryContext();
+        historyContext.setSince(since);
+        historyContext.setPageSize(1000);
+
+        List<Device> resources = persistence.history(getPersistenceContextForHistory(historyContext), Device.class).getResource();
+        List<Device> changes = resources.stream().filter(r -> deviceId.equals(r.getId())).collect(Collectors.toList());
+        int expected = persistence.isDeleteSupported() ? 3 : 2;
+        assertEquals(changes.size(), expected);
+        for (int i = 0; i < expected; i++) {
+            assertEquals(changes.get(i).getMeta().getVersionId().getValue(), Integer.toString(i + 1));
+        }
+        if (persistence.isDeleteSupported()) {
+            assertTrue(historyContext.getDeletedResources().get("Device/" + deviceId).contains(3));
+        }
+        assertNull(historyContext.getNextCursor());
+    }
+
+    @Test
+    public void testSystemHistoryCursorPaging() throws Exception {
+        int deviceChanges = 0;
+        int patientChanges = 0;
+        String cursor = null;
+        int pages = 0;
+        do {
+            FHIRHistoryContext historyContext = FHIRPersistenceContextFactory.createHistoryContext();
+            historyContext.setSince(since);
+            historyContext.setCursor(cursor);
+            historyContext.setPageSize(1);
+
+            List<Resource> resources = persistence.history(getPersistenceContextForHistory(historyContext), Resource.class).getResource();
+            assertTrue(resources.size() <= 1);
+            for (Resource resource : resources) {
+                if (resource instanceof Device && deviceId.equals(resource.getId())) {
+                    deviceChanges++;
+                } else if (resource instanceof Patient && patientId.equals(resource.getId())) {
+                    patientChanges++;
+                }
+            }
+            cursor = historyContext.getNextCursor();
+            if (cursor != null) {
+                assertNotNull(resources.get(0));
+            }
+            pages++;
+        } while (cursor != null && pages < 1000);
+
+        assertEquals(deviceChanges, persistence.isDeleteSupported() ? 3 : 2);
+        assertEquals(patientChanges, 1);
+    }
+
+    @Test
+    public void testUnsettledChangesHeldBack() throws Exception {
+        // the first change of this test, as seen by a tenant which returns changes straight away
+        FHIRHistoryContext historyContext = FHIRPersistenceContextFactory.createHistoryContext();
+        historyContext.setSince(since);
+        historyContext.setPageSize(1);
+        persistence.history(getPersistenceContextForHistory(historyContext), Resource.class);
+        String cursor = historyContext.getNextCursor();
+        assertNotNull(cursor);
+
+        // the changelog tenant only returns changes which are an hour old, so the next page
+        // is empty and continues from the same cursor
+        String tenantId = FHIRRequestContext.get().getTenantId();
+        FHIRRequestContext.get().setTenantId("changelog");
+        try {
+            historyContext = FHIRPersistenceContextFactory.createHistoryContext();
+            historyContext.setCursor(cursor);
+            historyContext.setPageSize(1000);
+            List<Resource> resources = persistence.history(getPersistenceContextForHistory(historyContext), Resource.class).getResource();
+            assertTrue(resources.isEmpty());
+            assertEquals(historyContext.getNextCursor(), cursor);
+        } finally {
+            FHIRRequestContext.get().setTenantId(tenantId);
+        }
+    }
+}
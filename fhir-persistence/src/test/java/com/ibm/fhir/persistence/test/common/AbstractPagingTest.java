@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016,2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -229,6 +229,41 @@ public abstract class AbstractPagingTest extends AbstractPersistenceTest {
         assertEquals(outcome.getIssue().get(0).getCode(), IssueType.INVALID);
     }
     
+    @Test
+    public void testSearchPagingWithoutTotal() throws Exception {
+        Map<String, List<String>> queryParameters = new HashMap<>();
+        queryParameters.put("_sort", Collections.singletonList("integer"));
+        queryParameters.put("_tag", Collections.singletonList("pagingTest"));
+        queryParameters.put("_total", Collections.singletonList("none"));
+
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Basic.class, queryParameters);
+        searchContext.setPageNumber(1);
+        MultiResourceResult<Resource> result = runQueryTest(searchContext, Basic.class, queryParameters, 2);
+        assertTrue(result.isSuccess());
+        assertEquals(result.getResource().size(), 2, "expected number of results");
+        assertTrue(isResourceInResponse(resource1, result.getResource()), "Expected resource not found in the response");
+        assertTrue(isResourceInResponse(resource2, result.getResource()), "Expected resource not found in the response");
+        assertEquals(searchContext.getTotalCount(), 0, "expected no total count");
+        // the page is full, so there may be a next page
+        assertEquals(searchContext.getLastPageNumber(), 2, "expected last page number");
+
+        searchContext = SearchUtil.parseQueryParameters(Basic.class, queryParameters);
+        searchContext.setPageNumber(2);
+        result = runQueryTest(searchContext, Basic.class, queryParameters, 2);
+        assertTrue(result.isSuccess());
+        assertEquals(result.getResource().size(), 1, "expected number of results");
+        assertTrue(isResourceInResponse(resource3, result.getResource()), "Expected resource not found in the response");
+        assertEquals(searchContext.getLastPageNumber(), 2, "expected last page number");
+
+        // a page past the end is empty rather than invalid
+        searchContext = SearchUtil.parseQueryParameters(Basic.class, queryParameters);
+        searchContext.setPageNumber(3);
+        result = runQueryTest(searchContext, Basic.class, queryParameters, 2);
+        assertTrue(result.isSuccess());
+        assertTrue(result.getResource().isEmpty());
+        assertTrue(result.getOutcome() == null);
+    }
+
     public void testPageSizeEqualsZero() throws Exception {
         Map<String, List<String>> queryParameters;
         queryParameters = new HashMap<>();
@@ -0,0 +1,169 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.resource.Device;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.type.Instant;
+import com.ibm.fhir.model.test.TestUtil;
+import com.ibm.fhir.persistence.ResourcePayload;
+import com.ibm.fhir.persistence.context.FHIRHistoryContext;
+import com.ibm.fhir.persistence.context.FHIRPersistenceContextFactory;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceNotSupportedException;
+import com.ibm.fhir.search.context.FHIRSearchContext;
+import com.ibm.fhir.search.util.SearchUtil;
+
+/**
+ * This class contains tests for reading the stored representation of resources (payload pass-through).
+ */
+public abstract class AbstractPayloadTest extends AbstractPersistenceTest {
+    protected Device device1;
+    protected Device device2;
+
+    @BeforeClass
+    public void createResources() throws Exception {
+        if (!persistence.isPayloadPassThroughSupported()) {
+            throw new SkipException("Payload pass-through is not supported by this persistence implementation");
+        }
+        Device device = TestUtil.readExampleResource("json/ibm/minimal/Device-1.json");
+        device1 = persistence.create(getDefaultPersistenceContext(), device).getResource();
+        device2 = persistence.update(getDefaultPersistenceContext(), device1.getId(), device1).getResource();
+    }
+
+    @Test
+    public void testReadPayload() throws Exception {
+        ResourcePayload payload = persistence.readPayload(getDefaultPersistenceContext(), Device.class, device1.getId());
+        assertPayload(payload, device2);
+    }
+
+    @Test
+    public void testVReadPayload() throws Exception {
+        ResourcePayload payload = persistence.vreadPayload(getDefaultPersistenceContext(), Device.class, device1.getId(), "1");
+        assertPayload(payload, device1);
+    }
+
+    @Test
+    public void testReadPayloadNotFound() throws Exception {
+        assertNull(persistence.readPayload(getDefaultPersistenceContext(), Device.class, "does-not-exist"));
+        assertNull(persistence.vreadPayload(getDefaultPersistenceContext(), Device.class, device1.getId(), "3"));
+    }
+
+    @Test
+    public void testSearchPayloads() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<>();
+        queryParms.put("_id", Collections.singletonList(device1.getId()));
+        queryParms.put("_sort", Collections.singletonList("_lastUpdated"));
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Device.class, queryParms);
+
+        List<ResourcePayload> payloads = persistence.searchPayloads(getPersistenceContextForSearch(searchContext), Device.class);
+        assertEquals(payloads.size(), 1);
+        assertEquals(searchContext.getTotalCount(), 1);
+        assertPayload(payloads.get(0), device2);
+    }
+
+    @Test
+    public void testSearchPayloadsPage() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<>();
+        queryParms.put("_id", Collections.singletonList(device1.getId()));
+        queryParms.put("_count", Collections.singletonList("1"));
+        queryParms.put("_page", Collections.singletonList("1"));
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Device.class, queryParms);
+
+        List<ResourcePayload> payloads = persistence.searchPayloads(getPersistenceContextForSearch(searchContext), Device.class);
+        assertEquals(payloads.size(), 1);
+        assertEquals(searchContext.getLastPageNumber(), 1);
+        assertPayload(payloads.get(0), device2);
+    }
+
+    @Test(expectedExceptions = FHIRPersistenceNotSupportedException.class)
+    public void testSearchPayloadsInvalidPage() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<>();
+        queryParms.put("_id", Collections.singletonList(device1.getId()));
+        queryParms.put("_page", Collections.singletonList("2"));
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Device.class, queryParms, false);
+
+        // the issue must be reported by a regular search
+        persistence.searchPayloads(getPersistenceContextForSearch(searchContext), Device.class);
+    }
+
+    @Test(expectedExceptions = FHIRPersistenceNotSupportedException.class)
+    public void testSearchPayloadsInvalidPageLenient() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<>();
+        queryParms.put("_id", Collections.singletonList(device1.getId()));
+        queryParms.put("_page", Collections.singletonList("2"));
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Device.class, queryParms, true);
+
+        // the warning must be reported by a regular search
+        persistence.searchPayloads(getPersistenceContextForSearch(searchContext), Device.class);
+    }
+
+    @Test
+    public void testHistoryPayloads() throws Exception {
+        FHIRHistoryContext historyContext = FHIRPersistenceContextFactory.createHistoryContext();
+        List<ResourcePayload> payloads = persistence.historyPayloads(getPersistenceContextForHistory(historyContext), Device.class, device1.getId());
+        assertEquals(payloads.size(), 2);
+        assertEquals(historyContext.getTotalCount(), 2);
+        // newest version first
+        assertPayload(payloads.get(0), device2);
+        assertPayload(payloads.get(1), device1);
+    }
+
+    @Test
+    public void testSystemHistoryPayloads() throws Exception {
+        FHIRHistoryContext historyContext = FHIRPersistenceContextFactory.createHistoryContext();
+        historyContext.setSince(Instant.of(device1.getMeta().getLastUpdated().getValue().minusSeconds(1)));
+        historyContext.setPageSize(1000);
+        List<ResourcePayload> payloads = persistence.historyPayloads(getPersistenceContextForHistory(historyContext), Resource.class);
+        List<ResourcePayload> changes = payloads.stream().filter(p -> device1.getId().equals(p.getLogicalId())).collect(Collectors.toList());
+        assertEquals(changes.size(), 2);
+        // oldest change first, with the resource type of each change
+        assertPayload(changes.get(0), device1);
+        assertPayload(changes.get(1), device2);
+    }
+
+    @Test(expectedExceptions = FHIRPersistenceNotSupportedException.class)
+    public void testSearchPayloadsWithElements() throws Exception {
+        Map<String, List<String>> queryParms = new HashMap<>();
+        queryParms.put("_id", Collections.singletonList(device1.getId()));
+        queryParms.put("_elements", Collections.singletonList("id"));
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Device.class, queryParms);
+
+        persistence.searchPayloads(getPersistenceContextForSearch(searchContext), Device.class);
+    }
+
+    private void assertPayload(ResourcePayload payload, Resource expected) throws Exception {
+        assertEquals(payload.getResourceType(), "Device");
+        assertEquals(payload.getLogicalId(), expected.getId());
+        assertEquals(Integer.toString(payload.getVersionId()), expected.getMeta().getVersionId().getValue());
+        assertEquals(payload.getLastUpdated(), expected.getMeta().getLastUpdated().getValue().toInstant());
+        assertEquals(payload.getResource(), expected);
+
+        // the stored representation is what the generator produces for the resource
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payload.writeTo(out);
+        ByteArrayOutputStream generated = new ByteArrayOutputStream();
+        FHIRGenerator.generator(Format.JSON, false).generate(expected, generated);
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), new String(generated.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -139,7 +139,10 @@ public abstract class AbstractPersistenceTest {
             expectedCount++;
             if (!SearchUtil.isSearchResultParameter(key)) {
                 String paramName = key;
-                if (SearchUtil.isChainedParameter(key)) {
+                if (SearchUtil.isReverseChainedParameter(key)) {
+                    // the root of a reverse chain is the reference parameter of the referring resource type
+                    paramName = key.split(":")[2];
+                } else if (SearchUtil.isChainedParameter(key)) {
                     // ignore the chained part and just very the reference param is there
                     paramName = key.split("\\.")[0];
                 }
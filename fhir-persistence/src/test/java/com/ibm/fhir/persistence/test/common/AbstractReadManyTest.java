@@ -0,0 +1,137 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Device;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.model.test.TestUtil;
+import com.ibm.fhir.persistence.ResourceKey;
+import com.ibm.fhir.persistence.context.FHIRPersistenceContextFactory;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceDeletedException;
+
+/**
+ * This class contains tests for reading multiple resources with a single call.
+ */
+public abstract class AbstractReadManyTest extends AbstractPersistenceTest {
+    protected String deviceId1;
+    protected String deviceId2;
+    protected String patientId;
+    protected String deletedDeviceId;
+
+    @BeforeClass
+    public void createResources() throws Exception {
+        Device device = TestUtil.readExampleResource("json/ibm/minimal/Device-1.json");
+        deviceId1 = persistence.create(getDefaultPersistenceContext(), device).getResource().getId();
+        Device device2 = persistence.create(getDefaultPersistenceContext(), device).getResource();
+        deviceId2 = device2.getId();
+        persistence.update(getDefaultPersistenceContext(), deviceId2, device2);
+
+        Patient patient = TestUtil.readExampleResource("json/ibm/minimal/Patient-1.json");
+        patientId = persistence.create(getDefaultPersistenceContext(), patient).getResource().getId();
+
+        if (persistence.isDeleteSupported()) {
+            deletedDeviceId = persistence.create(getDefaultPersistenceContext(), device).getResource().getId();
+            persistence.delete(getDefaultPersistenceContext(), Device.class, deletedDeviceId);
+        }
+    }
+
+    @Test
+    public void testReadMany() throws Exception {
+        List<ResourceKey> keys = Arrays.asList(
+                new ResourceKey(Patient.class, patientId),
+                new ResourceKey(Device.class, "invalid-device-id"),
+                new ResourceKey(Device.class, deviceId2),
+                new ResourceKey(Device.class, deviceId1));
+
+        List<Resource> resources = persistence.readMany(getDefaultPersistenceContext(), keys).getResource();
+        assertEquals(resources.size(), 4);
+        assertEquals(resources.get(0).getId(), patientId);
+        assertNull(resources.get(1));
+        assertEquals(resources.get(2).getId(), deviceId2);
+        assertEquals(resources.get(2).getMeta().getVersionId().getValue(), "2");
+        assertEquals(resources.get(3).getId(), deviceId1);
+    }
+
+    @Test
+    public void testVReadMany() throws Exception {
+        List<ResourceKey> keys = Arrays.asList(
+                new ResourceKey(Device.class, deviceId2, "2"),
+                new ResourceKey(Device.class, deviceId2, "1"),
+                new ResourceKey(Device.class, deviceId1, "2"),
+                new ResourceKey(Patient.class, patientId, "1"));
+
+        List<Resource> resources = persistence.vreadMany(getDefaultPersistenceContext(), keys).getResource();
+        assertEquals(resources.size(), 4);
+        assertEquals(resources.get(0).getMeta().getVersionId().getValue(), "2");
+        assertEquals(resources.get(1).getMeta().getVersionId().getValue(), "1");
+        assertNull(resources.get(2));
+        assertNotNull(resources.get(3));
+        assertEquals(resources.get(3).getId(), patientId);
+    }
+
+    @Test(expectedExceptions = FHIRPersistenceException.class)
+    public void testVReadManyInvalidVersion() throws Exception {
+        persistence.vreadMany(getDefaultPersistenceContext(), Arrays.asList(new ResourceKey(Device.class, deviceId1, "one")));
+    }
+
+    @Test
+    public void testReadManyDeleted() throws Exception {
+        checkDeleteSupported();
+        try {
+            persistence.readMany(getDefaultPersistenceContext(), Arrays.asList(
+                    new ResourceKey(Device.class, deviceId1),
+                    new ResourceKey(Device.class, deletedDeviceId)));
+            fail("a deleted resource should not be read");
+        } catch (FHIRPersistenceResourceDeletedException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReadManyIncludeDeleted() throws Exception {
+        checkDeleteSupported();
+        List<Resource> resources = persistence.readMany(FHIRPersistenceContextFactory.createPersistenceContext(null, true), Arrays.asList(
+                new ResourceKey(Device.class, deviceId1),
+                new ResourceKey(Device.class, deletedDeviceId))).getResource();
+        assertEquals(resources.size(), 2);
+        assertEquals(resources.get(0).getId(), deviceId1);
+        assertEquals(resources.get(1).getId(), deletedDeviceId);
+    }
+
+    @Test
+    public void testVReadManyDeleted() throws Exception {
+        checkDeleteSupported();
+        try {
+            persistence.vreadMany(getDefaultPersistenceContext(), Arrays.asList(
+                    new ResourceKey(Device.class, deletedDeviceId, "1"),
+                    new ResourceKey(Device.class, deletedDeviceId, "2")));
+            fail("a deleted resource version should not be read");
+        } catch (FHIRPersistenceResourceDeletedException e) {
+            // expected
+        }
+    }
+
+    private void checkDeleteSupported() {
+        if (deletedDeviceId == null) {
+            throw new SkipException("The persistence implementation does not support delete");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.test.TestUtil;
+import com.ibm.fhir.model.type.Identifier;
+import com.ibm.fhir.model.type.Uri;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceNotSupportedException;
+import com.ibm.fhir.search.context.FHIRSearchContext;
+import com.ibm.fhir.search.util.SearchUtil;
+
+/**
+ * This class contains tests for resolving the search criteria of conditional interactions to logical ids.
+ */
+public abstract class AbstractSearchLogicalIdsTest extends AbstractPersistenceTest {
+    private static final String SYSTEM = "http://example.com/fhir/sid/search-logical-ids";
+
+    // unique per test run, so that resources of previous runs in the same database don't match
+    private final String prefix = UUID.randomUUID().toString();
+    private String sharedId1;
+    private String sharedId2;
+    private String uniqueId;
+
+    @BeforeClass
+    public void createResources() throws Exception {
+        Patient patient = TestUtil.readExampleResource("json/ibm/minimal/Patient-1.json");
+        sharedId1 = persistence.create(getDefaultPersistenceContext(), withIdentifiers(patient, "shared")).getResource().getId();
+        sharedId2 = persistence.create(getDefaultPersistenceContext(), withIdentifiers(patient, "shared")).getResource().getId();
+        // the same identifier twice in one resource is still one match
+        uniqueId = persistence.create(getDefaultPersistenceContext(), withIdentifiers(patient, "unique", "unique")).getResource().getId();
+        if (persistence.isDeleteSupported()) {
+            String deletedId = persistence.create(getDefaultPersistenceContext(), withIdentifiers(patient, "deleted")).getResource().getId();
+            persistence.delete(getDefaultPersistenceContext(), Patient.class, deletedId);
+        }
+    }
+
+    @Test
+    public void testSingleMatch() throws Exception {
+        assertEquals(searchLogicalIds("identifier", SYSTEM + "|" + prefix + "unique", 2), Collections.singletonList(uniqueId));
+        // without a system
+        assertEquals(searchLogicalIds("identifier", prefix + "unique", 2), Collections.singletonList(uniqueId));
+    }
+
+    @Test
+    public void testMultipleMatches() throws Exception {
+        List<String> logicalIds = searchLogicalIds("identifier", SYSTEM + "|" + prefix + "shared", 2);
+        assertEquals(new HashSet<>(logicalIds), new HashSet<>(Arrays.asList(sharedId1, sharedId2)));
+        assertEquals(searchLogicalIds("identifier", SYSTEM + "|" + prefix + "shared", 1).size(), 1);
+    }
+
+    @Test
+    public void testNoMatch() throws Exception {
+        assertTrue(searchLogicalIds("identifier", SYSTEM + "|" + prefix + "none", 2).isEmpty());
+        assertTrue(searchLogicalIds("identifier", "http://example.com/unknown-system|" + prefix + "unique", 2).isEmpty());
+        assertTrue(searchLogicalIds("identifier", SYSTEM + "|" + prefix + "deleted", 2).isEmpty());
+    }
+
+    @Test(expectedExceptions = FHIRPersistenceNotSupportedException.class)
+    public void testNotSupported() throws Exception {
+        searchLogicalIds("family", "Doe", 2);
+    }
+
+    private List<String> searchLogicalIds(String code, String value, int maxResults) throws Exception {
+        Map<String, List<String>> queryParms = Collections.singletonMap(code, Collections.singletonList(value));
+        FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(Patient.class, queryParms);
+        return persistence.searchLogicalIds(getPersistenceContextForSearch(searchContext), Patient.class, maxResults);
+    }
+
+    private Patient withIdentifiers(Patient patient, String... values) {
+        Patient.Builder builder = patient.toBuilder();
+        for (String value : values) {
+            builder.identifier(Identifier.builder()
+                    .system(Uri.of(SYSTEM))
+                    .value(com.ibm.fhir.model.type.String.of(prefix + value))
+                    .build());
+        }
+        return builder.build();
+    }
+}
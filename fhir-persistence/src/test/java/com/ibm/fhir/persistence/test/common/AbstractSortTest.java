@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2019
+ * (C) Copyright IBM Corp. 2016, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -54,9 +54,16 @@ public abstract class AbstractSortTest extends AbstractPersistenceTest {
     Basic resource2b;
     Basic resource3b;
     
+    /**
+     * @return the tenant whose configuration (and extension search parameters) the sort tests run with
+     */
+    protected String getTenantId() {
+        return "all";
+    }
+
     @BeforeClass
     public void createResources() throws Exception {
-        FHIRRequestContext.get().setTenantId("all");
+        FHIRRequestContext.get().setTenantId(getTenantId());
         
         Basic resource = TestUtil.readExampleResource("json/ibm/minimal/Basic-1.json");
         
@@ -197,7 +204,7 @@ public abstract class AbstractSortTest extends AbstractPersistenceTest {
         assertSecondarySort(results);
     }
     
-    private void assertAscendingOrder(List<Resource> results) {
+    protected void assertAscendingOrder(List<Resource> results) {
         assertTrue(results.indexOf(resource1a) < results.indexOf(resource2a));
         assertTrue(results.indexOf(resource2a) < results.indexOf(resource3a));
         
@@ -205,8 +212,21 @@ public abstract class AbstractSortTest extends AbstractPersistenceTest {
         assertTrue(results.indexOf(resource2b) < results.indexOf(resource3b));
     }
     
-    @SuppressWarnings("unused")
-    private void assertDescendingOrder(List<Resource> results) {
+    @Test
+    public void testDescendingSort() throws Exception {
+        List<Resource> results;
+
+        results = runQueryTest(Basic.class, "_sort", "-integer", 100);
+        assertDescendingOrder(results);
+
+        results = runQueryTest(Basic.class, "_sort", "-date", 100);
+        assertDescendingOrder(results);
+
+        results = runQueryTest(Basic.class, "_sort", "-string", 100);
+        assertDescendingOrder(results);
+    }
+
+    protected void assertDescendingOrder(List<Resource> results) {
         assertTrue(results.indexOf(resource3a) < results.indexOf(resource2a));
         assertTrue(results.indexOf(resource2a) < results.indexOf(resource1a));
         
@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.persistence.test.common;
+
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Basic;
+import com.ibm.fhir.model.resource.Resource;
+
+/**
+ * Runs the sort tests for a tenant which materializes the sort values of the
+ * integer, date, Reference, uri and string search parameters (fhirServer/search/sortValueParameters).
+ * Sorts on the other parameters must still work as before.
+ */
+public abstract class AbstractSortValuesTest extends AbstractSortTest {
+
+    @Override
+    protected String getTenantId() {
+        return "sortvalues";
+    }
+
+    @Test
+    public void testLastUpdatedSecondarySort() throws Exception {
+        List<Resource> results;
+
+        // resources with the same date were created a -> b, so the most recently updated comes first
+        results = runQueryTest(Basic.class, "_sort", "date,-_lastUpdated", 100);
+        assertAscendingOrder(results);
+        assertTrue(results.indexOf(resource1b) < results.indexOf(resource1a));
+        assertTrue(results.indexOf(resource2b) < results.indexOf(resource2a));
+        assertTrue(results.indexOf(resource3b) < results.indexOf(resource3a));
+    }
+
+    @Test
+    public void testIdSort() throws Exception {
+        List<Resource> results = runQueryTest(Basic.class, "_sort", "_id", 100);
+        assertFalse(results.isEmpty());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getId().compareTo(results.get(i).getId()) < 0);
+        }
+    }
+
+    @Test
+    public void testIdDescendingSort() throws Exception {
+        List<Resource> results = runQueryTest(Basic.class, "_sort", "-_id", 100);
+        assertFalse(results.isEmpty());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getId().compareTo(results.get(i).getId()) > 0);
+        }
+    }
+}
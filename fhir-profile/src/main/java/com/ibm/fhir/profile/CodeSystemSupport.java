@@ -1,13 +1,19 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.profile;
 
+import static com.ibm.fhir.core.util.LRUCache.createLRUCache;
+
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import com.ibm.fhir.model.resource.CodeSystem;
@@ -20,6 +26,9 @@ import com.ibm.fhir.registry.FHIRRegistry;
  * A utility class for FHIR code systems
  */
 public final class CodeSystemSupport {
+    private static final int CODE_SYSTEM_INDEX_CACHE_SIZE = 512;
+    private static final Map<java.lang.String, CodeSystemIndex> CODE_SYSTEM_INDEX_CACHE = createLRUCache(CODE_SYSTEM_INDEX_CACHE_SIZE);
+
     private CodeSystemSupport() { }
 
     /**
@@ -33,6 +42,11 @@ public final class CodeSystemSupport {
      *     the code system concept that matches the specified code, or null if no such concept exists
      */
     public static Concept findConcept(CodeSystem codeSystem, Code code) {
+        CodeSystemIndex index = getCodeSystemIndex(codeSystem);
+        if (index != null) {
+            Concept concept = (code.getValue() != null) ? index.concepts.get(code.getValue()) : null;
+            return (concept != null && code.equals(concept.getCode())) ? concept : null;
+        }
         Concept result = null;
         for (Concept concept : codeSystem.getConcept()) {
             result = findConcept(concept, code);
@@ -67,6 +81,36 @@ public final class CodeSystemSupport {
         return result;
     }
 
+    /**
+     * Get the codes of the concepts in the provided code system that are subsumed by the specified code,
+     * including the code itself.
+     *
+     * @param codeSystem
+     *     the code system
+     * @param code
+     *     the code
+     * @return
+     *     the set of codes subsumed by the specified code, or an empty set if the code is not in the code system
+     */
+    public static Set<java.lang.String> getDescendantsAndSelf(CodeSystem codeSystem, Code code) {
+        return getClosure(codeSystem, code, true);
+    }
+
+    /**
+     * Get the codes of the concepts in the provided code system that subsume the specified code,
+     * including the code itself.
+     *
+     * @param codeSystem
+     *     the code system
+     * @param code
+     *     the code
+     * @return
+     *     the set of codes that subsume the specified code, or an empty set if the code is not in the code system
+     */
+    public static Set<java.lang.String> getAncestorsAndSelf(CodeSystem codeSystem, Code code) {
+        return getClosure(codeSystem, code, false);
+    }
+
     /**
      * Get the code system associated with the given url from the FHIR registry.
      * 
@@ -199,4 +243,77 @@ public final class CodeSystemSupport {
     public static boolean hasConceptProperty(Concept concept, Code code) {
         return getConceptProperty(concept, code) != null;
     }
-}
\ No newline at end of file
+
+    private static Set<java.lang.String> getClosure(CodeSystem codeSystem, Code code, boolean descendants) {
+        if (code == null || code.getValue() == null) {
+            return Collections.emptySet();
+        }
+        CodeSystemIndex index = getCodeSystemIndex(codeSystem);
+        if (index == null) {
+            index = new CodeSystemIndex(codeSystem);
+        }
+        Set<java.lang.String> closure = descendants ?
+                index.descendantsAndSelf.get(code.getValue()) :
+                    index.ancestorsAndSelf.get(code.getValue());
+        return (closure != null) ? Collections.unmodifiableSet(closure) : Collections.emptySet();
+    }
+
+    /**
+     * Get the (cached) index for the provided code system. Only code systems with a url are cached; the cache
+     * entry is replaced if a different instance with the same url and version is passed in.
+     */
+    private static CodeSystemIndex getCodeSystemIndex(CodeSystem codeSystem) {
+        if (codeSystem.getUrl() == null || codeSystem.getUrl().getValue() == null) {
+            return null;
+        }
+        java.lang.String key = codeSystem.getUrl().getValue();
+        if (codeSystem.getVersion() != null && codeSystem.getVersion().getValue() != null) {
+            key = key + "|" + codeSystem.getVersion().getValue();
+        }
+        CodeSystemIndex index = CODE_SYSTEM_INDEX_CACHE.get(key);
+        if (index == null || index.codeSystem != codeSystem) {
+            index = new CodeSystemIndex(codeSystem);
+            CODE_SYSTEM_INDEX_CACHE.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * An index of the concepts in a code system by code, along with the precomputed subsumption
+     * closures (ancestors and descendants) of each code.
+     */
+    private static class CodeSystemIndex {
+        private final CodeSystem codeSystem;
+        private final Map<java.lang.String, Concept> concepts = new HashMap<>();
+        private final Map<java.lang.String, Set<java.lang.String>> ancestorsAndSelf = new HashMap<>();
+        private final Map<java.lang.String, Set<java.lang.String>> descendantsAndSelf = new HashMap<>();
+
+        private CodeSystemIndex(CodeSystem codeSystem) {
+            this.codeSystem = codeSystem;
+            Deque<java.lang.String> path = new ArrayDeque<>();
+            for (Concept concept : codeSystem.getConcept()) {
+                index(concept, path);
+            }
+        }
+
+        private void index(Concept concept, Deque<java.lang.String> path) {
+            java.lang.String code = (concept.getCode() != null) ? concept.getCode().getValue() : null;
+            if (code == null) {
+                return;
+            }
+            concepts.putIfAbsent(code, concept);
+            Set<java.lang.String> ancestors = ancestorsAndSelf.computeIfAbsent(code, k -> new LinkedHashSet<>());
+            ancestors.add(code);
+            descendantsAndSelf.computeIfAbsent(code, k -> new LinkedHashSet<>()).add(code);
+            for (java.lang.String ancestor : path) {
+                ancestors.add(ancestor);
+                descendantsAndSelf.get(ancestor).add(code);
+            }
+            path.push(code);
+            for (Concept child : concept.getConcept()) {
+                index(child, path);
+            }
+            path.pop();
+        }
+    }
+}
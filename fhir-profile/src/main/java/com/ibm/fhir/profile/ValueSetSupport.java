@@ -1,13 +1,15 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 
 package com.ibm.fhir.profile;
 
+import static com.ibm.fhir.core.util.LRUCache.createLRUCache;
 import static com.ibm.fhir.model.type.String.string;
 import static com.ibm.fhir.profile.CodeSystemSupport.findConcept;
+import static com.ibm.fhir.profile.CodeSystemSupport.getAncestorsAndSelf;
 import static com.ibm.fhir.profile.CodeSystemSupport.getCodeSystem;
 import static com.ibm.fhir.profile.CodeSystemSupport.getConceptPropertyValue;
 import static com.ibm.fhir.profile.CodeSystemSupport.getConcepts;
@@ -18,8 +20,12 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Level;
@@ -57,17 +63,65 @@ import com.ibm.fhir.registry.FHIRRegistry;
 public final class ValueSetSupport {
     private static final Logger log = Logger.getLogger(ValueSetSupport.class.getName());
 
+    /**
+     * The version used in code set map keys for expansion entries without a version
+     */
+    public static final java.lang.String VERSION_UNKNOWN = "<version unknown>";
+
+    private static final int EXPANSION_CACHE_SIZE = 1024;
+    private static final Map<java.lang.String, CachedExpansion> EXPANSION_CACHE = createLRUCache(EXPANSION_CACHE_SIZE);
+
     private ValueSetSupport() { }
 
     /**
      * Expand the given value set per the algorithm here: http://hl7.org/fhir/valueset.html#expansion
      *
+     * <p>Expansions of value sets with a url are cached by url and version. Concurrent requests for the
+     * same expansion wait for a single computation of that expansion.
+     *
      * @param valueSet
      *     the value set to be expanded
      * @return
      *     the expanded value set, or the original value set if already expanded or unable to expand
      */
     public static ValueSet expand(ValueSet valueSet) {
+        if (isExpanded(valueSet)) {
+            return valueSet;
+        }
+        CachedExpansion cachedExpansion = getCachedExpansion(valueSet);
+        return (cachedExpansion != null) ? cachedExpansion.getExpanded() : computeExpansion(valueSet);
+    }
+
+    /**
+     * Get the codes of the expanded value set grouped by code system. Map keys are formed by concatenating
+     * the system and version of the expansion entries ("system|version"), using {@link #VERSION_UNKNOWN} for
+     * entries without a version.
+     *
+     * <p>Code set maps of value sets with a url are cached along with their expansion.
+     *
+     * @param valueSet
+     *     the value set
+     * @return
+     *     an unmodifiable map of code sets for the given value set, or an empty map if the value set is empty or
+     *     could not be expanded
+     */
+    public static Map<java.lang.String, Set<java.lang.String>> getCodeSetMap(ValueSet valueSet) {
+        if (valueSet == null) {
+            return Collections.emptyMap();
+        }
+        CachedExpansion cachedExpansion = getCachedExpansion(valueSet);
+        if (cachedExpansion != null) {
+            return cachedExpansion.getCodeSetMap();
+        }
+        try {
+            return computeCodeSetMap(expand(valueSet));
+        } catch (Exception e) {
+            logExpansionFailure(valueSet, e);
+        }
+        return Collections.emptyMap();
+    }
+
+    private static ValueSet computeExpansion(ValueSet valueSet) {
         if (!isExpanded(valueSet) && isExpandable(valueSet)) {
             Set<Contains> result = expand(valueSet.getCompose());
             return valueSet.toBuilder()
@@ -81,6 +135,55 @@ public final class ValueSetSupport {
         return valueSet;
     }
 
+    private static Map<java.lang.String, Set<java.lang.String>> computeCodeSetMap(ValueSet expanded) {
+        if (expanded == null || expanded.getExpansion() == null) {
+            return Collections.emptyMap();
+        }
+        Map<java.lang.String, Set<java.lang.String>> codeSetMap = new LinkedHashMap<>();
+        for (Contains contains : getContains(expanded.getExpansion())) {
+            java.lang.String system = (contains.getSystem() != null) ? contains.getSystem().getValue() : null;
+            java.lang.String version = (contains.getVersion() != null && contains.getVersion().getValue() != null) ? contains.getVersion().getValue() : VERSION_UNKNOWN;
+            java.lang.String code = (contains.getCode() != null) ? contains.getCode().getValue() : null;
+            if (system != null && code != null) {
+                codeSetMap.computeIfAbsent(system + "|" + version, k -> new LinkedHashSet<>()).add(code);
+            }
+        }
+        // hash-based copies are smaller than the linked sets used to build them and sufficient for membership checks
+        Map<java.lang.String, Set<java.lang.String>> result = new HashMap<>(codeSetMap.size() * 4 / 3 + 1);
+        for (Map.Entry<java.lang.String, Set<java.lang.String>> entry : codeSetMap.entrySet()) {
+            result.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Get the cache entry for the given value set. Only value sets with a url are cached; the entry is replaced
+     * if a different instance with the same url and version is passed in.
+     */
+    private static CachedExpansion getCachedExpansion(ValueSet valueSet) {
+        if (valueSet == null || valueSet.getUrl() == null || valueSet.getUrl().getValue() == null) {
+            return null;
+        }
+        java.lang.String key = valueSet.getUrl().getValue();
+        if (valueSet.getVersion() != null && valueSet.getVersion().getValue() != null) {
+            key = key + "|" + valueSet.getVersion().getValue();
+        }
+        synchronized (EXPANSION_CACHE) {
+            CachedExpansion cachedExpansion = EXPANSION_CACHE.get(key);
+            if (cachedExpansion == null || cachedExpansion.valueSet != valueSet) {
+                cachedExpansion = new CachedExpansion(valueSet);
+                EXPANSION_CACHE.put(key, cachedExpansion);
+            }
+            return cachedExpansion;
+        }
+    }
+
+    private static void logExpansionFailure(ValueSet valueSet, Exception e) {
+        java.lang.String url = (valueSet.getUrl() != null) ? valueSet.getUrl().getValue() : "<no url>";
+        java.lang.String version = (valueSet.getVersion() != null) ? valueSet.getVersion().getValue() : "<no version>";
+        log.log(Level.WARNING, java.lang.String.format("Unable to expand value set with url: %s and version: %s", url, version), e);
+    }
+
     public static boolean isExpanded(ValueSet valueSet) {
         return valueSet != null && valueSet.getExpansion() != null;
     }
@@ -305,7 +408,7 @@ public final class ValueSetSupport {
         if ("concept".equals(filter.getProperty().getValue()) && CodeSystemHierarchyMeaning.IS_A.equals(codeSystem.getHierarchyMeaning())) {
             Concept concept = findConcept(codeSystem, code(filter.getValue()));
             if (concept != null) {
-                return new GeneralizesFilter(concept);
+                return new GeneralizesFilter(getAncestorsAndSelf(codeSystem, concept.getCode()));
             }
         }
         return null;
@@ -462,6 +565,53 @@ public final class ValueSetSupport {
         return "true".equals(value.getValue()) ? Boolean.TRUE : Boolean.FALSE;
     }
 
+    /**
+     * A cache entry holding the expansion and code set map of a value set. Both are computed lazily,
+     * at most once per entry.
+     */
+    private static class CachedExpansion {
+        private final ValueSet valueSet;
+        private volatile ValueSet expanded;
+        private volatile Map<java.lang.String, Set<java.lang.String>> codeSetMap;
+
+        private CachedExpansion(ValueSet valueSet) {
+            this.valueSet = valueSet;
+        }
+
+        private ValueSet getExpanded() {
+            ValueSet expanded = this.expanded;
+            if (expanded == null) {
+                synchronized (this) {
+                    expanded = this.expanded;
+                    if (expanded == null) {
+                        expanded = computeExpansion(valueSet);
+                        this.expanded = expanded;
+                    }
+                }
+            }
+            return expanded;
+        }
+
+        private Map<java.lang.String, Set<java.lang.String>> getCodeSetMap() {
+            Map<java.lang.String, Set<java.lang.String>> codeSetMap = this.codeSetMap;
+            if (codeSetMap == null) {
+                synchronized (this) {
+                    codeSetMap = this.codeSetMap;
+                    if (codeSetMap == null) {
+                        try {
+                            codeSetMap = computeCodeSetMap(getExpanded());
+                        } catch (Exception e) {
+                            logExpansionFailure(valueSet, e);
+                            codeSetMap = Collections.emptyMap();
+                        }
+                        this.codeSetMap = codeSetMap;
+                    }
+                }
+            }
+            return codeSetMap;
+        }
+    }
+
     private interface ConceptFilter {
         boolean accept(Concept concept);
     }
@@ -536,15 +686,15 @@ public final class ValueSetSupport {
     }
 
     private static class GeneralizesFilter implements ConceptFilter {
-        private final Concept concept;
+        private final Set<java.lang.String> ancestorsAndSelf;
 
-        public GeneralizesFilter(Concept concept) {
-            this.concept = concept;
+        public GeneralizesFilter(Set<java.lang.String> ancestorsAndSelf) {
+            this.ancestorsAndSelf = ancestorsAndSelf;
         }
 
         @Override
         public boolean accept(Concept concept) {
-            return getConcepts(concept).contains(this.concept);
+            return concept.getCode() != null && ancestorsAndSelf.contains(concept.getCode().getValue());
         }
     }
 
@@ -0,0 +1,39 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.profile.test;
+
+import static com.ibm.fhir.profile.CodeSystemSupport.findConcept;
+import static com.ibm.fhir.profile.CodeSystemSupport.getAncestorsAndSelf;
+import static com.ibm.fhir.profile.CodeSystemSupport.getCodeSystem;
+import static com.ibm.fhir.profile.CodeSystemSupport.getDescendantsAndSelf;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.CodeSystem;
+import com.ibm.fhir.model.type.Code;
+
+public class CodeSystemSupportTest {
+    @Test
+    public void testFindConcept() throws Exception {
+        CodeSystem codeSystem = getCodeSystem("http://ibm.com/fhir/CodeSystem/cs3|1.0.0");
+        Assert.assertEquals(findConcept(codeSystem, Code.of("y")).getCode(), Code.of("y"));
+        Assert.assertNull(findConcept(codeSystem, Code.of("unknown")));
+    }
+
+    @Test
+    public void testSubsumptionClosures() throws Exception {
+        CodeSystem codeSystem = getCodeSystem("http://ibm.com/fhir/CodeSystem/cs3|1.0.0");
+        Assert.assertEquals(getDescendantsAndSelf(codeSystem, Code.of("g")), new LinkedHashSet<>(Arrays.asList("g", "x", "y", "z")));
+        Assert.assertEquals(getDescendantsAndSelf(codeSystem, Code.of("h")), new LinkedHashSet<>(Arrays.asList("h")));
+        Assert.assertEquals(getAncestorsAndSelf(codeSystem, Code.of("z")), new LinkedHashSet<>(Arrays.asList("z", "x", "g")));
+        Assert.assertTrue(getAncestorsAndSelf(codeSystem, Code.of("unknown")).isEmpty());
+    }
+}
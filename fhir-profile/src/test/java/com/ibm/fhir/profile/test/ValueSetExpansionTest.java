@@ -7,11 +7,14 @@
 package com.ibm.fhir.profile.test;
 
 import static com.ibm.fhir.profile.ValueSetSupport.expand;
+import static com.ibm.fhir.profile.ValueSetSupport.getCodeSetMap;
 import static com.ibm.fhir.profile.ValueSetSupport.getContains;
 import static com.ibm.fhir.profile.ValueSetSupport.getValueSet;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.testng.Assert;
@@ -89,6 +92,23 @@ public class ValueSetExpansionTest {
         Assert.assertEquals(actual, Arrays.asList("m", "p", "q", "s", "o", "t", "u"));  
     }
     
+    @Test
+    public void testValueSetExpansionCache() throws Exception {
+        ValueSet valueSet = getValueSet("http://ibm.com/fhir/ValueSet/vs4|1.0.0");
+        ValueSet expanded = expand(valueSet);
+
+        Assert.assertSame(expand(valueSet), expanded);
+
+        Map<String, Set<String>> codeSetMap = getCodeSetMap(valueSet);
+        Assert.assertSame(getCodeSetMap(valueSet), codeSetMap);
+
+        int total = 0;
+        for (Set<String> codeSet : codeSetMap.values()) {
+            total += codeSet.size();
+        }
+        Assert.assertEquals(total, getContains(expanded.getExpansion()).size());
+    }
+    
     private void debug(ValueSet valueSet) throws Exception {
         if (DEBUG) {
             FHIRGenerator.generator(Format.JSON, true).generate(valueSet, System.out);
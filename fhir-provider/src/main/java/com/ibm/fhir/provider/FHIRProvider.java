@@ -132,7 +132,11 @@ public class FHIRProvider implements MessageBodyReader<Resource>, MessageBodyWri
         }
     }
 
-    protected static boolean isPretty(HttpHeaders httpHeaders, UriInfo uriInfo) {
+    /**
+     * Whether the response is to be pretty-printed, according to the _pretty header or query parameter of the
+     * request, or else the fhirServer/core/defaultPrettyPrint configuration property
+     */
+    public static boolean isPretty(HttpHeaders httpHeaders, UriInfo uriInfo) {
         // Header evaluation
         String value = httpHeaders.getHeaderString(FHIRConfiguration.DEFAULT_PRETTY_RESPONSE_HEADER_NAME);
 
@@ -37,6 +37,7 @@ public final class FHIRRegistry {
     private static final FHIRRegistry INSTANCE = new FHIRRegistry();
 
     private final List<FHIRRegistryResourceProvider> providers;
+    private final List<Runnable> registrationListeners = new CopyOnWriteArrayList<>();
 
     private FHIRRegistry() {
         providers = new CopyOnWriteArrayList<>(loadProviders());
@@ -67,6 +68,22 @@ public final class FHIRRegistry {
     public void register(FHIRRegistryResourceProvider provider) {
         Objects.requireNonNull(provider);
         providers.add(provider);
+        for (Runnable listener : registrationListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Add a listener that is called each time a registry resource provider is added to the registry
+     *
+     * <p>Consumers that cache information derived from registry resources use this to invalidate their caches
+     *
+     * @param listener
+     *     the listener to be added
+     */
+    public void addRegistrationListener(Runnable listener) {
+        Objects.requireNonNull(listener);
+        registrationListeners.add(listener);
     }
 
     /**
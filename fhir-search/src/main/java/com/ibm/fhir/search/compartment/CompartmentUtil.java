@@ -64,6 +64,10 @@ public class CompartmentUtil {
     public static final String FHIR_PATH_BUNDLE_ENTRY = "entry.children()";
     public static final String RESOURCE = "/compartments.json";
 
+    // The name of the internal search parameter used to store the compartment membership of a resource.
+    public static final String COMPARTMENT_PARM_PREFIX = "ibm-internal-";
+    public static final String COMPARTMENT_PARM_SUFFIX = "-Compartment";
+
     // List of compartmentDefintions.
     private static final Set<String> compartmentDefinitions = new HashSet<String>() {
 
@@ -99,6 +103,9 @@ public class CompartmentUtil {
 
     private static final Map<String, CompartmentCache> compartmentMap = buildCompartmentMap();
 
+    // Map of resource type to the map of inclusion criteria (parameter codes) to the compartments which use them
+    private static final Map<String, Map<String, Set<String>>> resourceTypeInclusionCriteriaMap = buildResourceTypeInclusionCriteriaMap();
+
     /**
      * Builds an in-memory model of the Compartment map defined in compartments.json, for supporting compartment based
      * FHIR searches.
@@ -161,6 +168,49 @@ public class CompartmentUtil {
 
     }
 
+    /**
+     * Inverts the compartment map, so that the compartments which a resource of a given type may be a member of can be
+     * determined from the parameters extracted from the resource.
+     *
+     * @return a map of resource type to a map of inclusion criteria to compartment names
+     */
+    private static Map<String, Map<String, Set<String>>> buildResourceTypeInclusionCriteriaMap() {
+        Map<String, Map<String, Set<String>>> result = new HashMap<>();
+        for (Map.Entry<String, CompartmentCache> entry : compartmentMap.entrySet()) {
+            String compartment = entry.getKey();
+            for (String resourceType : entry.getValue().getResourceTypesInCompartment()) {
+                Map<String, Set<String>> criteriaMap = result.computeIfAbsent(resourceType, k -> new HashMap<>());
+                for (String criteria : entry.getValue().getParametersByResourceTypeInCompartment(resourceType)) {
+                    criteriaMap.computeIfAbsent(criteria, k -> new HashSet<>()).add(compartment);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * gets the name of the internal search parameter which stores the membership of resources in the given
+     * compartment, e.g. "ibm-internal-Patient-Compartment".
+     *
+     * @param compartment
+     * @return
+     */
+    public static String makeCompartmentParamName(final String compartment) {
+        return COMPARTMENT_PARM_PREFIX + compartment + COMPARTMENT_PARM_SUFFIX;
+    }
+
+    /**
+     * gets the inclusion criteria (search parameter codes) for the given resource type, each mapped to the set of
+     * compartments which use it.
+     *
+     * @param resourceType
+     * @return an unmodifiable map, empty if resources of the given type are not a member of any compartment
+     */
+    public static Map<String, Set<String>> getCompartmentInclusionCriteria(final String resourceType) {
+        Map<String, Set<String>> result = resourceTypeInclusionCriteriaMap.get(resourceType);
+        return result != null ? Collections.unmodifiableMap(result) : Collections.emptyMap();
+    }
+
     /**
      * gets the compartment
      *
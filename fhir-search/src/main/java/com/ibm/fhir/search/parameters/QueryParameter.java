@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -30,6 +30,7 @@ public class QueryParameter {
     private List<QueryParameterValue> values = null;
     private QueryParameter nextParameter = null;
     private boolean isInclusionCriteria = false;
+    private boolean isReverseChained = false;
 
     public QueryParameter(Type type, String code, Modifier modifier, String modifierResourceTypeName) {
         this.type = type;
@@ -44,6 +45,17 @@ public class QueryParameter {
         this.isInclusionCriteria = isInclusionCriteria;
     }
 
+    /**
+     * @param isReverseChained true if this parameter is a link of a reverse chain (_has), in which case
+     *                         {@code code} is the reference parameter of the {@code modifierResourceTypeName} resource
+     *                         type which refers to the resource type of the previous link
+     */
+    public QueryParameter(Type type, String code, Modifier modifier, String modifierResourceTypeName, boolean isInclusionCriteria,
+            boolean isReverseChained) {
+        this(type, code, modifier, modifierResourceTypeName, isInclusionCriteria);
+        this.isReverseChained = isReverseChained;
+    }
+
     public QueryParameter(Type type, String code, Modifier modifier, String modifierResourceTypeName, List<QueryParameterValue> parmValues) {
         this(type, code, modifier, modifierResourceTypeName);
         this.values = parmValues;
@@ -70,7 +82,11 @@ public class QueryParameter {
     }
 
     public boolean isChained() {
-        return this.nextParameter != null && !this.isInclusionCriteria;
+        return this.nextParameter != null && !this.isInclusionCriteria && !this.isReverseChained;
+    }
+
+    public boolean isReverseChained() {
+        return this.nextParameter != null && this.isReverseChained;
     }
 
     public String toString() {
@@ -105,6 +121,11 @@ public class QueryParameter {
         buffer.append(chained);
         buffer.append(NL);
 
+        boolean reverseChained = isReverseChained();
+        buffer.append("reverseChained: ");
+        buffer.append(reverseChained);
+        buffer.append(NL);
+
         boolean inclusionCriteria = this.isInclusionCriteria();
         buffer.append("inclusionCriteria: ");
         buffer.append(inclusionCriteria);
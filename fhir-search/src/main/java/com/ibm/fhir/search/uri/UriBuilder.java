@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -93,6 +93,7 @@ public class UriBuilder {
         appendRevInclusionParameters();
         appendSortParameters();
         appendSummaryParameter();
+        appendTotalParameter();
         appendResourceTypesParameter();
 
         // Always include page number at the end, even if it wasn't in the request
@@ -162,6 +163,15 @@ public class UriBuilder {
         }
     }
 
+    private void appendTotalParameter() {
+        if (context.getTotalParameter() != null) {
+            queryString.append(SearchConstants.AND_CHAR);
+            queryString.append(SearchConstants.TOTAL);
+            queryString.append(SearchConstants.EQUALS_CHAR);
+            queryString.append(context.getTotalParameter().value());
+        }
+    }
+
     private void appendRevInclusionParameters() {
         for (InclusionParameter param : context.getRevIncludeParameters()) {
             queryString.append(SearchConstants.AND_CHAR);
@@ -230,6 +240,18 @@ public class UriBuilder {
                     }
                 }
             }
+        } else if (param.isReverseChained()) {
+            // _has:{resource type}:{reference parameter}:... followed by the parameter of the last link
+            while (param.isReverseChained()) {
+                returnString.append(SearchConstants.HAS);
+                returnString.append(SearchConstants.COLON_DELIMITER);
+                returnString.append(param.getModifierResourceTypeName());
+                returnString.append(SearchConstants.COLON_DELIMITER);
+                returnString.append(param.getCode());
+                returnString.append(SearchConstants.COLON_DELIMITER);
+                param = param.getNextParameter();
+            }
+            appendNormalParameter(param, returnString);
         } else {
             appendNormalParameter(param, returnString);
         }
@@ -46,6 +46,7 @@ import com.ibm.fhir.search.SearchConstants;
 import com.ibm.fhir.search.SearchConstants.Modifier;
 import com.ibm.fhir.search.SearchConstants.Type;
 import com.ibm.fhir.search.SummaryValueSet;
+import com.ibm.fhir.search.TotalValueSet;
 import com.ibm.fhir.search.compartment.CompartmentUtil;
 import com.ibm.fhir.search.context.FHIRSearchContext;
 import com.ibm.fhir.search.context.FHIRSearchContextFactory;
@@ -90,6 +91,11 @@ public class SearchUtil {
     private static final String MODIFIYERRESOURCETYPE_NOT_ALLOWED_FOR_RESOURCETYPE =
             "Modifier resource type [%s] is not allowed for search parameter [%s] of resource type [%s].";
 
+    private static final String INVALID_HAS_PARAMETER_EXCEPTION =
+            "Invalid _has parameter '%s'; expected _has:{resource type}:{reference parameter}:{parameter}";
+    private static final String HAS_NOT_A_REFERENCE_EXCEPTION =
+            "Search parameter '%s' of resource type '%s' is not a reference parameter to resource type '%s'";
+    private static final String HAS_PARAMETER_NOT_SUPPORTED_EXCEPTION = "Search parameter '%s' is not supported within _has";
     private static final String DIFFERENT_MODIFIYERRESOURCETYPES_FOUND_FOR_RESOURCETYPES =
             "Different Modifier resource types are found for search parameter [%s] of the to-be-searched resource types.";
 
@@ -669,6 +675,14 @@ public class SearchUtil {
                         context.getIncludeParameters().clear();
                         context.getRevIncludeParameters().clear();
                     }
+                } else if (isReverseChainedParameter(name)) {
+                    if (Resource.class.equals(resourceType)) {
+                        throw SearchExceptionUtil.buildNewInvalidSearchException(
+                                "_has search parameter not supported with system search.");
+                    }
+                    for (String reverseChainedParameterString : params) {
+                        parameters.add(parseReverseChainedParameter(resourceType, name, reverseChainedParameterString));
+                    }
                 } else if (isChainedParameter(name)) {
                     List<String> chainedParemeters = params;
                     for (String chainedParameterString : chainedParemeters) {
@@ -1102,6 +1116,8 @@ public class SearchUtil {
                 parseElementsParameter(resourceType, context, values, lenient);
             } else if (SearchConstants.SUMMARY.equals(name) && first != null) {
                 context.setSummaryParameter(SummaryValueSet.from(first));
+            } else if (SearchConstants.TOTAL.equals(name) && first != null) {
+                context.setTotalParameter(TotalValueSet.from(first));
             }
         } catch (FHIRSearchException se) {
             throw se;
@@ -1332,6 +1348,111 @@ public class SearchUtil {
         return rootParameter;
     }
 
+    public static boolean isReverseChainedParameter(String name) {
+        return name.startsWith(SearchConstants.HAS + SearchConstants.COLON_DELIMITER_STR);
+    }
+
+    /**
+     * Parses a reverse chained parameter such as {@code _has:Observation:patient:code=1234-5} (for Patient) into a
+     * chain of QueryParameters. There is one reverse chained link for each _has, with the reference parameter as its
+     * code and the referring resource type as its modifier resource type, followed by the parameter which is applied
+     * to the last referring resource type. Nested _has parameters such as
+     * {@code _has:Observation:patient:_has:AuditEvent:entity:agent=MyUserId} result in a link for each _has.
+     *
+     * @see https://www.hl7.org/fhir/search.html#has
+     */
+    private static QueryParameter parseReverseChainedParameter(Class<?> resourceType, String name, String valuesString)
+            throws Exception {
+
+        QueryParameter rootParameter = null;
+
+        try {
+            QueryParameter lastParameter = null;
+            String remainder = name;
+            while (isReverseChainedParameter(remainder)) {
+                // _has:{referring resource type}:{reference parameter}:{remainder}
+                String[] components = remainder.split(SearchConstants.COLON_DELIMITER_STR, 4);
+                if (components.length < 4 || components[3].isEmpty() || !ModelSupport.isResourceType(components[1])) {
+                    throw SearchExceptionUtil.buildNewInvalidSearchException(
+                            String.format(INVALID_HAS_PARAMETER_EXCEPTION, name));
+                }
+                String referringResourceTypeName = components[1];
+                String referenceParameterCode = components[2];
+
+                SearchParameter referenceParameter =
+                        getApplicableSearchParametersMap(referringResourceTypeName).get(referenceParameterCode);
+                if (referenceParameter == null
+                        || !Type.REFERENCE.equals(Type.fromValue(referenceParameter.getType().getValue()))
+                        || (!referenceParameter.getTarget().isEmpty()
+                                && !referenceParameter.getTarget().contains(ResourceType.of(resourceType.getSimpleName())))) {
+                    throw SearchExceptionUtil.buildNewInvalidSearchException(
+                            String.format(HAS_NOT_A_REFERENCE_EXCEPTION, referenceParameterCode, referringResourceTypeName,
+                                    resourceType.getSimpleName()));
+                }
+
+                QueryParameter parameter =
+                        new QueryParameter(Type.REFERENCE, referenceParameterCode, null, referringResourceTypeName, false, true);
+                if (rootParameter == null) {
+                    rootParameter = parameter;
+                } else {
+                    lastParameter.setNextParameter(parameter);
+                }
+                lastParameter = parameter;
+
+                resourceType = ModelSupport.getResourceType(referringResourceTypeName);
+                remainder    = components[3];
+            }
+
+            // The parameter which is applied to the last referring resource type
+            String parameterCode = remainder;
+            String mod = null;
+            int loc = parameterCode.indexOf(SearchConstants.COLON_DELIMITER);
+            if (loc > 0) {
+                mod           = parameterCode.substring(loc + 1);
+                parameterCode = parameterCode.substring(0, loc);
+            }
+            // _id and _lastUpdated are not stored in the parameter tables
+            if (isChainedParameter(parameterCode) || SearchConstants.SYSTEM_LEVEL_SORT_PARAMETER_NAMES.contains(parameterCode)) {
+                throw SearchExceptionUtil.buildNewInvalidSearchException(
+                        String.format(HAS_PARAMETER_NOT_SUPPORTED_EXCEPTION, parameterCode));
+            }
+
+            SearchParameter searchParameter = getApplicableSearchParametersMap(resourceType.getSimpleName()).get(parameterCode);
+            if (searchParameter == null) {
+                String msg =
+                        "Search parameter '" + parameterCode + "' for resource type '"
+                                + resourceType.getSimpleName() + "' was not found.";
+                throw SearchExceptionUtil.buildNewInvalidSearchException(msg);
+            }
+            Type type = Type.fromValue(searchParameter.getType().getValue());
+
+            Modifier modifier = null;
+            String modifierResourceTypeName = null;
+            if (mod != null) {
+                if (ModelSupport.isResourceType(mod)) {
+                    modifier                 = Modifier.TYPE;
+                    modifierResourceTypeName = mod;
+                } else {
+                    modifier = Modifier.fromValue(mod);
+                }
+                if (!isAllowed(type, modifier)) {
+                    String msg = "Unsupported type/modifier combination: " + type.value() + "/" + modifier.value();
+                    throw SearchExceptionUtil.buildNewInvalidSearchException(msg);
+                }
+            }
+
+            QueryParameter parameter = new QueryParameter(type, parameterCode, modifier, modifierResourceTypeName);
+            parameter.getValues().addAll(processQueryParameterValueString(resourceType, searchParameter, modifier, valuesString));
+            lastParameter.setNextParameter(parameter);
+        } catch (FHIRSearchException e) {
+            throw e;
+        } catch (Exception e) {
+            throw SearchExceptionUtil.buildNewChainedParameterException(name, e);
+        }
+
+        return rootParameter;
+    }
+
     /**
      * Transforms the passed QueryParameter representing chained inclusion criteria, into
      * an actual chain of QueryParameter objects. This method consumes QueryParameters
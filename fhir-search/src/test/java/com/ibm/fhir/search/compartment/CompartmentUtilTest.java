@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2019
+ * (C) Copyright IBM Corp. 2019, 2020
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -16,6 +16,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.testng.annotations.Test;
 
@@ -108,6 +109,34 @@ public class CompartmentUtilTest extends BaseSearchTest {
         assertFalse(results.isEmpty());
     }
 
+    @Test()
+    public void testMakeCompartmentParamName() {
+        assertEquals(CompartmentUtil.makeCompartmentParamName("Patient"), "ibm-internal-Patient-Compartment");
+    }
+
+    @Test()
+    public void testGetCompartmentInclusionCriteria() {
+        Map<String, Set<String>> results = CompartmentUtil.getCompartmentInclusionCriteria("Observation");
+        assertNotNull(results);
+        // Observation.subject is an inclusion criteria of both the Patient and the Device compartment
+        assertTrue(results.get("subject").contains("Patient"));
+        assertTrue(results.get("subject").contains("Device"));
+        assertEquals(results.get("encounter").size(), 1);
+        assertTrue(results.get("encounter").contains("Encounter"));
+    }
+
+    @Test()
+    public void testGetCompartmentInclusionCriteriaNotInCompartment() {
+        Map<String, Set<String>> results = CompartmentUtil.getCompartmentInclusionCriteria("FrenchFood");
+        assertNotNull(results);
+        assertTrue(results.isEmpty());
+    }
+
+    @Test(expectedExceptions = { UnsupportedOperationException.class })
+    public void testGetCompartmentInclusionCriteriaWithModification() {
+        CompartmentUtil.getCompartmentInclusionCriteria("Observation").clear();
+    }
+
     @Test()
     public void testBuildCompositeBundle() {
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(); PrintStream out = new PrintStream(outputStream);) {
@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.search.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.search.SearchConstants.Type;
+import com.ibm.fhir.search.context.FHIRSearchContext;
+import com.ibm.fhir.search.exception.FHIRSearchException;
+import com.ibm.fhir.search.parameters.QueryParameter;
+import com.ibm.fhir.search.util.SearchUtil;
+
+/**
+ * Tests the parsing of reverse chained (_has) parameters in the SearchUtil class.
+ */
+public class ReverseChainedParameterParseTest extends BaseSearchTest {
+
+    @Test
+    public void testReverseChain() throws Exception {
+        FHIRSearchContext context = parse(Patient.class, "_has:Observation:patient:code", "1234-5,6789-0");
+        List<QueryParameter> parameters = context.getSearchParameters();
+        assertEquals(parameters.size(), 1);
+
+        QueryParameter parameter = parameters.get(0);
+        assertTrue(parameter.isReverseChained());
+        assertFalse(parameter.isChained());
+        assertEquals(parameter.getType(), Type.REFERENCE);
+        assertEquals(parameter.getCode(), "patient");
+        assertEquals(parameter.getModifierResourceTypeName(), "Observation");
+        assertEquals(parameter.getChain().size(), 1);
+
+        QueryParameter last = parameter.getNextParameter();
+        assertFalse(last.isReverseChained());
+        assertEquals(last.getType(), Type.TOKEN);
+        assertEquals(last.getCode(), "code");
+        assertEquals(last.getValues().size(), 2);
+        assertNull(last.getNextParameter());
+
+        String selfUri = SearchUtil.buildSearchSelfUri("http://example.com/Patient", context);
+        assertTrue(selfUri.contains("_has:Observation:patient:code=1234-5,6789-0"), selfUri);
+    }
+
+    @Test
+    public void testNestedReverseChain() throws Exception {
+        FHIRSearchContext context = parse(Patient.class, "_has:Observation:patient:_has:AuditEvent:entity:agent", "MyUserId");
+        QueryParameter parameter = context.getSearchParameters().get(0);
+        assertEquals(parameter.getChain().size(), 2);
+        assertEquals(parameter.getModifierResourceTypeName(), "Observation");
+
+        QueryParameter nested = parameter.getNextParameter();
+        assertTrue(nested.isReverseChained());
+        assertEquals(nested.getCode(), "entity");
+        assertEquals(nested.getModifierResourceTypeName(), "AuditEvent");
+        assertEquals(nested.getNextParameter().getCode(), "agent");
+
+        String selfUri = SearchUtil.buildSearchSelfUri("http://example.com/Patient", context);
+        assertTrue(selfUri.contains("_has:Observation:patient:_has:AuditEvent:entity:agent=MyUserId"), selfUri);
+    }
+
+    @Test
+    public void testReverseChainWithModifier() throws Exception {
+        FHIRSearchContext context = parse(Patient.class, "_has:Observation:subject:code:missing", "false");
+        QueryParameter last = context.getSearchParameters().get(0).getNextParameter();
+        assertEquals(last.getModifier().value(), "missing");
+    }
+
+    @Test(expectedExceptions = FHIRSearchException.class)
+    public void testReverseChainInvalidResourceType() throws Exception {
+        parse(Patient.class, "_has:Bogus:patient:code", "1234-5");
+    }
+
+    @Test(expectedExceptions = FHIRSearchException.class)
+    public void testReverseChainNotAReference() throws Exception {
+        parse(Patient.class, "_has:Observation:code:status", "final");
+    }
+
+    @Test(expectedExceptions = FHIRSearchException.class)
+    public void testReverseChainWrongTarget() throws Exception {
+        // Observation.patient only refers to Patient
+        parse(Observation.class, "_has:Observation:patient:code", "1234-5");
+    }
+
+    @Test(expectedExceptions = FHIRSearchException.class)
+    public void testReverseChainMissingParameter() throws Exception {
+        parse(Patient.class, "_has:Observation:patient", "1234-5");
+    }
+
+    @Test(expectedExceptions = FHIRSearchException.class)
+    public void testReverseChainSystemSearch() throws Exception {
+        parse(Resource.class, "_has:Observation:patient:code", "1234-5");
+    }
+
+    @Test
+    public void testReverseChainLenient() throws Exception {
+        Map<String, List<String>> queryParameters = new HashMap<>();
+        queryParameters.put("_has:Observation:patient:bogus", Collections.singletonList("1234-5"));
+        FHIRSearchContext context = SearchUtil.parseQueryParameters(Patient.class, queryParameters, true);
+        assertTrue(context.getSearchParameters().isEmpty());
+    }
+
+    private FHIRSearchContext parse(Class<?> resourceType, String name, String value) throws Exception {
+        Map<String, List<String>> queryParameters = new HashMap<>();
+        queryParameters.put(name, Collections.singletonList(value));
+        return SearchUtil.parseQueryParameters(resourceType, queryParameters);
+    }
+}
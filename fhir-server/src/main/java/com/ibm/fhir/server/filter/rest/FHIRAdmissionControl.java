@@ -0,0 +1,367 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.filter.rest;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Admission control for the requests of each tenant: a token-bucket rate limit and a limit on the number of requests
+ * that are processed at the same time, both for all requests of the tenant and for each kind of interaction.
+ *
+ * <p>A request that is over a limit is rejected right away, with the number of seconds after which the client should
+ * retry, so that no container thread is held while the tenant is over its limits. The state of each limiter is
+ * registered as a platform MXBean named
+ * {@code com.ibm.fhir.server:type=AdmissionControl,tenant=<tenantId>,interaction=<interaction>}, where the interaction
+ * is {@value #ALL_INTERACTIONS} for the limits that apply to all requests of the tenant. Limiters are only created for
+ * the limits that are set.
+ */
+public class FHIRAdmissionControl {
+    private static final Logger log = Logger.getLogger(FHIRAdmissionControl.class.getName());
+
+    public static final String ALL_INTERACTIONS = "all";
+    private static final String OBJECT_NAME_PREFIX = "com.ibm.fhir.server:type=AdmissionControl";
+
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * The limits that apply to a request, as configured for its tenant.
+     */
+    public static class Limits {
+        private final int maxConcurrentRequests;
+        private final int interactionMaxConcurrentRequests;
+        private final double requestsPerSecond;
+        private final int burstSize;
+
+        /**
+         * @param maxConcurrentRequests
+         *            the maximum number of requests of the tenant that are processed at the same time, or 0 for no limit
+         * @param interactionMaxConcurrentRequests
+         *            the maximum number of requests of the tenant for the interaction that are processed at the same
+         *            time, or 0 for no limit
+         * @param requestsPerSecond
+         *            the rate at which the tenant's token bucket is refilled, or 0 for no rate limit
+         * @param burstSize
+         *            the capacity of the tenant's token bucket
+         */
+        public Limits(int maxConcurrentRequests, int interactionMaxConcurrentRequests, double requestsPerSecond, int burstSize) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.interactionMaxConcurrentRequests = interactionMaxConcurrentRequests;
+            this.requestsPerSecond = requestsPerSecond;
+            this.burstSize = Math.max(burstSize, 1);
+        }
+
+        private boolean hasTenantLimit() {
+            return maxConcurrentRequests > 0 || requestsPerSecond > 0;
+        }
+
+        private boolean hasInteractionLimit() {
+            return interactionMaxConcurrentRequests > 0;
+        }
+    }
+
+    /**
+     * The admission of a request, which must be released when the request has been processed.
+     */
+    public static class Admission {
+        private final Limiter tenantLimiter;
+        private final Limiter interactionLimiter;
+        private boolean released = false;
+
+        private Admission(Limiter tenantLimiter, Limiter interactionLimiter) {
+            this.tenantLimiter = tenantLimiter;
+            this.interactionLimiter = interactionLimiter;
+        }
+
+        /**
+         * Releases the concurrency slots of the request; calling this method more than once has no effect.
+         */
+        public synchronized void release() {
+            if (!released) {
+                released = true;
+                if (interactionLimiter != null) {
+                    interactionLimiter.release();
+                }
+                if (tenantLimiter != null) {
+                    tenantLimiter.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Thrown when a request is over one of the limits of its tenant.
+     */
+    public static class AdmissionRejectedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterSeconds;
+
+        public AdmissionRejectedException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        /**
+         * @return the number of seconds after which the client should retry the request
+         */
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    /**
+     * The management interface of a limiter.
+     */
+    public interface LimiterMXBean {
+        int getRunningRequests();
+        long getAdmittedRequests();
+        long getRejectedRequests();
+        double getAvailableTokens();
+    }
+
+    /**
+     * The state of the concurrency limit and (for the limiter of all interactions) the token bucket of a tenant.
+     * The limits are passed on each call so that configuration changes take effect without recreating the limiter.
+     */
+    static class Limiter implements LimiterMXBean {
+        private int running = 0;
+        private long admitted = 0;
+        private long rejected = 0;
+        private double tokens = -1;
+        private long lastRefillNanos = System.nanoTime();
+
+        /**
+         * Takes a token from the bucket, if one is available.
+         *
+         * @return 0 if a token was taken, or else the number of nanoseconds until the next token becomes available
+         */
+        synchronized long takeToken(double requestsPerSecond, int burstSize) {
+            if (requestsPerSecond <= 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            if (tokens < 0) {
+                tokens = burstSize;
+            } else {
+                tokens = Math.min(burstSize, tokens + (now - lastRefillNanos) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            }
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            rejected++;
+            return (long) Math.ceil((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        }
+
+        /**
+         * Returns a token taken by {@link #takeToken(double, int)} to the bucket, for a request that was rejected
+         * by a concurrency limit after it took the token.
+         */
+        synchronized void refundToken(double requestsPerSecond, int burstSize) {
+            if (requestsPerSecond > 0 && tokens >= 0) {
+                tokens = Math.min(burstSize, tokens + 1);
+            }
+        }
+
+        /**
+         * Takes a concurrency slot, if one is free.
+         *
+         * @return true if a slot was taken
+         */
+        synchronized boolean acquire(int maxConcurrentRequests) {
+            if (maxConcurrentRequests > 0 && running >= maxConcurrentRequests) {
+                rejected++;
+                return false;
+            }
+            running++;
+            return true;
+        }
+
+        /**
+         * Counts a request that has been admitted by all limiters.
+         */
+        synchronized void countAdmitted() {
+            admitted++;
+        }
+
+        synchronized void release() {
+            running--;
+        }
+
+        @Override
+        public synchronized int getRunningRequests() {
+            return running;
+        }
+
+        @Override
+        public synchronized long getAdmittedRequests() {
+            return admitted;
+        }
+
+        @Override
+        public synchronized long getRejectedRequests() {
+            return rejected;
+        }
+
+        @Override
+        public synchronized double getAvailableTokens() {
+            return Math.max(tokens, 0);
+        }
+    }
+
+    /**
+     * Admits a request of the passed tenant for the passed interaction, or rejects it if it is over one of the passed
+     * limits.
+     *
+     * @param tenantId
+     *            the tenant whose limits apply to the request
+     * @param interaction
+     *            the interaction of the request
+     * @param limits
+     *            the limits of the tenant
+     * @return the admission, which must be released when the request has been processed, or null if no limit is set
+     * @throws AdmissionRejectedException
+     *             if the request is over one of the limits
+     */
+    public Admission admit(String tenantId, String interaction, Limits limits) throws AdmissionRejectedException {
+        if (!limits.hasTenantLimit() && !limits.hasInteractionLimit()) {
+            return null;
+        }
+        Limiter tenantLimiter = limits.hasTenantLimit() ? getLimiter(tenantId, ALL_INTERACTIONS) : null;
+        Limiter interactionLimiter = limits.hasInteractionLimit() ? getLimiter(tenantId, interaction) : null;
+
+        if (tenantLimiter != null) {
+            long untilNextToken = tenantLimiter.takeToken(limits.requestsPerSecond, limits.burstSize);
+            if (untilNextToken > 0) {
+                throw new AdmissionRejectedException("The request rate limit of tenant '" + tenantId + "' has been exceeded",
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(untilNextToken + TimeUnit.SECONDS.toNanos(1) - 1)));
+            }
+            if (!tenantLimiter.acquire(limits.maxConcurrentRequests)) {
+                // a rejected request doesn't count against the rate limit
+                tenantLimiter.refundToken(limits.requestsPerSecond, limits.burstSize);
+                throw new AdmissionRejectedException("Too many concurrent requests for tenant '" + tenantId + "'", 1);
+            }
+        }
+        if (interactionLimiter != null && !interactionLimiter.acquire(limits.interactionMaxConcurrentRequests)) {
+            if (tenantLimiter != null) {
+                tenantLimiter.release();
+                tenantLimiter.refundToken(limits.requestsPerSecond, limits.burstSize);
+            }
+            throw new AdmissionRejectedException("Too many concurrent '" + interaction + "' requests for tenant '" + tenantId + "'", 1);
+        }
+        if (tenantLimiter != null) {
+            tenantLimiter.countAdmitted();
+        }
+        if (interactionLimiter != null) {
+            interactionLimiter.countAdmitted();
+        }
+        return new Admission(tenantLimiter, interactionLimiter);
+    }
+
+    private Limiter getLimiter(String tenantId, String interaction) {
+        return limiters.computeIfAbsent(tenantId + "/" + interaction, k -> {
+            Limiter limiter = new Limiter();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(limiter, getObjectName(tenantId, interaction));
+            } catch (Exception e) {
+                log.log(Level.FINE, "Unable to register the admission control MXBean of tenant '" + tenantId + "'", e);
+            }
+            return limiter;
+        });
+    }
+
+    /**
+     * Unregisters the MXBeans of the limiters.
+     */
+    public void shutdown() {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (String key : limiters.keySet()) {
+            int sep = key.lastIndexOf('/');
+            try {
+                mbeanServer.unregisterMBean(getObjectName(key.substring(0, sep), key.substring(sep + 1)));
+            } catch (Exception e) {
+                log.log(Level.FINE, "Unable to unregister the admission control MXBean '" + key + "'", e);
+            }
+        }
+        limiters.clear();
+    }
+
+    private static ObjectName getObjectName(String tenantId, String interaction) throws Exception {
+        return new ObjectName(OBJECT_NAME_PREFIX + ",tenant=" + ObjectName.quote(tenantId) + ",interaction=" + interaction);
+    }
+
+    /**
+     * Determines the interaction of a request of the REST API from its method and path.
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param pathInfo
+     *            the path of the request relative to the REST API's servlet, or null
+     * @return one of read, vread, history, search, create, update, patch, delete, batch, operation, metadata or other
+     */
+    public static String getInteraction(String method, String pathInfo) {
+        String path = pathInfo == null ? "" : pathInfo;
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        String[] tokens = path.isEmpty() ? new String[0] : path.split("/");
+        String last = tokens.length > 0 ? tokens[tokens.length - 1] : "";
+        if (last.startsWith("$")) {
+            return "operation";
+        }
+
+        switch (method == null ? "" : method.toUpperCase()) {
+        case "GET":
+            if (tokens.length == 0 || "_search".equals(last)) {
+                return "search";
+            } else if (tokens.length == 1) {
+                if ("metadata".equals(last)) {
+                    return "metadata";
+                }
+                return "_history".equals(last) ? "history" : "search";
+            } else if ("_history".equals(last)) {
+                return "history";
+            } else if (tokens.length == 2) {
+                return "read";
+            } else if (tokens.length == 3) {
+                return "search";
+            } else if (tokens.length == 4 && "_history".equals(tokens[2])) {
+                return "vread";
+            }
+            return "other";
+        case "POST":
+            if (tokens.length == 0) {
+                return "batch";
+            } else if ("_search".equals(last)) {
+                return "search";
+            } else if (tokens.length == 1) {
+                return "create";
+            }
+            return "other";
+        case "PUT":
+            return "update";
+        case "PATCH":
+            return "patch";
+        case "DELETE":
+            return "delete";
+        default:
+            return "other";
+        }
+    }
+}
@@ -17,6 +17,8 @@ import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
@@ -62,6 +64,11 @@ public class FHIRRestServletFilter extends HttpFilter {
     private static String defaultTenantId = null;
     private static final HTTPReturnPreference defaultHttpReturnPref = HTTPReturnPreference.MINIMAL;
 
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final String retryAfterHeaderName = "Retry-After";
+
+    private FHIRAdmissionControl admissionControl = null;
+
     @Override
     public void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
         if (log.isLoggable(Level.FINE)) {
@@ -80,6 +87,9 @@ public class FHIRRestServletFilter extends HttpFilter {
         if (log.isLoggable(Level.FINEST)) {
             log.finest("Wrapped HttpServletRequest object...");
         }
+        // Make the request itself available to interactions that run on the request executor, where the
+        // HttpServletRequest proxy injected by JAX-RS can't be used
+        request.setAttribute(FHIRHttpServletRequestWrapper.class.getName(), request);
 
         String t = request.getHeader(tenantIdHeaderName);
         if (t != null) {
@@ -116,6 +126,7 @@ public class FHIRRestServletFilter extends HttpFilter {
         String encodedRequestDescription = Encode.forHtml(requestDescription.toString());
         log.info("Received request: " + encodedRequestDescription);
 
+        FHIRAdmissionControl.Admission admission = null;
         try {
             // Create a new FHIRRequestContext and set it on the current thread.
             FHIRRequestContext context = new FHIRRequestContext(tenantId, dsId);
@@ -160,55 +171,56 @@ public class FHIRRestServletFilter extends HttpFilter {
             Map<String, List<String>> requestHeaders = extractRequestHeaders(request);
             context.setHttpHeaders(requestHeaders);
 
+            // Check the tenant's admission limits before the request occupies any further resources.
+            admission = admit(request, tenantId);
+
             // Pass the request through to the next filter in the chain.
             chain.doFilter(request, response);
+        } catch (FHIRAdmissionControl.AdmissionRejectedException e) {
+            log.info("Rejected request: " + encodedRequestDescription + " reason:[" + e.getMessage() + "]");
+
+            response.setHeader(retryAfterHeaderName, Long.toString(e.getRetryAfterSeconds()));
+            OperationOutcome outcome = FHIRUtil.buildOperationOutcome(e.getMessage(), IssueType.THROTTLED, IssueSeverity.ERROR);
+            writeOperationOutcome(request, response, SC_TOO_MANY_REQUESTS, outcome);
         } catch (Exception e) {
             log.log(Level.INFO, "Error while setting request context or processing request", e);
 
             OperationOutcome outcome = FHIRUtil.buildOperationOutcome(e, IssueType.INVALID, IssueSeverity.FATAL, false);
+            writeOperationOutcome(request, response, HttpServletResponse.SC_BAD_REQUEST, outcome);
+        } finally {
+            FHIRAdmissionControl.Admission completedAdmission = admission;
+            if (request.isAsyncStarted()) {
+                // The interaction completes the response on another thread
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        if (completedAdmission != null) {
+                            completedAdmission.release();
+                        }
+                        logCompletion(response, initialTime, encodedRequestDescription);
+                    }
 
-            if (request instanceof HttpServletRequest && response instanceof HttpServletResponse) {
-                HttpServletRequest httpRequest = request;
-                HttpServletResponse httpResponse = response;
-
-                httpResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-
-                Format format = chooseResponseFormat(httpRequest.getHeader("Accept"));
-                switch (format) {
-                case XML:
-                    httpResponse.setContentType(com.ibm.fhir.core.FHIRMediaType.APPLICATION_FHIR_XML);
-                    break;
-                case JSON:
-                default:
-                    httpResponse.setContentType(com.ibm.fhir.core.FHIRMediaType.APPLICATION_FHIR_JSON);
-                    break;
-                }
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        // Nothing to do here...
+                    }
 
-                try {
-                    FHIRGenerator.generator( format, false).generate(outcome, httpResponse.getWriter());
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        // Nothing to do here...
+                    }
 
-                } catch (FHIRException e1) {
-                    throw new ServletException(e1);
-                }
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        // Nothing to do here...
+                    }
+                });
             } else {
-                try {
-                    FHIRGenerator.generator( Format.JSON, false).generate(outcome, response.getWriter());
-                } catch (FHIRException e1) {
-                    throw new ServletException(e1);
+                if (completedAdmission != null) {
+                    completedAdmission.release();
                 }
+                logCompletion(response, initialTime, encodedRequestDescription);
             }
-        } finally {
-            // If possible, include the status code in the "completed" message.
-            StringBuffer statusMsg = new StringBuffer();
-            if (response instanceof HttpServletResponse) {
-                int status = response.getStatus();
-                statusMsg.append(" status:[" + status + "]");
-            } else {
-                statusMsg.append(" status:[unknown (non-HTTP request)]");
-            }
-
-            double elapsedSecs = (System.currentTimeMillis() - initialTime) / 1000.0;
-            log.info("Completed request[" + elapsedSecs + " secs]: " + encodedRequestDescription + statusMsg.toString());
 
             // Remove the FHIRRequestContext from the current thread.
             FHIRRequestContext.remove();
@@ -219,6 +231,81 @@ public class FHIRRestServletFilter extends HttpFilter {
         }
     }
 
+    /**
+     * Admits the request under the admission limits configured for its tenant. The requests of a tenant without a
+     * configuration of its own share the limits of the default tenant, so that a tenant id header can't create new
+     * limiters.
+     *
+     * @return the admission, which must be released when the request has been processed, or null if no limit is set
+     * @throws FHIRAdmissionControl.AdmissionRejectedException
+     *             if the request is over one of the limits of its tenant
+     */
+    private FHIRAdmissionControl.Admission admit(HttpServletRequest request, String tenantId) throws Exception {
+        String interaction = FHIRAdmissionControl.getInteraction(request.getMethod(), request.getPathInfo());
+        double requestsPerSecond = FHIRConfigHelper.getDoubleProperty(FHIRConfiguration.PROPERTY_ADMISSION_REQUESTS_PER_SECOND, 0.0);
+        FHIRAdmissionControl.Limits limits = new FHIRAdmissionControl.Limits(
+                FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_ADMISSION_MAX_CONCURRENT_REQUESTS, 0),
+                FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_ADMISSION_INTERACTION_MAX_CONCURRENT_REQUESTS + "/" + interaction, 0),
+                requestsPerSecond,
+                FHIRConfigHelper.getIntProperty(FHIRConfiguration.PROPERTY_ADMISSION_BURST_SIZE, (int) Math.ceil(requestsPerSecond)));
+        String limitsTenantId = FHIRConfiguration.getInstance().loadConfigurationForTenant(tenantId) != null
+                ? tenantId : FHIRConfiguration.DEFAULT_TENANT_ID;
+        return admissionControl.admit(limitsTenantId, interaction, limits);
+    }
+
+    /**
+     * Writes the passed OperationOutcome as the response, in the format requested by the client.
+     */
+    private void writeOperationOutcome(HttpServletRequest request, HttpServletResponse response, int status, OperationOutcome outcome)
+            throws IOException, ServletException {
+        if (request instanceof HttpServletRequest && response instanceof HttpServletResponse) {
+            HttpServletRequest httpRequest = request;
+            HttpServletResponse httpResponse = response;
+
+            httpResponse.setStatus(status);
+
+            Format format = chooseResponseFormat(httpRequest.getHeader("Accept"));
+            switch (format) {
+            case XML:
+                httpResponse.setContentType(com.ibm.fhir.core.FHIRMediaType.APPLICATION_FHIR_XML);
+                break;
+            case JSON:
+            default:
+                httpResponse.setContentType(com.ibm.fhir.core.FHIRMediaType.APPLICATION_FHIR_JSON);
+                break;
+            }
+
+            try {
+                FHIRGenerator.generator( format, false).generate(outcome, httpResponse.getWriter());
+
+            } catch (FHIRException e1) {
+                throw new ServletException(e1);
+            }
+        } else {
+            try {
+                FHIRGenerator.generator( Format.JSON, false).generate(outcome, response.getWriter());
+            } catch (FHIRException e1) {
+                throw new ServletException(e1);
+            }
+        }
+    }
+
+    /**
+     * Logs the "completed" message of a request, including the status code if possible.
+     */
+    private void logCompletion(HttpServletResponse response, long initialTime, String encodedRequestDescription) {
+        StringBuffer statusMsg = new StringBuffer();
+        if (response instanceof HttpServletResponse) {
+            int status = response.getStatus();
+            statusMsg.append(" status:[" + status + "]");
+        } else {
+            statusMsg.append(" status:[unknown (non-HTTP request)]");
+        }
+
+        double elapsedSecs = (System.currentTimeMillis() - initialTime) / 1000.0;
+        log.info("Completed request[" + elapsedSecs + " secs]: " + encodedRequestDescription + statusMsg.toString());
+    }
+
     /**
      * @return a map of HTTP request headers, keyed by header name
      */
@@ -367,7 +454,10 @@ public class FHIRRestServletFilter extends HttpFilter {
 
     @Override
     public void destroy() {
-        // Nothing to do here...
+        if (admissionControl != null) {
+            admissionControl.shutdown();
+            admissionControl = null;
+        }
     }
 
     @Override
@@ -393,6 +483,8 @@ public class FHIRRestServletFilter extends HttpFilter {
             defaultTenantId =
                     config.getStringProperty(FHIRConfiguration.PROPERTY_DEFAULT_TENANT_ID, FHIRConfiguration.DEFAULT_TENANT_ID);
             log.info("Configured default tenant-id value is: " +  defaultTenantId);
+
+            admissionControl = new FHIRAdmissionControl();
         } catch (Exception e) {
             throw new ServletException("Servlet filter initialization error.", e);
         }
@@ -26,6 +26,7 @@ import static com.ibm.fhir.config.FHIRConfiguration.PROPERTY_WEBSOCKET_ENABLED;
 
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,6 +58,7 @@ import com.ibm.fhir.persistence.jdbc.util.DerbyBootstrapper;
 import com.ibm.fhir.registry.FHIRRegistry;
 import com.ibm.fhir.search.util.SearchUtil;
 import com.ibm.fhir.server.registry.ServerRegistryResourceProvider;
+import com.ibm.fhir.server.util.FHIRRequestExecutor;
 
 @WebListener("IBM FHIR Server Servlet Context Listener")
 public class FHIRServletContextListener implements ServletContextListener {
@@ -67,9 +69,11 @@ public class FHIRServletContextListener implements ServletContextListener {
     private static final String DEFAULT_NATS_CHANNEL = "fhirNotifications";
     private static final String DEFAULT_NATS_CLUSTER = "nats-streaming";
     private static final String DEFAULT_NATS_CLIENT = "fhir-server";
+    private static final long REQUEST_EXECUTOR_SHUTDOWN_SECONDS = 30;
     public static final String FHIR_SERVER_INIT_COMPLETE = "com.ibm.fhir.webappInitComplete";
     private static FHIRNotificationKafkaPublisher kafkaPublisher = null;
     private static FHIRNotificationNATSPublisher natsPublisher = null;
+    private static FHIRRequestExecutor requestExecutor = null;
 
     @Override
     public void contextInitialized(ServletContextEvent event) {
@@ -108,6 +112,13 @@ public class FHIRServletContextListener implements ServletContextListener {
             event.getServletContext().setAttribute(FHIRPersistenceHelper.class.getName(), persistenceHelper);
             log.fine("Set shared persistence helper on servlet context.");
 
+            // Set the shared FHIRRequestExecutor, unless the interactions run on the servlet container's threads.
+            requestExecutor = FHIRRequestExecutor.fromConfiguration(fhirConfig);
+            if (requestExecutor != null) {
+                event.getServletContext().setAttribute(FHIRRequestExecutor.class.getName(), requestExecutor);
+                log.fine("Set shared request executor on servlet context.");
+            }
+
             // If websocket notifications are enabled, then initialize the endpoint.
             Boolean websocketEnabled = fhirConfig.getBooleanProperty(PROPERTY_WEBSOCKET_ENABLED, Boolean.FALSE);
             if (websocketEnabled) {
@@ -273,6 +284,13 @@ public class FHIRServletContextListener implements ServletContextListener {
                 natsPublisher.shutdown();
                 natsPublisher = null;
             }
+
+            // If we previously initialized the request executor, then shut it down now.
+            if (requestExecutor != null) {
+                event.getServletContext().removeAttribute(FHIRRequestExecutor.class.getName());
+                requestExecutor.shutdown(REQUEST_EXECUTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+                requestExecutor = null;
+            }
         } catch (Exception e) {
         } finally {
             if (log.isLoggable(Level.FINER)) {
@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.provider;
+
+import static com.ibm.fhir.model.util.FHIRUtil.buildOperationOutcome;
+import static com.ibm.fhir.model.util.FHIRUtil.buildOperationOutcomeIssue;
+import static com.ibm.fhir.provider.util.FHIRProviderUtil.buildResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import com.ibm.fhir.core.FHIRMediaType;
+import com.ibm.fhir.model.format.Format;
+import com.ibm.fhir.model.generator.FHIRGenerator;
+import com.ibm.fhir.model.generator.StreamingBundleWriter;
+import com.ibm.fhir.model.generator.exception.FHIRGeneratorException;
+import com.ibm.fhir.model.parser.exception.FHIRParserException;
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.model.type.code.IssueSeverity;
+import com.ibm.fhir.model.type.code.IssueType;
+import com.ibm.fhir.persistence.ResourcePayload;
+import com.ibm.fhir.provider.FHIRProvider;
+import com.ibm.fhir.server.util.PayloadBundle;
+
+/**
+ * Writes the stored representation of resources (a ResourcePayload or a PayloadBundle) to the response.
+ *
+ * <p>The stored representation is the JSON a FHIRGenerator produces without pretty-printing, so for such responses
+ * the payloads are streamed as they are: a single resource is sent gzip-encoded as stored if the client accepts the
+ * gzip encoding (and decompressed otherwise), and the resources of a Bundle are spliced into its entries. Other
+ * responses (XML or pretty-printed JSON) are generated from the parsed payloads.
+ */
+@Produces({ FHIRMediaType.APPLICATION_FHIR_JSON, MediaType.APPLICATION_JSON, FHIRMediaType.APPLICATION_FHIR_XML,
+        MediaType.APPLICATION_XML })
+public class ResourcePayloadProvider implements MessageBodyWriter<Object> {
+    private static final Logger log = Logger.getLogger(ResourcePayloadProvider.class.getName());
+
+    private static final String GZIP = "gzip";
+
+    @Context
+    private UriInfo uriInfo;
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return ResourcePayload.class.isAssignableFrom(type) || PayloadBundle.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        log.entering(this.getClass().getName(), "writeTo");
+        try {
+            Format format = getFormat(mediaType);
+            boolean passThrough = Format.JSON.equals(format) && !FHIRProvider.isPretty(requestHeaders, uriInfo);
+            if (t instanceof ResourcePayload) {
+                writePayload((ResourcePayload) t, format, passThrough, httpHeaders, entityStream);
+            } else {
+                writeBundle((PayloadBundle) t, format, passThrough, entityStream);
+            }
+        } catch (FHIRGeneratorException | FHIRParserException e) {
+            // log the error but don't throw because that seems to block to original IOException from bubbling for some reason
+            log.log(Level.WARNING, "an error occurred during resource serialization", e);
+            Response response =
+                    buildResponse(
+                            buildOperationOutcome(Collections.singletonList(
+                                    buildOperationOutcomeIssue(IssueSeverity.FATAL, IssueType.EXCEPTION,
+                                            "ResourcePayloadProvider: " + e.getMessage()))),
+                            mediaType);
+            throw new WebApplicationException(response);
+        } finally {
+            log.exiting(this.getClass().getName(), "writeTo");
+        }
+    }
+
+    private void writePayload(ResourcePayload payload, Format format, boolean passThrough,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream out) throws IOException, FHIRGeneratorException, FHIRParserException {
+        if (!passThrough) {
+            FHIRGenerator.generator(format, FHIRProvider.isPretty(requestHeaders, uriInfo)).generate(payload.getResource(), out);
+        } else if (isGzipAccepted() && !httpHeaders.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            httpHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+            httpHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            out.write(payload.getCompressedData());
+        } else {
+            payload.writeTo(out);
+        }
+    }
+
+    private void writeBundle(PayloadBundle payloadBundle, Format format, boolean passThrough, OutputStream out)
+            throws IOException, FHIRGeneratorException, FHIRParserException {
+        Bundle bundle = payloadBundle.getBundle();
+        List<ResourcePayload> payloads = payloadBundle.getPayloads();
+        if (FHIRProvider.isPretty(requestHeaders, uriInfo)) {
+            Bundle.Builder builder = bundle.toBuilder().entry(Collections.emptyList());
+            for (int i = 0; i < payloads.size(); i++) {
+                builder.entry(bundle.getEntry().get(i).toBuilder().resource(payloads.get(i).getResource()).build());
+            }
+            FHIRGenerator.generator(format, true).generate(builder.build(), out);
+            return;
+        }
+
+        // Write the envelope and then one entry at a time, so that at most one resource is held in its
+        // parsed (or uncompressed) form
+        StreamingBundleWriter writer = new StreamingBundleWriter(format, out);
+        writer.start(bundle.toBuilder().entry(Collections.emptyList()).build());
+        for (int i = 0; i < payloads.size(); i++) {
+            if (passThrough) {
+                try (InputStream in = payloads.get(i).getInputStream()) {
+                    writer.entry(bundle.getEntry().get(i), in);
+                }
+            } else {
+                writer.entry(bundle.getEntry().get(i).toBuilder().resource(payloads.get(i).getResource()).build());
+            }
+        }
+        writer.end();
+    }
+
+    /**
+     * @return true if the Accept-Encoding header of the request accepts the gzip content coding
+     */
+    private boolean isGzipAccepted() {
+        List<String> values = requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+                    // gzip;q=0 means "not acceptable"
+                    return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    private Format getFormat(MediaType mediaType) {
+        if (mediaType != null && (mediaType.isCompatible(FHIRMediaType.APPLICATION_FHIR_XML_TYPE) ||
+                mediaType.isCompatible(FHIRMediaType.APPLICATION_XML_TYPE))) {
+            return Format.XML;
+        }
+        return Format.JSON;
+    }
+}
@@ -19,6 +19,8 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -55,7 +57,11 @@ public class Batch extends FHIRResource {
     }
 
     @POST
-    public Response bundle(Resource resource) {
+    public void bundle(Resource resource, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doBundle(resource));
+    }
+
+    private Response doBundle(Resource resource) {
         log.entering(this.getClass().getName(), "bundle(Bundle)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -138,6 +138,7 @@ public class Capabilities extends FHIRResource {
         interactions.add(buildInteractionStatement(TypeRestfulInteraction.READ));
         interactions.add(buildInteractionStatement(TypeRestfulInteraction.VREAD));
         interactions.add(buildInteractionStatement(TypeRestfulInteraction.HISTORY_INSTANCE));
+        interactions.add(buildInteractionStatement(TypeRestfulInteraction.HISTORY_TYPE));
         interactions.add(buildInteractionStatement(TypeRestfulInteraction.SEARCH_TYPE));
         interactions.add(buildInteractionStatement(TypeRestfulInteraction.PATCH));
 
@@ -269,6 +270,9 @@ public class Capabilities extends FHIRResource {
                 .interaction(CapabilityStatement.Rest.Interaction.builder()
                     .code(transactionMode)
                     .build())
+                .interaction(CapabilityStatement.Rest.Interaction.builder()
+                    .code(SystemRestfulInteraction.HISTORY_SYSTEM)
+                    .build())
                 .operation(mapOperationDefinitionsToRestOperations(systemOps))
                 .build();
 
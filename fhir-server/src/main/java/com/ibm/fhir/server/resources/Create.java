@@ -21,6 +21,8 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -70,7 +72,11 @@ public class Create extends FHIRResource {
 
     @POST
     @Path("{type}")
-    public Response create(@PathParam("type") String type, Resource resource, @HeaderParam(HEADERNAME_IF_NONE_EXIST) String ifNoneExist) {
+    public void create(@PathParam("type") String type, Resource resource, @HeaderParam(HEADERNAME_IF_NONE_EXIST) String ifNoneExist, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doCreate(type, resource, ifNoneExist));
+    }
+
+    private Response doCreate(String type, Resource resource, String ifNoneExist) {
         log.entering(this.getClass().getName(), "create(String,Resource)");
         Date startTime = new Date();
         Response.Status status = null;
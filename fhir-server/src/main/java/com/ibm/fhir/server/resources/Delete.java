@@ -20,6 +20,8 @@ import javax.ws.rs.DELETE;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -57,7 +59,11 @@ public class Delete extends FHIRResource {
 
     @DELETE
     @Path("{type}/{id}")
-    public Response delete(@PathParam("type") String type, @PathParam("id") String id) throws Exception {
+    public void delete(@PathParam("type") String type, @PathParam("id") String id, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doDelete(type, id));
+    }
+
+    private Response doDelete(String type, String id) throws Exception {
         log.entering(this.getClass().getName(), "delete(String,String)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -94,7 +100,11 @@ public class Delete extends FHIRResource {
 
     @DELETE
     @Path("{type}")
-    public Response conditionalDelete(@PathParam("type") String type) throws Exception {
+    public void conditionalDelete(@PathParam("type") String type, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doConditionalDelete(type));
+    }
+
+    private Response doConditionalDelete(String type) throws Exception {
         log.entering(this.getClass().getName(), "conditionalDelete(String)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -21,13 +21,16 @@ import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
@@ -48,11 +51,14 @@ import com.ibm.fhir.model.type.code.IssueSeverity;
 import com.ibm.fhir.model.type.code.IssueType;
 import com.ibm.fhir.model.util.FHIRUtil;
 import com.ibm.fhir.persistence.FHIRPersistence;
+import com.ibm.fhir.persistence.ResourcePayload;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
 import com.ibm.fhir.persistence.helper.FHIRPersistenceHelper;
 import com.ibm.fhir.persistence.helper.PersistenceHelper;
 import com.ibm.fhir.server.exception.FHIRRestBundledRequestException;
+import com.ibm.fhir.server.filter.rest.FHIRHttpServletRequestWrapper;
 import com.ibm.fhir.server.listener.FHIRServletContextListener;
+import com.ibm.fhir.server.util.FHIRRequestExecutor;
 
 /**
  * The base class for JAX-RS "Resource" classes which implement the FHIR HTTP API
@@ -96,6 +102,9 @@ public class FHIRResource {
 
     protected PropertyGroup fhirConfig = null;
 
+    // The query parameters of the request, captured before the interaction is handed off to the request executor
+    private MultivaluedMap<String, String> queryParameters = null;
+
     /**
      * This method will do a quick check of the "initCompleted" flag in the servlet context. If the flag is FALSE, then
      * we'll throw an error to short-circuit the current in-progress REST API invocation.
@@ -126,6 +135,65 @@ public class FHIRResource {
         }
     }
 
+    /**
+     * Runs an interaction and resumes the passed AsyncResponse with the Response of the interaction.
+     *
+     * <p>The interaction runs on the shared FHIRRequestExecutor if one is configured (see the
+     * 'fhirServer/core/requestExecution/mode' property), or else on the current thread. The JAX-RS context objects
+     * that are injected into this class are bound to the container thread of the request, so before the interaction
+     * is handed off, the HttpServletRequest and ServletContext proxies are replaced with the objects they refer to
+     * and the persistence implementation is obtained. An interaction must use {@link #getQueryParameters()} rather
+     * than the injected UriInfo.
+     *
+     * @param asyncResponse
+     *            the AsyncResponse of the request
+     * @param interaction
+     *            the interaction, which returns the Response of the request
+     */
+    protected void execute(AsyncResponse asyncResponse, Callable<Response> interaction) {
+        queryParameters = uriInfo.getQueryParameters();
+        FHIRRequestExecutor requestExecutor = (FHIRRequestExecutor) context.getAttribute(FHIRRequestExecutor.class.getName());
+        if (requestExecutor == null) {
+            asyncResponse.resume(call(interaction));
+            return;
+        }
+
+        try {
+            HttpServletRequest request =
+                    (HttpServletRequest) httpServletRequest.getAttribute(FHIRHttpServletRequestWrapper.class.getName());
+            if (request != null) {
+                httpServletRequest = request;
+                context = request.getServletContext();
+            }
+            getPersistenceImpl();
+
+            // Answer the requests which wait or run for too long, and the requests which can't run because the
+            // executor is shut down, with 503 (Service Unavailable)
+            requestExecutor.execute(FHIRRequestContext.get(), asyncResponse, () -> call(interaction),
+                    e -> exceptionResponse(e, Status.SERVICE_UNAVAILABLE));
+        } catch (Exception e) {
+            asyncResponse.resume(exceptionResponse(e, Status.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    private Response call(Callable<Response> interaction) {
+        try {
+            return interaction.call();
+        } catch (Exception e) {
+            return exceptionResponse(e, Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * @return the query parameters of the request
+     */
+    protected MultivaluedMap<String, String> getQueryParameters() {
+        if (queryParameters == null) {
+            queryParameters = uriInfo.getQueryParameters();
+        }
+        return queryParameters;
+    }
+
     protected FHIROperationException buildRestException(String msg, IssueType issueType) {
         return buildRestException(msg, issueType, IssueSeverity.FATAL);
     }
@@ -206,6 +274,11 @@ public class FHIRResource {
                 .lastModified(Date.from(resource.getMeta().getLastUpdated().getValue().toInstant()));
     }
 
+    protected ResponseBuilder addHeaders(ResponseBuilder rb, ResourcePayload payload) {
+        return rb.header(HttpHeaders.ETAG, "W/\"" + payload.getVersionId() + "\"")
+                .lastModified(Date.from(payload.getLastUpdated()));
+    }
+
     private String getEtagValue(Resource resource) {
         return "W/\"" + resource.getMeta().getVersionId().getValue() + "\"";
     }
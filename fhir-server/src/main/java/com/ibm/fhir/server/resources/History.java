@@ -20,7 +20,10 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -30,6 +33,7 @@ import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.exception.FHIROperationException;
 import com.ibm.fhir.model.resource.Bundle;
 import com.ibm.fhir.server.util.FHIRRestHelper;
+import com.ibm.fhir.server.util.PayloadBundle;
 import com.ibm.fhir.server.util.RestAuditLogger;
 
 @Path("/")
@@ -54,8 +58,32 @@ public class History extends FHIRResource {
 
     @GET
     @Path("{type}/{id}/_history")
-    public Response history(@PathParam("type") String type, @PathParam("id") String id) {
-        log.entering(this.getClass().getName(), "history(String,String)");
+    public void history(@PathParam("type") String type, @PathParam("id") String id, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doHistory(type, id, "history(String,String)"));
+    }
+
+    @GET
+    @Path("{type}/_history")
+    public void typeHistory(@PathParam("type") String type, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doHistory(type, null, "typeHistory(String)"));
+    }
+
+    @GET
+    @Path("_history")
+    public void systemHistory(@Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doHistory(null, null, "systemHistory()"));
+    }
+
+    /**
+     * Perform the history interaction at the instance, type or system level
+     *
+     * @param type the resource type, or null for the system-level history
+     * @param id the logical id, or null for the type or system-level history
+     * @param methodName the name of the resource method, for tracing
+     * @return
+     */
+    private Response doHistory(String type, String id, String methodName) {
+        log.entering(this.getClass().getName(), methodName);
         Date startTime = new Date();
         Response.Status status = null;
         Bundle bundle = null;
@@ -63,8 +91,16 @@ public class History extends FHIRResource {
         try {
             checkInitComplete();
 
+            MultivaluedMap<String, String> queryParameters = getQueryParameters();
             FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
-            bundle = helper.doHistory(type, id, uriInfo.getQueryParameters(), getRequestUri(), null);
+            // Serve the stored representation of the resources when they don't need to be parsed
+            if (helper.isPayloadPassThrough("afterHistory", queryParameters)) {
+                PayloadBundle payloadBundle = helper.doHistoryPayloads(type, id, queryParameters, getRequestUri(), null);
+                bundle = payloadBundle.getBundle();
+                status = Status.OK;
+                return Response.status(status).entity(payloadBundle).build();
+            }
+            bundle = helper.doHistory(type, id, queryParameters, getRequestUri(), null);
             status = Status.OK;
             return Response.status(status).entity(bundle).build();
         } catch (FHIROperationException e) {
@@ -81,7 +117,7 @@ public class History extends FHIRResource {
                 log.log(Level.SEVERE, AUDIT_LOGGING_ERR_MSG, e);
             }
 
-            log.exiting(this.getClass().getName(), "history(String,String)");
+            log.exiting(this.getClass().getName(), methodName);
         }
     }
 }
@@ -467,6 +467,12 @@ public class Operation extends FHIRResource {
             }
         }
 
+        // Operations which stream their result provide the entity themselves
+        Object streamingOutput = operationContext.getProperty(FHIROperationContext.PROPNAME_STREAMING_OUTPUT);
+        if (streamingOutput != null) {
+            return Response.status(status).entity(streamingOutput).build();
+        }
+
         URI locationURI =
                 (URI) operationContext.getProperty(FHIROperationContext.PROPNAME_LOCATION_URI);
         if (locationURI != null) {
@@ -23,6 +23,8 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -72,8 +74,12 @@ public class Patch extends FHIRResource {
     @Consumes({ FHIRMediaType.APPLICATION_JSON_PATCH })
     @Produces({ FHIRMediaType.APPLICATION_FHIR_JSON, MediaType.APPLICATION_JSON })
     @Path("{type}/{id}")
-    public Response patch(@PathParam("type") String type, @PathParam("id") String id, JsonArray array,
-            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    public void patch(@PathParam("type") String type, @PathParam("id") String id, JsonArray array,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doPatch(type, id, array, ifMatch));
+    }
+
+    private Response doPatch(String type, String id, JsonArray array, String ifMatch) {
         log.entering(this.getClass().getName(), "patch(String,String,JsonArray)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -124,8 +130,12 @@ public class Patch extends FHIRResource {
 
     @PATCH
     @Path("{type}/{id}")
-    public Response patch(@PathParam("type") String type, @PathParam("id") String id, Parameters parameters,
-            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    public void patch(@PathParam("type") String type, @PathParam("id") String id, Parameters parameters,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doPatch(type, id, parameters, ifMatch));
+    }
+
+    private Response doPatch(String type, String id, Parameters parameters, String ifMatch) {
         log.entering(this.getClass().getName(), "patch(String,String,Parameters)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -185,7 +195,11 @@ public class Patch extends FHIRResource {
     @Consumes({ FHIRMediaType.APPLICATION_JSON_PATCH })
     @Produces({ FHIRMediaType.APPLICATION_FHIR_JSON, MediaType.APPLICATION_JSON })
     @Path("{type}")
-    public Response conditionalPatch(@PathParam("type") String type, JsonArray array, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    public void conditionalPatch(@PathParam("type") String type, JsonArray array, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doConditionalPatch(type, array, ifMatch));
+    }
+
+    private Response doConditionalPatch(String type, JsonArray array, String ifMatch) {
         log.entering(this.getClass().getName(), "conditionalPatch(String,String,JsonArray)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -247,7 +261,11 @@ public class Patch extends FHIRResource {
 
     @PATCH
     @Path("{type}")
-    public Response conditionalPatch(@PathParam("type") String type, Parameters parameters, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    public void conditionalPatch(@PathParam("type") String type, Parameters parameters, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doConditionalPatch(type, parameters, ifMatch));
+    }
+
+    private Response doConditionalPatch(String type, Parameters parameters, String ifMatch) {
         log.entering(this.getClass().getName(), "conditionalPatch(String,String,Parameters)");
         Date startTime = new Date();
         Response.Status status = null;
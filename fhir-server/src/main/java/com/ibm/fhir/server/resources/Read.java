@@ -22,6 +22,8 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -34,6 +36,7 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
 import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.exception.FHIROperationException;
 import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.persistence.ResourcePayload;
 import com.ibm.fhir.rest.FHIRRestOperationResponse;
 import com.ibm.fhir.server.util.FHIRRestHelper;
 import com.ibm.fhir.server.util.RestAuditLogger;
@@ -60,8 +63,12 @@ public class Read extends FHIRResource {
 
     @GET
     @Path("{type}/{id}")
-    public Response read(@PathParam("type") String type, @PathParam("id") String id,
-            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws Exception {
+    public void read(@PathParam("type") String type, @PathParam("id") String id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doRead(type, id, ifNoneMatch));
+    }
+
+    private Response doRead(String type, String id, String ifNoneMatch) throws Exception {
         log.entering(this.getClass().getName(), "read(String,String)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -69,11 +76,24 @@ public class Read extends FHIRResource {
 
         try {
             checkInitComplete();
-            MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
+            MultivaluedMap<String, String> queryParameters = getQueryParameters();
             long modifiedSince = parseIfModifiedSince();
 
             FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
-            Resource resource = helper.doRead(type, id, true, false, null, null, queryParameters);
+            // Serve the stored representation of the resource when it doesn't need to be parsed
+            Resource resource = null;
+            ResourcePayload payload = null;
+            int currentVersion;
+            Instant lastUpdated;
+            if (helper.isPayloadPassThrough("afterRead", queryParameters)) {
+                payload = helper.doReadPayload(type, id, null);
+                currentVersion = payload.getVersionId();
+                lastUpdated = payload.getLastUpdated();
+            } else {
+                resource = helper.doRead(type, id, true, false, null, null, queryParameters);
+                currentVersion = Integer.parseInt(resource.getMeta().getVersionId().getValue());
+                lastUpdated = resource.getMeta().getLastUpdated().getValue().toInstant();
+            }
             int version2Match = -1;
             // Support ETag value with or without " (and W/)
             // e.g:  1, "1", W/1, W/"1" (the first format is used by TouchStone)
@@ -98,13 +118,13 @@ public class Read extends FHIRResource {
             boolean isModified = true;
             // check if-not-match first
             if (version2Match != -1) {
-                if (version2Match == Integer.parseInt(resource.getMeta().getVersionId().getValue())) {
+                if (version2Match == currentVersion) {
                     isModified = false;
                 }
             }
             // then check if-modified-since
             if(isModified && modifiedTime2Compare != null) {
-                if (resource.getMeta().getLastUpdated().getValue().toInstant().isBefore(modifiedTime2Compare)) {
+                if (lastUpdated.isBefore(modifiedTime2Compare)) {
                     isModified = false;
                 }
             }
@@ -112,8 +132,11 @@ public class Read extends FHIRResource {
             ResponseBuilder response;
             if (isModified) {
                 status = Status.OK;
-                response = Response.ok().entity(resource);
-                response = addHeaders(response, resource);
+                if (payload != null) {
+                    response = addHeaders(Response.ok().entity(payload), payload);
+                } else {
+                    response = addHeaders(Response.ok().entity(resource), resource);
+                }
             } else {
                 status = Status.NOT_MODIFIED;
                 response = Response.status(Response.Status.NOT_MODIFIED);
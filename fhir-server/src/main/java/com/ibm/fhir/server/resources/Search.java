@@ -21,6 +21,8 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
@@ -32,6 +34,7 @@ import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.exception.FHIROperationException;
 import com.ibm.fhir.model.resource.Bundle;
 import com.ibm.fhir.server.util.FHIRRestHelper;
+import com.ibm.fhir.server.util.PayloadBundle;
 import com.ibm.fhir.server.util.RestAuditLogger;
 
 @Path("/")
@@ -56,7 +59,11 @@ public class Search extends FHIRResource {
 
     @GET
     @Path("{type}")
-    public Response search(@PathParam("type") String type) {
+    public void search(@PathParam("type") String type, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doSearch(type));
+    }
+
+    private Response doSearch(String type) {
         log.entering(this.getClass().getName(), "search(String)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -66,8 +73,17 @@ public class Search extends FHIRResource {
         try {
             checkInitComplete();
 
-            queryParameters = uriInfo.getQueryParameters();
+            queryParameters = getQueryParameters();
             FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
+            // Serve the stored representation of the resources when they don't need to be parsed
+            if (helper.isPayloadPassThrough("afterSearch", queryParameters)) {
+                PayloadBundle payloadBundle = helper.doSearchPayloads(type, null, null, queryParameters, getRequestUri(), null);
+                if (payloadBundle != null) {
+                    bundle = payloadBundle.getBundle();
+                    status = Status.OK;
+                    return Response.status(status).entity(payloadBundle).build();
+                }
+            }
             bundle = helper.doSearch(type, null, null, queryParameters, getRequestUri(), null, null);
             status = Status.OK;
             return Response.status(status).entity(bundle).build();
@@ -91,8 +107,12 @@ public class Search extends FHIRResource {
 
     @GET
     @Path("{compartment}/{compartmentId}/{type}")
-    public Response searchCompartment(@PathParam("compartment") String compartment,
-            @PathParam("compartmentId") String compartmentId, @PathParam("type") String type) {
+    public void searchCompartment(@PathParam("compartment") String compartment,
+            @PathParam("compartmentId") String compartmentId, @PathParam("type") String type, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doSearchCompartment(compartment, compartmentId, type));
+    }
+
+    private Response doSearchCompartment(String compartment, String compartmentId, String type) {
         log.entering(this.getClass().getName(), "search(String,String,String)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -102,8 +122,17 @@ public class Search extends FHIRResource {
         try {
             checkInitComplete();
 
-            queryParameters = uriInfo.getQueryParameters();
+            queryParameters = getQueryParameters();
             FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
+            // Serve the stored representation of the resources when they don't need to be parsed
+            if (helper.isPayloadPassThrough("afterSearch", queryParameters)) {
+                PayloadBundle payloadBundle = helper.doSearchPayloads(type, compartment, compartmentId, queryParameters, getRequestUri(), null);
+                if (payloadBundle != null) {
+                    bundle = payloadBundle.getBundle();
+                    status = Status.OK;
+                    return Response.status(status).entity(payloadBundle).build();
+                }
+            }
             bundle = helper.doSearch(type, compartment, compartmentId, queryParameters, getRequestUri(), null, null);
             status = Status.OK;
             return Response.status(status).entity(bundle).build();
@@ -128,7 +157,11 @@ public class Search extends FHIRResource {
     @POST
     @Consumes("application/x-www-form-urlencoded")
     @Path("{type}/_search")
-    public Response _search(@PathParam("type") String type) {
+    public void _search(@PathParam("type") String type, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doSearchPost(type));
+    }
+
+    private Response doSearchPost(String type) {
         log.entering(this.getClass().getName(), "_search(String)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -138,8 +171,17 @@ public class Search extends FHIRResource {
         try {
             checkInitComplete();
 
-            queryParameters = uriInfo.getQueryParameters();
+            queryParameters = getQueryParameters();
             FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
+            // Serve the stored representation of the resources when they don't need to be parsed
+            if (helper.isPayloadPassThrough("afterSearch", queryParameters)) {
+                PayloadBundle payloadBundle = helper.doSearchPayloads(type, null, null, queryParameters, getRequestUri(), null);
+                if (payloadBundle != null) {
+                    bundle = payloadBundle.getBundle();
+                    status = Status.OK;
+                    return Response.status(status).entity(payloadBundle).build();
+                }
+            }
             bundle = helper.doSearch(type, null, null, queryParameters, getRequestUri(), null, null);
             status = Status.OK;
             return Response.status(status).entity(bundle).build();
@@ -163,15 +205,15 @@ public class Search extends FHIRResource {
 
     @GET
     @Path("/")
-    public Response searchAllGet() {
-        return doSearchAll();
+    public void searchAllGet(@Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doSearchAll());
     }
 
     @POST
     @Consumes("application/x-www-form-urlencoded")
     @Path("_search")
-    public Response searchAllPost() {
-        return doSearchAll();
+    public void searchAllPost(@Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doSearchAll());
     }
 
     private Response doSearchAll() {
@@ -184,7 +226,7 @@ public class Search extends FHIRResource {
         try {
             checkInitComplete();
 
-            queryParameters = uriInfo.getQueryParameters();
+            queryParameters = getQueryParameters();
             FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
             bundle = helper.doSearch("Resource", null, null, queryParameters, getRequestUri(), null, null);
             status = Status.OK;
@@ -21,6 +21,8 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -62,8 +64,12 @@ public class Update extends FHIRResource {
 
     @PUT
     @Path("{type}/{id}")
-    public Response update(@PathParam("type") String type, @PathParam("id") String id, Resource resource,
-            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    public void update(@PathParam("type") String type, @PathParam("id") String id, Resource resource,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doUpdate(type, id, resource, ifMatch));
+    }
+
+    private Response doUpdate(String type, String id, Resource resource, String ifMatch) {
         log.entering(this.getClass().getName(), "update(String,String,Resource)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -115,7 +121,11 @@ public class Update extends FHIRResource {
 
     @PUT
     @Path("{type}")
-    public Response conditionalUpdate(@PathParam("type") String type, Resource resource, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+    public void conditionalUpdate(@PathParam("type") String type, Resource resource, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doConditionalUpdate(type, resource, ifMatch));
+    }
+
+    private Response doConditionalUpdate(String type, Resource resource, String ifMatch) {
         log.entering(this.getClass().getName(), "conditionalUpdate(String,Resource)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -20,6 +20,8 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -30,6 +32,7 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
 import com.ibm.fhir.core.FHIRMediaType;
 import com.ibm.fhir.exception.FHIROperationException;
 import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.persistence.ResourcePayload;
 import com.ibm.fhir.rest.FHIRRestOperationResponse;
 import com.ibm.fhir.server.util.FHIRRestHelper;
 import com.ibm.fhir.server.util.RestAuditLogger;
@@ -56,7 +59,11 @@ public class VRead extends FHIRResource {
 
     @GET
     @Path("{type}/{id}/_history/{vid}")
-    public Response vread(@PathParam("type") String type, @PathParam("id") String id, @PathParam("vid") String vid) {
+    public void vread(@PathParam("type") String type, @PathParam("id") String id, @PathParam("vid") String vid, @Suspended AsyncResponse asyncResponse) {
+        execute(asyncResponse, () -> doVread(type, id, vid));
+    }
+
+    private Response doVread(String type, String id, String vid) {
         log.entering(this.getClass().getName(), "vread(String,String,String)");
         Date startTime = new Date();
         Response.Status status = null;
@@ -66,10 +73,16 @@ public class VRead extends FHIRResource {
             checkInitComplete();
 
             FHIRRestHelper helper = new FHIRRestHelper(getPersistenceImpl());
-            Resource resource = helper.doVRead(type, id, vid, null);
+            ResponseBuilder response;
+            // Serve the stored representation of the resource when it doesn't need to be parsed
+            if (helper.isPayloadPassThrough("afterVread", getQueryParameters())) {
+                ResourcePayload payload = helper.doVReadPayload(type, id, vid, null);
+                response = addHeaders(Response.ok().entity(payload), payload);
+            } else {
+                Resource resource = helper.doVRead(type, id, vid, null);
+                response = addHeaders(Response.ok().entity(resource), resource);
+            }
             status = Status.OK;
-            ResponseBuilder response = Response.ok().entity(resource);
-            response = addHeaders(response, resource);
             return response.build();
         } catch (FHIROperationException e) {
             status = issueListToStatus(e.getIssues());
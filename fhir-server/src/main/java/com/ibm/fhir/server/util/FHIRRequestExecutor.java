@@ -0,0 +1,391 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+import com.ibm.fhir.config.FHIRConfiguration;
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.config.PropertyGroup;
+
+/**
+ * Runs the interactions of the REST layer on a dedicated executor instead of on the servlet container's threads, so
+ * that the number of container threads doesn't have to grow with the latency of the persistence layer. In the async
+ * mode, the executor is the container's default ManagedExecutorService, whose threads carry the naming, security and
+ * classloader context of the application; a plain thread pool is used only where no managed executor is available.
+ *
+ * <p>Each task runs with the FHIRRequestContext of the request that submitted it. The number of tasks of a tenant
+ * that run at the same time can be limited; the tasks beyond that limit wait in a bounded queue of the tenant without
+ * occupying a thread of the executor, so that the requests of one slow tenant cannot exhaust the executor. A task
+ * that is accepted but can't be run after all, because the executor is shut down, is handed to its rejection handler.
+ */
+public class FHIRRequestExecutor {
+    private static final Logger log = Logger.getLogger(FHIRRequestExecutor.class.getName());
+
+    public static final String MODE_SYNC = "sync";
+    public static final String MODE_ASYNC = "async";
+    public static final String MODE_VIRTUAL = "virtual";
+    public static final int DEFAULT_THREADS = 50;
+    public static final int DEFAULT_TENANT_MAX_WAITING = 100;
+    public static final int DEFAULT_TIMEOUT_SECONDS = 120;
+    public static final String MANAGED_EXECUTOR_NAME = "java:comp/DefaultManagedExecutorService";
+
+    private final ExecutorService executor;
+    private final boolean managed;
+    private final int tenantMaxConcurrency;
+    private final int tenantMaxWaiting;
+    private final int timeoutSeconds;
+    private final Map<String, TenantQueue> tenantQueues = new ConcurrentHashMap<>();
+    private volatile boolean shutdown = false;
+
+    /**
+     * The tasks of a tenant that are running or waiting for one of the running tasks to complete.
+     */
+    private static class TenantQueue {
+        private final Deque<Task> waiting = new ArrayDeque<>();
+        private int running = 0;
+    }
+
+    /**
+     * A submitted task, bound to the request context of the request that submitted it.
+     */
+    private static class Task implements Runnable {
+        private final FHIRRequestContext requestContext;
+        private final Runnable task;
+        private final Runnable rejectionHandler;
+
+        private Task(FHIRRequestContext requestContext, Runnable task, Runnable rejectionHandler) {
+            this.requestContext = requestContext;
+            this.task = task;
+            this.rejectionHandler = rejectionHandler;
+        }
+
+        @Override
+        public void run() {
+            FHIRRequestContext.set(requestContext);
+            try {
+                task.run();
+            } finally {
+                FHIRRequestContext.remove();
+            }
+        }
+
+        private void reject() {
+            try {
+                rejectionHandler.run();
+            } catch (Throwable t) {
+                log.log(Level.WARNING, "The rejection handler of a request failed", t);
+            }
+        }
+    }
+
+    /**
+     * @param executor
+     *            the executor that runs the tasks
+     * @param tenantMaxConcurrency
+     *            the maximum number of tasks of a tenant that run at the same time, or 0 for no limit
+     * @param tenantMaxWaiting
+     *            the maximum number of tasks of a tenant that wait for one of its running tasks to complete
+     * @param timeoutSeconds
+     *            the time after which a request that hasn't completed is answered with an error, or 0 for no limit
+     */
+    public FHIRRequestExecutor(ExecutorService executor, int tenantMaxConcurrency, int tenantMaxWaiting, int timeoutSeconds) {
+        this(executor, false, tenantMaxConcurrency, tenantMaxWaiting, timeoutSeconds);
+    }
+
+    /**
+     * @param executor
+     *            the executor that runs the tasks
+     * @param managed
+     *            whether the executor is managed by the container, in which case its lifecycle is left to the container
+     * @param tenantMaxConcurrency
+     *            the maximum number of tasks of a tenant that run at the same time, or 0 for no limit
+     * @param tenantMaxWaiting
+     *            the maximum number of tasks of a tenant that wait for one of its running tasks to complete
+     * @param timeoutSeconds
+     *            the time after which a request that hasn't completed is answered with an error, or 0 for no limit
+     */
+    public FHIRRequestExecutor(ExecutorService executor, boolean managed, int tenantMaxConcurrency, int tenantMaxWaiting,
+            int timeoutSeconds) {
+        this.executor = executor;
+        this.managed = managed;
+        this.tenantMaxConcurrency = tenantMaxConcurrency;
+        this.tenantMaxWaiting = tenantMaxWaiting;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Creates the request executor for the 'fhirServer/core/requestExecution' properties of the passed configuration.
+     *
+     * @param fhirConfig
+     *            the FHIR server configuration
+     * @return the request executor, or null if the interactions are to run on the servlet container's threads
+     * @throws Exception
+     */
+    public static FHIRRequestExecutor fromConfiguration(PropertyGroup fhirConfig) throws Exception {
+        String mode = fhirConfig.getStringProperty(FHIRConfiguration.PROPERTY_REQUEST_EXECUTION_MODE, MODE_SYNC);
+        int threads = fhirConfig.getIntProperty(FHIRConfiguration.PROPERTY_REQUEST_EXECUTION_THREADS, DEFAULT_THREADS);
+        int tenantMaxConcurrency = fhirConfig.getIntProperty(FHIRConfiguration.PROPERTY_REQUEST_EXECUTION_TENANT_MAX_CONCURRENCY, 0);
+        int tenantMaxWaiting = fhirConfig.getIntProperty(FHIRConfiguration.PROPERTY_REQUEST_EXECUTION_TENANT_MAX_WAITING,
+            DEFAULT_TENANT_MAX_WAITING);
+        int timeoutSeconds = fhirConfig.getIntProperty(FHIRConfiguration.PROPERTY_REQUEST_EXECUTION_TIMEOUT_SECONDS, DEFAULT_TIMEOUT_SECONDS);
+
+        ExecutorService executor;
+        switch (mode) {
+        case MODE_SYNC:
+            return null;
+        case MODE_VIRTUAL:
+            executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                log.info("Running REST interactions on virtual threads.");
+                break;
+            }
+            log.warning("Virtual threads are not supported by this JVM; running REST interactions on a pool of " + threads + " threads.");
+            executor = newThreadPool(threads);
+            break;
+        case MODE_ASYNC:
+            executor = lookupManagedExecutor();
+            if (executor != null) {
+                log.info("Running REST interactions on the managed executor '" + MANAGED_EXECUTOR_NAME + "'.");
+                return new FHIRRequestExecutor(executor, true, tenantMaxConcurrency, tenantMaxWaiting, timeoutSeconds);
+            }
+            log.warning("The managed executor '" + MANAGED_EXECUTOR_NAME + "' is not available; running REST interactions on a pool of "
+                    + threads + " threads.");
+            executor = newThreadPool(threads);
+            break;
+        default:
+            throw new IllegalArgumentException("Invalid value for '" + FHIRConfiguration.PROPERTY_REQUEST_EXECUTION_MODE + "': '"
+                    + mode + "'; use '" + MODE_SYNC + "', '" + MODE_ASYNC + "' or '" + MODE_VIRTUAL + "'");
+        }
+        return new FHIRRequestExecutor(executor, tenantMaxConcurrency, tenantMaxWaiting, timeoutSeconds);
+    }
+
+    /**
+     * @return the time after which a request that hasn't completed is answered with an error, or 0 for no limit
+     */
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /**
+     * Runs the passed interaction with the passed request context and resumes the passed AsyncResponse with its
+     * Response. If the request hasn't completed after the timeout of this executor, or if the interaction is
+     * rejected, the AsyncResponse is resumed with the Response that the passed function builds for the cause instead.
+     *
+     * @param requestContext
+     *            the request context of the request that submits the interaction
+     * @param asyncResponse
+     *            the AsyncResponse of the request
+     * @param interaction
+     *            the interaction, which returns the Response of the request
+     * @param unavailableResponse
+     *            builds the Response of a request that timed out or was rejected
+     */
+    public void execute(FHIRRequestContext requestContext, AsyncResponse asyncResponse, Callable<Response> interaction,
+            Function<Exception, Response> unavailableResponse) {
+        if (timeoutSeconds > 0) {
+            asyncResponse.setTimeoutHandler(response -> response.resume(
+                    unavailableResponse.apply(new TimeoutException("The request did not complete in time"))));
+            asyncResponse.setTimeout(timeoutSeconds, TimeUnit.SECONDS);
+        }
+        try {
+            execute(requestContext, () -> {
+                if (asyncResponse.isDone()) {
+                    // timed out while waiting
+                    return;
+                }
+                try {
+                    asyncResponse.resume(interaction.call());
+                } catch (Throwable t) {
+                    asyncResponse.resume(t);
+                }
+            }, () -> asyncResponse.resume(unavailableResponse.apply(
+                    new RejectedExecutionException("The request executor has been shut down"))));
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(unavailableResponse.apply(e));
+        }
+    }
+
+    /**
+     * Runs the passed task with the passed request context, as soon as the tenant of the request context has fewer
+     * than the maximum number of tasks running.
+     *
+     * @param requestContext
+     *            the request context of the request that submits the task
+     * @param task
+     *            the task
+     * @param rejectionHandler
+     *            runs instead of the task if the task was accepted but the executor is shut down before it could run
+     * @throws RejectedExecutionException
+     *             if the executor has been shut down, or too many tasks of the tenant are already waiting
+     */
+    public void execute(FHIRRequestContext requestContext, Runnable task, Runnable rejectionHandler) {
+        if (shutdown) {
+            throw new RejectedExecutionException("The request executor has been shut down");
+        }
+        if (tenantMaxConcurrency <= 0) {
+            submit(new Task(requestContext, task, rejectionHandler));
+            return;
+        }
+
+        TenantQueue queue = tenantQueues.computeIfAbsent(requestContext.getTenantId(), k -> new TenantQueue());
+        Task limitedTask = new Task(requestContext, () -> {
+            try {
+                task.run();
+            } finally {
+                runNext(queue);
+            }
+        }, rejectionHandler);
+        synchronized (queue) {
+            if (queue.running >= tenantMaxConcurrency) {
+                if (queue.waiting.size() >= tenantMaxWaiting) {
+                    throw new RejectedExecutionException("Too many requests of tenant '" + requestContext.getTenantId() + "' are waiting");
+                }
+                queue.waiting.add(limitedTask);
+                return;
+            }
+            queue.running++;
+        }
+        try {
+            submit(limitedTask);
+        } catch (RejectedExecutionException e) {
+            synchronized (queue) {
+                queue.running--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Hands the slot of a completed task to the next waiting task of the tenant, if any. If the executor has been
+     * shut down, the waiting tasks of the tenant are rejected instead.
+     */
+    private void runNext(TenantQueue queue) {
+        Task next;
+        synchronized (queue) {
+            next = queue.waiting.poll();
+            if (next == null) {
+                queue.running--;
+                return;
+            }
+        }
+        try {
+            submit(next);
+        } catch (RejectedExecutionException e) {
+            log.fine("A waiting request was rejected because the request executor has been shut down");
+            synchronized (queue) {
+                queue.running--;
+            }
+            next.reject();
+            rejectWaiting(queue);
+        }
+    }
+
+    /**
+     * Hands the passed task to the executor, unless this request executor has been shut down.
+     */
+    private void submit(Task task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("The request executor has been shut down");
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * Rejects the tasks that wait in the passed tenant queue.
+     */
+    private void rejectWaiting(TenantQueue queue) {
+        List<Task> rejected;
+        synchronized (queue) {
+            rejected = new ArrayList<>(queue.waiting);
+            queue.waiting.clear();
+        }
+        for (Task task : rejected) {
+            task.reject();
+        }
+    }
+
+    /**
+     * Shuts down the executor, waiting up to the passed timeout for the running tasks to complete. The tasks that
+     * never started are rejected. A managed executor is not shut down, since the container owns its lifecycle and
+     * cancels the tasks of the application when it stops; only the tasks that wait in the tenant queues are rejected.
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown = true;
+        try {
+            if (managed) {
+                return;
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(timeout, unit)) {
+                for (Runnable dropped : executor.shutdownNow()) {
+                    if (dropped instanceof Task) {
+                        ((Task) dropped).reject();
+                    }
+                }
+            }
+        } finally {
+            for (TenantQueue queue : tenantQueues.values()) {
+                rejectWaiting(queue);
+            }
+        }
+    }
+
+    /**
+     * @return the container's default managed executor, or null if there is none, e.g. outside of the container
+     */
+    private static ExecutorService lookupManagedExecutor() {
+        try {
+            return (ExecutorService) new InitialContext().lookup(MANAGED_EXECUTOR_NAME);
+        } catch (NamingException | ClassCastException e) {
+            log.log(Level.FINE, "Unable to look up the managed executor '" + MANAGED_EXECUTOR_NAME + "'", e);
+            return null;
+        }
+    }
+
+    private static ExecutorService newThreadPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "fhir-request-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * @return an executor that runs each task on a new virtual thread, or null if the JVM doesn't support virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
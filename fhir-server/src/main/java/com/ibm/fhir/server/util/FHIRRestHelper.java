@@ -14,6 +14,8 @@ import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.ArrayList;
@@ -67,11 +69,14 @@ import com.ibm.fhir.operation.registry.FHIROperationRegistry;
 import com.ibm.fhir.operation.util.FHIROperationUtil;
 import com.ibm.fhir.persistence.FHIRPersistence;
 import com.ibm.fhir.persistence.FHIRPersistenceTransaction;
+import com.ibm.fhir.persistence.ResourceKey;
+import com.ibm.fhir.persistence.ResourcePayload;
 import com.ibm.fhir.persistence.SingleResourceResult;
 import com.ibm.fhir.persistence.context.FHIRHistoryContext;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContext;
 import com.ibm.fhir.persistence.context.FHIRPersistenceContextFactory;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceException;
+import com.ibm.fhir.persistence.exception.FHIRPersistenceNotSupportedException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceDeletedException;
 import com.ibm.fhir.persistence.exception.FHIRPersistenceResourceNotFoundException;
 import com.ibm.fhir.persistence.helper.FHIRTransactionHelper;
@@ -147,13 +152,30 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
             // Check to see if we're supposed to perform a conditional 'create'.
             if (ifNoneExist != null && !ifNoneExist.isEmpty()) {
                 log.fine("Performing conditional create with search criteria: " + ifNoneExist);
-                Bundle responseBundle = null;
+                int resultCount;
+                Resource matchedResource = null;
 
                 // Perform the search using the "If-None-Exist" header value.
                 try {
                     MultivaluedMap<String, String> searchParameters = getQueryParameterMap(ifNoneExist);
-                    responseBundle =
-                            doSearch(type, null, null, searchParameters, null, requestProperties, resource);
+                    List<String> matchedIds = searchConditionalMatches(type, searchParameters, requestProperties);
+                    if (matchedIds != null) {
+                        resultCount = matchedIds.size();
+                        if (resultCount == 1) {
+                            matchedResource = doRead(type, matchedIds.get(0), false, false, requestProperties, resource);
+                            if (matchedResource == null) {
+                                // deleted since the search
+                                resultCount = 0;
+                            }
+                        }
+                    } else {
+                        Bundle responseBundle =
+                                doSearch(type, null, null, searchParameters, null, requestProperties, resource);
+                        resultCount = responseBundle.getEntry().size();
+                        if (resultCount == 1) {
+                            matchedResource = responseBundle.getEntry().get(0).getResource();
+                        }
+                    }
                 } catch (FHIROperationException e) {
                     throw e;
                 } catch (Throwable t) {
@@ -164,7 +186,6 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 }
 
                 // Check the search results to determine whether or not to perform the create operation.
-                int resultCount = responseBundle.getEntry().size();
                 log.fine("Conditional create search yielded " + resultCount + " results.");
 
                 if (resultCount == 0) {
@@ -172,7 +193,6 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 } else if (resultCount == 1) {
                     // If we found a single match, bypass the 'create' request and return information
                     // for the matched resource.
-                    Resource matchedResource = responseBundle.getEntry().get(0).getResource();
                     ior.setLocationURI(FHIRUtil.buildLocationURI(type, matchedResource));
                     ior.setStatus(Response.Status.OK);
                     ior.setResource(matchedResource);
@@ -294,12 +314,29 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                     log.fine("Performing conditional update/patch with search criteria: "
                             + Encode.forHtml(searchQueryString));
                 }
-                Bundle responseBundle = null;
+                int resultCount;
+                Resource matchedResource = null;
                 try {
                     MultivaluedMap<String, String> searchParameters =
                             getQueryParameterMap(searchQueryString);
-                    responseBundle =
-                            doSearch(type, null, null, searchParameters, null, requestProperties, newResource);
+                    List<String> matchedIds = searchConditionalMatches(type, searchParameters, requestProperties);
+                    if (matchedIds != null) {
+                        resultCount = matchedIds.size();
+                        if (resultCount == 1) {
+                            matchedResource = doRead(type, matchedIds.get(0), false, false, requestProperties, newResource);
+                            if (matchedResource == null) {
+                                // deleted since the search
+                                resultCount = 0;
+                            }
+                        }
+                    } else {
+                        Bundle responseBundle =
+                                doSearch(type, null, null, searchParameters, null, requestProperties, newResource);
+                        resultCount = responseBundle.getEntry().size();
+                        if (resultCount == 1) {
+                            matchedResource = responseBundle.getEntry().get(0).getResource();
+                        }
+                    }
                 } catch (FHIROperationException e) {
                     throw e;
                 } catch (Throwable t) {
@@ -309,7 +346,6 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 }
 
                 // Check the search results to determine whether or not to perform the update operation.
-                int resultCount = responseBundle.getEntry().size();
                 if (log.isLoggable(Level.FINE)) {
                     log.fine("Conditional update/patch search yielded " + resultCount + " results.");
                 }
@@ -332,7 +368,7 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                     }
                 } else if (resultCount == 1) {
                     // If we found a single match, then we'll perform a normal update on the matched resource.
-                    ior.setPrevResource(responseBundle.getEntry().get(0).getResource());
+                    ior.setPrevResource(matchedResource);
                     id = ior.getPrevResource().getId();
 
                     // If the id of the input resource is different from the id of the search result,
@@ -522,6 +558,8 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 try {
                     MultivaluedMap<String, String> searchParameters = getQueryParameterMap(searchQueryString);
                     searchParameters.putSingle(SearchConstants.COUNT, Integer.toString(searchPageSize));
+                    // the number of matches is checked against the total
+                    searchParameters.remove(SearchConstants.TOTAL);
                     // TODO add support for collecting the warnings from the search
                     responseBundle = doSearch(type, null, null, searchParameters, null, requestProperties, null);
                 } catch (FHIROperationException e) {
@@ -729,6 +767,77 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         }
     }
 
+    /**
+     * Performs a 'read' operation to retrieve a list of Resources with a single call to the persistence layer.
+     *
+     * @param keys
+     *            the resource types and ids of the Resources to be retrieved
+     * @param includeDeleted
+     *            whether deleted resources should be returned
+     * @param requestProperties
+     *            additional request properties which supplement the HTTP headers associated with this request
+     * @return a list with one entry per key, in key order; entries for Resources that were not found are null
+     * @throws FHIRPersistenceResourceDeletedException
+     *             if one of the Resources is deleted and includeDeleted is false
+     * @throws Exception
+     */
+    @Override
+    public List<Resource> doReadMany(List<ResourceKey> keys, boolean includeDeleted, Map<String, String> requestProperties)
+            throws Exception {
+        log.entering(this.getClass().getName(), "doReadMany");
+
+        if (keys.isEmpty()) {
+            log.exiting(this.getClass().getName(), "doReadMany");
+            return new ArrayList<>();
+        }
+
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+
+        // Save the current request context.
+        FHIRRequestContext requestContext = FHIRRequestContext.get();
+
+        try {
+            // Start a new txn in the persistence layer if one is not already active.
+            txn.begin();
+
+            // First, invoke the 'beforeRead' interceptor methods for each of the resources.
+            List<FHIRPersistenceEvent> events = new ArrayList<>(keys.size());
+            for (ResourceKey key : keys) {
+                FHIRPersistenceEvent event = new FHIRPersistenceEvent(null,
+                        buildPersistenceEventProperties(key.getResourceType().getSimpleName(), key.getLogicalId(), null, requestProperties));
+                getInterceptorMgr().fireBeforeReadEvent(event);
+                events.add(event);
+            }
+
+            FHIRPersistenceContext persistenceContext =
+                    FHIRPersistenceContextFactory.createPersistenceContext(events.get(0), includeDeleted);
+            List<Resource> resources = persistence.readMany(persistenceContext, keys).getResource();
+
+            // Invoke the 'afterRead' interceptor methods for each of the resources.
+            for (int i = 0; i < keys.size(); i++) {
+                FHIRPersistenceEvent event = events.get(i);
+                event.setFhirResource(resources.get(i));
+                getInterceptorMgr().fireAfterReadEvent(event);
+            }
+
+            // Commit our transaction if we started one before.
+            txn.commit();
+            txn = null;
+
+            return resources;
+        } finally {
+            // Restore the original request context.
+            FHIRRequestContext.set(requestContext);
+
+            // If we previously started a transaction and it's still active, we need to rollback due to an error.
+            if (txn != null) {
+                txn.rollback();
+            }
+
+            log.exiting(this.getClass().getName(), "doReadMany");
+        }
+    }
+
     /**
      * Performs a 'vread' operation by retrieving the specified version of a Resource.
      *
@@ -803,18 +912,228 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
     }
 
     /**
-     * Performs the work of retrieving versions of a Resource.
+     * Finds the logical ids of at most two resources that match the search criteria of a conditional create, update or
+     * patch, without counting the matches or retrieving the resources. This requires the persistence layer to support
+     * {@link FHIRPersistence#searchLogicalIds(FHIRPersistenceContext, Class, int)} for the criteria (typically a
+     * single identifier) and no interceptor that implements the 'beforeSearch' or 'afterSearch' method.
+     *
+     * @param type
+     *            the resource type associated with the search
+     * @param searchParameters
+     *            the search criteria
+     * @param requestProperties
+     *            additional request properties which supplement the HTTP headers associated with this request
+     * @return the logical ids of the matches, or null if the search criteria must be resolved with doSearch
+     * @throws Exception
+     */
+    private List<String> searchConditionalMatches(String type, MultivaluedMap<String, String> searchParameters,
+            Map<String, String> requestProperties) throws Exception {
+        if (!ModelSupport.isResourceType(type)
+                || getInterceptorMgr().isImplemented("beforeSearch") || getInterceptorMgr().isImplemented("afterSearch")) {
+            return null;
+        }
+
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+        FHIRRequestContext requestContext = FHIRRequestContext.get();
+        try {
+            Class<? extends Resource> resourceType = getResourceType(type);
+            FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(null, null, resourceType, searchParameters,
+                    HTTPHandlingPreference.LENIENT.equals(requestContext.getHandlingPreference()));
+
+            txn.begin();
+            FHIRPersistenceEvent event =
+                    new FHIRPersistenceEvent(null, buildPersistenceEventProperties(type, null, null, requestProperties));
+            FHIRPersistenceContext persistenceContext =
+                    FHIRPersistenceContextFactory.createPersistenceContext(event, searchContext);
+            List<String> logicalIds;
+            try {
+                logicalIds = persistence.searchLogicalIds(persistenceContext, resourceType, 2);
+            } catch (FHIRPersistenceNotSupportedException e) {
+                logicalIds = null;
+            }
+            txn.commit();
+            txn = null;
+
+            if (logicalIds != null && log.isLoggable(Level.FINE)) {
+                log.fine("Resolved conditional search criteria with a logical id search: " + logicalIds);
+            }
+            return logicalIds;
+        } finally {
+            FHIRRequestContext.set(requestContext);
+            if (txn != null) {
+                txn.rollback();
+            }
+        }
+    }
+
+    /**
+     * Tells whether the response to a read, vread or search interaction can be served from the stored representation
+     * of the resources, without parsing them. This requires the payload pass-through to be enabled and supported by the
+     * persistence layer, no interceptor that implements the given 'after' method (and so needs the parsed resources),
+     * and no query parameters that change which elements or resources are returned.
+     *
+     * @param interceptorMethod
+     *            the interceptor method invoked after the interaction, e.g. "afterRead"
+     * @param queryParameters
+     *            the query parameters from the request URL; may be null
+     * @return true if the doReadPayload, doVReadPayload, doSearchPayloads or doHistoryPayloads method can be used for the interaction
+     */
+    public boolean isPayloadPassThrough(String interceptorMethod, MultivaluedMap<String, String> queryParameters) {
+        if (!FHIRConfigHelper.getBooleanProperty(FHIRConfiguration.PROPERTY_PAYLOAD_PASS_THROUGH, false)
+                || !persistence.isPayloadPassThroughSupported()
+                || getInterceptorMgr().isImplemented(interceptorMethod)) {
+            return false;
+        }
+        if (queryParameters != null) {
+            for (String name : queryParameters.keySet()) {
+                String code = name.split(":")[0];
+                if (SearchConstants.ELEMENTS.equals(code) || SearchConstants.SUMMARY.equals(code)
+                        || SearchConstants.INCLUDE.equals(code) || SearchConstants.REVINCLUDE.equals(code)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Performs a 'read' operation which retrieves the stored representation of a Resource; see
+     * {@link #isPayloadPassThrough(String, MultivaluedMap)}. The 'afterRead' interceptor methods are not invoked.
      *
      * @param type
      *            the resource type associated with the Resource to be retrieved
      * @param id
      *            the id of the Resource to be retrieved
+     * @param requestProperties
+     *            additional request properties which supplement the HTTP headers associated with this request
+     * @return the stored representation of the Resource
+     * @throws Exception
+     */
+    public ResourcePayload doReadPayload(String type, String id, Map<String, String> requestProperties) throws Exception {
+        log.entering(this.getClass().getName(), "doReadPayload");
+
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+
+        // Save the current request context.
+        FHIRRequestContext requestContext = FHIRRequestContext.get();
+
+        try {
+            if (!ModelSupport.isResourceType(type)) {
+                throw buildUnsupportedResourceTypeException(type, IssueType.NOT_SUPPORTED);
+            }
+
+            Class<? extends Resource> resourceType = getResourceType(type);
+
+            // Start a new txn in the persistence layer if one is not already active.
+            txn.begin();
+
+            // First, invoke the 'beforeRead' interceptor methods.
+            FHIRPersistenceEvent event =
+                    new FHIRPersistenceEvent(null, buildPersistenceEventProperties(type, id, null, requestProperties));
+            getInterceptorMgr().fireBeforeReadEvent(event);
+
+            FHIRPersistenceContext persistenceContext = FHIRPersistenceContextFactory.createPersistenceContext(event);
+            ResourcePayload payload = persistence.readPayload(persistenceContext, resourceType, id);
+            if (payload == null) {
+                throw new FHIRPersistenceResourceNotFoundException("Resource '" + type + "/" + id + "' not found.");
+            }
+
+            // Commit our transaction if we started one before.
+            txn.commit();
+            txn = null;
+
+            return payload;
+        } finally {
+            // Restore the original request context.
+            FHIRRequestContext.set(requestContext);
+
+            // If we previously started a transaction and it's still active, we need to rollback due to an error.
+            if (txn != null) {
+                txn.rollback();
+            }
+
+            log.exiting(this.getClass().getName(), "doReadPayload");
+        }
+    }
+
+    /**
+     * Performs a 'vread' operation which retrieves the stored representation of the specified version of a Resource;
+     * see {@link #isPayloadPassThrough(String, MultivaluedMap)}. The 'afterVread' interceptor methods are not invoked.
+     *
+     * @param type
+     *            the resource type associated with the Resource to be retrieved
+     * @param id
+     *            the id of the Resource to be retrieved
+     * @param versionId
+     *            the version id of the Resource to be retrieved
+     * @param requestProperties
+     *            additional request properties which supplement the HTTP headers associated with this request
+     * @return the stored representation of the Resource version
+     * @throws Exception
+     */
+    public ResourcePayload doVReadPayload(String type, String id, String versionId, Map<String, String> requestProperties)
+            throws Exception {
+        log.entering(this.getClass().getName(), "doVReadPayload");
+
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+
+        // Save the current request context.
+        FHIRRequestContext requestContext = FHIRRequestContext.get();
+
+        try {
+            if (!ModelSupport.isResourceType(type)) {
+                throw buildUnsupportedResourceTypeException(type, IssueType.NOT_SUPPORTED);
+            }
+
+            Class<? extends Resource> resourceType = getResourceType(type);
+
+            // Start a new txn in the persistence layer if one is not already active.
+            txn.begin();
+
+            // First, invoke the 'beforeVread' interceptor methods.
+            FHIRPersistenceEvent event =
+                    new FHIRPersistenceEvent(null, buildPersistenceEventProperties(type, id, versionId, requestProperties));
+            getInterceptorMgr().fireBeforeVreadEvent(event);
+
+            FHIRPersistenceContext persistenceContext = FHIRPersistenceContextFactory.createPersistenceContext(event);
+            ResourcePayload payload = persistence.vreadPayload(persistenceContext, resourceType, id, versionId);
+            if (payload == null) {
+                throw new FHIRPersistenceResourceNotFoundException("Resource '"
+                        + resourceType.getSimpleName() + "/" + id + "' version " + versionId + " not found.");
+            }
+
+            // Commit our transaction if we started one before.
+            txn.commit();
+            txn = null;
+
+            return payload;
+        } finally {
+            // Restore the original request context.
+            FHIRRequestContext.set(requestContext);
+
+            // If we previously started a transaction and it's still active, we need to rollback due to an error.
+            if (txn != null) {
+                txn.rollback();
+            }
+
+            log.exiting(this.getClass().getName(), "doVReadPayload");
+        }
+    }
+
+    /**
+     * Performs the work of retrieving versions of a Resource.
+     *
+     * @param type
+     *            the resource type associated with the Resource to be retrieved, or null for system-level history
+     * @param id
+     *            the id of the Resource to be retrieved, or null for type or system-level history
      * @param queryParameters
      *            a Map containing the query parameters from the request URL
      * @param requestUri the URI from the request
      * @param requestProperties
      *            additional request properties which supplement the HTTP headers associated with this request
-     * @return a Bundle containing the history of the specified Resource
+     * @return a Bundle containing the history of the specified Resource, or of all resources of the type
+     *         (or system) in the order they were stored
      * @throws Exception
      */
     @Override
@@ -829,9 +1148,10 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         FHIRRequestContext requestContext = FHIRRequestContext.get();
 
         try {
-            String resourceTypeName = type;
-            if (!ModelSupport.isResourceType(type)) {
-                throw buildUnsupportedResourceTypeException(type, IssueType.NOT_SUPPORTED);
+            // A null type means system-level history
+            String resourceTypeName = type == null ? "Resource" : type;
+            if (!ModelSupport.isResourceType(resourceTypeName)) {
+                throw buildUnsupportedResourceTypeException(resourceTypeName, IssueType.NOT_SUPPORTED);
             }
 
             Class<? extends Resource> resourceType =
@@ -849,10 +1169,19 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
 
             FHIRPersistenceContext persistenceContext =
                     FHIRPersistenceContextFactory.createPersistenceContext(event, historyContext);
-            List<? extends Resource> resources =
-                    persistence.history(persistenceContext, resourceType, id).getResource();
-            bundle = createHistoryBundle(resources, historyContext, type);
+            List<? extends Resource> resources;
+            if (id != null) {
+                resources = persistence.history(persistenceContext, resourceType, id).getResource();
+            } else {
+                // type and system-level history is read from the change log, oldest change first,
+                // and is paged with the _cursor parameter rather than _page
+                resources = persistence.history(persistenceContext, resourceType).getResource();
+            }
+            bundle = createHistoryBundle(resources, historyContext, type, id != null);
             bundle = addLinks(historyContext, bundle, requestUri);
+            if (historyContext.getNextCursor() != null) {
+                bundle = addNextCursorLink(bundle, requestUri, historyContext.getNextCursor());
+            }
 
             event.setFhirResource(bundle);
 
@@ -877,6 +1206,93 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         }
     }
 
+    /**
+     * Performs a 'history' operation whose resource versions are held in their stored representation; see
+     * {@link #isPayloadPassThrough(String, MultivaluedMap)}. The 'afterHistory' interceptor methods are not invoked.
+     *
+     * @param type
+     *            the resource type associated with the Resource to be retrieved, or null for system-level history
+     * @param id
+     *            the id of the Resource to be retrieved, or null for type or system-level history
+     * @param queryParameters
+     *            a Map containing the query parameters from the request URL
+     * @param requestUri the URI from the request
+     * @param requestProperties
+     *            additional request properties which supplement the HTTP headers associated with this request
+     * @return the history Bundle with the stored representation of its resources
+     * @throws Exception
+     */
+    public PayloadBundle doHistoryPayloads(String type, String id, MultivaluedMap<String, String> queryParameters,
+            String requestUri, Map<String, String> requestProperties) throws Exception {
+        log.entering(this.getClass().getName(), "doHistoryPayloads");
+
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+
+        // Save the current request context.
+        FHIRRequestContext requestContext = FHIRRequestContext.get();
+
+        try {
+            // A null type means system-level history
+            String resourceTypeName = type == null ? "Resource" : type;
+            if (!ModelSupport.isResourceType(resourceTypeName)) {
+                throw buildUnsupportedResourceTypeException(resourceTypeName, IssueType.NOT_SUPPORTED);
+            }
+
+            Class<? extends Resource> resourceType = getResourceType(resourceTypeName);
+            FHIRHistoryContext historyContext =
+                    FHIRPersistenceUtil.parseHistoryParameters(queryParameters, HTTPHandlingPreference.LENIENT.equals(requestContext.getHandlingPreference()));
+
+            // Start a new txn in the persistence layer if one is not already active.
+            txn.begin();
+
+            // First, invoke the 'beforeHistory' interceptor methods.
+            FHIRPersistenceEvent event =
+                    new FHIRPersistenceEvent(null, buildPersistenceEventProperties(type, id, null, requestProperties));
+            getInterceptorMgr().fireBeforeHistoryEvent(event);
+
+            FHIRPersistenceContext persistenceContext =
+                    FHIRPersistenceContextFactory.createPersistenceContext(event, historyContext);
+            List<ResourcePayload> payloads;
+            if (id != null) {
+                payloads = persistence.historyPayloads(persistenceContext, resourceType, id);
+            } else {
+                payloads = persistence.historyPayloads(persistenceContext, resourceType);
+            }
+
+            Bundle.Builder bundleBuilder = Bundle.builder()
+                    .type(BundleType.HISTORY)
+                    .id(UUID.randomUUID().toString());
+            if (id != null) {
+                // throws if we have a count of more than 2,147,483,647 resources
+                bundleBuilder.total(UnsignedInt.of(historyContext.getTotalCount()));
+            }
+            for (ResourcePayload payload : payloads) {
+                bundleBuilder.entry(createHistoryEntry(historyContext.getDeletedResources(), type, payload.getResourceType(),
+                        payload.getLogicalId(), payload.getVersionId()));
+            }
+            Bundle bundle = addLinks(historyContext, bundleBuilder.build(), requestUri);
+            if (historyContext.getNextCursor() != null) {
+                bundle = addNextCursorLink(bundle, requestUri, historyContext.getNextCursor());
+            }
+
+            // Commit our transaction if we started one before.
+            txn.commit();
+            txn = null;
+
+            return new PayloadBundle(bundle, payloads);
+        } finally {
+            // Restore the original request context.
+            FHIRRequestContext.set(requestContext);
+
+            // If we previously started a transaction and it's still active, we need to rollback due to an error.
+            if (txn != null) {
+                txn.rollback();
+            }
+
+            log.exiting(this.getClass().getName(), "doHistoryPayloads");
+        }
+    }
+
     /**
      * Performs heavy lifting associated with a 'search' operation.
      *
@@ -956,6 +1372,93 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         }
     }
 
+    /**
+     * Performs a 'search' operation whose result set is held in the stored representation of the resources; see
+     * {@link #isPayloadPassThrough(String, MultivaluedMap)}. The 'afterSearch' interceptor methods are not invoked.
+     *
+     * @param type
+     *            the resource type associated with the search
+     * @param queryParameters
+     *            a Map containing the query parameters from the request URL
+     * @param requestProperties
+     *            additional request properties which supplement the HTTP headers associated with this request
+     * @return the search result Bundle with the stored representation of its resources, or null if the search
+     *         must be run with {@link #doSearch} instead, e.g. because its paging parameters have issues
+     * @throws Exception
+     */
+    public PayloadBundle doSearchPayloads(String type, String compartment, String compartmentId,
+            MultivaluedMap<String, String> queryParameters, String requestUri,
+            Map<String, String> requestProperties) throws Exception {
+        log.entering(this.getClass().getName(), "doSearchPayloads");
+
+        FHIRTransactionHelper txn = new FHIRTransactionHelper(getTransaction());
+
+        // Save the current request context.
+        FHIRRequestContext requestContext = FHIRRequestContext.get();
+
+        try {
+            if (!ModelSupport.isResourceType(type)) {
+                throw buildUnsupportedResourceTypeException(type, IssueType.NOT_SUPPORTED);
+            }
+
+            Class<? extends Resource> resourceType = getResourceType(type);
+
+            // Start a new txn in the persistence layer if one is not already active.
+            txn.begin();
+
+            // First, invoke the 'beforeSearch' interceptor methods.
+            FHIRPersistenceEvent event =
+                    new FHIRPersistenceEvent(null, buildPersistenceEventProperties(type, null, null, requestProperties));
+            getInterceptorMgr().fireBeforeSearchEvent(event);
+
+            FHIRSearchContext searchContext = SearchUtil.parseQueryParameters(compartment, compartmentId, resourceType, queryParameters,
+                    HTTPHandlingPreference.LENIENT.equals(requestContext.getHandlingPreference()));
+
+            FHIRPersistenceContext persistenceContext =
+                    FHIRPersistenceContextFactory.createPersistenceContext(event, searchContext);
+            List<ResourcePayload> payloads;
+            try {
+                payloads = persistence.searchPayloads(persistenceContext, resourceType);
+            } catch (FHIRPersistenceNotSupportedException e) {
+                // e.g. the paging parameters have issues, which only the regular search reports
+                log.fine("Search payloads not supported: " + e.getMessage());
+                return null;
+            }
+
+            Bundle.Builder bundleBuilder = Bundle.builder()
+                    .type(BundleType.SEARCHSET)
+                    .id(UUID.randomUUID().toString());
+            if (searchContext.isTotalCounted()) {
+                // throws if we have a count of more than 2,147,483,647 resources
+                bundleBuilder.total(UnsignedInt.of(searchContext.getTotalCount()));
+            }
+            for (ResourcePayload payload : payloads) {
+                bundleBuilder.entry(Bundle.Entry.builder().fullUrl(Uri.of(getRequestBaseUri(type) + "/"
+                        + payload.getResourceType() + "/" + payload.getLogicalId())).build());
+            }
+            Bundle bundle = bundleBuilder.build();
+            if (requestUri != null) {
+                bundle = addLinks(searchContext, bundle, requestUri);
+            }
+
+            // Commit our transaction if we started one before.
+            txn.commit();
+            txn = null;
+
+            return new PayloadBundle(bundle, payloads);
+        } finally {
+            // Restore the original request context.
+            FHIRRequestContext.set(requestContext);
+
+            // If we previously started a transaction and it's still active, we need to rollback due to an error.
+            if (txn != null) {
+                txn.rollback();
+            }
+
+            log.exiting(this.getClass().getName(), "doSearchPayloads");
+        }
+    }
+
     /**
      * Helper method which invokes a custom operation.
      *
@@ -1643,14 +2146,24 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                             if ("_search".equals(pathTokens[0])) {
                                 resource =
                                         doSearch("Resource", null, null, queryParams, absoluteUri, null, null);
+                            } else if ("_history".equals(pathTokens[0])) {
+                                // This is a system-level 'history' request.
+                                resource =
+                                        doHistory(null, null, queryParams, absoluteUri, null);
                             } else {
                                 resource =
                                         doSearch(pathTokens[0], null, null, queryParams, absoluteUri, null, null);
                             }
                         } else if (pathTokens.length == 2) {
-                            // This is a 'read' request.
-                            resource =
-                                    doRead(pathTokens[0], pathTokens[1], true, false, null, null);
+                            if ("_history".equals(pathTokens[1])) {
+                                // This is a type-level 'history' request.
+                                resource =
+                                        doHistory(pathTokens[0], null, queryParams, absoluteUri, null);
+                            } else {
+                                // This is a 'read' request.
+                                resource =
+                                        doRead(pathTokens[0], pathTokens[1], true, false, null, null);
+                            }
                         } else if (pathTokens.length == 3) {
                             if ("_history".equals(pathTokens[2])) {
                                 // This is a 'history' request.
@@ -2186,13 +2699,14 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
     private Bundle createSearchBundle(List<Resource> resources, FHIRSearchContext searchContext, String type)
         throws Exception {
 
-        // throws if we have a count of more than 2,147,483,647 resources
-        UnsignedInt totalCount = UnsignedInt.of(searchContext.getTotalCount());
-        // generate ID for this bundle and set total
+        // generate ID for this bundle and set total, unless the search was run with _total=none
         Bundle.Builder bundleBuider = Bundle.builder()
                                             .type(BundleType.SEARCHSET)
-                                            .id(UUID.randomUUID().toString())
-                                            .total(totalCount);
+                                            .id(UUID.randomUUID().toString());
+        if (searchContext.isTotalCounted()) {
+            // throws if we have a count of more than 2,147,483,647 resources
+            bundleBuider.total(UnsignedInt.of(searchContext.getTotalCount()));
+        }
 
         for (Resource resource : resources) {
             if (resource.getId() == null) {
@@ -2226,19 +2740,22 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
      *            the FHIRHistoryContext associated with the history operation
      * @param type
      *            the name of the resource type on which the history operation was requested
+     * @param includeTotal
+     *            whether to set the total, which isn't counted for type and system-level history
      * @return the bundle
      * @throws Exception
      */
-    private Bundle createHistoryBundle(List<? extends Resource> resources, FHIRHistoryContext historyContext, String type)
-            throws Exception {
+    private Bundle createHistoryBundle(List<? extends Resource> resources, FHIRHistoryContext historyContext, String type,
+            boolean includeTotal) throws Exception {
 
-        // throws if we have a count of more than 2,147,483,647 resources
-        UnsignedInt totalCount = UnsignedInt.of(historyContext.getTotalCount());
         // generate ID for this bundle and set the "total" field for the bundle
         Bundle.Builder bundleBuilder = Bundle.builder()
                                              .type(BundleType.HISTORY)
-                                             .id(UUID.randomUUID().toString())
-                                             .total(totalCount);
+                                             .id(UUID.randomUUID().toString());
+        if (includeTotal) {
+            // throws if we have a count of more than 2,147,483,647 resources
+            bundleBuilder.total(UnsignedInt.of(historyContext.getTotalCount()));
+        }
 
         Map<String, List<Integer>> deletedResourcesMap = historyContext.getDeletedResources();
 
@@ -2249,40 +2766,61 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
                 throw new IllegalStateException("Returned resources must have an id.");
             }
 
-            Integer versionId = Integer.valueOf(resource.getMeta().getVersionId().getValue());
-            String logicalId = resource.getId();
-            String resourceType = ModelSupport.getTypeName(resource.getClass());
-            List<Integer> deletedVersions = deletedResourcesMap.get(logicalId);
-
-            // Determine the correct method to include in this history entry (POST, PUT, DELETE).
-            HTTPVerb method;
-            if (deletedVersions != null && deletedVersions.contains(versionId)) {
-                method = HTTPVerb.DELETE;
-            } else if (versionId == 1) {
-                method = HTTPVerb.POST;
-            } else {
-                method = HTTPVerb.PUT;
-            }
+            Bundle.Entry entry = createHistoryEntry(deletedResourcesMap, type, ModelSupport.getTypeName(resource.getClass()),
+                    resource.getId(), Integer.valueOf(resource.getMeta().getVersionId().getValue()));
 
-            // Create the 'request' entry, and set the request.url field.
-            // 'create' --> url = "<resourceType>"
-            // 'update'/'delete' --> url = "<resourceType>/<logicalId>"
-            Bundle.Entry.Request request =
-                    Bundle.Entry.Request.builder().method(method).url(Url.of(method == HTTPVerb.POST
-                            ? resourceType : resourceType + "/" + logicalId)).build();
+            bundleBuilder.entry(entry.toBuilder().resource(resource).build());
+        }
 
-            Bundle.Entry.Response response =
-                    Bundle.Entry.Response.builder().status(string("200")).build();
+        return bundleBuilder.build();
+    }
 
-            Bundle.Entry entry =
-                    Bundle.Entry.builder().request(request).fullUrl(Uri.of(getRequestBaseUri(type) + "/"
-                            + resource.getClass().getSimpleName() + "/"
-                            + resource.getId())).response(response).resource(resource).build();
+    /**
+     * Creates the entry (without its resource) for a resource version in the bundle of a history operation.
+     *
+     * @param deletedResourcesMap
+     *            the deleted versions of the history context
+     * @param type
+     *            the name of the resource type on which the history operation was requested
+     * @param resourceType
+     *            the name of the resource type of the resource version
+     * @param logicalId
+     *            the logical id of the resource version
+     * @param versionId
+     *            the version id of the resource version
+     * @return the entry
+     * @throws Exception
+     */
+    private Bundle.Entry createHistoryEntry(Map<String, List<Integer>> deletedResourcesMap, String type, String resourceType,
+            String logicalId, Integer versionId) throws Exception {
+        List<Integer> deletedVersions = deletedResourcesMap.get(logicalId);
+        if (deletedVersions == null) {
+            // type and system-level history keys the deleted versions by resource type and logical id
+            deletedVersions = deletedResourcesMap.get(resourceType + "/" + logicalId);
+        }
 
-            bundleBuilder.entry(entry);
+        // Determine the correct method to include in this history entry (POST, PUT, DELETE).
+        HTTPVerb method;
+        if (deletedVersions != null && deletedVersions.contains(versionId)) {
+            method = HTTPVerb.DELETE;
+        } else if (versionId == 1) {
+            method = HTTPVerb.POST;
+        } else {
+            method = HTTPVerb.PUT;
         }
 
-        return bundleBuilder.build();
+        // Create the 'request' entry, and set the request.url field.
+        // 'create' --> url = "<resourceType>"
+        // 'update'/'delete' --> url = "<resourceType>/<logicalId>"
+        Bundle.Entry.Request request =
+                Bundle.Entry.Request.builder().method(method).url(Url.of(method == HTTPVerb.POST
+                        ? resourceType : resourceType + "/" + logicalId)).build();
+
+        Bundle.Entry.Response response =
+                Bundle.Entry.Response.builder().status(string("200")).build();
+
+        return Bundle.Entry.builder().request(request).fullUrl(Uri.of(getRequestBaseUri(type) + "/"
+                + resourceType + "/" + logicalId)).response(response).build();
     }
 
     /**
@@ -2292,6 +2830,37 @@ public class FHIRRestHelper implements FHIRResourceHelpers {
         return FHIRPersistenceInterceptorMgr.getInstance();
     }
 
+    /**
+     * Adds a 'next' link which continues a type or system-level history at the given cursor.
+     *
+     * @param responseBundle
+     *            the history bundle
+     * @param requestUri
+     *            the request URI, whose _cursor parameter (if any) is replaced
+     * @param nextCursor
+     *            the position in the change log where the next page starts
+     * @return the bundle with the link added
+     * @throws Exception
+     */
+    private Bundle addNextCursorLink(Bundle responseBundle, String requestUri, String nextCursor) throws Exception {
+        int queryLoc = requestUri.indexOf("?");
+        StringBuilder nextLinkUrl = new StringBuilder(queryLoc < 0 ? requestUri : requestUri.substring(0, queryLoc));
+        char separator = '?';
+        if (queryLoc >= 0) {
+            for (String parameter : requestUri.substring(queryLoc + 1).split("&")) {
+                if (!parameter.isEmpty() && !parameter.startsWith("_cursor=")) {
+                    nextLinkUrl.append(separator).append(parameter);
+                    separator = '&';
+                }
+            }
+        }
+        nextLinkUrl.append(separator).append("_cursor=").append(URLEncoder.encode(nextCursor, StandardCharsets.UTF_8.name()));
+
+        Bundle.Link nextLink =
+                Bundle.Link.builder().relation(string("next")).url(Url.of(nextLinkUrl.toString())).build();
+        return responseBundle.toBuilder().link(nextLink).build();
+    }
+
     private Bundle addLinks(FHIRPagingContext context, Bundle responseBundle, String requestUri) throws Exception {
         String selfUri = null;
         SummaryValueSet summaryParameter = null;
@@ -0,0 +1,49 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.util;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.ibm.fhir.model.resource.Bundle;
+import com.ibm.fhir.persistence.ResourcePayload;
+
+/**
+ * A search or history Bundle whose resources are held in their stored representation. The entries of the Bundle
+ * have no resource; the resource of the i-th entry is the i-th payload. The Bundle is written to the response
+ * by the ResourcePayloadProvider, which splices the payloads into the entries.
+ */
+public class PayloadBundle {
+    private final Bundle bundle;
+    private final List<ResourcePayload> payloads;
+
+    /**
+     * @param bundle the Bundle, whose entries have no resource
+     * @param payloads the resource of each entry
+     */
+    public PayloadBundle(Bundle bundle, List<ResourcePayload> payloads) {
+        if (bundle.getEntry().size() != payloads.size()) {
+            throw new IllegalArgumentException("There must be one payload per bundle entry");
+        }
+        this.bundle = bundle;
+        this.payloads = Collections.unmodifiableList(payloads);
+    }
+
+    /**
+     * @return the Bundle, whose entries have no resource
+     */
+    public Bundle getBundle() {
+        return bundle;
+    }
+
+    /**
+     * @return the resource of each entry of the Bundle
+     */
+    public List<ResourcePayload> getPayloads() {
+        return payloads;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.server.filter.rest.FHIRAdmissionControl;
+
+public class FHIRAdmissionControlTest {
+
+    @Test
+    public void testGetInteraction() {
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/Patient/123"), "read");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/Patient/123/_history/2"), "vread");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/Patient/123/_history"), "history");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/Patient/_history"), "history");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/_history"), "history");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/Patient"), "search");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/Patient/123/Observation"), "search");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", null), "search");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/metadata"), "metadata");
+        assertEquals(FHIRAdmissionControl.getInteraction("GET", "/Patient/$validate"), "operation");
+        assertEquals(FHIRAdmissionControl.getInteraction("POST", "/"), "batch");
+        assertEquals(FHIRAdmissionControl.getInteraction("POST", "/Patient"), "create");
+        assertEquals(FHIRAdmissionControl.getInteraction("POST", "/Patient/_search"), "search");
+        assertEquals(FHIRAdmissionControl.getInteraction("POST", "/$export"), "operation");
+        assertEquals(FHIRAdmissionControl.getInteraction("PUT", "/Patient/123"), "update");
+        assertEquals(FHIRAdmissionControl.getInteraction("PATCH", "/Patient/123"), "patch");
+        assertEquals(FHIRAdmissionControl.getInteraction("DELETE", "/Patient/123"), "delete");
+    }
+
+    @Test
+    public void testConcurrencyLimits() throws Exception {
+        FHIRAdmissionControl admissionControl = new FHIRAdmissionControl();
+        try {
+            FHIRAdmissionControl.Limits limits = new FHIRAdmissionControl.Limits(2, 1, 0, 1);
+            FHIRAdmissionControl.Admission read = admissionControl.admit("tenant1", "read", limits);
+
+            // the read slot of the tenant is taken
+            assertRejected(admissionControl, "tenant1", "read", limits);
+            // but not its search slot, nor the slots of other tenants
+            FHIRAdmissionControl.Admission search = admissionControl.admit("tenant1", "search", limits);
+            admissionControl.admit("tenant2", "read", limits).release();
+
+            // now all the slots of the tenant are taken
+            assertRejected(admissionControl, "tenant1", "create", limits);
+
+            read.release();
+            // releasing twice must not free another slot
+            read.release();
+            read = admissionControl.admit("tenant1", "read", limits);
+            assertRejected(admissionControl, "tenant1", "create", limits);
+            read.release();
+            search.release();
+
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.ibm.fhir.server:type=AdmissionControl,tenant=\"tenant1\",interaction=all");
+            assertEquals(mbeanServer.getAttribute(name, "RunningRequests"), 0);
+            assertEquals(mbeanServer.getAttribute(name, "AdmittedRequests"), 3L);
+            assertEquals(mbeanServer.getAttribute(name, "RejectedRequests"), 2L);
+        } finally {
+            admissionControl.shutdown();
+        }
+    }
+
+    @Test
+    public void testNoLimits() throws Exception {
+        FHIRAdmissionControl admissionControl = new FHIRAdmissionControl();
+        try {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+            // without any limit, requests are not tracked at all
+            assertNull(admissionControl.admit("tenant3", "read", new FHIRAdmissionControl.Limits(0, 0, 0, 1)));
+            assertFalse(mbeanServer.isRegistered(new ObjectName("com.ibm.fhir.server:type=AdmissionControl,tenant=\"tenant3\",interaction=all")));
+
+            // and only the limiters of the limits that are set are created
+            admissionControl.admit("tenant3", "read", new FHIRAdmissionControl.Limits(1, 0, 0, 1)).release();
+            assertTrue(mbeanServer.isRegistered(new ObjectName("com.ibm.fhir.server:type=AdmissionControl,tenant=\"tenant3\",interaction=all")));
+            assertFalse(mbeanServer.isRegistered(new ObjectName("com.ibm.fhir.server:type=AdmissionControl,tenant=\"tenant3\",interaction=read")));
+        } finally {
+            admissionControl.shutdown();
+        }
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        FHIRAdmissionControl admissionControl = new FHIRAdmissionControl();
+        try {
+            FHIRAdmissionControl.Limits limits = new FHIRAdmissionControl.Limits(0, 0, 0.1, 2);
+            admissionControl.admit("tenant1", "read", limits).release();
+            admissionControl.admit("tenant1", "read", limits).release();
+            // the burst is used up, and the next token is only available after 10 seconds
+            try {
+                admissionControl.admit("tenant1", "read", limits);
+                throw new AssertionError("expected AdmissionRejectedException");
+            } catch (FHIRAdmissionControl.AdmissionRejectedException e) {
+                assertTrue(e.getRetryAfterSeconds() > 5 && e.getRetryAfterSeconds() <= 10, "retryAfter: " + e.getRetryAfterSeconds());
+            }
+            admissionControl.admit("tenant2", "read", limits).release();
+        } finally {
+            admissionControl.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrencyRejectionRefundsToken() throws Exception {
+        FHIRAdmissionControl admissionControl = new FHIRAdmissionControl();
+        try {
+            // a bucket of two tokens which is practically never refilled
+            FHIRAdmissionControl.Limits limits = new FHIRAdmissionControl.Limits(1, 0, 0.001, 2);
+            FHIRAdmissionControl.Admission read = admissionControl.admit("tenant1", "read", limits);
+            // rejected by the tenant's concurrency limit, not by its rate limit, every time
+            assertRejected(admissionControl, "tenant1", "search", limits);
+            assertRejected(admissionControl, "tenant1", "search", limits);
+            read.release();
+            admissionControl.admit("tenant1", "search", limits).release();
+
+            limits = new FHIRAdmissionControl.Limits(0, 1, 0.001, 2);
+            read = admissionControl.admit("tenant2", "read", limits);
+            // rejected by the interaction's concurrency limit, not by the tenant's rate limit, every time
+            assertRejected(admissionControl, "tenant2", "read", limits);
+            assertRejected(admissionControl, "tenant2", "read", limits);
+            read.release();
+            admissionControl.admit("tenant2", "read", limits).release();
+        } finally {
+            admissionControl.shutdown();
+        }
+    }
+
+    private void assertRejected(FHIRAdmissionControl admissionControl, String tenantId, String interaction, FHIRAdmissionControl.Limits limits)
+            throws Exception {
+        try {
+            admissionControl.admit(tenantId, interaction, limits);
+            throw new AssertionError("expected AdmissionRejectedException");
+        } catch (FHIRAdmissionControl.AdmissionRejectedException e) {
+            assertEquals(e.getRetryAfterSeconds(), 1);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.config.FHIRRequestContext;
+import com.ibm.fhir.model.resource.Patient;
+import com.ibm.fhir.server.util.FHIRRequestExecutor;
+
+public class FHIRRequestExecutorTest {
+    private static final Patient PATIENT = Patient.builder().id("1").build();
+    private static final Map<String, Patient> PATIENTS = Collections.singletonMap("1", PATIENT);
+
+    @Test
+    public void testRequestContext() throws Exception {
+        FHIRRequestExecutor executor = new FHIRRequestExecutor(Executors.newFixedThreadPool(2), 0, 0, 0);
+        try {
+            FHIRRequestContext requestContext = new FHIRRequestContext("tenant1", "profile");
+            AtomicReference<FHIRRequestContext> taskContext = new AtomicReference<>();
+            CountDownLatch done = new CountDownLatch(1);
+            executor.execute(requestContext, () -> {
+                taskContext.set(FHIRRequestContext.get());
+                done.countDown();
+            }, () -> {});
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertSame(taskContext.get(), requestContext);
+        } finally {
+            executor.shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testTenantMaxConcurrency() throws Exception {
+        FHIRRequestExecutor executor = new FHIRRequestExecutor(Executors.newFixedThreadPool(4), 1, 10, 0);
+        try {
+            FHIRRequestContext slowTenant = new FHIRRequestContext("slow");
+            FHIRRequestContext otherTenant = new FHIRRequestContext("other");
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch slowDone = new CountDownLatch(3);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            for (int i = 0; i < 3; i++) {
+                executor.execute(slowTenant, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    slowDone.countDown();
+                }, () -> {});
+            }
+
+            // the other tenant isn't held up by the tasks of the slow tenant
+            CountDownLatch otherDone = new CountDownLatch(1);
+            executor.execute(otherTenant, otherDone::countDown, () -> {});
+            assertTrue(otherDone.await(10, TimeUnit.SECONDS));
+
+            release.countDown();
+            assertTrue(slowDone.await(10, TimeUnit.SECONDS));
+            assertEquals(maxRunning.get(), 1);
+        } finally {
+            executor.shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testTenantMaxWaiting() throws Exception {
+        FHIRRequestExecutor executor = new FHIRRequestExecutor(Executors.newFixedThreadPool(2), 1, 1, 0);
+        try {
+            FHIRRequestContext tenant = new FHIRRequestContext("tenant1");
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(2);
+            Runnable task = () -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            };
+
+            // one task runs and one waits, so the third is rejected
+            executor.execute(tenant, task, () -> {});
+            executor.execute(tenant, task, () -> {});
+            try {
+                executor.execute(tenant, task, () -> {});
+                fail("the task should have been rejected");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testRejectWaitingOnShutdown() throws Exception {
+        FHIRRequestExecutor executor = new FHIRRequestExecutor(Executors.newFixedThreadPool(2), 1, 10, 0);
+        FHIRRequestContext tenant = new FHIRRequestContext("tenant1");
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        CountDownLatch rejected = new CountDownLatch(3);
+
+        executor.execute(tenant, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, () -> fail("the running task should not be rejected"));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            executor.execute(tenant, ran::incrementAndGet, rejected::countDown);
+        }
+
+        // the running task doesn't complete in time, so it is interrupted and the waiting tasks are rejected
+        executor.shutdown(100, TimeUnit.MILLISECONDS);
+        assertTrue(rejected.await(10, TimeUnit.SECONDS));
+        assertEquals(ran.get(), 0);
+    }
+
+    @Test
+    public void testResumeWithRead() throws Exception {
+        FHIRRequestExecutor executor = new FHIRRequestExecutor(Executors.newFixedThreadPool(2), 0, 0, 0);
+        try {
+            FHIRRequestContext requestContext = new FHIRRequestContext("tenant1");
+            AtomicReference<FHIRRequestContext> readContext = new AtomicReference<>();
+            MockAsyncResponse asyncResponse = new MockAsyncResponse();
+            executor.execute(requestContext, asyncResponse, () -> {
+                readContext.set(FHIRRequestContext.get());
+                return read("1");
+            }, FHIRRequestExecutorTest::unavailable);
+
+            Response response = (Response) asyncResponse.awaitResponse();
+            assertEquals(response.getStatus(), Status.OK.getStatusCode());
+            assertSame(response.getEntity(), PATIENT);
+            assertSame(readContext.get(), requestContext);
+            assertEquals(asyncResponse.getTimeoutSeconds(), 0);
+        } finally {
+            executor.shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testTimeoutWhileWaiting() throws Exception {
+        FHIRRequestExecutor executor = new FHIRRequestExecutor(Executors.newFixedThreadPool(2), 1, 10, 30);
+        AtomicInteger reads = new AtomicInteger();
+        try {
+            FHIRRequestContext tenant = new FHIRRequestContext("tenant1");
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch blockerDone = new CountDownLatch(1);
+            executor.execute(tenant, () -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                blockerDone.countDown();
+            }, () -> {});
+
+            // the read waits for the running task of the tenant and times out before it can run
+            MockAsyncResponse asyncResponse = new MockAsyncResponse();
+            executor.execute(tenant, asyncResponse, () -> {
+                reads.incrementAndGet();
+                return read("1");
+            }, FHIRRequestExecutorTest::unavailable);
+            assertEquals(asyncResponse.getTimeoutSeconds(), 30);
+            assertFalse(asyncResponse.isDone());
+            asyncResponse.timeout();
+
+            Response response = (Response) asyncResponse.awaitResponse();
+            assertEquals(response.getStatus(), Status.SERVICE_UNAVAILABLE.getStatusCode());
+            assertTrue(response.getEntity() instanceof TimeoutException);
+
+            release.countDown();
+            assertTrue(blockerDone.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown(10, TimeUnit.SECONDS);
+        }
+        assertEquals(reads.get(), 0);
+    }
+
+    @Test
+    public void testRejectAfterShutdown() throws Exception {
+        FHIRRequestExecutor executor = new FHIRRequestExecutor(Executors.newFixedThreadPool(2), 0, 0, 0);
+        executor.shutdown(10, TimeUnit.SECONDS);
+
+        AtomicInteger reads = new AtomicInteger();
+        MockAsyncResponse asyncResponse = new MockAsyncResponse();
+        executor.execute(new FHIRRequestContext("tenant1"), asyncResponse, () -> {
+            reads.incrementAndGet();
+            return read("1");
+        }, FHIRRequestExecutorTest::unavailable);
+
+        Response response = (Response) asyncResponse.awaitResponse();
+        assertEquals(response.getStatus(), Status.SERVICE_UNAVAILABLE.getStatusCode());
+        assertTrue(response.getEntity() instanceof RejectedExecutionException);
+        assertEquals(reads.get(), 0);
+    }
+
+    @Test
+    public void testManagedExecutorIsNotShutDown() throws Exception {
+        ExecutorService managedExecutor = Executors.newFixedThreadPool(2);
+        try {
+            FHIRRequestExecutor executor = new FHIRRequestExecutor(managedExecutor, true, 1, 10, 0);
+            FHIRRequestContext tenant = new FHIRRequestContext("tenant1");
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute(tenant, () -> {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, () -> fail("the running task should not be rejected"));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            MockAsyncResponse waiting = new MockAsyncResponse();
+            executor.execute(tenant, waiting, () -> read("1"), FHIRRequestExecutorTest::unavailable);
+
+            // the lifecycle of a managed executor belongs to the container, but the waiting read is rejected
+            executor.shutdown(100, TimeUnit.MILLISECONDS);
+            assertFalse(managedExecutor.isShutdown());
+            Response response = (Response) waiting.awaitResponse();
+            assertEquals(response.getStatus(), Status.SERVICE_UNAVAILABLE.getStatusCode());
+
+            try {
+                executor.execute(tenant, () -> {}, () -> {});
+                fail("the task should have been rejected");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            release.countDown();
+        } finally {
+            managedExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stands in for the read interaction of the REST layer.
+     */
+    private static Response read(String id) {
+        Patient patient = PATIENTS.get(id);
+        return patient == null ? Response.status(Status.NOT_FOUND).build() : Response.ok(patient).build();
+    }
+
+    private static Response unavailable(Exception e) {
+        return Response.status(Status.SERVICE_UNAVAILABLE).entity(e).build();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.server.test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+
+/**
+ * Mock implementation of AsyncResponse for use during testing, which records the object that it is resumed with.
+ * The timeout is not scheduled; it is triggered by calling {@link #timeout()}.
+ */
+public class MockAsyncResponse implements AsyncResponse {
+    private final CountDownLatch resumed = new CountDownLatch(1);
+    private volatile Object response;
+    private volatile TimeoutHandler timeoutHandler;
+    private volatile long timeoutSeconds = 0;
+
+    /**
+     * Invokes the timeout handler, as the container would when the timeout expires.
+     */
+    public void timeout() {
+        timeoutHandler.handleTimeout(this);
+    }
+
+    /**
+     * Waits for the response to be resumed and returns the object that it was resumed with.
+     */
+    public Object awaitResponse() throws InterruptedException {
+        if (!resumed.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The response was not resumed");
+        }
+        return response;
+    }
+
+    public long getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    @Override
+    public synchronized boolean resume(Object response) {
+        if (isDone()) {
+            return false;
+        }
+        this.response = response;
+        resumed.countDown();
+        return true;
+    }
+
+    @Override
+    public boolean resume(Throwable response) {
+        return resume((Object) response);
+    }
+
+    @Override
+    public boolean cancel() {
+        return false;
+    }
+
+    @Override
+    public boolean cancel(int retryAfter) {
+        return false;
+    }
+
+    @Override
+    public boolean cancel(Date retryAfter) {
+        return false;
+    }
+
+    @Override
+    public boolean isSuspended() {
+        return !isDone();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return resumed.getCount() == 0;
+    }
+
+    @Override
+    public boolean setTimeout(long time, TimeUnit unit) {
+        timeoutSeconds = unit.toSeconds(time);
+        return true;
+    }
+
+    @Override
+    public void setTimeoutHandler(TimeoutHandler handler) {
+        timeoutHandler = handler;
+    }
+
+    @Override
+    public Collection<Class<?>> register(Class<?> callback) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Collection<Class<?>> register(Object callback) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+        return Collections.emptyMap();
+    }
+}
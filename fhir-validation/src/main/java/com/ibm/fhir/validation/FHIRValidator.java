@@ -17,6 +17,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,13 +40,16 @@ import com.ibm.fhir.path.evaluator.FHIRPathEvaluator.EvaluationContext;
 import com.ibm.fhir.path.visitor.FHIRPathDefaultNodeVisitor;
 import com.ibm.fhir.profile.ProfileSupport;
 import com.ibm.fhir.validation.exception.FHIRValidationException;
+import com.ibm.fhir.validation.util.ValidationPlanner;
 
 public class FHIRValidator {
     private static final Logger log = Logger.getLogger(FHIRValidator.class.getName());
 
-    private final ValidatingNodeVisitor visitor = new ValidatingNodeVisitor();
+    private final ValidatingNodeVisitor visitor;
 
-    private FHIRValidator() { }
+    private FHIRValidator(ForkJoinPool pool) {
+        visitor = new ValidatingNodeVisitor(pool);
+    }
 
     /**
      * Validate a {@link Resource} against constraints in the base specification and
@@ -170,8 +175,44 @@ public class FHIRValidator {
         }
     }
 
+    /**
+     * Create a validator that evaluates constraints on the calling thread.
+     *
+     * @return
+     *     a new validator
+     */
     public static FHIRValidator validator() {
-        return new FHIRValidator();
+        return new FHIRValidator(null);
+    }
+
+    /**
+     * Create a validator that optionally evaluates constraints in parallel using the common {@link ForkJoinPool}.
+     *
+     * @param parallel
+     *     whether or not to evaluate constraints in parallel
+     * @return
+     *     a new validator
+     * @see #validator(ForkJoinPool)
+     */
+    public static FHIRValidator validator(boolean parallel) {
+        return new FHIRValidator(parallel ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Create a validator that evaluates constraints in parallel using the passed {@link ForkJoinPool}.
+     *
+     * <p>The constraint evaluations for the nodes of the resource and for each of the profiles are partitioned
+     * across the pool. All partitions share the {@link FHIRPathTree} of the evaluation context and the issues are
+     * merged in the same (document) order that serial validation would produce them. Small resources are
+     * validated on the calling thread.
+     *
+     * @param pool
+     *     the pool used to evaluate constraints
+     * @return
+     *     a new validator
+     */
+    public static FHIRValidator validator(ForkJoinPool pool) {
+        return new FHIRValidator(Objects.requireNonNull(pool));
     }
 
     /**
@@ -223,61 +264,171 @@ public class FHIRValidator {
         }
     }
 
+    /**
+     * Collects the constraints to evaluate for each node of the FHIRPath tree (in document order) and evaluates
+     * them, either on the calling thread or partitioned across a {@link ForkJoinPool}.
+     */
     private static class ValidatingNodeVisitor extends FHIRPathDefaultNodeVisitor {
-        private FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
-        private EvaluationContext evaluationContext;
+        // the minimum number of validations evaluated by a single fork/join task
+        private static final int SEQUENTIAL_THRESHOLD = 32;
+
+        private final ForkJoinPool pool;
+        private final FHIRPathEvaluator evaluator = FHIRPathEvaluator.evaluator();
         private boolean includeResourceAssertedProfiles;
         private List<String> profiles;
 
-        private List<Issue> issues = new ArrayList<>();
+        private final List<Validation> validations = new ArrayList<>();
 
-        private ValidatingNodeVisitor() { }
+        private ValidatingNodeVisitor(ForkJoinPool pool) {
+            this.pool = pool;
+        }
 
         private List<Issue> validate(EvaluationContext evaluationContext, boolean includeResourceAssertedProfiles, String... profiles) {
             reset();
-            this.evaluationContext = evaluationContext;
             this.includeResourceAssertedProfiles = includeResourceAssertedProfiles;
             this.profiles = Arrays.asList(profiles);
-            this.evaluationContext.getTree().getRoot().accept(this);
-            return issues;
+            try {
+                evaluationContext.getTree().getRoot().accept(this);
+                if (pool != null && validations.size() > SEQUENTIAL_THRESHOLD) {
+                    return pool.invoke(new ValidationTask(evaluationContext, validations, 0, validations.size()));
+                }
+                return new ConstraintValidator(evaluator, evaluationContext).validate(validations, 0, validations.size());
+            } finally {
+                reset();
+            }
         }
 
         private void reset() {
-            issues.clear();
+            validations.clear();
         }
 
         @Override
         public void doVisit(FHIRPathElementNode node) {
-            validate(node);
+            Class<?> elementType = node.element().getClass();
+            addValidation(elementType, node, ModelSupport.getConstraints(elementType));
         }
 
         @Override
         public void doVisit(FHIRPathResourceNode node) {
-            validate(node);
+            Class<?> resourceType = node.resource().getClass();
+            addValidation(resourceType, node, ModelSupport.getConstraints(resourceType));
+            List<String> profiles = new ArrayList<>();
+            if (includeResourceAssertedProfiles) {
+                List<String> resourceAssertedProfiles = ProfileSupport.getResourceAssertedProfiles(node.resource());
+                List<Issue> issues = new ArrayList<>();
+                validateProfileReferences(node, resourceAssertedProfiles, true, issues);
+                if (!issues.isEmpty()) {
+                    validations.add(new Validation(issues));
+                }
+                profiles.addAll(resourceAssertedProfiles);
+            }
+            if (!this.profiles.isEmpty() && !node.path().contains(".")) {
+                profiles.addAll(this.profiles);
+            }
+            // merged, de-duplicated and ordered constraints of the resource-asserted and specified profiles
+            addValidation(resourceType, node, ValidationPlanner.getConstraints(profiles, resourceType));
         }
 
-        /**
-         * @throws RuntimeException if the registered constraints cannot be evaluated for the passed element node
-         */
-        private void validate(FHIRPathElementNode elementNode) {
-            Class<?> elementType = elementNode.element().getClass();
-            validate(elementType, elementNode, ModelSupport.getConstraints(elementType));
+        private void addValidation(Class<?> type, FHIRPathNode node, Collection<Constraint> constraints) {
+            if (!constraints.isEmpty()) {
+                validations.add(new Validation(type, node, constraints));
+            }
+        }
+    }
+
+    /**
+     * The constraints to evaluate for a single node, or a list of issues that were generated while
+     * collecting the constraints.
+     */
+    private static class Validation {
+        private final Class<?> type;
+        private final FHIRPathNode node;
+        private final Collection<Constraint> constraints;
+        private final List<Issue> issues;
+
+        private Validation(Class<?> type, FHIRPathNode node, Collection<Constraint> constraints) {
+            this.type = type;
+            this.node = node;
+            this.constraints = constraints;
+            this.issues = Collections.emptyList();
+        }
+
+        private Validation(List<Issue> issues) {
+            this.type = null;
+            this.node = null;
+            this.constraints = Collections.emptyList();
+            this.issues = issues;
+        }
+    }
+
+    /**
+     * Evaluates a range of validations, splitting it in half until the range is small enough to be evaluated by
+     * a single task. Each task evaluates its range using its own evaluator and evaluation context (sharing the
+     * FHIRPath tree) and the issues of the two halves are concatenated in order.
+     */
+    private static class ValidationTask extends RecursiveTask<List<Issue>> {
+        private static final long serialVersionUID = 1L;
+
+        private final EvaluationContext evaluationContext;
+        private final List<Validation> validations;
+        private final int start;
+        private final int end;
+
+        private ValidationTask(EvaluationContext evaluationContext, List<Validation> validations, int start, int end) {
+            this.evaluationContext = evaluationContext;
+            this.validations = validations;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<Issue> compute() {
+            if (end - start <= ValidatingNodeVisitor.SEQUENTIAL_THRESHOLD) {
+                ConstraintValidator constraintValidator = new ConstraintValidator(FHIRPathEvaluator.evaluator(), new EvaluationContext(evaluationContext));
+                return constraintValidator.validate(validations, start, end);
+            }
+            int middle = (start + end) >>> 1;
+            ValidationTask left = new ValidationTask(evaluationContext, validations, start, middle);
+            ValidationTask right = new ValidationTask(evaluationContext, validations, middle, end);
+            left.fork();
+            List<Issue> rightIssues = right.compute();
+            List<Issue> leftIssues = left.join();
+            if (rightIssues.isEmpty()) {
+                return leftIssues;
+            }
+            List<Issue> issues = new ArrayList<>(leftIssues.size() + rightIssues.size());
+            issues.addAll(leftIssues);
+            issues.addAll(rightIssues);
+            return issues;
+        }
+    }
+
+    /**
+     * Evaluates constraints against the nodes of a FHIRPath tree using a single evaluator and evaluation context.
+     */
+    private static class ConstraintValidator {
+        private final FHIRPathEvaluator evaluator;
+        private final EvaluationContext evaluationContext;
+
+        private final List<Issue> issues = new ArrayList<>();
+
+        private ConstraintValidator(FHIRPathEvaluator evaluator, EvaluationContext evaluationContext) {
+            this.evaluator = evaluator;
+            this.evaluationContext = evaluationContext;
         }
 
         /**
-         * @throws RuntimeException if the registered constraints cannot be evaluated for the passed resource node
+         * @throws RuntimeException if one of the constraints cannot be evaluated for its node
          */
-        private void validate(FHIRPathResourceNode resourceNode) {
-            Class<?> resourceType = resourceNode.resource().getClass();
-            validate(resourceType, resourceNode, ModelSupport.getConstraints(resourceType));
-            if (includeResourceAssertedProfiles) {
-                List<String> resourceAssertedProfiles = ProfileSupport.getResourceAssertedProfiles(resourceNode.resource());
-                validateProfileReferences(resourceNode, resourceAssertedProfiles, true, issues);
-                validate(resourceType, resourceNode, ProfileSupport.getConstraints(resourceAssertedProfiles, resourceType));
-            }
-            if (!profiles.isEmpty() && !resourceNode.path().contains(".")) {
-                validate(resourceType, resourceNode, ProfileSupport.getConstraints(profiles, resourceType));
+        private List<Issue> validate(List<Validation> validations, int start, int end) {
+            for (int i = start; i < end; i++) {
+                Validation validation = validations.get(i);
+                issues.addAll(validation.issues);
+                if (!validation.constraints.isEmpty()) {
+                    validate(validation.type, validation.node, validation.constraints);
+                }
             }
+            return issues;
         }
 
         /**
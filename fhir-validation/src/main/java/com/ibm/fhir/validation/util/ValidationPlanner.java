@@ -0,0 +1,137 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.validation.util;
+
+import static com.ibm.fhir.core.util.LRUCache.createLRUCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ibm.fhir.model.annotation.Constraint;
+import com.ibm.fhir.model.util.ModelSupport;
+import com.ibm.fhir.profile.ProfileSupport;
+import com.ibm.fhir.registry.FHIRRegistry;
+
+/**
+ * A utility class that plans the profile constraints to evaluate for a resource type and a combination of profiles.
+ *
+ * <p>The constraints of all profiles are merged and de-duplicated by location and expression. Constraints that are
+ * already part of the model constraints for the resource type are dropped, because the validator evaluates those for
+ * every resource node anyway. Where the same check appears at different levels, the stricter one (rule) is kept.
+ * Constraints that depend on terminology, profile or reference resolution (e.g. memberOf, conformsTo, resolve)
+ * are ordered after the structural ones. Non-empty plans are cached per resource type and profile combination, until
+ * a registry resource provider is added to the {@link FHIRRegistry}.
+ */
+public final class ValidationPlanner {
+    private static final int PLAN_CACHE_SIZE = 1024;
+    private static final Map<String, List<Constraint>> PLAN_CACHE = createLRUCache(PLAN_CACHE_SIZE);
+
+    private static final String[] EXPENSIVE_FUNCTIONS = { "memberOf(", "conformsTo(", "resolve(", "subsumes(", "subsumedBy(" };
+
+    static {
+        FHIRRegistry.getInstance().addRegistrationListener(PLAN_CACHE::clear);
+    }
+
+    private ValidationPlanner() { }
+
+    /**
+     * Get the planned list of profile constraints for the passed resource type and profiles.
+     *
+     * @param profiles
+     *     the profile references (unknown or inapplicable profiles are ignored)
+     * @param type
+     *     the resource type
+     * @return
+     *     an unmodifiable, de-duplicated and ordered list of profile constraints
+     */
+    public static List<Constraint> getConstraints(List<String> profiles, Class<?> type) {
+        if (profiles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String key = type.getName() + "|" + String.join(",", profiles);
+        List<Constraint> plan = PLAN_CACHE.get(key);
+        if (plan == null) {
+            plan = plan(ProfileSupport.getConstraints(profiles, type), type);
+            if (!plan.isEmpty()) {
+                // an empty plan may be the result of profiles that are not (yet) in the registry
+                PLAN_CACHE.put(key, plan);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Plan the passed profile constraints for the passed resource type.
+     *
+     * @param constraints
+     *     the constraints of one or more profiles, in profile order
+     * @param type
+     *     the resource type
+     * @return
+     *     an unmodifiable, de-duplicated and ordered list of profile constraints
+     */
+    public static List<Constraint> plan(List<Constraint> constraints, Class<?> type) {
+        Set<String> modelKeys = new HashSet<>();
+        for (Constraint constraint : ModelSupport.getConstraints(type)) {
+            modelKeys.add(getKey(constraint));
+        }
+
+        Map<String, Constraint> constraintMap = new LinkedHashMap<>();
+        for (Constraint constraint : constraints) {
+            String key = getKey(constraint);
+            if (modelKeys.contains(key)) {
+                continue;
+            }
+            Constraint existing = constraintMap.get(key);
+            if (existing == null || (Constraint.LEVEL_WARNING.equals(existing.level()) && Constraint.LEVEL_RULE.equals(constraint.level()))) {
+                // keeps the position of the first occurrence
+                constraintMap.put(key, constraint);
+            }
+        }
+
+        List<Constraint> plan = new ArrayList<>(constraintMap.size());
+        List<Constraint> expensive = new ArrayList<>();
+        for (Constraint constraint : constraintMap.values()) {
+            if (isExpensive(constraint)) {
+                expensive.add(constraint);
+            } else {
+                plan.add(constraint);
+            }
+        }
+        plan.addAll(expensive);
+
+        return Collections.unmodifiableList(plan);
+    }
+
+    /**
+     * Determine whether the passed constraint uses a function that requires terminology, profile or reference
+     * resolution.
+     *
+     * @param constraint
+     *     the constraint
+     * @return
+     *     true if the constraint is expensive to evaluate, false otherwise
+     */
+    public static boolean isExpensive(Constraint constraint) {
+        String expression = constraint.expression();
+        for (String function : EXPENSIVE_FUNCTIONS) {
+            if (expression.contains(function)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getKey(Constraint constraint) {
+        return constraint.location() + "|" + constraint.expression();
+    }
+}
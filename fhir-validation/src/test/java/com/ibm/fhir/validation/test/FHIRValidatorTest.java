@@ -16,6 +16,7 @@ import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -23,6 +24,7 @@ import org.testng.annotations.Test;
 import com.ibm.fhir.model.format.Format;
 import com.ibm.fhir.model.generator.FHIRGenerator;
 import com.ibm.fhir.model.parser.FHIRParser;
+import com.ibm.fhir.model.resource.ExplanationOfBenefit;
 import com.ibm.fhir.model.resource.Observation;
 import com.ibm.fhir.model.resource.OperationOutcome.Issue;
 import com.ibm.fhir.model.resource.Patient;
@@ -180,4 +182,19 @@ public class FHIRValidatorTest {
             Assert.assertEquals(countErrors(issues), 0);
         }
     }
+
+    @Test
+    public void testParallelValidation() throws Exception {
+        try (InputStream in = FHIRValidatorTest.class.getClassLoader().getResourceAsStream("JSON/explanationofbenefit.json")) {
+            ExplanationOfBenefit explanationOfBenefit = FHIRParser.parser(Format.JSON).parse(in);
+            List<Issue> expected = FHIRValidator.validator().validate(explanationOfBenefit);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                List<Issue> actual = FHIRValidator.validator(pool).validate(explanationOfBenefit);
+                Assert.assertEquals(actual, expected);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
 }
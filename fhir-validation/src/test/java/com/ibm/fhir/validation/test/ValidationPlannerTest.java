@@ -0,0 +1,95 @@
+/*
+ * (C) Copyright IBM Corp. 2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.fhir.validation.test;
+
+import static com.ibm.fhir.profile.ProfileSupport.createConstraint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ibm.fhir.model.annotation.Constraint;
+import com.ibm.fhir.model.resource.Observation;
+import com.ibm.fhir.model.resource.Resource;
+import com.ibm.fhir.registry.FHIRRegistry;
+import com.ibm.fhir.registry.resource.FHIRRegistryResource;
+import com.ibm.fhir.registry.spi.FHIRRegistryResourceProvider;
+import com.ibm.fhir.validation.util.ValidationPlanner;
+
+public class ValidationPlannerTest {
+    @Test
+    public void testPlan() {
+        Constraint binding = createConstraint("generated-1", Constraint.LEVEL_RULE, "Observation.code", "", "memberOf('http://example.com/ValueSet/vs1', 'required')", false, true);
+        Constraint cardinality = createConstraint("generated-2", Constraint.LEVEL_WARNING, "Observation.code", "", "coding.exists()", false, true);
+        Constraint duplicateBinding = createConstraint("generated-3", Constraint.LEVEL_RULE, "Observation.code", "", "memberOf('http://example.com/ValueSet/vs1', 'required')", false, true);
+        Constraint strictCardinality = createConstraint("generated-4", Constraint.LEVEL_RULE, "Observation.code", "", "coding.exists()", false, true);
+        Constraint model = createConstraint("obs-6", Constraint.LEVEL_RULE, Constraint.LOCATION_BASE, "", "dataAbsentReason.empty() or value.empty()", false, false);
+
+        List<Constraint> plan = ValidationPlanner.plan(Arrays.asList(binding, cardinality, duplicateBinding, strictCardinality, model), Observation.class);
+
+        // de-duplicated, stricter level kept, model constraint dropped, cheap check first
+        assertEquals(plan, Arrays.asList(strictCardinality, binding));
+        assertTrue(ValidationPlanner.isExpensive(binding));
+    }
+
+    @Test
+    public void testPlanCache() {
+        List<String> profiles = Collections.singletonList("http://hl7.org/fhir/StructureDefinition/vitalsigns");
+        List<Constraint> plan = ValidationPlanner.getConstraints(profiles, Observation.class);
+        assertFalse(plan.isEmpty());
+        assertSame(ValidationPlanner.getConstraints(profiles, Observation.class), plan);
+
+        // adding a registry resource provider clears the cache
+        FHIRRegistry.getInstance().register(new EmptyResourceProvider());
+        List<Constraint> replanned = ValidationPlanner.getConstraints(profiles, Observation.class);
+        assertNotSame(replanned, plan);
+        assertEquals(replanned, plan);
+    }
+
+    @Test
+    public void testEmptyPlanNotCached() {
+        List<String> profiles = Collections.singletonList("http://example.com/StructureDefinition/unknown");
+        List<Constraint> plan = ValidationPlanner.getConstraints(profiles, Observation.class);
+        assertTrue(plan.isEmpty());
+        assertNotSame(ValidationPlanner.getConstraints(profiles, Observation.class), plan);
+    }
+
+    private static class EmptyResourceProvider implements FHIRRegistryResourceProvider {
+        @Override
+        public FHIRRegistryResource getRegistryResource(Class<? extends Resource> resourceType, String url, String version) {
+            return null;
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getRegistryResources(Class<? extends Resource> resourceType) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getRegistryResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getProfileResources(String type) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FHIRRegistryResource> getSearchParameterResources(String type) {
+            return Collections.emptyList();
+        }
+    }
+}